@@ -3,6 +3,7 @@ package com.stanfy.enroscar.async.internal;
 import com.stanfy.enroscar.async.Async;
 import com.stanfy.enroscar.async.Load;
 import com.stanfy.enroscar.async.Send;
+import com.stanfy.enroscar.async.content.CursorModel;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
 
 /**
  * @author Roman Mazur - Stanfy (http://stanfy.com)
@@ -32,6 +34,7 @@ public final class AsyncProcessor extends AbstractProcessor {
     return new HashSet<>(Arrays.asList(
         Load.class.getCanonicalName(),
         Send.class.getCanonicalName(),
+        CursorModel.class.getCanonicalName(),
         Rx.LOAD,
         Rx.SEND
     ));
@@ -58,6 +61,16 @@ public final class AsyncProcessor extends AbstractProcessor {
       generateCode(e.getKey(), e.getValue());
     }
 
+    for (Element e : roundEnv.getElementsAnnotatedWith(CursorModel.class)) {
+      if (!(e instanceof TypeElement)) {
+        continue;
+      }
+      CursorReaderGenerator reader = new CursorReaderGenerator(processingEnv, (TypeElement) e);
+      if (reader.validate()) {
+        reader.generateCode();
+      }
+    }
+
     return false;
   }
 
@@ -95,6 +108,15 @@ public final class AsyncProcessor extends AbstractProcessor {
         continue;
       }
 
+      if (operatorTypeSupport == TypeSupport.RX && GenUtils.getLane(method).length() > 0) {
+        processingEnv.getMessager().printMessage(WARNING, "Lane of @" + annotation.getSimpleName()
+            + " is ignored for methods returning rx.Observable, use subscribeOn()", method);
+      }
+      if (operatorTypeSupport == TypeSupport.RX && GenUtils.getCacheTtl(method) > 0) {
+        processingEnv.getMessager().printMessage(WARNING, "Results of methods returning"
+            + " rx.Observable are not cached, use cache() operator", method);
+      }
+
       TypeSupport loaderDescriptionTypeSupport = operatorTypeSupport;
       if (Rx.hasRx() && (annotation == Rx.rxLoad() || annotation == Rx.rxSend())) {
         loaderDescriptionTypeSupport = TypeSupport.RX;
@@ -0,0 +1,247 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.squareup.javawriter.JavaWriter;
+import com.stanfy.enroscar.async.content.Column;
+import com.stanfy.enroscar.async.content.CursorConverter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.JavaFileObject;
+
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.VOLATILE;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+/**
+ * Generates {@link CursorConverter} implementations for classes annotated with
+ * {@code @CursorModel}.
+ */
+final class CursorReaderGenerator {
+
+  /** Cursor class. */
+  private static final String CURSOR = "android.database.Cursor";
+
+  /** Read expressions of supported types. {@code %s} is replaced with column index. */
+  private static final Map<String, String> READERS = new HashMap<>();
+  static {
+    READERS.put("int", "cursor.getInt(%s)");
+    READERS.put("long", "cursor.getLong(%s)");
+    READERS.put("short", "cursor.getShort(%s)");
+    READERS.put("byte", "(byte) cursor.getShort(%s)");
+    READERS.put("double", "cursor.getDouble(%s)");
+    READERS.put("float", "cursor.getFloat(%s)");
+    READERS.put("boolean", "cursor.getInt(%s) != 0");
+    READERS.put("java.lang.String", "cursor.getString(%s)");
+    READERS.put("byte[]", "cursor.getBlob(%s)");
+    READERS.put("java.lang.Integer", "cursor.isNull(%1$s) ? null : Integer.valueOf(cursor.getInt(%1$s))");
+    READERS.put("java.lang.Long", "cursor.isNull(%1$s) ? null : Long.valueOf(cursor.getLong(%1$s))");
+    READERS.put("java.lang.Short", "cursor.isNull(%1$s) ? null : Short.valueOf(cursor.getShort(%1$s))");
+    READERS.put("java.lang.Byte", "cursor.isNull(%1$s) ? null : Byte.valueOf((byte) cursor.getShort(%1$s))");
+    READERS.put("java.lang.Double", "cursor.isNull(%1$s) ? null : Double.valueOf(cursor.getDouble(%1$s))");
+    READERS.put("java.lang.Float", "cursor.isNull(%1$s) ? null : Float.valueOf(cursor.getFloat(%1$s))");
+    READERS.put("java.lang.Boolean", "cursor.isNull(%1$s) ? null : Boolean.valueOf(cursor.getInt(%1$s) != 0)");
+  }
+
+  /** Environment. */
+  private final ProcessingEnvironment env;
+
+  /** Model class. */
+  private final TypeElement model;
+
+  /** Package name. */
+  private final String packageName;
+
+  /** Generated class name. */
+  private final String className;
+
+  /** Model fields. */
+  private final List<FieldData> fields = new ArrayList<>();
+
+  CursorReaderGenerator(final ProcessingEnvironment env, final TypeElement model) {
+    this.env = env;
+    this.model = model;
+    this.packageName = env.getElementUtils().getPackageOf(model).getQualifiedName().toString();
+    this.className = GenUtils.getGeneratedClassName(packageName, model.getQualifiedName().toString(),
+        GenUtils.SUFFIX_CURSOR_READER);
+  }
+
+  String getFqcn() {
+    return packageName.length() > 0 ? packageName + "." + className : className;
+  }
+
+  /**
+   * Collect model fields and report errors.
+   * @return whether code can be generated
+   */
+  boolean validate() {
+    boolean valid = true;
+    if (model.getKind() != ElementKind.CLASS || model.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(model, "@CursorModel must annotate a non-abstract class");
+      return false;
+    }
+    for (Element e = model; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      // inner classes require an outer instance
+      if (e.getModifiers().contains(PRIVATE)
+          || e.getEnclosingElement() instanceof TypeElement && !e.getModifiers().contains(STATIC)) {
+        error(model, "@CursorModel class must be accessible from its package"
+            + " and must not be an inner class");
+        return false;
+      }
+    }
+    boolean hasConstructor = false;
+    for (ExecutableElement c : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+      if (c.getParameters().isEmpty() && !c.getModifiers().contains(PRIVATE)) {
+        hasConstructor = true;
+      }
+    }
+    if (!hasConstructor) {
+      error(model, "@CursorModel class must have a non-private constructor without parameters");
+      valid = false;
+    }
+
+    for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+      Column column = field.getAnnotation(Column.class);
+      if (column == null) {
+        continue;
+      }
+      Set<Modifier> modifiers = field.getModifiers();
+      if (modifiers.contains(PRIVATE) || modifiers.contains(FINAL) || modifiers.contains(STATIC)) {
+        error(field, "@Column field must not be private, final or static");
+        valid = false;
+        continue;
+      }
+      String type = field.asType().toString();
+      String reader = READERS.get(type);
+      if (reader == null) {
+        error(field, "Type " + type + " is not supported by @Column");
+        valid = false;
+        continue;
+      }
+      String name = field.getSimpleName().toString();
+      fields.add(new FieldData(name, column.value().length() > 0 ? column.value() : name, reader));
+    }
+    if (valid && fields.isEmpty()) {
+      error(model, "@CursorModel class does not have fields annotated with @Column");
+      valid = false;
+    }
+    return valid;
+  }
+
+  void generateCode() {
+    Writer out = null;
+    try {
+      JavaFileObject jfo = env.getFiler().createSourceFile(getFqcn(), model);
+      out = jfo.openWriter();
+      write(new JavaWriter(out));
+      out.flush();
+    } catch (IOException e) {
+      error(model, "Cannot generate cursor reader for " + model + ": " + e.getMessage());
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          // nothing
+        }
+      }
+    }
+  }
+
+  private void write(final JavaWriter w) throws IOException {
+    String modelType = model.getQualifiedName().toString();
+
+    w.emitSingleLineComment("Code generated by Enroscar. Do not edit.");
+    w.emitPackage(packageName);
+    w.emitImports(CURSOR, CursorConverter.class.getName());
+    w.emitEmptyLine();
+
+    w.emitJavadoc("Reads {@link %s} from cursor rows.%n"
+        + "Column indexes are resolved once per cursor.", w.compressType(modelType));
+    Set<Modifier> modifiers = model.getModifiers().contains(PUBLIC)
+        ? EnumSet.of(PUBLIC, FINAL)
+        : EnumSet.of(FINAL);
+    w.beginType(className, "class", modifiers, null,
+        "CursorConverter<" + w.compressType(modelType) + ">");
+    w.emitEmptyLine();
+
+    w.emitJavadoc("Column indexes of the last used cursor.");
+    w.emitField("Columns", "columns", EnumSet.of(PRIVATE, VOLATILE));
+    w.emitEmptyLine();
+
+    w.emitAnnotation(Override.class);
+    w.beginMethod(w.compressType(modelType), "toObject", EnumSet.of(PUBLIC), "final Cursor", "cursor");
+    w.emitStatement("Columns c = columns");
+    w.beginControlFlow("if (c == null || c.cursor != cursor)");
+    w.emitStatement("c = new Columns(cursor)");
+    w.emitStatement("columns = c");
+    w.endControlFlow();
+    w.emitStatement("%1$s result = new %1$s()", w.compressType(modelType));
+    for (FieldData f : fields) {
+      w.emitStatement("result.%s = " + f.reader, f.field, "c." + f.indexField());
+    }
+    w.emitStatement("return result");
+    w.endMethod();
+    w.emitEmptyLine();
+
+    w.emitJavadoc("Column indexes.");
+    w.beginType("Columns", "class", EnumSet.of(PRIVATE, STATIC, FINAL));
+    w.emitField("Cursor", "cursor", EnumSet.of(FINAL));
+    for (FieldData f : fields) {
+      w.emitField("int", f.indexField(), EnumSet.of(FINAL));
+    }
+    w.emitEmptyLine();
+    w.beginConstructor(EnumSet.noneOf(Modifier.class), "final Cursor", "cursor");
+    w.emitStatement("this.cursor = cursor");
+    for (FieldData f : fields) {
+      w.emitStatement("%s = cursor.getColumnIndexOrThrow(%s)", f.indexField(),
+          JavaWriter.stringLiteral(f.column));
+    }
+    w.endConstructor();
+    w.endType();
+
+    w.endType();
+  }
+
+  private void error(final Element element, final String message) {
+    env.getMessager().printMessage(ERROR, message, element);
+  }
+
+  /** Model field. */
+  private static final class FieldData {
+    /** Field name. */
+    final String field;
+    /** Column name. */
+    final String column;
+    /** Read expression format. */
+    final String reader;
+
+    FieldData(final String field, final String column, final String reader) {
+      this.field = field;
+      this.column = column;
+      this.reader = reader;
+    }
+
+    String indexField() {
+      return field + "Index";
+    }
+  }
+
+}
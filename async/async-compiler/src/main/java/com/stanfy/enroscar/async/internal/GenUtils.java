@@ -2,6 +2,7 @@ package com.stanfy.enroscar.async.internal;
 
 import com.squareup.javawriter.JavaWriter;
 import com.stanfy.enroscar.async.Load;
+import com.stanfy.enroscar.async.Send;
 
 import java.io.IOException;
 import java.io.StringWriter;
@@ -58,6 +59,8 @@ final class GenUtils {
   public static final String SUFFIX_OPERATOR = "Operator";
   /** Generated class name suffix. */
   public static final String SUFFIX_LOADER_DESC = "$$LoaderDescription";
+  /** Generated class name suffix. */
+  public static final String SUFFIX_CURSOR_READER = "CursorReader";
 
   public static String getGeneratedClassName(final String packageName, final String name, final String suffix) {
     String base = name;
@@ -101,6 +104,37 @@ final class GenUtils {
         || (Rx.hasRx() && method.getAnnotation(Rx.rxLoad()) != null);
   }
 
+  /** @return lane declared for a method, empty string if not declared */
+  static String getLane(final ExecutableElement method) {
+    Load load = method.getAnnotation(Load.class);
+    if (load != null) {
+      return load.lane();
+    }
+    Send send = method.getAnnotation(Send.class);
+    if (send != null) {
+      return send.lane();
+    }
+    return "";
+  }
+
+  /** @return result time to live declared for a method, 0 if results are not cached */
+  static long getCacheTtl(final ExecutableElement method) {
+    Load load = method.getAnnotation(Load.class);
+    return load != null ? load.cacheTtl() : 0;
+  }
+
+  /** @return expression that creates an array of method arguments */
+  static String argumentsArray(final ExecutableElement method) {
+    String params = invocationParams(method);
+    return "new Object[] {" + params.substring(1, params.length() - 1) + "}";
+  }
+
+  /** @return operation name used for statistics: {@code OperationsClass.method} */
+  static String getOperationName(final ExecutableElement method) {
+    TypeElement type = (TypeElement) method.getEnclosingElement();
+    return type.getQualifiedName() + "." + method.getSimpleName();
+  }
+
   public static String capitalize(final String s) {
     char first = Character.toUpperCase(s.charAt(0));
     return s.length() > 1 ? first + s.substring(1) : String.valueOf(first);
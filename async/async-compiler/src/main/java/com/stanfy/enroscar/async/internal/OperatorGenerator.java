@@ -93,7 +93,7 @@ final class OperatorGenerator extends BaseGenerator {
       int loaderId = getLoaderId(m);
 
       w.beginMethod("void", m.getSimpleName().toString(), EnumSet.of(PUBLIC), parameters(w, m), null);
-      w.emitStatement(data.operatorTypeSupport.asyncProvider(w, m));
+      w.emitStatement(data.operatorTypeSupport.asyncProvider(w, m, false));
       w.emitStatement("%sLoader(%d, provider, %b)", load ? "init" : "restart", loaderId, !load);
       w.endMethod();
       w.emitEmptyLine();
@@ -102,7 +102,7 @@ final class OperatorGenerator extends BaseGenerator {
         // force method
         w.beginMethod("void", "force" + capitalize(m.getSimpleName().toString()),
             EnumSet.of(PUBLIC), parameters(w, m), null);
-        w.emitStatement(data.operatorTypeSupport.asyncProvider(w, m));
+        w.emitStatement(data.operatorTypeSupport.asyncProvider(w, m, true));
         w.emitStatement("restartLoader(%d, provider, false)", loaderId);
         w.endMethod();
         w.emitEmptyLine();
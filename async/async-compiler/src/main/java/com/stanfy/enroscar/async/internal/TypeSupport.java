@@ -10,6 +10,7 @@ import java.util.Set;
 
 import javax.lang.model.element.ExecutableElement;
 
+import static com.squareup.javawriter.JavaWriter.stringLiteral;
 import static com.stanfy.enroscar.async.internal.GenUtils.*;
 
 /**
@@ -17,7 +18,11 @@ import static com.stanfy.enroscar.async.internal.GenUtils.*;
  */
 interface TypeSupport {
 
-  String asyncProvider(JavaWriter w, ExecutableElement method);
+  /**
+   * @param force whether the provider is used by a {@code force} method
+   *              and must not reuse cached or running operations
+   */
+  String asyncProvider(JavaWriter w, ExecutableElement method, boolean force);
 
   Set<String> operatorImports();
 
@@ -45,12 +50,21 @@ interface TypeSupport {
     }
 
     @Override
-    public String asyncProvider(final JavaWriter w, final ExecutableElement method) {
+    public String asyncProvider(final JavaWriter w, final ExecutableElement method,
+                                final boolean force) {
       String type = w.compressType(AsyncProvider.class.getName() + "<" + getDataType(method) + ">");
+      String operation = stringLiteral(getOperationName(method));
+      String async = "route(getOperations()." + invocation(method) + ", "
+          + stringLiteral(getLane(method)) + ", " + operation + ")";
+      long ttl = getCacheTtl(method);
+      if (ttl > 0) {
+        async = "memoize(" + async + ", " + ttl + "L, " + operation + ", "
+            + argumentsArray(method) + (force ? ", true" : "") + ")";
+      }
       return type + " provider = new " + type + "() {\n"
           + "  @Override\n"
           + "  public " + w.compressType(getReturnType(method)) + " provideAsync() {\n"
-          + "    return getOperations()." + invocation(method) + ";\n"
+          + "    return " + async + ";\n"
           + "  }\n"
           + "}";
     }
@@ -105,7 +119,8 @@ interface TypeSupport {
     }
 
     @Override
-    public String asyncProvider(final JavaWriter w, final ExecutableElement method) {
+    public String asyncProvider(final JavaWriter w, final ExecutableElement method,
+                                final boolean force) {
       String type = w.compressType(PROVIDER + "<" + getDataType(method) + ">");
       return type + " provider = new " + type + "() {\n"
           + "  @Override\n"
@@ -96,6 +96,17 @@ public class AsyncProcessorTest {
   }
 
   private JavaFileObject loadExpectedOperatorSource(final String className) {
+    return loadExpectedOperatorSource(className, "");
+  }
+
+  private JavaFileObject loadExpectedOperatorSource(final String className, final String lane) {
+    String async = "route(getOperations().operation(a1, a2), \"" + lane + "\", \""
+        + className + ".operation\")";
+    return loadExpectedOperatorSource(className, async, async);
+  }
+
+  private JavaFileObject loadExpectedOperatorSource(final String className, final String async,
+                                                    final String forceAsync) {
     String base = className.replace(".", "");
     return JavaFileObjects.forSourceString(base + "Operator",
         Joiner.on('\n').join(
@@ -127,7 +138,7 @@ public class AsyncProcessorTest {
             "     AsyncProvider<String> provider = new AsyncProvider<String>() {",
             "       @Override",
             "       public Async<String> provideAsync() {",
-            "         return getOperations().operation(a1, a2);",
+            "         return " + async + ";",
             "       }",
             "     };",
             "     initLoader(" + LOADER_ID_START + ", provider, false);",
@@ -137,7 +148,7 @@ public class AsyncProcessorTest {
             "    AsyncProvider<String> provider = new AsyncProvider<String>() {",
             "      @Override",
             "      public Async<String> provideAsync() {",
-            "        return getOperations().operation(a1, a2);",
+            "        return " + forceAsync + ";",
             "      }",
             "    };",
             "    restartLoader(" + LOADER_ID_START + ", provider, false);",
@@ -152,6 +163,40 @@ public class AsyncProcessorTest {
     );
   }
 
+  @Test
+  public void declaredLaneShouldBeRouted() throws Exception {
+    JavaFileObject file = JavaFileObjects.forSourceString("Operations", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.async.Load;",
+        "import com.stanfy.enroscar.async.Async;",
+        "import " + AsyncStub.class.getCanonicalName() + ";",
+        "class Operations {",
+        "  @Load(lane = \"io\") Async<String> operation(int a1, String a2) { return new AsyncStub(); }",
+        "}"));
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(processor)
+        .compilesWithoutError().and()
+        .generatesSources(loadExpectedOperatorSource("Operations", "io"));
+  }
+
+  @Test
+  public void cachedLoadShouldBeMemoized() throws Exception {
+    JavaFileObject file = JavaFileObjects.forSourceString("Operations", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.async.Load;",
+        "import com.stanfy.enroscar.async.Async;",
+        "import " + AsyncStub.class.getCanonicalName() + ";",
+        "class Operations {",
+        "  @Load(cacheTtl = 1000) Async<String> operation(int a1, String a2) { return new AsyncStub(); }",
+        "}"));
+
+    String async = "memoize(route(getOperations().operation(a1, a2), \"\", \"Operations.operation\"),"
+        + " 1000L, \"Operations.operation\", new Object[] {a1, a2}";
+    ASSERT.about(javaSource())
+        .that(file).processedWith(processor)
+        .compilesWithoutError().and()
+        .generatesSources(loadExpectedOperatorSource("Operations", async + ")", async + ", true)"));
+  }
+
   private JavaFileObject loaderDescriptionExpected(final String className) {
     String base = className.replace(".", "");
 
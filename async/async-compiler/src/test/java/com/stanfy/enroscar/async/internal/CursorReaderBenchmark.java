@@ -0,0 +1,103 @@
+package com.stanfy.enroscar.async.internal;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import com.stanfy.enroscar.async.content.Column;
+import com.stanfy.enroscar.async.content.CursorConverter;
+import com.stanfy.enroscar.async.content.CursorModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Compares the reader generated for a {@link CursorModel} class
+ * with a converter that looks up columns by name for each row.
+ * Not a part of the test suite: run {@link #benchmark()} manually.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class CursorReaderBenchmark {
+
+  /** Parameters. */
+  private static final int ROWS = 20000, ROUNDS = 5;
+
+  /** Columns. */
+  private static final String[] COLUMNS = {"_id", "name", "price", "visible", "rating"};
+
+  @Test
+  public void benchmark() {
+    MatrixCursor cursor = new MatrixCursor(COLUMNS, ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      cursor.addRow(new Object[] {i, "item " + i, i * 0.5, i % 2, i % 3 == 0 ? null : i % 5});
+    }
+
+    CursorConverter<Item> generated = new CursorReaderBenchmarkItemCursorReader();
+    CursorConverter<Item> byName = new ByNameConverter();
+    while (cursor.moveToNext()) {
+      assertThat(generated.toObject(cursor)).isEqualTo(byName.toObject(cursor));
+    }
+
+    for (int round = 0; round < ROUNDS; round++) {
+      long byNameTime = measure(cursor, byName);
+      long generatedTime = measure(cursor, generated);
+      System.out.println("round " + round + ": by column name " + byNameTime / 1000000
+          + " ms, generated reader " + generatedTime / 1000000 + " ms");
+    }
+  }
+
+  private static long measure(final Cursor cursor, final CursorConverter<Item> converter) {
+    long start = System.nanoTime();
+    cursor.moveToPosition(-1);
+    while (cursor.moveToNext()) {
+      converter.toObject(cursor);
+    }
+    return System.nanoTime() - start;
+  }
+
+  /** Model. The reader is generated when tests are compiled. */
+  @CursorModel
+  static class Item {
+    @Column("_id") long id;
+    @Column String name;
+    @Column double price;
+    @Column boolean visible;
+    @Column Integer rating;
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Item)) {
+        return false;
+      }
+      Item item = (Item) o;
+      return id == item.id && name.equals(item.name) && price == item.price
+          && visible == item.visible
+          && (rating == null ? item.rating == null : rating.equals(item.rating));
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) id;
+    }
+  }
+
+  /** Converter that resolves columns for each row. */
+  private static final class ByNameConverter implements CursorConverter<Item> {
+    @Override
+    public Item toObject(final Cursor cursor) {
+      Item item = new Item();
+      item.id = cursor.getLong(cursor.getColumnIndex("_id"));
+      item.name = cursor.getString(cursor.getColumnIndex("name"));
+      item.price = cursor.getDouble(cursor.getColumnIndex("price"));
+      item.visible = cursor.getInt(cursor.getColumnIndex("visible")) != 0;
+      int rating = cursor.getColumnIndex("rating");
+      item.rating = cursor.isNull(rating) ? null : cursor.getInt(rating);
+      return item;
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static org.truth0.Truth.ASSERT;
+
+/**
+ * Tests for cursor readers generation.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, emulateSdk = 18)
+public class CursorReaderGeneratorTest {
+
+  /** Processor. */
+  private final AsyncProcessor processor = new AsyncProcessor();
+
+  @Test
+  public void shouldGenerateReader() {
+    JavaFileObject file = JavaFileObjects.forSourceString("Item", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.async.content.Column;",
+        "import com.stanfy.enroscar.async.content.CursorModel;",
+        "@CursorModel",
+        "public class Item {",
+        "  @Column(\"_id\") long id;",
+        "  @Column String name;",
+        "  @Column boolean visible;",
+        "  @Column Integer rating;",
+        "  @Column byte[] data;",
+        "  String notMapped;",
+        "}"));
+
+    JavaFileObject expected = JavaFileObjects.forSourceString("ItemCursorReader",
+        Joiner.on('\n').join(
+            "import android.database.Cursor;",
+            "import com.stanfy.enroscar.async.content.CursorConverter;",
+
+            "public final class ItemCursorReader implements CursorConverter<Item> {",
+
+            "  private volatile Columns columns;",
+
+            "  @Override",
+            "  public Item toObject(final Cursor cursor) {",
+            "    Columns c = columns;",
+            "    if (c == null || c.cursor != cursor) {",
+            "      c = new Columns(cursor);",
+            "      columns = c;",
+            "    }",
+            "    Item result = new Item();",
+            "    result.id = cursor.getLong(c.idIndex);",
+            "    result.name = cursor.getString(c.nameIndex);",
+            "    result.visible = cursor.getInt(c.visibleIndex) != 0;",
+            "    result.rating = cursor.isNull(c.ratingIndex) ? null"
+                + " : Integer.valueOf(cursor.getInt(c.ratingIndex));",
+            "    result.data = cursor.getBlob(c.dataIndex);",
+            "    return result;",
+            "  }",
+
+            "  private static final class Columns {",
+            "    final Cursor cursor;",
+            "    final int idIndex;",
+            "    final int nameIndex;",
+            "    final int visibleIndex;",
+            "    final int ratingIndex;",
+            "    final int dataIndex;",
+            "    Columns(final Cursor cursor) {",
+            "      this.cursor = cursor;",
+            "      idIndex = cursor.getColumnIndexOrThrow(\"_id\");",
+            "      nameIndex = cursor.getColumnIndexOrThrow(\"name\");",
+            "      visibleIndex = cursor.getColumnIndexOrThrow(\"visible\");",
+            "      ratingIndex = cursor.getColumnIndexOrThrow(\"rating\");",
+            "      dataIndex = cursor.getColumnIndexOrThrow(\"data\");",
+            "    }",
+            "  }",
+
+            "}"
+        )
+    );
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(processor)
+        .compilesWithoutError().and()
+        .generatesSources(expected);
+  }
+
+  @Test
+  public void modelErrors() {
+    JavaFileObject file = JavaFileObjects.forSourceString("Bad", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.async.content.Column;",
+        "import com.stanfy.enroscar.async.content.CursorModel;",
+        "@CursorModel",
+        "class Bad {",
+        "  @Column private int hidden;",
+        "  @Column char symbol;",
+        "  @Column final long constant = 1;",
+        "}"));
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(processor)
+        .failsToCompile()
+        .withErrorContaining("private").in(file).onLine(5).and()
+        .withErrorContaining("not supported").in(file).onLine(6).and()
+        .withErrorContaining("final").in(file).onLine(7);
+  }
+
+  @Test
+  public void innerClassShouldBeRejected() {
+    JavaFileObject file = JavaFileObjects.forSourceString("Outer", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.async.content.Column;",
+        "import com.stanfy.enroscar.async.content.CursorModel;",
+        "class Outer {",
+        "  @CursorModel",
+        "  class Inner {",
+        "    @Column int value;",
+        "  }",
+        "}"));
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(processor)
+        .failsToCompile()
+        .withErrorContaining("inner class").in(file).onLine(5);
+  }
+
+}
@@ -159,7 +159,7 @@ public class RxTest {
             "    AsyncProvider<String> provider = new AsyncProvider<String>() {",
             "      @Override",
             "      public Async<String> provideAsync() {",
-            "        return getOperations().operation(a);",
+            "        return route(getOperations().operation(a), \"\", \"A.operation\");",
             "      }",
             "    };",
             "    initLoader(" + LOADER_ID_START + ", provider, false);",
@@ -169,7 +169,7 @@ public class RxTest {
             "    AsyncProvider<String> provider = new AsyncProvider<String>() {",
             "      @Override",
             "      public Async<String> provideAsync() {",
-            "        return getOperations().operation(a);",
+            "        return route(getOperations().operation(a), \"\", \"A.operation\");",
             "      }",
             "    };",
             "    restartLoader(" + LOADER_ID_START + ", provider, false);",
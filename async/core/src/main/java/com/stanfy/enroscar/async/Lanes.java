@@ -0,0 +1,127 @@
+package com.stanfy.enroscar.async;
+
+import android.os.Process;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of named executors (lanes) that can be referenced in {@link Load#lane()} and
+ * {@link Send#lane()}.
+ * <p>
+ *   Two lanes are predefined: {@link #IO} for blocking operations like network or disk access
+ *   and {@link #COMPUTE} for CPU-bound work. Other lanes must be registered with
+ *   {@link #register(String, Executor)} before operations are started, e.g. to route database
+ *   operations to a Goro queue:
+ * </p>
+ * <pre>
+ *   Lanes.register("db", goro.getExecutor("db"));
+ * </pre>
+ * <p>
+ *   Generated operators also record how long each operation waits in the queue and how long
+ *   it runs, see {@link #getStats(String)}.
+ * </p>
+ */
+public final class Lanes {
+
+  /** Lane for blocking I/O operations. */
+  public static final String IO = "io";
+
+  /** Lane for CPU-bound operations. */
+  public static final String COMPUTE = "compute";
+
+  /** Threads count of I/O lane. */
+  private static final int IO_THREADS = 4;
+
+  /** Registered executors. */
+  private static final ConcurrentHashMap<String, Executor> EXECUTORS = new ConcurrentHashMap<>();
+
+  /** Operation statistics. */
+  private static final ConcurrentHashMap<String, OperationStats> STATS = new ConcurrentHashMap<>();
+
+  private Lanes() { }
+
+  /**
+   * Register an executor for a lane. Replaces an executor registered before.
+   * @param name lane name
+   * @param executor executor instance
+   */
+  public static void register(final String name, final Executor executor) {
+    if (name == null || name.length() == 0) {
+      throw new IllegalArgumentException("Lane name must not be empty");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor must not be null");
+    }
+    EXECUTORS.put(name, executor);
+  }
+
+  /**
+   * @param name lane name
+   * @return executor registered for a lane
+   * @throws IllegalStateException if there is no such a lane
+   */
+  public static Executor getExecutor(final String name) {
+    Executor executor = EXECUTORS.get(name);
+    if (executor != null) {
+      return executor;
+    }
+    if (IO.equals(name)) {
+      executor = createPool("IO", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+    } else if (COMPUTE.equals(name)) {
+      executor = createPool("Compute", Runtime.getRuntime().availableProcessors(),
+          Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    } else {
+      throw new IllegalStateException("Lane '" + name + "' is not registered");
+    }
+    Executor existing = EXECUTORS.putIfAbsent(name, executor);
+    if (existing != null) {
+      ((ThreadPoolExecutor) executor).shutdown();
+      return existing;
+    }
+    return executor;
+  }
+
+  /**
+   * @param operation operation name in form of {@code OperationsClass.method}
+   * @return statistics of operation executions, never {@code null}
+   */
+  public static OperationStats getStats(final String operation) {
+    OperationStats stats = STATS.get(operation);
+    if (stats == null) {
+      stats = new OperationStats(operation);
+      OperationStats existing = STATS.putIfAbsent(operation, stats);
+      if (existing != null) {
+        stats = existing;
+      }
+    }
+    return stats;
+  }
+
+  private static Executor createPool(final String name, final int threads, final int priority) {
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      /** Threads counter. */
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      public Thread newThread(@SuppressWarnings("NullableProblems") final Runnable r) {
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            Process.setThreadPriority(priority);
+            r.run();
+          }
+        }, "Async " + name + " #" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+}
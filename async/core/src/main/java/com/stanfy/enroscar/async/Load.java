@@ -13,4 +13,26 @@ import static java.lang.annotation.ElementType.METHOD;
 @Retention(SOURCE)
 @Target(METHOD)
 public @interface Load {
+
+  /**
+   * Name of the execution lane used to perform an operation returned by the annotated method.
+   * Empty value means that the executor defined by {@code Async} itself is used.
+   * Lanes are applied to {@code Async} instances created with
+   * {@link Tools#async(java.util.concurrent.Callable)} or {@link Tools#asyncCursor(android.content.Context)}
+   * that do not define an executor explicitly.
+   * @see Lanes
+   */
+  String lane() default "";
+
+  /**
+   * Time in milliseconds during which a result of the annotated method is kept in
+   * {@link ResultsCache}. Zero (default) disables caching.
+   * Results are cached per method and its arguments (which should implement
+   * {@code equals()}), concurrent calls with equal arguments share one running operation.
+   * Errors and results of operations implementing {@link Releaser} are not cached.
+   * {@code force} methods of generated operators discard a cached result and start a new
+   * operation instead of joining a running one.
+   */
+  long cacheTtl() default 0;
+
 }
@@ -0,0 +1,72 @@
+package com.stanfy.enroscar.async;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution statistics of an operation described with {@link Load} or {@link Send}.
+ * Queued time is measured from the moment an operation is passed to its executor
+ * till it is started.
+ * @see Lanes#getStats(String)
+ */
+public final class OperationStats {
+
+  /** Operation name. */
+  private final String operation;
+
+  /** Count of executions. */
+  private int count;
+
+  /** Times, nanoseconds. */
+  private long totalQueued, totalRunning, maxQueued;
+
+  OperationStats(final String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * Record one execution.
+   * @param queued queued time in nanoseconds
+   * @param running running time in nanoseconds
+   */
+  public synchronized void record(final long queued, final long running) {
+    count++;
+    totalQueued += queued;
+    totalRunning += running;
+    if (queued > maxQueued) {
+      maxQueued = queued;
+    }
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  /** @return count of finished executions */
+  public synchronized int getCount() {
+    return count;
+  }
+
+  /** @return total time operations spent waiting for an executor thread */
+  public synchronized long getTotalQueuedTime(final TimeUnit unit) {
+    return unit.convert(totalQueued, TimeUnit.NANOSECONDS);
+  }
+
+  /** @return total time operations were running */
+  public synchronized long getTotalRunningTime(final TimeUnit unit) {
+    return unit.convert(totalRunning, TimeUnit.NANOSECONDS);
+  }
+
+  /** @return max time an operation spent waiting for an executor thread */
+  public synchronized long getMaxQueuedTime(final TimeUnit unit) {
+    return unit.convert(maxQueued, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "OperationStats{" + operation + ": count=" + count
+        + ", queued=" + TimeUnit.NANOSECONDS.toMillis(totalQueued) + "ms"
+        + ", running=" + TimeUnit.NANOSECONDS.toMillis(totalRunning) + "ms"
+        + ", maxQueued=" + TimeUnit.NANOSECONDS.toMillis(maxQueued) + "ms}";
+  }
+
+}
@@ -0,0 +1,194 @@
+package com.stanfy.enroscar.async;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory cache for results of {@link Load} operations that declare
+ * {@link Load#cacheTtl()}.
+ * <p>
+ *   Results are kept in LRU order. The cache budget is measured in units defined by
+ *   {@link Sizer}, the default sizer counts each result as 1, so the budget is the max count
+ *   of cached results.
+ * </p>
+ * <p>
+ *   {@link #get(Object, long)}, {@link #put(Object, Object)} and {@link #remove(Object)}
+ *   are used by generated operators.
+ * </p>
+ */
+public final class ResultsCache {
+
+  /** Default budget. */
+  private static final int DEFAULT_MAX_SIZE = 64;
+
+  /** Default sizer. */
+  private static final Sizer COUNTING_SIZER = new Sizer() {
+    @Override
+    public int sizeOf(final Object value) {
+      return 1;
+    }
+  };
+
+  /** Instance. */
+  private static final ResultsCache INSTANCE = new ResultsCache();
+
+  /** Entries in access order. */
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Budget. */
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  /** Current size. */
+  private int size;
+
+  /** Sizer. */
+  private Sizer sizer = COUNTING_SIZER;
+
+  /** Statistics. */
+  private int hitCount, missCount, evictionCount;
+
+  ResultsCache() { }
+
+  public static ResultsCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Set the cache budget. Entries that exceed it are evicted immediately.
+   * @param maxSize max total size of cached results
+   */
+  public synchronized void setMaxSize(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Negative size " + maxSize);
+    }
+    this.maxSize = maxSize;
+    trim();
+  }
+
+  /**
+   * Set an object that estimates result sizes.
+   * Cache is cleared since sizes of existing entries become invalid.
+   * @param sizer sizer instance, {@code null} means each entry has size 1
+   */
+  public synchronized void setSizer(final Sizer sizer) {
+    this.sizer = sizer != null ? sizer : COUNTING_SIZER;
+    clear();
+  }
+
+  /** Remove all cached results. */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * @param key result key
+   * @param ttl time to live in milliseconds
+   * @return cached value or {@code null} if there is no value younger than {@code ttl}
+   */
+  public synchronized Object get(final Object key, final long ttl) {
+    Entry entry = entries.get(key);
+    if (entry != null
+        && System.nanoTime() - entry.time > TimeUnit.MILLISECONDS.toNanos(ttl)) {
+      removeEntry(key);
+      entry = null;
+    }
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.value;
+  }
+
+  /**
+   * Store a result.
+   * @param key result key
+   * @param value result value, {@code null} is not cached
+   */
+  public synchronized void put(final Object key, final Object value) {
+    removeEntry(key);
+    if (value == null) {
+      return;
+    }
+    int valueSize = sizer.sizeOf(value);
+    if (valueSize > maxSize) {
+      return;
+    }
+    entries.put(key, new Entry(value, valueSize, System.nanoTime()));
+    size += valueSize;
+    trim();
+  }
+
+  /**
+   * Remove a cached result.
+   * @param key result key
+   */
+  public synchronized void remove(final Object key) {
+    removeEntry(key);
+  }
+
+  private void removeEntry(final Object key) {
+    Entry old = entries.remove(key);
+    if (old != null) {
+      size -= old.size;
+    }
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<Object, Entry>> i = entries.entrySet().iterator();
+    while (size > maxSize && i.hasNext()) {
+      size -= i.next().getValue().size;
+      i.remove();
+      evictionCount++;
+    }
+  }
+
+  /** @return current total size of cached results */
+  public synchronized int getSize() {
+    return size;
+  }
+
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  public synchronized int getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ResultsCache{size=" + size + "/" + maxSize + ", hits=" + hitCount
+        + ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+  }
+
+  /** Estimates size of a cached result. */
+  public interface Sizer {
+    /** @return size of a value in the units used for {@link #setMaxSize(int)} */
+    int sizeOf(Object value);
+  }
+
+  /** Cache entry. */
+  private static final class Entry {
+    /** Value. */
+    final Object value;
+    /** Size. */
+    final int size;
+    /** Time it was stored at, nanoseconds. */
+    final long time;
+
+    Entry(final Object value, final int size, final long time) {
+      this.value = value;
+      this.size = size;
+      this.time = time;
+    }
+  }
+
+}
@@ -14,4 +14,11 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
 @Retention(SOURCE)
 @Target(METHOD)
 public @interface Send {
+
+  /**
+   * Name of the execution lane used to send data.
+   * @see Load#lane()
+   */
+  String lane() default "";
+
 }
@@ -6,6 +6,7 @@ import android.net.Uri;
 import com.stanfy.enroscar.async.Async;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base class for {@link com.stanfy.enroscar.async.Async} operations
@@ -91,6 +92,32 @@ public abstract class BaseCursorAsyncBuilder<B extends BaseCursorAsyncBuilder<?,
     return self;
   }
 
+  /**
+   * Define a time window used to coalesce change notifications.
+   * A re-query is started when the window passes after the first change notification;
+   * all the notifications received meanwhile are served by that single re-query.
+   * Notifications are coalesced for each built async separately, not across asyncs that observe the same URI.
+   * Zero (default) means changes are coalesced only within a single main thread message loop
+   * iteration.
+   * A query that is still running when a newer change is handled is cancelled.
+   * @see #stats(RequeryStats)
+   */
+  public B debounce(final long window, final TimeUnit unit) {
+    if (window < 0) {
+      throw new IllegalArgumentException("Negative window " + window);
+    }
+    params.debounceWindow = unit.toMillis(window);
+    return self;
+  }
+
+  /**
+   * Provide an object that will collect counts of executed and suppressed re-queries.
+   */
+  public B stats(final RequeryStats stats) {
+    params.stats = stats;
+    return self;
+  }
+
   /**
    * Define what executor is used to perform a query.
    * {@code null} means a default {@link android.os.AsyncTask} executor.
@@ -127,6 +154,12 @@ public abstract class BaseCursorAsyncBuilder<B extends BaseCursorAsyncBuilder<?,
 
     /** Observation flag. */
     boolean observeDescendants;
+
+    /** Time window to coalesce change notifications in, milliseconds. */
+    long debounceWindow;
+
+    /** Re-queries statistics. */
+    RequeryStats stats;
   }
 
 }
@@ -0,0 +1,22 @@
+package com.stanfy.enroscar.async.content;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Annotates a field of {@link CursorModel} class that is read from a cursor column.
+ * Field must not be private, final or static. Supported types are primitives except
+ * {@code char}, their wrappers, {@code String} and {@code byte[]}.
+ * Wrappers are set to {@code null} for {@code NULL} values.
+ */
+@Retention(SOURCE)
+@Target(FIELD)
+public @interface Column {
+
+  /** Column name. Field name is used by default. */
+  String value() default "";
+
+}
@@ -13,12 +13,40 @@ import static com.stanfy.enroscar.async.internal.Utils.MAIN_THREAD_HANDLER;
 
 /**
  * Async implementation that can register a content observer.
+ * Change notifications are coalesced: a single re-query is performed for all the changes
+ * received within the debounce window (see {@link BaseCursorAsyncBuilder#debounce}).
+ * Coalescing is done per async instance, for all the notifications delivered to its observer
+ * (including descendant URIs if they are observed). Different asyncs observing the same URI
+ * re-query independently.
  */
 abstract class ContentObserverAsync<D, T extends Callable<D>> extends TaskAsync<D, T> {
 
   /** Content observer. */
   private ContentObserver observer;
 
+  /** Whether a re-query is already scheduled. */
+  private boolean requeryScheduled;
+
+  /** Re-query action. */
+  private final Runnable requery = new Runnable() {
+    @Override
+    public void run() {
+      requeryScheduled = false;
+      RequeryStats stats = getParams().stats;
+      if (isRunning()) {
+        // results of the running query are already outdated
+        getQuery().cancel();
+        if (stats != null) {
+          stats.onCancelled();
+        }
+      }
+      if (stats != null) {
+        stats.onExecuted();
+      }
+      onTrigger();
+    }
+  };
+
   public ContentObserverAsync(final T task, final Executor executor) {
     super(task, executor);
   }
@@ -31,6 +59,9 @@ abstract class ContentObserverAsync<D, T extends Callable<D>> extends TaskAsync<
   protected abstract ContentResolver getResolver();
   protected abstract Params getParams();
 
+  /** @return query used by the task */
+  protected abstract ContentProviderQuery getQuery();
+
   @Override
   protected void onTrigger() {
     // it's assumed we are running on a main thread
@@ -39,7 +70,7 @@ abstract class ContentObserverAsync<D, T extends Callable<D>> extends TaskAsync<
       observer = new ContentObserver(MAIN_THREAD_HANDLER) {
         @Override
         public void onChange(boolean selfChange) {
-          onTrigger();
+          onContentChanged();
         }
       };
       Params params = getParams();
@@ -47,9 +78,30 @@ abstract class ContentObserverAsync<D, T extends Callable<D>> extends TaskAsync<
     }
   }
 
+  void onContentChanged() {
+    if (observer == null) {
+      // notification was posted before we unregistered
+      return;
+    }
+    if (requeryScheduled) {
+      RequeryStats stats = getParams().stats;
+      if (stats != null) {
+        stats.onSuppressed();
+      }
+      return;
+    }
+    requeryScheduled = true;
+    MAIN_THREAD_HANDLER.postDelayed(requery, getParams().debounceWindow);
+  }
+
   @Override
   protected void onCancel() {
     super.onCancel();
+    getQuery().cancel();
+    if (requeryScheduled) {
+      MAIN_THREAD_HANDLER.removeCallbacks(requery);
+      requeryScheduled = false;
+    }
     if (observer != null) {
       getResolver().unregisterContentObserver(observer);
       observer = null;
@@ -1,7 +1,11 @@
 package com.stanfy.enroscar.async.content;
 
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.ContentResolver;
 import android.database.Cursor;
+import android.os.Build;
+import android.os.CancellationSignal;
 
 import com.stanfy.enroscar.async.content.BaseCursorAsyncBuilder.Params;
 
@@ -9,15 +13,23 @@ import java.util.concurrent.Callable;
 
 /**
  * Queries content provider.
+ * On Jelly Bean and later a running query can be cancelled with {@link #cancel()}.
  */
 final class ContentProviderQuery implements Callable<Cursor> {
 
+  /** Whether cancellation signals are supported. */
+  private static final boolean CANCELLATION_SUPPORTED =
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+
   /** Resolver instance. */
   final ContentResolver resolver;
 
   /** Parameters. */
   final Params params;
 
+  /** Cancellation signal of the running query. Typed as Object to load on old platforms. */
+  private Object signal;
+
   ContentProviderQuery(final ContentResolver resolver, final Params params) {
     this.resolver = resolver;
     this.params = params;
@@ -25,8 +37,51 @@ final class ContentProviderQuery implements Callable<Cursor> {
 
   @Override
   public Cursor call() {
-    return resolver.query(params.uri, params.projection,
-        params.selection, params.selectionArgs, params.sort);
+    if (!CANCELLATION_SUPPORTED) {
+      return resolver.query(params.uri, params.projection,
+          params.selection, params.selectionArgs, params.sort);
+    }
+    return queryWithSignal();
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private Cursor queryWithSignal() {
+    CancellationSignal signal = new CancellationSignal();
+    synchronized (this) {
+      this.signal = signal;
+    }
+    // AsyncTask interrupts its thread when cancelled
+    if (Thread.currentThread().isInterrupted()) {
+      signal.cancel();
+    }
+    try {
+      return resolver.query(params.uri, params.projection,
+          params.selection, params.selectionArgs, params.sort, signal);
+    } finally {
+      synchronized (this) {
+        if (this.signal == signal) {
+          this.signal = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Cancel a running query if any.
+   * @return true if there was a running query
+   */
+  @SuppressLint("NewApi")
+  boolean cancel() {
+    Object signal;
+    synchronized (this) {
+      signal = this.signal;
+      this.signal = null;
+    }
+    if (signal == null) {
+      return false;
+    }
+    ((CancellationSignal) signal).cancel();
+    return true;
   }
 
 }
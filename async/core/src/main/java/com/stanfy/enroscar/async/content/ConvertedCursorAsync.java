@@ -24,7 +24,11 @@ final class ConvertedCursorAsync<D> extends ContentObserverAsync<D, ConvertedCur
 
   @Override
   public ConvertedCursorAsync<D> replicate() {
-    return new ConvertedCursorAsync<>(getTask(), getExecutor());
+    // each instance needs its own query to be able to cancel it
+    LoadTask<D> task = getTask();
+    return inheritRouting(
+        new ConvertedCursorAsync<>(task.params, task.converter, task.resolver, getExecutor())
+    );
   }
 
   @Override
@@ -37,23 +41,30 @@ final class ConvertedCursorAsync<D> extends ContentObserverAsync<D, ConvertedCur
     return getTask().params;
   }
 
+  @Override
+  protected ContentProviderQuery getQuery() {
+    return getTask().query;
+  }
+
   /** Loads a cursor and creates an object. */
   static class LoadTask<D> implements Callable<D> {
 
     final Params params;
     final CursorConverter<D> converter;
     final ContentResolver resolver;
+    final ContentProviderQuery query;
 
     LoadTask(final Params params, final CursorConverter<D> converter,
              final ContentResolver resolver) {
       this.params = params;
       this.converter = converter;
       this.resolver = resolver;
+      this.query = new ContentProviderQuery(resolver, params);
     }
 
     @Override
     public D call() {
-      Cursor cursor = new ContentProviderQuery(resolver, params).call();
+      Cursor cursor = query.call();
       if (cursor == null) {
         throw new IllegalStateException("Content resolver didn't respond to URI " + params.uri);
       }
@@ -23,7 +23,11 @@ final class CursorAsync extends ContentObserverAsync<Cursor, ContentProviderQuer
 
   @Override
   public CursorAsync replicate() {
-    return new CursorAsync(getTask(), getExecutor());
+    // each instance needs its own query to be able to cancel it
+    ContentProviderQuery query = getTask();
+    return inheritRouting(
+        new CursorAsync(new ContentProviderQuery(query.resolver, query.params), getExecutor())
+    );
   }
 
   @Override
@@ -36,6 +40,10 @@ final class CursorAsync extends ContentObserverAsync<Cursor, ContentProviderQuer
     return getTask().params;
   }
 
+  @Override
+  protected ContentProviderQuery getQuery() {
+    return getTask();
+  }
 
   @Override
   public void release(final Cursor data) {
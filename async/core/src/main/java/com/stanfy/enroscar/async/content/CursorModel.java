@@ -0,0 +1,23 @@
+package com.stanfy.enroscar.async.content;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Annotates a model class that is read from {@link android.database.Cursor} rows.
+ * Async annotation processor generates {@code <Model>CursorReader} class that implements
+ * {@link CursorConverter} for the model: it resolves column indexes once per cursor and
+ * reads values of fields annotated with {@link Column} without boxing.
+ * <p>
+ *   Model must have a non-private constructor without parameters.
+ *   Use the reader with {@link CursorAsyncBuilder#convertList(CursorConverter)} or
+ *   {@link CursorAsyncBuilder#convertFirst(CursorConverter)}.
+ * </p>
+ */
+@Retention(SOURCE)
+@Target(TYPE)
+public @interface CursorModel {
+}
@@ -0,0 +1,56 @@
+package com.stanfy.enroscar.async.content;
+
+/**
+ * Counters of re-queries caused by content change notifications.
+ * Can be passed to {@link BaseCursorAsyncBuilder#stats(RequeryStats)} to see
+ * how many notifications were coalesced.
+ * Counters are updated in the main thread.
+ */
+public final class RequeryStats {
+
+  /** Count of re-queries started because of changes. */
+  private int executed;
+
+  /** Count of change notifications that did not cause a separate re-query. */
+  private int suppressed;
+
+  /** Count of in-flight queries cancelled because of a newer change. */
+  private int cancelled;
+
+  /** Count a re-query. */
+  void onExecuted() {
+    executed++;
+  }
+
+  /** Count a coalesced notification. */
+  void onSuppressed() {
+    suppressed++;
+  }
+
+  /** Count a cancelled query. */
+  void onCancelled() {
+    cancelled++;
+  }
+
+  /** @return count of re-queries started because of content changes */
+  public int getExecutedCount() {
+    return executed;
+  }
+
+  /** @return count of change notifications coalesced with other ones */
+  public int getSuppressedCount() {
+    return suppressed;
+  }
+
+  /** @return count of in-flight queries cancelled because of a newer change */
+  public int getCancelledCount() {
+    return cancelled;
+  }
+
+  @Override
+  public String toString() {
+    return "RequeryStats{executed=" + executed + ", suppressed=" + suppressed
+        + ", cancelled=" + cancelled + "}";
+  }
+
+}
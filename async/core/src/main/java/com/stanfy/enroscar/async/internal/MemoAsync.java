@@ -0,0 +1,218 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.stanfy.enroscar.async.Async;
+import com.stanfy.enroscar.async.AsyncObserver;
+import com.stanfy.enroscar.async.ResultsCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Async that takes results from {@link ResultsCache} and shares one running operation
+ * between all the subscribers that request the same key.
+ * A forced instance ignores both the cache and the running operation: it always starts
+ * a new one, and subsequent subscribers join the new operation.
+ * Like other {@code Async} implementations it is supposed to be used in the main thread.
+ * @param <D> data type
+ */
+final class MemoAsync<D> implements Async<D> {
+
+  /** Running operations. Main thread only. */
+  private static final HashMap<Key, Flight<?>> FLIGHTS = new HashMap<>();
+
+  /** Cache instance. */
+  private final ResultsCache cache;
+
+  /** Result key. */
+  private final Key key;
+
+  /** Time to live, milliseconds. */
+  private final long ttl;
+
+  /** Actual operation. */
+  private final Async<D> delegate;
+
+  /** Whether a new operation must be started. */
+  private final boolean force;
+
+  /** Current subscription. */
+  private Flight<D> flight;
+
+  /** Current observer. */
+  private AsyncObserver<D> observer;
+
+  /** Cancellation flag. */
+  private boolean canceled;
+
+  MemoAsync(final ResultsCache cache, final Key key, final long ttl, final Async<D> delegate) {
+    this(cache, key, ttl, delegate, false);
+  }
+
+  MemoAsync(final ResultsCache cache, final Key key, final long ttl, final Async<D> delegate,
+            final boolean force) {
+    this.cache = cache;
+    this.key = key;
+    this.ttl = ttl;
+    this.delegate = delegate;
+    this.force = force;
+  }
+
+  static int getFlightsCount() {
+    return FLIGHTS.size();
+  }
+
+  @Override
+  public MemoAsync<D> replicate() {
+    return new MemoAsync<>(cache, key, ttl, delegate.replicate(), force);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void subscribe(final AsyncObserver<D> observer) {
+    if (canceled || this.observer != null) {
+      return;
+    }
+    this.observer = observer;
+
+    if (force) {
+      cache.remove(key);
+    } else {
+      D cached = (D) cache.get(key, ttl);
+      if (cached != null) {
+        observer.onResult(cached);
+        observer.onReset();
+        return;
+      }
+    }
+
+    Flight<D> flight = (Flight<D>) FLIGHTS.get(key);
+    if (flight == null || force) {
+      if (flight != null) {
+        // running operation keeps its observers but must not overwrite a newer result
+        flight.detached = true;
+      }
+      flight = new Flight<>(key, cache, delegate);
+      FLIGHTS.put(key, flight);
+      flight.observers.add(observer);
+      this.flight = flight;
+      delegate.subscribe(flight);
+    } else {
+      flight.observers.add(observer);
+      this.flight = flight;
+    }
+  }
+
+  @Override
+  public void cancel() {
+    canceled = true;
+    if (flight != null) {
+      flight.remove(observer);
+      flight = null;
+    }
+    observer = null;
+  }
+
+  /** Results key: operation name and arguments. */
+  static final class Key {
+    /** Operation name. */
+    final String operation;
+    /** Arguments. */
+    final Object[] args;
+
+    Key(final String operation, final Object[] args) {
+      this.operation = operation;
+      this.args = args;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return operation.equals(key.operation) && Arrays.deepEquals(args, key.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * operation.hashCode() + Arrays.deepHashCode(args);
+    }
+
+    @Override
+    public String toString() {
+      return operation + Arrays.deepToString(args);
+    }
+  }
+
+  /** Running operation shared by subscribers. */
+  private static final class Flight<D> implements AsyncObserver<D> {
+
+    /** Key. */
+    private final Key key;
+
+    /** Cache. */
+    private final ResultsCache cache;
+
+    /** Running operation. */
+    private final Async<D> async;
+
+    /** Observers. */
+    final ArrayList<AsyncObserver<D>> observers = new ArrayList<>(2);
+
+    /** Whether this operation was replaced by a forced one. */
+    boolean detached;
+
+    Flight(final Key key, final ResultsCache cache, final Async<D> async) {
+      this.key = key;
+      this.cache = cache;
+      this.async = async;
+    }
+
+    void remove(final AsyncObserver<D> observer) {
+      observers.remove(observer);
+      if (observers.isEmpty()) {
+        finish();
+        async.cancel();
+      }
+    }
+
+    private void finish() {
+      if (FLIGHTS.get(key) == this) {
+        FLIGHTS.remove(key);
+      }
+    }
+
+    @Override
+    public void onError(final Throwable e) {
+      // errors are not cached, next subscriber will start a new operation
+      finish();
+      for (AsyncObserver<D> o : new ArrayList<>(observers)) {
+        o.onError(e);
+      }
+    }
+
+    @Override
+    public void onResult(final D data) {
+      if (!detached) {
+        cache.put(key, data);
+      }
+      for (AsyncObserver<D> o : new ArrayList<>(observers)) {
+        o.onResult(data);
+      }
+    }
+
+    @Override
+    public void onReset() {
+      // result is in the cache now; the operation may still deliver updates to current observers
+      finish();
+      for (AsyncObserver<D> o : new ArrayList<>(observers)) {
+        o.onReset();
+      }
+    }
+  }
+
+}
@@ -5,7 +5,11 @@ import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
 import android.support.v4.app.LoaderManager;
 
+import com.stanfy.enroscar.async.Async;
+import com.stanfy.enroscar.async.Lanes;
 import com.stanfy.enroscar.async.OperatorBuilder;
+import com.stanfy.enroscar.async.Releaser;
+import com.stanfy.enroscar.async.ResultsCache;
 
 import static com.stanfy.enroscar.async.internal.Utils.MAIN_THREAD_HANDLER;
 
@@ -44,6 +48,56 @@ public abstract class OperatorBase<W, D extends LoaderDescription> {
     return operatorContext.getOperations();
   }
 
+  /**
+   * Apply the lane declared for an operation and enable execution time recording.
+   * Only {@code Async} instances based on {@link TaskAsync} can be routed, others are returned
+   * as is.
+   * @param async operation instance
+   * @param lane lane name, empty if not declared
+   * @param operation operation name
+   * @return the same {@code async} instance
+   */
+  protected final <D> Async<D> route(final Async<D> async, final String lane,
+                                     final String operation) {
+    if (async instanceof TaskAsync) {
+      ((TaskAsync<D, ?>) async).route(
+          lane.length() > 0 ? Lanes.getExecutor(lane) : null,
+          Lanes.getStats(operation)
+      );
+    }
+    return async;
+  }
+
+  /**
+   * Make an operation take its result from {@link ResultsCache} and share the running operation
+   * with other subscribers.
+   * Operations that deliver resources (implement {@link Releaser}) are returned as is.
+   * @param async operation instance
+   * @param ttl result time to live, milliseconds
+   * @param operation operation name
+   * @param args operation arguments
+   * @return memoizing operation
+   */
+  protected final <D> Async<D> memoize(final Async<D> async, final long ttl,
+                                       final String operation, final Object[] args) {
+    return memoize(async, ttl, operation, args, false);
+  }
+
+  /**
+   * Same as {@link #memoize(Async, long, String, Object[])}.
+   * @param force true to drop a cached result and start a new operation even if
+   *              an operation with the same arguments is running
+   */
+  protected final <D> Async<D> memoize(final Async<D> async, final long ttl,
+                                       final String operation, final Object[] args,
+                                       final boolean force) {
+    if (async == null || async instanceof Releaser) {
+      return async;
+    }
+    return new MemoAsync<>(ResultsCache.getInstance(), new MemoAsync.Key(operation, args), ttl,
+        async, force);
+  }
+
   protected final void initLoader(final int loaderId, final AsyncProvider<?> provider,
                                   final boolean destroyOnFinish) {
     Utils.initLoader(operatorContext, loaderId, provider, destroyOnFinish, description);
@@ -1,9 +1,11 @@
 package com.stanfy.enroscar.async.internal;
 
 import android.annotation.SuppressLint;
+import android.os.AsyncTask;
 import android.os.Build;
 
 import com.stanfy.enroscar.async.Async;
+import com.stanfy.enroscar.async.OperationStats;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
@@ -23,6 +25,12 @@ public class TaskAsync<D, T extends Callable<D>> extends BaseAsync<D> {
   /** Executor for this task. */
   private final Executor executor;
 
+  /** Executor of the lane declared for the operation, used if executor is not defined. */
+  private Executor laneExecutor;
+
+  /** Operation statistics. */
+  private OperationStats stats;
+
   public TaskAsync(final T task, final Executor executor) {
     this.task = task;
     this.executor = executor;
@@ -34,7 +42,27 @@ public class TaskAsync<D, T extends Callable<D>> extends BaseAsync<D> {
 
   @Override
   public TaskAsync<D, T> replicate() {
-    return new TaskAsync<>(task, executor);
+    return inheritRouting(new TaskAsync<>(task, executor));
+  }
+
+  /**
+   * Define where the operation is performed.
+   * @param laneExecutor executor used if this instance was not given an explicit executor,
+   *                     may be null
+   * @param stats statistics collector, may be null
+   */
+  void route(final Executor laneExecutor, final OperationStats stats) {
+    this.laneExecutor = laneExecutor;
+    this.stats = stats;
+  }
+
+  /**
+   * Copy routing parameters to a replica.
+   * @return the passed replica
+   */
+  protected final <A extends TaskAsync<D, T>> A inheritRouting(final A replica) {
+    ((TaskAsync<D, T>) replica).route(laneExecutor, stats);
+    return replica;
   }
 
   @SuppressLint("NewApi")
@@ -42,8 +70,19 @@ public class TaskAsync<D, T extends Callable<D>> extends BaseAsync<D> {
   protected void onTrigger() {
     doCancel();
     asyncTask = new AsyncTaskWithDelegate<>(task, this);
-    if (executor == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-      // using default serial executor (we do not support Cupcake where default executor is parallel)
+    Executor executor = this.executor != null ? this.executor : laneExecutor;
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+      // executors cannot be defined (we do not support Cupcake where default executor is parallel)
+      asyncTask.execute();
+      return;
+    }
+    if (stats != null) {
+      executor = new TimingExecutor(
+          executor != null ? executor : AsyncTask.SERIAL_EXECUTOR, stats
+      );
+    }
+    if (executor == null) {
+      // using default serial executor
       asyncTask.execute();
     } else {
       asyncTask.executeOnExecutor(executor);
@@ -55,6 +94,12 @@ public class TaskAsync<D, T extends Callable<D>> extends BaseAsync<D> {
     doCancel();
   }
 
+  /** @return whether the last triggered task is still pending or running */
+  protected boolean isRunning() {
+    return asyncTask != null && !asyncTask.isCancelled()
+        && asyncTask.getStatus() != AsyncTask.Status.FINISHED;
+  }
+
   private void doCancel() {
     if (asyncTask != null) {
       asyncTask.cancel(true);
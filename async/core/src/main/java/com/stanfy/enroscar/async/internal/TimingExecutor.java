@@ -0,0 +1,39 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.stanfy.enroscar.async.OperationStats;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor wrapper that records queued and running time of the tasks.
+ */
+final class TimingExecutor implements Executor {
+
+  /** Actual executor. */
+  private final Executor delegate;
+
+  /** Statistics. */
+  private final OperationStats stats;
+
+  TimingExecutor(final Executor delegate, final OperationStats stats) {
+    this.delegate = delegate;
+    this.stats = stats;
+  }
+
+  @Override
+  public void execute(@SuppressWarnings("NullableProblems") final Runnable command) {
+    final long submitTime = System.nanoTime();
+    delegate.execute(new Runnable() {
+      @Override
+      public void run() {
+        long startTime = System.nanoTime();
+        try {
+          command.run();
+        } finally {
+          stats.record(startTime - submitTime, System.nanoTime() - startTime);
+        }
+      }
+    });
+  }
+
+}
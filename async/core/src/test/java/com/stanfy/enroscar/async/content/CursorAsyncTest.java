@@ -2,6 +2,7 @@ package com.stanfy.enroscar.async.content;
 
 import android.content.ContentProvider;
 import android.content.ContentValues;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
@@ -17,6 +18,8 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowContentResolver;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.stanfy.enroscar.async.Tools.asyncCursor;
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -144,4 +147,50 @@ public class CursorAsyncTest {
     assertThat(result).containsExactly(testData);
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void shouldCoalesceChangesWithinWindow() {
+    RequeryStats stats = new RequeryStats();
+    Async<Cursor> async = asyncCursor(application)
+        .uri(uri)
+        .debounce(100, TimeUnit.MILLISECONDS)
+        .stats(stats)
+        .get();
+    async.subscribe(mock(AsyncObserver.class));
+
+    ContentObserver observer = shadowOf(application.getContentResolver()).getContentObserver(uri);
+    for (int i = 0; i < 5; i++) {
+      observer.dispatchChange(false);
+    }
+    assertThat(stats.getExecutedCount()).isZero();
+
+    Robolectric.getUiThreadScheduler().advanceBy(100);
+    assertThat(stats.getExecutedCount()).isEqualTo(1);
+    assertThat(stats.getSuppressedCount()).isEqualTo(4);
+    // the first query has not been finished
+    assertThat(stats.getCancelledCount()).isEqualTo(1);
+
+    Robolectric.runBackgroundTasks();
+    observer.dispatchChange(false);
+    Robolectric.getUiThreadScheduler().advanceBy(100);
+    assertThat(stats.getExecutedCount()).isEqualTo(2);
+    assertThat(stats.getCancelledCount()).isEqualTo(1);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void cancelShouldDropScheduledRequery() {
+    RequeryStats stats = new RequeryStats();
+    Async<Cursor> async = asyncCursor(application)
+        .uri(uri)
+        .debounce(100, TimeUnit.MILLISECONDS)
+        .stats(stats)
+        .get();
+    async.subscribe(mock(AsyncObserver.class));
+    shadowOf(application.getContentResolver()).getContentObserver(uri).dispatchChange(false);
+    async.cancel();
+    Robolectric.getUiThreadScheduler().advanceBy(100);
+    assertThat(stats.getExecutedCount()).isZero();
+  }
+
 }
@@ -0,0 +1,158 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.stanfy.enroscar.async.Async;
+import com.stanfy.enroscar.async.AsyncObserver;
+import com.stanfy.enroscar.async.ResultsCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for MemoAsync.
+ */
+public class MemoAsyncTest {
+
+  /** Cache. */
+  private final ResultsCache cache = ResultsCache.getInstance();
+
+  /** Operation. */
+  private ManualAsync delegate;
+
+  @Before
+  public void init() {
+    cache.clear();
+    delegate = new ManualAsync();
+  }
+
+  @After
+  public void checkFlights() {
+    assertThat(MemoAsync.getFlightsCount()).isZero();
+  }
+
+  private MemoAsync<String> memo(final Object... args) {
+    return new MemoAsync<>(cache, new MemoAsync.Key("Ops.load", args), 1000, delegate);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void concurrentSubscribersShouldShareOperation() {
+    AsyncObserver<String> o1 = mock(AsyncObserver.class);
+    AsyncObserver<String> o2 = mock(AsyncObserver.class);
+    memo(1, "a").subscribe(o1);
+    memo(1, "a").subscribe(o2);
+    assertThat(delegate.subscribeCount).isEqualTo(1);
+
+    delegate.deliver("result");
+    verify(o1).onResult("result");
+    verify(o2).onResult("result");
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void cachedResultShouldBeReused() {
+    memo(1).subscribe(mock(AsyncObserver.class));
+    delegate.deliver("result");
+
+    AsyncObserver<String> observer = mock(AsyncObserver.class);
+    memo(1).subscribe(observer);
+    verify(observer).onResult("result");
+    assertThat(delegate.subscribeCount).isEqualTo(1);
+
+    memo(2).subscribe(mock(AsyncObserver.class));
+    assertThat(delegate.subscribeCount).isEqualTo(2);
+    delegate.deliver("other");
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void operationShouldBeCanceledWithLastSubscriber() {
+    MemoAsync<String> m1 = memo();
+    MemoAsync<String> m2 = memo();
+    m1.subscribe(mock(AsyncObserver.class));
+    m2.subscribe(mock(AsyncObserver.class));
+    m1.cancel();
+    assertThat(delegate.canceled).isFalse();
+    m2.cancel();
+    assertThat(delegate.canceled).isTrue();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void errorsShouldNotBeCached() {
+    AsyncObserver<String> observer = mock(AsyncObserver.class);
+    memo().subscribe(observer);
+    Exception error = new Exception();
+    delegate.observer.onError(error);
+    verify(observer).onError(error);
+
+    memo().subscribe(mock(AsyncObserver.class));
+    assertThat(delegate.subscribeCount).isEqualTo(2);
+    delegate.deliver("ok");
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void forcedSubscriberShouldStartNewOperation() {
+    AsyncObserver<String> o1 = mock(AsyncObserver.class);
+    AsyncObserver<String> o2 = mock(AsyncObserver.class);
+    AsyncObserver<String> o3 = mock(AsyncObserver.class);
+    ManualAsync running = delegate;
+    memo(1).subscribe(o1);
+
+    delegate = new ManualAsync();
+    new MemoAsync<>(cache, new MemoAsync.Key("Ops.load", new Object[] {1}), 1000, delegate, true)
+        .subscribe(o2);
+    assertThat(delegate.subscribeCount).isEqualTo(1);
+    // later subscribers join the forced operation
+    memo(1).subscribe(o3);
+    assertThat(delegate.subscribeCount).isEqualTo(1);
+
+    delegate.deliver("fresh");
+    verify(o2).onResult("fresh");
+    verify(o3).onResult("fresh");
+    verify(o1, never()).onResult(anyString());
+
+    // stale result is delivered to its observers only
+    running.deliver("stale");
+    verify(o1).onResult("stale");
+    AsyncObserver<String> o4 = mock(AsyncObserver.class);
+    memo(1).subscribe(o4);
+    verify(o4).onResult("fresh");
+  }
+
+  /** Async that delivers results on demand. */
+  private static final class ManualAsync implements Async<String> {
+    /** Last observer. */
+    AsyncObserver<String> observer;
+    /** Counter. */
+    int subscribeCount;
+    /** Cancel flag. */
+    boolean canceled;
+
+    @Override
+    public void subscribe(final AsyncObserver<String> observer) {
+      this.observer = observer;
+      subscribeCount++;
+    }
+
+    @Override
+    public void cancel() {
+      canceled = true;
+    }
+
+    @Override
+    public Async<String> replicate() {
+      return this;
+    }
+
+    void deliver(final String data) {
+      observer.onResult(data);
+      observer.onReset();
+    }
+  }
+
+}
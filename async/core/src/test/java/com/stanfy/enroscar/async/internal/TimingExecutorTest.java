@@ -0,0 +1,54 @@
+package com.stanfy.enroscar.async.internal;
+
+import com.stanfy.enroscar.async.Lanes;
+import com.stanfy.enroscar.async.OperationStats;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for TimingExecutor.
+ */
+public class TimingExecutorTest {
+
+  @Test
+  public void shouldRecordQueuedAndRunningTime() throws Exception {
+    final ArrayList<Runnable> queue = new ArrayList<>();
+    OperationStats stats = Lanes.getStats("TimingExecutorTest.operation");
+    TimingExecutor executor = new TimingExecutor(new Executor() {
+      @Override
+      public void execute(@SuppressWarnings("NullableProblems") final Runnable command) {
+        queue.add(command);
+      }
+    }, stats);
+
+    Runnable task = mock(Runnable.class);
+    executor.execute(task);
+    assertThat(stats.getCount()).isZero();
+
+    Thread.sleep(20);
+    queue.get(0).run();
+    verify(task).run();
+    assertThat(stats.getCount()).isEqualTo(1);
+    assertThat(stats.getMaxQueuedTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+    assertThat(stats.getTotalQueuedTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+  }
+
+  @Test
+  public void statsShouldBeSharedByOperationName() {
+    assertThat(Lanes.getStats("A.b")).isSameAs(Lanes.getStats("A.b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unknownLaneShouldBeReported() {
+    Lanes.getExecutor("unknown lane");
+  }
+
+}
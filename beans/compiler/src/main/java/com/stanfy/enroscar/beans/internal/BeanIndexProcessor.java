@@ -0,0 +1,265 @@
+package com.stanfy.enroscar.beans.internal;
+
+import com.squareup.javawriter.JavaWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.JavaFileObject;
+
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+/**
+ * Generates {@code EnroscarBeanIndex} classes: one per package that contains classes
+ * annotated with {@code @EnroscarBean}.
+ * Annotations are accessed via mirrors, so the processor does not depend on beans library.
+ */
+public final class BeanIndexProcessor extends AbstractProcessor {
+
+  /** Annotation name. */
+  static final String ANNOTATION = "com.stanfy.enroscar.beans.EnroscarBean";
+
+  /** Generated class simple name. */
+  static final String INDEX_CLASS = "EnroscarBeanIndex";
+
+  /** Runtime types. */
+  private static final String DESCRIPTOR = "com.stanfy.enroscar.beans.BeanDescriptor",
+      INDEX = "com.stanfy.enroscar.beans.BeanIndex",
+      CONTEXT = "android.content.Context";
+
+  /** Packages an index was generated for. */
+  private final Set<String> generatedPackages = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(ANNOTATION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations,
+                         final RoundEnvironment roundEnv) {
+    TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+    if (annotation == null) {
+      return false;
+    }
+
+    Map<String, List<BeanInfo>> packages = new LinkedHashMap<>();
+    for (Element e : roundEnv.getElementsAnnotatedWith(annotation)) {
+      if (e.getKind() != ElementKind.CLASS) {
+        error(e, "@EnroscarBean can annotate classes only");
+        continue;
+      }
+      TypeElement type = (TypeElement) e;
+      if (!isAccessible(type)) {
+        warning(type, "Bean class is not accessible from its package, it is not indexed");
+        continue;
+      }
+      String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName()
+          .toString();
+      List<BeanInfo> beans = packages.get(pkg);
+      if (beans == null) {
+        beans = new ArrayList<>();
+        packages.put(pkg, beans);
+      }
+      beans.add(describe(type, annotation));
+    }
+
+    for (Map.Entry<String, List<BeanInfo>> entry : packages.entrySet()) {
+      if (!generatedPackages.add(entry.getKey())) {
+        warning(entry.getValue().get(0).type, "Index for package " + entry.getKey()
+            + " is already generated, beans created in later rounds are not indexed");
+        continue;
+      }
+      generate(entry.getKey(), entry.getValue());
+    }
+    return false;
+  }
+
+  private static boolean isAccessible(final TypeElement type) {
+    Element e = type;
+    while (e instanceof TypeElement) {
+      if (e.getModifiers().contains(PRIVATE)) {
+        return false;
+      }
+      Element enclosing = e.getEnclosingElement();
+      if (enclosing instanceof TypeElement && !e.getModifiers().contains(STATIC)) {
+        // inner class requires an outer instance
+        return false;
+      }
+      e = enclosing;
+    }
+    return true;
+  }
+
+  private BeanInfo describe(final TypeElement type, final TypeElement annotation) {
+    String name = null;
+    boolean contextDependent = false;
+    for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+      if (!mirror.getAnnotationType().asElement().equals(annotation)) {
+        continue;
+      }
+      Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+          processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> v : values.entrySet()) {
+        String key = v.getKey().getSimpleName().toString();
+        if ("value".equals(key)) {
+          name = (String) v.getValue().getValue();
+        } else if ("contextDependent".equals(key)) {
+          contextDependent = (Boolean) v.getValue().getValue();
+        }
+      }
+    }
+
+    BeanInfo info = new BeanInfo(type, name, contextDependent);
+    if (!type.getModifiers().contains(Modifier.ABSTRACT)) {
+      for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+        if (c.getModifiers().contains(PRIVATE)) {
+          continue;
+        }
+        List<? extends VariableElement> params = c.getParameters();
+        if (contextDependent && params.size() == 1
+            && CONTEXT.equals(params.get(0).asType().toString())
+            || !contextDependent && params.isEmpty()) {
+          info.canCreate = true;
+          break;
+        }
+      }
+    }
+    return info;
+  }
+
+  private void generate(final String pkg, final List<BeanInfo> beans) {
+    String fqcn = pkg.length() > 0 ? pkg + "." + INDEX_CLASS : INDEX_CLASS;
+    Writer out = null;
+    try {
+      Element[] origins = new Element[beans.size()];
+      for (int i = 0; i < origins.length; i++) {
+        origins[i] = beans.get(i).type;
+      }
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(fqcn, origins);
+      out = file.openWriter();
+      write(new JavaWriter(out), pkg, beans);
+      out.flush();
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(ERROR,
+          "Cannot generate beans index " + fqcn + ": " + e.getMessage());
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          // nothing
+        }
+      }
+    }
+  }
+
+  private void write(final JavaWriter w, final String pkg, final List<BeanInfo> beans)
+      throws IOException {
+    w.emitSingleLineComment("Code generated by Enroscar. Do not edit.");
+    w.emitPackage(pkg);
+    w.emitImports(DESCRIPTOR, INDEX, CONTEXT, "java.util.Arrays", "java.util.List");
+    w.emitEmptyLine();
+
+    w.emitJavadoc("Index of beans declared in package {@code %s}.%n"
+        + "Register it with {@code BeansManager.registerIndex(new %s())}.",
+        pkg.length() > 0 ? pkg : "default", INDEX_CLASS);
+    w.beginType(INDEX_CLASS, "class", EnumSet.of(PUBLIC, FINAL), null, "BeanIndex");
+    w.emitEmptyLine();
+
+    StringBuilder list = new StringBuilder("Arrays.<BeanDescriptor<?>>asList(");
+    for (int i = 0; i < beans.size(); i++) {
+      BeanInfo bean = beans.get(i);
+      String type = w.compressType(processingEnv.getTypeUtils().erasure(bean.type.asType())
+          .toString());
+      list.append("\n    new BeanDescriptor<").append(type).append(">(")
+          .append(type).append(".class, ")
+          .append(JavaWriter.stringLiteral(bean.name)).append(", ")
+          .append(bean.contextDependent).append(") {\n")
+          .append("      @Override\n")
+          .append("      public ").append(type).append(" newInstance(final Context context) {\n");
+      if (bean.canCreate) {
+        list.append("        return new ").append(type)
+            .append(bean.contextDependent ? "(context)" : "()").append(";\n");
+      } else {
+        list.append("        throw new IllegalStateException(")
+            .append(JavaWriter.stringLiteral("Bean " + type
+                + " is abstract or has no suitable constructor"))
+            .append(");\n");
+      }
+      list.append("      }\n    }");
+      if (i < beans.size() - 1) {
+        list.append(",");
+      }
+    }
+    list.append("\n)");
+
+    w.emitField("List<BeanDescriptor<?>>", "BEANS", EnumSet.of(PRIVATE, STATIC, FINAL),
+        list.toString());
+    w.emitEmptyLine();
+
+    w.emitAnnotation(Override.class);
+    w.beginMethod("List<BeanDescriptor<?>>", "getBeans", EnumSet.of(PUBLIC));
+    w.emitStatement("return BEANS");
+    w.endMethod();
+
+    w.endType();
+  }
+
+  private void error(final Element element, final String message) {
+    processingEnv.getMessager().printMessage(ERROR, message, element);
+  }
+
+  private void warning(final Element element, final String message) {
+    processingEnv.getMessager().printMessage(WARNING, message, element);
+  }
+
+  /** Collected bean information. */
+  private static final class BeanInfo {
+    /** Bean type. */
+    final TypeElement type;
+    /** Bean name. */
+    final String name;
+    /** Context dependency flag. */
+    final boolean contextDependent;
+    /** Whether generated code can create an instance. */
+    boolean canCreate;
+
+    BeanInfo(final TypeElement type, final String name, final boolean contextDependent) {
+      this.type = type;
+      this.name = name;
+      this.contextDependent = contextDependent;
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.stanfy.enroscar.beans.internal;
+
+import com.google.common.base.Joiner;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static org.truth0.Truth.ASSERT;
+
+/**
+ * Tests for BeanIndexProcessor.
+ */
+public class BeanIndexProcessorTest {
+
+  @Test
+  public void shouldGenerateIndex() {
+    JavaFileObject file = JavaFileObjects.forSourceString("test.Beans", Joiner.on("\n").join(
+        "package test;",
+        "import android.content.Context;",
+        "import com.stanfy.enroscar.beans.EnroscarBean;",
+        "class Beans {",
+        "  @EnroscarBean(\"simple\") public static class Simple { }",
+        "  @EnroscarBean(value = \"ctx\", contextDependent = true)",
+        "  public static class WithContext { public WithContext(Context c) { } }",
+        "  @EnroscarBean(\"abstract\") public abstract static class Base { }",
+        "}"));
+
+    JavaFileObject expected = JavaFileObjects.forSourceString("test.EnroscarBeanIndex",
+        Joiner.on("\n").join(
+            "package test;",
+            "import android.content.Context;",
+            "import com.stanfy.enroscar.beans.BeanDescriptor;",
+            "import com.stanfy.enroscar.beans.BeanIndex;",
+            "import java.util.Arrays;",
+            "import java.util.List;",
+            "public final class EnroscarBeanIndex implements BeanIndex {",
+            "  private static final List<BeanDescriptor<?>> BEANS = Arrays.<BeanDescriptor<?>>asList(",
+            "    new BeanDescriptor<test.Beans.Simple>(test.Beans.Simple.class, \"simple\", false) {",
+            "      @Override",
+            "      public test.Beans.Simple newInstance(final Context context) {",
+            "        return new test.Beans.Simple();",
+            "      }",
+            "    },",
+            "    new BeanDescriptor<test.Beans.WithContext>(test.Beans.WithContext.class, \"ctx\", true) {",
+            "      @Override",
+            "      public test.Beans.WithContext newInstance(final Context context) {",
+            "        return new test.Beans.WithContext(context);",
+            "      }",
+            "    },",
+            "    new BeanDescriptor<test.Beans.Base>(test.Beans.Base.class, \"abstract\", false) {",
+            "      @Override",
+            "      public test.Beans.Base newInstance(final Context context) {",
+            "        throw new IllegalStateException(",
+            "            \"Bean test.Beans.Base is abstract or has no suitable constructor\");",
+            "      }",
+            "    }",
+            "  );",
+            "  @Override",
+            "  public List<BeanDescriptor<?>> getBeans() {",
+            "    return BEANS;",
+            "  }",
+            "}"));
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(new BeanIndexProcessor())
+        .compilesWithoutError().and()
+        .generatesSources(expected);
+  }
+
+  @Test
+  public void shouldRejectInterfaces() {
+    JavaFileObject file = JavaFileObjects.forSourceString("Bad", Joiner.on("\n").join(
+        "import com.stanfy.enroscar.beans.EnroscarBean;",
+        "@EnroscarBean(\"bad\") interface Bad { }"));
+
+    ASSERT.about(javaSource())
+        .that(file).processedWith(new BeanIndexProcessor())
+        .failsToCompile()
+        .withErrorContaining("classes only").in(file).onLine(2);
+  }
+
+}
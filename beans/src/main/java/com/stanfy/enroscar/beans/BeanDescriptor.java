@@ -0,0 +1,43 @@
+package com.stanfy.enroscar.beans;
+
+import android.content.Context;
+
+/**
+ * Describes a bean class: its name and how to create it.
+ * Instances are created by generated {@link BeanIndex} implementations.
+ * @param <T> bean type
+ */
+public abstract class BeanDescriptor<T> {
+
+  /** Bean type. */
+  private final Class<T> type;
+
+  /** Bean name. */
+  private final String name;
+
+  /** Whether the bean requires context to be created. */
+  private final boolean contextDependent;
+
+  protected BeanDescriptor(final Class<T> type, final String name, final boolean contextDependent) {
+    this.type = type;
+    this.name = name;
+    this.contextDependent = contextDependent;
+  }
+
+  public Class<T> getType() { return type; }
+  public String getName() { return name; }
+  public boolean isContextDependent() { return contextDependent; }
+
+  /**
+   * Create a bean instance.
+   * @param context context instance, can be {@code null} if bean is not context dependent
+   * @return new bean instance
+   */
+  public abstract T newInstance(final Context context);
+
+  @Override
+  public String toString() {
+    return "BeanDescriptor{" + name + " - " + type.getName() + "}";
+  }
+
+}
@@ -0,0 +1,14 @@
+package com.stanfy.enroscar.beans;
+
+/**
+ * Creates a bean that is registered with {@link BeansContainer#putLazyEntity(String, BeanFactory)}.
+ */
+public interface BeanFactory {
+
+  /**
+   * Called once, when the bean is requested for the first time.
+   * @return bean instance
+   */
+  Object createBean();
+
+}
@@ -0,0 +1,19 @@
+package com.stanfy.enroscar.beans;
+
+import java.util.List;
+
+/**
+ * Index of beans built at compile time by Enroscar beans compiler.
+ * The compiler generates an {@code EnroscarBeanIndex} class in each package that contains
+ * classes annotated with {@link EnroscarBean}. Register it with
+ * {@link BeansManager#registerIndex(BeanIndex)} before editing beans, so that bean names are
+ * resolved and bean instances are created without reflection.
+ */
+public interface BeanIndex {
+
+  /**
+   * @return descriptors of indexed beans
+   */
+  List<BeanDescriptor<?>> getBeans();
+
+}
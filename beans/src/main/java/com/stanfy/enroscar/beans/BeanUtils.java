@@ -1,6 +1,10 @@
 package com.stanfy.enroscar.beans;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+
+import android.content.Context;
 
 
 /**
@@ -9,8 +13,85 @@ import java.lang.annotation.Annotation;
  */
 public final class BeanUtils {
 
+  /** Indexed beans. Replaced on each registration, so that reads do not require locks. */
+  private static volatile HashMap<Class<?>, BeanDescriptor<?>> descriptors =
+      new HashMap<Class<?>, BeanDescriptor<?>>();
+
+  /** Incremented on each registration, so that containers can drop cached name lookups. */
+  private static volatile int indexVersion;
+
   private BeanUtils() { /* hidden */ }
+
+  /**
+   * Add beans described by a compile-time index.
+   * @param index beans index
+   */
+  static synchronized void registerIndex(final BeanIndex index) {
+    HashMap<Class<?>, BeanDescriptor<?>> map = new HashMap<Class<?>, BeanDescriptor<?>>(descriptors);
+    for (BeanDescriptor<?> d : index.getBeans()) {
+      map.put(d.getType(), d);
+    }
+    descriptors = map;
+    indexVersion++;
+  }
+
+  /** @return count of registered indexes */
+  static int getIndexVersion() {
+    return indexVersion;
+  }
+
+  /**
+   * @param clazz bean class
+   * @return indexed descriptor of the class or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> BeanDescriptor<T> getDescriptor(final Class<T> clazz) {
+    return (BeanDescriptor<T>) descriptors.get(clazz);
+  }
+
+  /**
+   * Resolve a bean name. Index is used if the class is registered there, otherwise the name
+   * is taken from {@link EnroscarBean} annotation found in the class hierarchy.
+   * @param clazz bean class
+   * @return bean name, class name if the class is not annotated
+   */
+  public static String getBeanName(final Class<?> clazz) {
+    BeanDescriptor<?> descriptor = descriptors.get(clazz);
+    if (descriptor != null) {
+      return descriptor.getName();
+    }
+    EnroscarBean info = getBeanInfo(clazz);
+    return info != null ? info.value() : clazz.getName();
+  }
   
+  /**
+   * Create a bean instance using its indexed descriptor or reflection.
+   * @param clazz bean class
+   * @param context context instance, required by context dependent beans
+   * @return new bean instance
+   */
+  static <T> T newBeanInstance(final Class<T> clazz, final Context context) {
+    final BeanDescriptor<T> descriptor = getDescriptor(clazz);
+    if (descriptor != null) {
+      if (descriptor.isContextDependent() && context == null) {
+        throw new IllegalArgumentException("Bean is context dependent but context is not supplied");
+      }
+      return descriptor.newInstance(context);
+    }
+
+    final EnroscarBean beanAnnotation = getBeanInfo(clazz);
+    try {
+      if (beanAnnotation != null && beanAnnotation.contextDependent()) {
+        if (context == null) { throw new IllegalArgumentException("Bean is context dependent but context is not supplied"); }
+        final Constructor<T> constr = clazz.getConstructor(Context.class);
+        return constr.newInstance(context);
+      }
+      return clazz.newInstance();
+    } catch (final Exception e) {
+      throw new RuntimeException("Unable to instantiate bean " + clazz + " with name " + getBeanName(clazz), e);
+    }
+  }
+
   public static EnroscarBean getBeanInfo(final Class<?> clazz) {
     return getAnnotationFromHierarchy(clazz, EnroscarBean.class);
   }
@@ -52,6 +52,15 @@ public interface BeansContainer extends ComponentCallbacks {
    */
   void putEntityInstance(final String name, final Object instance);
 
+  /**
+   * Register an entity that is created on first request.
+   * Factory is called once even if the entity is requested from different threads simultaneously.
+   * {@link InitializingBean} callback is invoked right after the entity is created.
+   * @param name entity name
+   * @param factory entity factory
+   */
+  void putLazyEntity(final String name, final BeanFactory factory);
+
   /**
    * @param name entity name
    */
@@ -41,6 +41,9 @@ public class BeansManager {
   /** Container. */
   private final BeansContainer container;
 
+  /** Beans creation trace. */
+  private final BeansTrace trace = new BeansTrace();
+
   /** Register callbacks flag. */
   private boolean callbacksRegistered = false;
 
@@ -91,6 +94,19 @@ public class BeansManager {
     BeansManager.factory = factory;
   }
   
+  /**
+   * Register a compile-time beans index (generated {@code EnroscarBeanIndex} class).
+   * Indexed beans are named and created without reflection.
+   * Call it before putting beans with {@link #edit()}.
+   * @param index beans index
+   */
+  public static void registerIndex(final BeanIndex index) {
+    if (index == null) {
+      throw new IllegalArgumentException("Index cannot be null");
+    }
+    BeanUtils.registerIndex(index);
+  }
+
   /**
    * Call this method from {@link Application#onLowMemory()} to integrate enroscar on pre-ICS versions.
    * @param context application context
@@ -135,6 +151,9 @@ public class BeansManager {
   public Application getApplication() { return application; }
   public BeansContainer getContainer() { return container; }
 
+  /** @return trace that shows when beans were created */
+  public BeansTrace getTrace() { return trace; }
+
   /** Destroy the beans manager. */
   public final void destroy() {
     instance = null;
@@ -153,6 +172,9 @@ public class BeansManager {
     /** Editor actions. */
     private final LinkedHashMap<String, PutBean> editorActions = new LinkedHashMap<String, PutBean>();
 
+    /** Lazy mode flag. */
+    private boolean lazy;
+
     /**
      * @return actions map to commit
      */
@@ -185,9 +207,44 @@ public class BeansManager {
       });
       return this;
     }
+    /**
+     * Switch to lazy mode: beans put with {@link #put(Class)} after this call are created
+     * when they are requested from the container for the first time instead of commit time.
+     * {@link ManagerAwareBean} and {@link InitializingBean} callbacks of such beans are invoked
+     * on creation, so beans requested from {@link InitializingBean#onInitializationFinished(BeansContainer)}
+     * are created and initialized first.
+     * Beans put as instances are not affected.
+     * @return this editor
+     */
+    public Editor lazy() {
+      lazy = true;
+      return this;
+    }
+
     public <T> Editor put(final Class<T> beanClass) {
-      final EnroscarBean info = BeanUtils.getBeanInfo(beanClass);
-      editorActions.put(info != null ? info.value() : beanClass.getName(), new PutBean() {
+      final String name = BeanUtils.getBeanName(beanClass);
+      if (lazy) {
+        editorActions.put(name, new PutBean() {
+          @Override
+          public Object put() {
+            container.putLazyEntity(name, new BeanFactory() {
+              @Override
+              public Object createBean() {
+                final long start = trace.now();
+                T bean = BeanUtils.newBeanInstance(beanClass, application);
+                checkIntrfacesOnCreate(bean);
+                BeansTrace.Record record = trace.record(name, bean, true, start);
+                if (DEBUG) { Log.d(TAG, "Created " + record); }
+                return bean;
+              }
+            });
+            // nothing to initialize now
+            return null;
+          }
+        });
+        return this;
+      }
+      editorActions.put(name, new PutBean() {
         @Override
         public Object put() {
           return container.putEntityInstance(beanClass, application);
@@ -196,8 +253,7 @@ public class BeansManager {
       return this;
     }
     public <T> Editor put(final T bean) {
-      final EnroscarBean info = BeanUtils.getBeanInfo(bean.getClass());
-      editorActions.put(info != null ? info.value() : bean.getClass().getName(), new PutBean() {
+      editorActions.put(BeanUtils.getBeanName(bean.getClass()), new PutBean() {
         @Override
         public Object put() {
           container.putEntityInstance(bean);
@@ -212,13 +268,14 @@ public class BeansManager {
       ArrayList<Object> editedBeans = new ArrayList<Object>(editorActions.size());
 
       for (final Entry<String, PutBean> entry : editorActions.entrySet()) {
-        final long startAction = System.currentTimeMillis();
+        final long startAction = trace.now();
         Object bean = entry.getValue().put();
         if (bean != null) {
           checkIntrfacesOnCreate(bean);
           editedBeans.add(bean);
+          BeansTrace.Record record = trace.record(entry.getKey(), bean, false, startAction);
+          if (DEBUG) { Log.d(TAG, "Created " + record); }
         }
-        if (DEBUG) { Log.d(TAG, "One action time: " + (System.currentTimeMillis() - startAction)); }
       }
       if (DEBUG) { Log.d(TAG, "Run actions time: " + (System.currentTimeMillis() - start)); }
 
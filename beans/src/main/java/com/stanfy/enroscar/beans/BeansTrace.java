@@ -0,0 +1,96 @@
+package com.stanfy.enroscar.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records when beans are created by {@link BeansManager}.
+ * Use it to find out which beans are created during application startup and which ones
+ * are created lazily on first request.
+ * @see BeansManager#getTrace()
+ */
+public final class BeansTrace {
+
+  /** Trace start time, nanoseconds. */
+  private final long startTime = System.nanoTime();
+
+  /** Records. */
+  private final ArrayList<Record> records = new ArrayList<Record>();
+
+  BeansTrace() { }
+
+  /** @return current trace time in nanoseconds */
+  long now() {
+    return System.nanoTime() - startTime;
+  }
+
+  synchronized Record record(final String name, final Object bean, final boolean lazy,
+                             final long start) {
+    Record r = new Record(name, bean.getClass(), lazy, start, now() - start,
+        Thread.currentThread().getName());
+    records.add(r);
+    return r;
+  }
+
+  /** @return recorded bean creations in order */
+  public synchronized List<Record> getRecords() {
+    return new ArrayList<Record>(records);
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder result = new StringBuilder("BeansTrace{");
+    for (Record r : records) {
+      result.append("\n  ").append(r);
+    }
+    return result.append("\n}").toString();
+  }
+
+  /** Bean creation record. */
+  public static final class Record {
+    /** Bean name. */
+    private final String name;
+    /** Bean class. */
+    private final Class<?> type;
+    /** Whether the bean was created on demand. */
+    private final boolean lazy;
+    /** Times, nanoseconds. */
+    private final long start, duration;
+    /** Thread name. */
+    private final String thread;
+
+    Record(final String name, final Class<?> type, final boolean lazy, final long start,
+           final long duration, final String thread) {
+      this.name = name;
+      this.type = type;
+      this.lazy = lazy;
+      this.start = start;
+      this.duration = duration;
+      this.thread = thread;
+    }
+
+    public String getName() { return name; }
+    public Class<?> getType() { return type; }
+    public boolean isLazy() { return lazy; }
+    public String getThread() { return thread; }
+
+    /** @return time passed from beans manager creation till bean creation start */
+    public long getStartTime(final TimeUnit unit) {
+      return unit.convert(start, TimeUnit.NANOSECONDS);
+    }
+
+    /** @return time spent on bean creation */
+    public long getDuration(final TimeUnit unit) {
+      return unit.convert(duration, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+      return "+" + TimeUnit.NANOSECONDS.toMicros(start) + "us " + name + " (" + type.getName()
+          + ") in " + TimeUnit.NANOSECONDS.toMicros(duration) + "us"
+          + (lazy ? ", lazy on " + thread : "");
+    }
+  }
+
+}
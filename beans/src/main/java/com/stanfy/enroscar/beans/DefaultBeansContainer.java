@@ -1,8 +1,7 @@
 package com.stanfy.enroscar.beans;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import android.content.Context;
@@ -11,71 +10,107 @@ import android.util.Log;
 
 /**
  * A class that contains instances of different named application entities.
+ * <p>
+ *   Container is thread-safe. Reads do not take locks: beans are stored in a
+ *   {@link ConcurrentHashMap} and {@link #getBean(Class)} results are cached per class,
+ *   so that a typed lookup is a single map read. Modifications are serialized and make
+ *   cached lookups obsolete.
+ * </p>
  * @author Roman Mazur (Stanfy - http://stanfy.com)
  */
 public class DefaultBeansContainer implements BeansContainer {
 
   /** Entities map. */
-  private final HashMap<String, Object> beansMap = new HashMap<String, Object>();
+  private final ConcurrentHashMap<String, Object> beansMap = new ConcurrentHashMap<String, Object>();
+
+  /** Typed lookups cache. */
+  private final ConcurrentHashMap<Class<?>, CachedLookup> typedCache =
+      new ConcurrentHashMap<Class<?>, CachedLookup>();
+
+  /** Modifications counter. It is odd while a modification is in progress. */
+  private volatile int version;
 
   /** Identifiers counter. */
-  private int idCounter = 0;
+  private final AtomicInteger idCounter = new AtomicInteger();
 
   @Override
   public <T> T putEntityInstance(final Class<T> clazz, final Context context) {
-    final EnroscarBean beanAnnotation = BeanUtils.getBeanInfo(clazz);
-    T instance;
-    String name;
-    try {
-      if (beanAnnotation != null) {
-        name = beanAnnotation.value();
-        if (beanAnnotation.contextDependent()) {
-          if (context == null) { throw new IllegalArgumentException("Bean is context dependent but context is not supplied"); }
-          final Constructor<T> constr = clazz.getConstructor(Context.class);
-          instance = constr.newInstance(context);
-        } else {
-          instance = clazz.newInstance();
-        }
-      } else {
-        instance = clazz.newInstance();
-        name = clazz.getName();
-      }
-    } catch (final Exception e) {
-      throw new RuntimeException("Unable to instantiate bean " + clazz + " with name " + beanAnnotation.value(), e);
-    }
-    putEntityInstance(name, instance);
+    T instance = BeanUtils.newBeanInstance(clazz, context);
+    putEntityInstance(BeanUtils.getBeanName(clazz), instance);
     return instance;
   }
 
   @Override
   public void putEntityInstance(final String name, final Object instance) {
+    if (instance == null) {
+      throw new IllegalArgumentException("Bean " + name + " instance is null");
+    }
     if (DEBUG) { Log.d(TAG, "New bean: " + name + " - " + instance.getClass()); }
-    beansMap.put(name, instance);
+    synchronized (beansMap) {
+      version++;
+      beansMap.put(name, instance);
+      version++;
+    }
+  }
+
+  @Override
+  public void putLazyEntity(final String name, final BeanFactory factory) {
+    if (DEBUG) { Log.d(TAG, "New lazy bean: " + name); }
+    synchronized (beansMap) {
+      version++;
+      beansMap.put(name, new LazyBean(name, factory));
+      version++;
+    }
   }
 
   @Override
   public <T> T getBean(final Class<T> clazz) {
+    final int currentVersion = version;
+    // registered index may change bean names
+    final int currentIndex = BeanUtils.getIndexVersion();
+    final CachedLookup cached = typedCache.get(clazz);
+    if (cached != null && cached.version == currentVersion && cached.indexVersion == currentIndex) {
+      return cast(cached.value, clazz);
+    }
+
+    final Object value = beansMap.get(nameOf(clazz));
+    // cache only values read while there was no modification
+    if (value != null && (currentVersion & 1) == 0 && version == currentVersion) {
+      typedCache.put(clazz, new CachedLookup(currentVersion, currentIndex, value));
+    }
+    return cast(value, clazz);
+  }
+
+  private static String nameOf(final Class<?> clazz) {
+    final BeanDescriptor<?> descriptor = BeanUtils.getDescriptor(clazz);
+    if (descriptor != null) {
+      return descriptor.getName();
+    }
     final EnroscarBean beanAnnotation = clazz.getAnnotation(EnroscarBean.class);
-    String name = beanAnnotation != null ? beanAnnotation.value() : clazz.getName();
-    return getBean(name, clazz);
+    return beanAnnotation != null ? beanAnnotation.value() : clazz.getName();
   }
 
   @Override
   public <T> T getBean(final String name, final Class<T> clazz) {
-    final Object instance = beansMap.get(name);
+    return name != null ? cast(beansMap.get(name), clazz) : null;
+  }
+
+  private <T> T cast(final Object instance, final Class<T> clazz) {
+    if (instance instanceof LazyBean) {
+      return clazz.cast(((LazyBean) instance).get(this));
+    }
     return clazz.cast(instance);
   }
 
   @Override
   public void putEntityInstance(final Object instance) {
-    final EnroscarBean beanAnnotation = BeanUtils.getBeanInfo(instance.getClass());
-    putEntityInstance(beanAnnotation != null ? beanAnnotation.value() : instance.getClass().getName(), instance);
+    putEntityInstance(BeanUtils.getBeanName(instance.getClass()), instance);
   }
 
   @Override
   public void onConfigurationChanged(final Configuration config) {
     for (final Entry<String, Object> entry : beansMap.entrySet()) {
-      final Object instance = entry.getValue();
+      final Object instance = created(entry.getValue());
       if (instance instanceof ConfigurationDependentBean) {
         ((ConfigurationDependentBean) instance).triggerConfigurationChange(config);
       }
@@ -85,7 +120,7 @@ public class DefaultBeansContainer implements BeansContainer {
   @Override
   public void onLowMemory() {
     for (final Entry<String, Object> entry : beansMap.entrySet()) {
-      final Object instance = entry.getValue();
+      final Object instance = created(entry.getValue());
       if (instance instanceof FlushableBean) {
         ((FlushableBean) instance).flushResources(this);
       }
@@ -95,33 +130,45 @@ public class DefaultBeansContainer implements BeansContainer {
   @Override
   public void destroy() {
     for (final Entry<String, Object> entry : beansMap.entrySet()) {
-      final Object instance = entry.getValue();
+      final Object instance = created(entry.getValue());
       if (instance instanceof DestroyingBean) {
         ((DestroyingBean) instance).onDestroy(this);
       }
     }
-    beansMap.clear();
+    synchronized (beansMap) {
+      version++;
+      beansMap.clear();
+      typedCache.clear();
+      version++;
+    }
   }
 
   @Override
   public boolean containsBean(final String name) {
-    return beansMap.containsKey(name);
+    return name != null && beansMap.containsKey(name);
   }
 
   @Override
   public void removeEntityInstance(final String name) {
-    final Object instance = beansMap.remove(name);
+    Object instance = null;
+    if (name != null) {
+      synchronized (beansMap) {
+        version++;
+        instance = beansMap.remove(name);
+        version++;
+      }
+    }
     if (instance == null) {
       throw new IllegalArgumentException("Bean " + name + " is not found in beans container");
     }
-    if (DEBUG) { Log.d(TAG, "Remove bean: " + name + " - " + instance.getClass()); }
+    if (DEBUG) { Log.d(TAG, "Remove bean: " + name + " - " + instance); }
   }
 
   @Override
   public void removeEntityInstance(final Object instance) {
     String name = null;
     for (Entry<String, Object> pair : beansMap.entrySet()) {
-      if (pair.getValue() == instance) {
+      if (created(pair.getValue()) == instance) {
         name = pair.getKey();
         break;
       }
@@ -131,9 +178,97 @@ public class DefaultBeansContainer implements BeansContainer {
 
   @Override
   public String putTemporaryInstance(final Object instance) {
-    String beanName = instance.getClass() + "-" + System.currentTimeMillis() + "-" + (++idCounter);
+    String beanName = instance.getClass() + "-" + System.currentTimeMillis() + "-" + idCounter.incrementAndGet();
     putEntityInstance(beanName, instance);
     return beanName;
   }
 
+  /**
+   * @param value map value
+   * @return bean instance or {@code null} if it's a lazy bean that is not created yet
+   */
+  private static Object created(final Object value) {
+    return value instanceof LazyBean ? ((LazyBean) value).ready : value;
+  }
+
+  /** Result of typed lookup. */
+  private static final class CachedLookup {
+    /** Container version the value was read at. */
+    final int version;
+    /** Index version the bean name was resolved with. */
+    final int indexVersion;
+    /** Value of beans map. */
+    final Object value;
+
+    CachedLookup(final int version, final int indexVersion, final Object value) {
+      this.version = version;
+      this.indexVersion = indexVersion;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Bean that is created on first request.
+   * The instance is published before its initialization callback is invoked, and the callback
+   * is invoked without holding a lock. So beans that request each other from their callbacks
+   * do not deadlock, yet they may get an instance whose callback is not completed.
+   */
+  private static final class LazyBean {
+    /** Bean name. */
+    private final String name;
+    /** Factory. */
+    private final BeanFactory factory;
+    /** Created instance. Guarded by this. */
+    private Object instance;
+    /** Created and initialized instance. */
+    volatile Object ready;
+    /** Thread that creates the bean. */
+    private Thread creator;
+
+    LazyBean(final String name, final BeanFactory factory) {
+      this.name = name;
+      this.factory = factory;
+    }
+
+    Object get(final BeansContainer container) {
+      Object result = ready;
+      if (result != null) {
+        return result;
+      }
+      synchronized (this) {
+        if (instance != null) {
+          // initialization callback is invoked or being invoked by the creating thread
+          return instance;
+        }
+        if (creator == Thread.currentThread()) {
+          throw new IllegalStateException("Circular dependency: bean " + name
+              + " is requested while it is being created");
+        }
+        creator = Thread.currentThread();
+        try {
+          result = factory.createBean();
+        } finally {
+          creator = null;
+        }
+        if (result == null) {
+          throw new IllegalStateException("Factory of bean " + name + " returned null");
+        }
+        // only the thread that sets the instance invokes the callback
+        instance = result;
+      }
+      // beans requested by this callback are created on demand as well
+      if (result instanceof InitializingBean) {
+        ((InitializingBean) result).onInitializationFinished(container);
+      }
+      ready = result;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      Object bean = ready;
+      return "LazyBean{" + name + (bean != null ? " - " + bean.getClass() : "") + "}";
+    }
+  }
+
 }
@@ -2,8 +2,19 @@ package com.stanfy.enroscar.beans.test;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,8 +22,11 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import com.stanfy.enroscar.beans.BeansContainer;
 import com.stanfy.enroscar.beans.BeansManager;
+import com.stanfy.enroscar.beans.BeansTrace;
 import com.stanfy.enroscar.beans.EnroscarBean;
+import com.stanfy.enroscar.beans.InitializingBean;
 
 /**
  * Tests for {@link BeansManager.Editor}.
@@ -33,11 +47,100 @@ public class BeanManagerEditorTest {
       .commit();
   }
   
+  @After
+  public void destroyBeans() {
+    beansManager.getContainer().destroy();
+    beansManager.destroy();
+  }
+
   @Test
   public void beanWithSameNamesShouldBeSabstitued() {
     assertThat(beansManager.getContainer().getBean(BeanA.class), is(instanceOf(BeanB.class)));
   }
   
+  @Test
+  public void lazyBeansShouldBeCreatedOnDemand() {
+    LazyBean.created.set(0);
+    beansManager.edit().lazy()
+      .put(LazyBean.class)
+      .put(DependentBean.class)
+      .commit();
+    assertThat(LazyBean.created.get(), is(0));
+    assertThat(beansManager.getTrace().getRecords().size(), is(1)); // mybean only
+
+    // LazyBean is requested from DependentBean initialization callback
+    DependentBean bean = beansManager.getContainer().getBean(DependentBean.class);
+    assertThat(bean.dependency, is(notNullValue()));
+    assertThat(bean.dependency.initialized, is(true));
+    assertThat(LazyBean.created.get(), is(1));
+
+    List<BeansTrace.Record> records = beansManager.getTrace().getRecords();
+    assertThat(records.size(), is(3));
+    assertThat(records.get(1).getName(), is("dependent"));
+    assertThat(records.get(1).isLazy(), is(true));
+    assertThat(records.get(2).getName(), is("lazy"));
+  }
+
+  @Test
+  public void lazyBeanShouldBeCreatedOnceByConcurrentRequests() throws Exception {
+    LazyBean.created.set(0);
+    LazyBean.initializations.set(0);
+    beansManager.edit().lazy().put(LazyBean.class).commit();
+
+    final int threadsCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadsCount);
+    final Set<LazyBean> beans = Collections.newSetFromMap(new ConcurrentHashMap<LazyBean, Boolean>());
+    for (int i = 0; i < threadsCount; i++) {
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            beans.add(beansManager.getContainer().getBean(LazyBean.class));
+          } catch (InterruptedException e) {
+            // finish
+          } finally {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+    start.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+
+    assertThat(beans.size(), is(1));
+    assertThat(beans.iterator().next().initialized, is(true));
+    assertThat(LazyBean.created.get(), is(1));
+    assertThat(LazyBean.initializations.get(), is(1));
+  }
+
+  @Test
+  public void lazyBeansShouldRequestEachOtherFromCallbacksInDifferentThreads() throws Exception {
+    CrossBeanA.barrier = new CyclicBarrier(2);
+    beansManager.edit().lazy()
+      .put(CrossBeanA.class)
+      .put(CrossBeanB.class)
+      .commit();
+
+    final CountDownLatch done = new CountDownLatch(2);
+    for (final Class<?> beanClass : new Class<?>[] {CrossBeanA.class, CrossBeanB.class}) {
+      new Thread() {
+        @Override
+        public void run() {
+          beansManager.getContainer().getBean(beanClass);
+          done.countDown();
+        }
+      }.start();
+    }
+    assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+
+    CrossBeanA a = beansManager.getContainer().getBean(CrossBeanA.class);
+    CrossBeanB b = beansManager.getContainer().getBean(CrossBeanB.class);
+    assertThat(a.other == b, is(true));
+    assertThat(b.other == a, is(true));
+  }
+
   /** Example bean. */
   @EnroscarBean("mybean")
   public static class BeanA {
@@ -46,5 +149,74 @@ public class BeanManagerEditorTest {
   /** Will rewrite BeanA. */
   public static class BeanB extends BeanA {
   }
+
+  /** Lazy bean. */
+  @EnroscarBean("lazy")
+  public static class LazyBean implements InitializingBean {
+    /** Instances counter. */
+    static final AtomicInteger created = new AtomicInteger();
+    /** Initialization callbacks counter. */
+    static final AtomicInteger initializations = new AtomicInteger();
+    /** Initialization flag. */
+    volatile boolean initialized;
+
+    public LazyBean() {
+      created.incrementAndGet();
+    }
+
+    @Override
+    public void onInitializationFinished(final BeansContainer beansContainer) {
+      initializations.incrementAndGet();
+      initialized = true;
+    }
+  }
+
+  /** Requests CrossBeanB when both beans are being initialized. */
+  @EnroscarBean("crossA")
+  public static class CrossBeanA implements InitializingBean {
+    /** Makes both callbacks run at the same time. */
+    static CyclicBarrier barrier;
+    /** Dependency. */
+    volatile Object other;
+
+    @Override
+    public void onInitializationFinished(final BeansContainer beansContainer) {
+      await(barrier);
+      other = beansContainer.getBean(CrossBeanB.class);
+    }
+
+    static void await(final CyclicBarrier barrier) {
+      try {
+        barrier.await(5, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  /** Requests CrossBeanA when both beans are being initialized. */
+  @EnroscarBean("crossB")
+  public static class CrossBeanB implements InitializingBean {
+    /** Dependency. */
+    volatile Object other;
+
+    @Override
+    public void onInitializationFinished(final BeansContainer beansContainer) {
+      CrossBeanA.await(CrossBeanA.barrier);
+      other = beansContainer.getBean(CrossBeanA.class);
+    }
+  }
+
+  /** Bean that depends on LazyBean. */
+  @EnroscarBean("dependent")
+  public static class DependentBean implements InitializingBean {
+    /** Dependency. */
+    LazyBean dependency;
+
+    @Override
+    public void onInitializationFinished(final BeansContainer beansContainer) {
+      dependency = beansContainer.getBean(LazyBean.class);
+    }
+  }
   
 }
@@ -0,0 +1,93 @@
+package com.stanfy.enroscar.beans.test;
+
+import android.content.Context;
+
+import com.stanfy.enroscar.beans.BeanDescriptor;
+import com.stanfy.enroscar.beans.BeanIndex;
+import com.stanfy.enroscar.beans.BeansManager;
+import com.stanfy.enroscar.beans.DefaultBeansContainer;
+import com.stanfy.enroscar.beans.EnroscarBean;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares container setup time with reflective bean discovery and with a beans index
+ * (equivalent to the one generated by beans compiler).
+ * Not a test: run {@link #main(String[])} manually.
+ */
+public final class BeansStartupBenchmark {
+
+  /** Parameters. */
+  private static final int SETUPS = 20000, ROUNDS = 5;
+
+  /** Index. */
+  private static final BeanIndex INDEX = new BeanIndex() {
+    @Override
+    public List<BeanDescriptor<?>> getBeans() {
+      return Arrays.<BeanDescriptor<?>>asList(
+          new BeanDescriptor<Bean1>(Bean1.class, "bean1", false) {
+            @Override
+            public Bean1 newInstance(final Context context) {
+              return new Bean1();
+            }
+          },
+          new BeanDescriptor<Bean2>(Bean2.class, "bean2", false) {
+            @Override
+            public Bean2 newInstance(final Context context) {
+              return new Bean2();
+            }
+          },
+          new BeanDescriptor<Bean3>(Bean3.class, "bean3", false) {
+            @Override
+            public Bean3 newInstance(final Context context) {
+              return new Bean3();
+            }
+          }
+      );
+    }
+  };
+
+  private BeansStartupBenchmark() { }
+
+  public static void main(final String[] args) {
+    long[] reflective = new long[ROUNDS];
+    for (int round = 0; round < ROUNDS; round++) {
+      reflective[round] = measure();
+    }
+    // index cannot be unregistered, so reflective variant goes first
+    BeansManager.registerIndex(INDEX);
+    for (int round = 0; round < ROUNDS; round++) {
+      long indexed = measure();
+      System.out.println("round " + round + ": reflection " + reflective[round] / 1000000
+          + " ms, index " + indexed / 1000000 + " ms");
+    }
+  }
+
+  private static long measure() {
+    long start = System.nanoTime();
+    for (int i = 0; i < SETUPS; i++) {
+      DefaultBeansContainer container = new DefaultBeansContainer();
+      container.putEntityInstance(Bean1.class, null);
+      container.putEntityInstance(Bean2.class, null);
+      container.putEntityInstance(Bean3.class, null);
+      container.getBean(Bean1.class);
+      container.getBean(Bean2.class);
+      container.getBean(Bean3.class);
+    }
+    return System.nanoTime() - start;
+  }
+
+  /** Bean. */
+  @EnroscarBean("bean1")
+  public static class Bean1 { }
+
+  /** Bean. */
+  @EnroscarBean("bean2")
+  public static class Bean2 { }
+
+  /** Bean. */
+  @EnroscarBean("bean3")
+  public static class Bean3 extends Bean2 { }
+
+}
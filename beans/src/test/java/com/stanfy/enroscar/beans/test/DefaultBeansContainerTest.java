@@ -1,10 +1,23 @@
 package com.stanfy.enroscar.beans.test;
 
+import android.content.Context;
+
+import com.stanfy.enroscar.beans.BeanDescriptor;
+import com.stanfy.enroscar.beans.BeanFactory;
+import com.stanfy.enroscar.beans.BeanIndex;
+import com.stanfy.enroscar.beans.BeansManager;
 import com.stanfy.enroscar.beans.DefaultBeansContainer;
+import com.stanfy.enroscar.beans.EnroscarBean;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.fest.assertions.api.Assertions.*;
 
@@ -47,4 +60,155 @@ public class DefaultBeansContainerTest {
     assertThat(container.containsBean("b1")).isFalse();
   }
 
+  @Test
+  public void shouldUseIndexToCreateBeans() {
+    final int[] created = {0};
+    BeansManager.registerIndex(new BeanIndex() {
+      @Override
+      public List<BeanDescriptor<?>> getBeans() {
+        return Collections.<BeanDescriptor<?>>singletonList(
+            new BeanDescriptor<IndexedBean>(IndexedBean.class, "indexed", false) {
+              @Override
+              public IndexedBean newInstance(final Context context) {
+                created[0]++;
+                return new IndexedBean();
+              }
+            });
+      }
+    });
+
+    IndexedBean bean = container.putEntityInstance(IndexedBean.class, null);
+    assertThat(created[0]).isEqualTo(1);
+    assertThat(container.containsBean("indexed")).isTrue();
+    assertThat(container.getBean(IndexedBean.class)).isSameAs(bean);
+  }
+
+  @Test
+  public void registeredIndexShouldInvalidateTypedLookups() {
+    Object before = new RenamedBean(), after = new RenamedBean();
+    container.putEntityInstance("before", before);
+    container.putEntityInstance("after", after);
+    assertThat(container.getBean(RenamedBean.class)).isSameAs(before);
+
+    BeansManager.registerIndex(new BeanIndex() {
+      @Override
+      public List<BeanDescriptor<?>> getBeans() {
+        return Collections.<BeanDescriptor<?>>singletonList(
+            new BeanDescriptor<RenamedBean>(RenamedBean.class, "after", false) {
+              @Override
+              public RenamedBean newInstance(final Context context) {
+                return new RenamedBean();
+              }
+            });
+      }
+    });
+    assertThat(container.getBean(RenamedBean.class)).isSameAs(after);
+  }
+
+  @Test
+  public void lazyBeanShouldBeCreatedOnFirstRequest() {
+    final int[] created = {0};
+    container.putLazyEntity("lazy", new BeanFactory() {
+      @Override
+      public Object createBean() {
+        created[0]++;
+        return new IndexedBean();
+      }
+    });
+    assertThat(container.containsBean("lazy")).isTrue();
+    assertThat(created[0]).isZero();
+
+    IndexedBean bean = container.getBean("lazy", IndexedBean.class);
+    assertThat(bean).isNotNull();
+    assertThat(container.getBean("lazy", IndexedBean.class)).isSameAs(bean);
+    assertThat(created[0]).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void circularLazyBeansShouldBeReported() {
+    container.putLazyEntity("lazy", new BeanFactory() {
+      @Override
+      public Object createBean() {
+        return container.getBean("lazy", Object.class);
+      }
+    });
+    container.getBean("lazy", Object.class);
+  }
+
+  @Test
+  public void typedLookupsShouldBeSafeUnderConcurrentModifications() throws Exception {
+    final int readersCount = 8, replacements = 2000;
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(readersCount);
+    container.putEntityInstance(new StressBean(0));
+
+    for (int i = 0; i < readersCount; i++) {
+      new Thread("reader-" + i) {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            int lastVersion = -1;
+            while (writing.get()) {
+              StressBean bean = container.getBean(StressBean.class);
+              // bean can be removed for a moment, but it must never be older than the seen one
+              if (bean != null) {
+                if (bean.version < lastVersion) {
+                  throw new AssertionError("Stale bean " + bean.version + " after " + lastVersion);
+                }
+                lastVersion = bean.version;
+              }
+              container.getBean("other", Object.class);
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+
+    start.countDown();
+    StressBean last = null;
+    for (int i = 1; i <= replacements; i++) {
+      last = new StressBean(i);
+      if (i % 10 == 0) {
+        container.removeEntityInstance(StressBean.NAME);
+      }
+      container.putEntityInstance(last);
+      container.putTemporaryInstance(new Object());
+    }
+    writing.set(false);
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(failure.get()).isNull();
+    assertThat(container.getBean(StressBean.class)).isSameAs(last);
+  }
+
+  /** Bean used by stress test. */
+  @EnroscarBean(StressBean.NAME)
+  public static class StressBean {
+    /** Bean name. */
+    static final String NAME = "stress";
+    /** Instance version. */
+    final int version;
+
+    StressBean(final int version) {
+      this.version = version;
+    }
+  }
+
+  /** Bean registered in index. */
+  @EnroscarBean("indexed")
+  public static class IndexedBean {
+  }
+
+  /** Bean that gets another name in index. */
+  @EnroscarBean("before")
+  public static class RenamedBean {
+  }
+
 }
@@ -0,0 +1,601 @@
+package com.stanfy.enroscar.content;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.annotation.SuppressLint;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Process;
+import android.os.RemoteException;
+import android.util.Log;
+
+import com.stanfy.enroscar.content.NotifyingAsyncQueryHandler.AsyncQueryListener;
+
+/**
+ * Replacement for {@link NotifyingAsyncQueryHandler} that runs operations in two lanes
+ * of background workers: queries are executed by read workers, inserts, updates and deletes
+ * are executed by write workers. So writes do not wait for slow queries.
+ * <p>
+ *   If the provider applies batches atomically (see {@link Builder#atomicBatches(boolean)}),
+ *   writes that are queued while a write worker is busy are applied together with
+ *   {@link ContentResolver#applyBatch(String, ArrayList)}, consecutive writes to the same
+ *   authority form one batch. If a batch fails, nothing is applied by the provider,
+ *   and its operations are applied one by one.
+ *   Otherwise every write is applied separately.
+ *   With one write worker (default) writes are applied in the order they were started.
+ * </p>
+ * <p>
+ *   Results are passed to {@link AsyncQueryListener} on the thread that created the handler.
+ *   If the listener also implements {@link WriteErrorListener}, failed writes are reported to it.
+ *   The listener is held with a weak reference, cursors are closed if it ceases to exist.
+ *   Time that operations spend in queues is reported by {@link #getReadStats()} and
+ *   {@link #getWriteStats()}.
+ * </p>
+ */
+public class BackgroundQueryHandler {
+
+  /** Logging tag. */
+  private static final String TAG = "BackgroundQueryHandler";
+
+  /** Time to keep idle workers alive, seconds. */
+  private static final int KEEP_ALIVE = 10;
+
+  /** Operation types. */
+  private static final int INSERT = 1, UPDATE = 2, DELETE = 3;
+
+  /** Content resolver. */
+  private final ContentResolver resolver;
+
+  /** Handler for results. */
+  private final Handler handler = new Handler();
+
+  /** Read lane. */
+  private final ThreadPoolExecutor readExecutor;
+
+  /** Write lane. */
+  private final ThreadPoolExecutor writeExecutor;
+
+  /** Max count of operations in one batch, 1 if batches are not atomic. */
+  private final int maxBatchSize;
+
+  /** Queued writes. Guarded by itself. */
+  private final LinkedList<WriteOperation> pendingWrites = new LinkedList<WriteOperation>();
+
+  /** Applies queued writes. */
+  private final Runnable drainWrites = new Runnable() {
+    @Override
+    public void run() {
+      List<WriteOperation> batch;
+      while ((batch = nextBatch()) != null) {
+        applyWrites(batch);
+      }
+    }
+  };
+
+  /** Statistics. */
+  private final QueueStats readStats = new QueueStats(), writeStats = new QueueStats();
+
+  /** Listener reference. */
+  private WeakReference<AsyncQueryListener> listener;
+
+  BackgroundQueryHandler(final ContentResolver resolver, final AsyncQueryListener listener,
+                         final int readWorkers, final int writeWorkers, final int maxBatchSize,
+                         final boolean atomicBatches) {
+    this.resolver = resolver;
+    // operations of a failed non-atomic batch may be partially applied, so they cannot be retried
+    this.maxBatchSize = atomicBatches ? maxBatchSize : 1;
+    this.readExecutor = createExecutor("read", readWorkers);
+    this.writeExecutor = createExecutor("write", writeWorkers);
+    setQueryListener(listener);
+  }
+
+  /**
+   * Start handler building.
+   * @param resolver content resolver instance
+   * @return builder instance
+   */
+  public static Builder build(final ContentResolver resolver) { return new Builder(resolver); }
+
+  @SuppressLint("NewApi")
+  private static ThreadPoolExecutor createExecutor(final String lane, final int workers) {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new WorkerFactory(lane));
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+
+  /**
+   * Assign the given {@link AsyncQueryListener} to receive operation results.
+   * Will replace any existing listener.
+   */
+  public void setQueryListener(final AsyncQueryListener listener) {
+    this.listener = new WeakReference<AsyncQueryListener>(listener);
+  }
+
+  /** Clear any {@link AsyncQueryListener}. */
+  public void clearQueryListener() {
+    this.listener = null;
+  }
+
+  private AsyncQueryListener getListener() {
+    final WeakReference<AsyncQueryListener> ref = listener;
+    return ref == null ? null : ref.get();
+  }
+
+  /**
+   * Begin an asynchronous query. When finished,
+   * {@link AsyncQueryListener#onQueryComplete(int, Object, Cursor)} is called.
+   */
+  public void startQuery(final int token, final Object cookie, final Uri uri, final String[] projection,
+                         final String selection, final String[] selectionArgs, final String orderBy) {
+    readExecutor.execute(new QueryOperation(token, cookie, uri, projection, selection, selectionArgs, orderBy));
+  }
+
+  public void startQuery(final int token, final Uri uri, final String[] projection) {
+    startQuery(token, null, uri, projection, null, null, null);
+  }
+
+  /**
+   * Begin an asynchronous insert. When finished,
+   * {@link AsyncQueryListener#onInsertComplete(int, Object, Uri)} is called.
+   */
+  public void startInsert(final int token, final Object cookie, final Uri uri, final ContentValues values) {
+    enqueueWrite(new WriteOperation(INSERT, token, cookie, uri, values, null, null));
+  }
+
+  /**
+   * Begin an asynchronous update. When finished,
+   * {@link AsyncQueryListener#onUpdateComplete(int, Object, int)} is called.
+   */
+  public void startUpdate(final int token, final Object cookie, final Uri uri, final ContentValues values,
+                          final String selection, final String[] selectionArgs) {
+    enqueueWrite(new WriteOperation(UPDATE, token, cookie, uri, values, selection, selectionArgs));
+  }
+
+  /**
+   * Begin an asynchronous delete. When finished,
+   * {@link AsyncQueryListener#onDeleteComplete(int, Object, int)} is called.
+   */
+  public void startDelete(final int token, final Object cookie, final Uri uri,
+                          final String selection, final String[] selectionArgs) {
+    enqueueWrite(new WriteOperation(DELETE, token, cookie, uri, null, selection, selectionArgs));
+  }
+
+  /**
+   * Attempts to cancel operations that have not already started.
+   * @param token token of operations to cancel
+   */
+  public void cancelOperation(final int token) {
+    final Iterator<Runnable> reads = readExecutor.getQueue().iterator();
+    while (reads.hasNext()) {
+      final Runnable r = reads.next();
+      if (r instanceof QueryOperation && ((QueryOperation) r).token == token) {
+        reads.remove();
+      }
+    }
+    synchronized (pendingWrites) {
+      final Iterator<WriteOperation> writes = pendingWrites.iterator();
+      while (writes.hasNext()) {
+        if (writes.next().token == token) {
+          writes.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Stop the workers. Operations that have not started are dropped.
+   * Handler cannot be used after this call.
+   */
+  public void quit() {
+    readExecutor.shutdownNow();
+    writeExecutor.shutdownNow();
+    synchronized (pendingWrites) {
+      pendingWrites.clear();
+    }
+  }
+
+  /** @return statistics of the read lane */
+  public QueueStats getReadStats() { return readStats; }
+
+  /** @return statistics of the write lane */
+  public QueueStats getWriteStats() { return writeStats; }
+
+  private void enqueueWrite(final WriteOperation op) {
+    synchronized (pendingWrites) {
+      pendingWrites.add(op);
+    }
+    writeExecutor.execute(drainWrites);
+  }
+
+  /** @return consecutive queued writes to the same authority */
+  List<WriteOperation> nextBatch() {
+    synchronized (pendingWrites) {
+      if (pendingWrites.isEmpty()) {
+        return null;
+      }
+      final ArrayList<WriteOperation> batch = new ArrayList<WriteOperation>();
+      final String authority = pendingWrites.getFirst().uri.getAuthority();
+      while (!pendingWrites.isEmpty() && batch.size() < maxBatchSize
+          && authority.equals(pendingWrites.getFirst().uri.getAuthority())) {
+        batch.add(pendingWrites.removeFirst());
+      }
+      return batch;
+    }
+  }
+
+  void applyWrites(final List<WriteOperation> batch) {
+    final long start = System.nanoTime();
+    final Object[] results = new Object[batch.size()];
+    final Exception[] errors = new Exception[batch.size()];
+
+    boolean applied = false;
+    if (batch.size() > 1) {
+      final ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>(batch.size());
+      for (final WriteOperation op : batch) {
+        operations.add(op.toProviderOperation());
+      }
+      try {
+        final ContentProviderResult[] r = resolver.applyBatch(batch.get(0).uri.getAuthority(), operations);
+        for (int i = 0; i < results.length; i++) {
+          results[i] = batch.get(i).result(i < r.length ? r[i] : null);
+        }
+        applied = true;
+      } catch (final RemoteException e) {
+        Log.w(TAG, "Cannot apply batch of " + batch.size() + " operations, applying them one by one", e);
+      } catch (final OperationApplicationException e) {
+        Log.w(TAG, "Cannot apply batch of " + batch.size() + " operations, applying them one by one", e);
+      } catch (final RuntimeException e) {
+        // providers report constraint, argument and permission errors this way
+        Log.w(TAG, "Cannot apply batch of " + batch.size() + " operations, applying them one by one", e);
+      }
+    }
+    if (!applied) {
+      for (int i = 0; i < results.length; i++) {
+        final WriteOperation op = batch.get(i);
+        try {
+          results[i] = op.apply(resolver);
+        } catch (final Exception e) {
+          Log.w(TAG, "Operation on " + op.uri + " failed", e);
+          errors[i] = e;
+          results[i] = op.result(null);
+        }
+      }
+    }
+
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        final AsyncQueryListener listener = getListener();
+        if (listener == null) {
+          return;
+        }
+        for (int i = 0; i < results.length; i++) {
+          final WriteOperation op = batch.get(i);
+          if (errors[i] != null && listener instanceof WriteErrorListener) {
+            ((WriteErrorListener) listener).onWriteError(op.token, op.cookie, errors[i]);
+          } else {
+            op.deliver(listener, results[i]);
+          }
+        }
+      }
+    });
+
+    for (final WriteOperation op : batch) {
+      writeStats.recordWait(start - op.enqueueTime);
+    }
+    writeStats.recordBatch();
+  }
+
+  /** Worker threads factory. */
+  private static final class WorkerFactory implements ThreadFactory {
+    /** Lane name. */
+    private final String lane;
+    /** Threads counter. */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    WorkerFactory(final String lane) {
+      this.lane = lane;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+      final Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+          r.run();
+        }
+      }, "query-" + lane + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  /** Query operation. */
+  private final class QueryOperation implements Runnable {
+    /** Token. */
+    final int token;
+    /** Cookie. */
+    final Object cookie;
+    /** Query parameters. */
+    final Uri uri;
+    /** Query parameters. */
+    final String[] projection, selectionArgs;
+    /** Query parameters. */
+    final String selection, orderBy;
+    /** Time when the operation was queued. */
+    final long enqueueTime = System.nanoTime();
+
+    QueryOperation(final int token, final Object cookie, final Uri uri, final String[] projection,
+                   final String selection, final String[] selectionArgs, final String orderBy) {
+      this.token = token;
+      this.cookie = cookie;
+      this.uri = uri;
+      this.projection = projection;
+      this.selection = selection;
+      this.selectionArgs = selectionArgs;
+      this.orderBy = orderBy;
+    }
+
+    @Override
+    public void run() {
+      final long wait = System.nanoTime() - enqueueTime;
+      Cursor cursor;
+      try {
+        cursor = resolver.query(uri, projection, selection, selectionArgs, orderBy);
+        if (cursor != null) {
+          // fill the cursor window in background
+          cursor.getCount();
+        }
+      } catch (final Exception e) {
+        Log.w(TAG, "Query " + uri + " failed", e);
+        cursor = null;
+      }
+
+      final Cursor result = cursor;
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          final AsyncQueryListener listener = getListener();
+          if (listener != null) {
+            listener.onQueryComplete(token, cookie, result);
+          } else if (result != null) {
+            result.close();
+          }
+        }
+      });
+      readStats.recordWait(wait);
+      readStats.recordBatch();
+    }
+  }
+
+  /** Insert, update or delete operation. */
+  static final class WriteOperation {
+    /** Operation type. */
+    final int type;
+    /** Token. */
+    final int token;
+    /** Cookie. */
+    final Object cookie;
+    /** Target URI. */
+    final Uri uri;
+    /** Values. */
+    final ContentValues values;
+    /** Selection. */
+    final String selection;
+    /** Selection arguments. */
+    final String[] selectionArgs;
+    /** Time when the operation was queued. */
+    final long enqueueTime = System.nanoTime();
+
+    WriteOperation(final int type, final int token, final Object cookie, final Uri uri,
+                   final ContentValues values, final String selection, final String[] selectionArgs) {
+      this.type = type;
+      this.token = token;
+      this.cookie = cookie;
+      this.uri = uri;
+      this.values = values;
+      this.selection = selection;
+      this.selectionArgs = selectionArgs;
+    }
+
+    ContentProviderOperation toProviderOperation() {
+      final ContentProviderOperation.Builder builder;
+      switch (type) {
+      case INSERT:
+        return ContentProviderOperation.newInsert(uri).withValues(values).build();
+      case UPDATE:
+        builder = ContentProviderOperation.newUpdate(uri).withValues(values);
+        break;
+      default:
+        builder = ContentProviderOperation.newDelete(uri);
+      }
+      if (selection != null) {
+        builder.withSelection(selection, selectionArgs);
+      }
+      return builder.build();
+    }
+
+    /** @return URI for inserts, count of rows for updates and deletes */
+    Object result(final ContentProviderResult result) {
+      if (type == INSERT) {
+        return result != null ? result.uri : null;
+      }
+      return result != null && result.count != null ? result.count : 0;
+    }
+
+    /** Apply the operation alone. */
+    Object apply(final ContentResolver resolver) {
+      switch (type) {
+      case INSERT:
+        return resolver.insert(uri, values);
+      case UPDATE:
+        return resolver.update(uri, values, selection, selectionArgs);
+      default:
+        return resolver.delete(uri, selection, selectionArgs);
+      }
+    }
+
+    void deliver(final AsyncQueryListener listener, final Object result) {
+      switch (type) {
+      case INSERT:
+        listener.onInsertComplete(token, cookie, (Uri) result);
+        break;
+      case UPDATE:
+        listener.onUpdateComplete(token, cookie, (Integer) result);
+        break;
+      default:
+        listener.onDeleteComplete(token, cookie, (Integer) result);
+      }
+    }
+  }
+
+  /**
+   * Listener that is notified about failed writes.
+   * Failed writes are reported instead of the usual completion callbacks.
+   */
+  public interface WriteErrorListener extends AsyncQueryListener {
+    /**
+     * Is called when an async insert, update or delete fails.
+     * @param token unique token
+     * @param cookie object associated with the current request
+     * @param error error thrown by the provider
+     */
+    void onWriteError(int token, Object cookie, Exception error);
+  }
+
+  /** Statistics of a lane. */
+  public static final class QueueStats {
+    /** Counters. */
+    private final AtomicLong operations = new AtomicLong(), batches = new AtomicLong();
+    /** Waits, nanoseconds. */
+    private final AtomicLong totalWait = new AtomicLong(), maxWait = new AtomicLong();
+
+    QueueStats() { }
+
+    void recordWait(final long wait) {
+      totalWait.addAndGet(wait);
+      long max;
+      do {
+        max = maxWait.get();
+      } while (wait > max && !maxWait.compareAndSet(max, wait));
+      operations.incrementAndGet();
+    }
+
+    void recordBatch() {
+      batches.incrementAndGet();
+    }
+
+    /** @return count of completed operations */
+    public long getOperationsCount() { return operations.get(); }
+
+    /** @return count of provider calls; for writes it's less than operations count when writes are batched */
+    public long getBatchesCount() { return batches.get(); }
+
+    /** @return average time operations spent in the queue */
+    public long getAverageWait(final TimeUnit unit) {
+      final long count = operations.get();
+      return count == 0 ? 0 : unit.convert(totalWait.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /** @return max time an operation spent in the queue */
+    public long getMaxWait(final TimeUnit unit) {
+      return unit.convert(maxWait.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+      return "operations=" + getOperationsCount() + ", batches=" + getBatchesCount()
+          + ", averageWait=" + getAverageWait(TimeUnit.MILLISECONDS) + "ms"
+          + ", maxWait=" + getMaxWait(TimeUnit.MILLISECONDS) + "ms";
+    }
+  }
+
+  /** Handler builder. */
+  public static class Builder {
+    /** Default max batch size. */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /** Content resolver. */
+    private final ContentResolver resolver;
+    /** Listener. */
+    private AsyncQueryListener listener;
+    /** Workers count. */
+    private int readWorkers = 1, writeWorkers = 1;
+    /** Max batch size. */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    /** Whether the provider applies batches atomically. */
+    private boolean atomicBatches;
+
+    Builder(final ContentResolver resolver) {
+      this.resolver = resolver;
+    }
+
+    public Builder listener(final AsyncQueryListener listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /** @param count count of threads that execute queries, 1 by default */
+    public Builder readWorkers(final int count) {
+      if (count < 1) { throw new IllegalArgumentException("At least one read worker is required"); }
+      this.readWorkers = count;
+      return this;
+    }
+
+    /**
+     * @param count count of threads that execute writes, 1 by default;
+     *              with more than one worker writes order is not guaranteed
+     */
+    public Builder writeWorkers(final int count) {
+      if (count < 1) { throw new IllegalArgumentException("At least one write worker is required"); }
+      this.writeWorkers = count;
+      return this;
+    }
+
+    /** @param size max count of writes applied in one atomic batch, 100 by default */
+    public Builder maxBatchSize(final int size) {
+      if (size < 1) { throw new IllegalArgumentException("Bad batch size " + size); }
+      this.maxBatchSize = size;
+      return this;
+    }
+
+    /**
+     * Writes are batched only if the provider applies the whole batch or nothing,
+     * e.g. wraps {@code applyBatch} in a database transaction. Default implementation of
+     * {@link android.content.ContentProvider#applyBatch(ArrayList)} is not atomic.
+     * @param atomic whether the provider applies batches atomically, false by default
+     */
+    public Builder atomicBatches(final boolean atomic) {
+      this.atomicBatches = atomic;
+      return this;
+    }
+
+    /** @return handler instance; must be called on a thread with a looper */
+    public BackgroundQueryHandler create() {
+      return new BackgroundQueryHandler(resolver, listener, readWorkers, writeWorkers, maxBatchSize,
+          atomicBatches);
+    }
+  }
+
+}
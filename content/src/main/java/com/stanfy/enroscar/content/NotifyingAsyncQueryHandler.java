@@ -16,6 +16,7 @@ import android.net.Uri;
  *
  * This class was taken from <a href="http://code.google.com/p/iosched">Google IO Schedule project</a>
  * and a bit modified.
+ * @see BackgroundQueryHandler
  */
 public class NotifyingAsyncQueryHandler extends AsyncQueryHandler {
 
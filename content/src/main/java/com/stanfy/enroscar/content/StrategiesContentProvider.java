@@ -1,15 +1,24 @@
 package com.stanfy.enroscar.content;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
 import android.util.SparseArray;
 
+import com.stanfy.enroscar.content.utils.DBInsertHelper;
+
 /**
  * Content provider that uses strategies.
  * Provides you API similar to {@link UriMatcher} but allowing binding
@@ -18,6 +27,15 @@ import android.util.SparseArray;
  *   Override method {@code onStrategyMatcherCreate} in order to configure bindings 
  *   and {@code getDatabaseManager} in order to provide {@link SQLiteOpenHelper} instance.
  * </p>
+ * <p>
+ *   {@link #bulkInsert(Uri, ContentValues[])} and {@link #applyBatch(ArrayList)} are performed
+ *   within one database transaction. Change notifications sent with {@link #notifyChange(Uri)}
+ *   during these operations are coalesced and delivered once per URI when the operation is finished.
+ *   Strategies that implement {@link NotifyingStrategy} get a {@link ChangeNotifier} that does the same.
+ *   Notifications sent by strategies directly with {@link android.content.ContentResolver} are not coalesced.
+ *   Strategies that implement {@link BulkStrategy} can insert rows more efficiently than
+ *   one by one.
+ * </p>
  *
  * @param <T> type of used SQLiteOpenHelper
  *
@@ -29,12 +47,24 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
   /** URI matcher. */
   private StrategyMatcher<T> strategyMatcher;
 
+  /** Change notifications postponed till the end of current batch operation. */
+  private final ThreadLocal<LinkedHashSet<Uri>> pendingNotifications = new ThreadLocal<LinkedHashSet<Uri>>();
+
+  /** Notifier passed to strategies. */
+  private final ChangeNotifier changeNotifier = new ChangeNotifier() {
+    @Override
+    public void notifyChange(final Uri uri) {
+      StrategiesContentProvider.this.notifyChange(uri);
+    }
+  };
+
   /** @return StrategyMatcher instance */
   protected StrategyMatcher<T> getStrategyMatcher() { return strategyMatcher; }
 
   @Override
   public boolean onCreate() {
     strategyMatcher = new StrategyMatcher<T>(new UriMatcher(UriMatcher.NO_MATCH));
+    strategyMatcher.changeNotifier = changeNotifier;
     onStrategyMatcherCreate(strategyMatcher);
     return strategyMatcher.isConfigured();
   }
@@ -61,7 +91,55 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
    * @return database manager instance
    */
   protected abstract T getDatabaseManager(final Context context);
-  
+
+  /**
+   * Override this method to make provider notify content observers about changes made with
+   * {@code insert}, {@code update}, {@code delete} and {@code bulkInsert} operations.
+   * @return whether provider should call {@link #notifyChange(Uri)} after successful modifications,
+   *         false by default
+   */
+  protected boolean isChangeNotificationEnabled() {
+    return false;
+  }
+
+  /**
+   * Notify content observers about a change.
+   * If called during a batch operation, notification is postponed till the end of the batch
+   * and is sent once for each distinct URI.
+   * @param uri changed URI
+   */
+  protected void notifyChange(final Uri uri) {
+    final LinkedHashSet<Uri> pending = pendingNotifications.get();
+    if (pending != null) {
+      pending.add(uri);
+      return;
+    }
+    final Context context = getContext();
+    if (context != null) {
+      context.getContentResolver().notifyChange(uri, null);
+    }
+  }
+
+  /** @return true if a new batch was started, false if current thread is already in a batch */
+  private boolean beginBatch() {
+    if (pendingNotifications.get() != null) {
+      return false;
+    }
+    pendingNotifications.set(new LinkedHashSet<Uri>());
+    return true;
+  }
+
+  private void endBatch(final boolean started) {
+    if (!started) {
+      return;
+    }
+    final LinkedHashSet<Uri> pending = pendingNotifications.get();
+    pendingNotifications.remove();
+    for (Uri uri : pending) {
+      notifyChange(uri);
+    }
+  }
+
   @Override
   public Cursor query(final Uri uri, final String[] projection, final String selection,
                       final String[] selectionArgs, final String sortOrder) {
@@ -79,24 +157,110 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
   @Override
   public Uri insert(final Uri uri, final ContentValues values) {
     final Strategy<T> strategy = strategyMatcher.choose(uri);
-    return strategy != null ? strategy.insert(getDatabaseManager(getContext()), uri, values) : null;
+    final Uri result = strategy != null
+        ? strategy.insert(getDatabaseManager(getContext()), uri, values)
+        : null;
+    if (result != null && isChangeNotificationEnabled()) {
+      notifyChange(uri);
+    }
+    return result;
   }
 
   @Override
   public int delete(final Uri uri, final String selection, final String[] selectionArgs) {
     final Strategy<T> strategy = strategyMatcher.choose(uri);
-    return strategy != null
+    final int count = strategy != null
         ? strategy.delete(getDatabaseManager(getContext()), uri, selection, selectionArgs)
         : 0;
+    if (count > 0 && isChangeNotificationEnabled()) {
+      notifyChange(uri);
+    }
+    return count;
   }
 
   @Override
   public int update(final Uri uri, final ContentValues values, final String selection,
                     final String[] selectionArgs) {
     final Strategy<T> strategy = strategyMatcher.choose(uri);
-    return strategy != null
+    final int count = strategy != null
         ? strategy.update(getDatabaseManager(getContext()), uri, values, selection, selectionArgs)
         : 0;
+    if (count > 0 && isChangeNotificationEnabled()) {
+      notifyChange(uri);
+    }
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public int bulkInsert(final Uri uri, final ContentValues[] values) {
+    final Strategy<T> strategy = strategyMatcher.choose(uri);
+    final T dbManager = getDatabaseManager(getContext());
+    if (strategy == null || dbManager == null) {
+      return super.bulkInsert(uri, values);
+    }
+
+    final SQLiteDatabase db = dbManager.getWritableDatabase();
+    final boolean batchStarted = beginBatch();
+    db.beginTransaction();
+    try {
+      int count;
+      if (strategy instanceof BulkStrategy) {
+        count = ((BulkStrategy<T>) strategy).bulkInsert(dbManager, uri, values);
+        if (count > 0 && isChangeNotificationEnabled()) {
+          notifyChange(uri);
+        }
+      } else {
+        count = 0;
+        for (ContentValues v : values) {
+          if (insert(uri, v) != null) {
+            count++;
+          }
+        }
+      }
+      db.setTransactionSuccessful();
+      return count;
+    } finally {
+      db.endTransaction();
+      endBatch(batchStarted);
+    }
+  }
+
+  /**
+   * Apply operations within one transaction.
+   * Transaction is committed and restarted before operations that allow yielding
+   * (see {@link ContentProviderOperation.Builder#withYieldAllowed(boolean)}) if the database
+   * is requested by other threads.
+   * Change notifications are sent after all the operations are applied.
+   */
+  @Override
+  public ContentProviderResult[] applyBatch(final ArrayList<ContentProviderOperation> operations)
+      throws OperationApplicationException {
+    final T dbManager = getDatabaseManager(getContext());
+    if (dbManager == null) {
+      return super.applyBatch(operations);
+    }
+
+    final SQLiteDatabase db = dbManager.getWritableDatabase();
+    final boolean batchStarted = beginBatch();
+    db.beginTransaction();
+    try {
+      final int count = operations.size();
+      final ContentProviderResult[] results = new ContentProviderResult[count];
+      for (int i = 0; i < count; i++) {
+        final ContentProviderOperation operation = operations.get(i);
+        if (i > 0 && operation.isYieldAllowed()) {
+          db.yieldIfContendedSafely();
+        }
+        results[i] = operation.apply(this, results, i);
+      }
+      db.setTransactionSuccessful();
+      return results;
+    } finally {
+      db.endTransaction();
+      // notify even on failure: operations before the last yield point are committed
+      endBatch(batchStarted);
+    }
   }
 
   /**
@@ -114,6 +278,9 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
     /** Default strategy. */
     private Strategy<T> defaultStrategy;
 
+    /** Notifier passed to registered strategies. */
+    private ChangeNotifier changeNotifier;
+
     /** Counter. */
     private int counter = 0;
 
@@ -122,16 +289,24 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
     }
 
     public void setDefaultStrategy(final Strategy<T> defaultStrategy) {
+      attach(defaultStrategy);
       this.defaultStrategy = defaultStrategy;
     }
 
     public void registerStrategy(final String authority, final String path,
                                  final Strategy<T> strategy) {
+      attach(strategy);
       ++counter;
       idsMatcher.addURI(authority, path, counter);
       strategiesRegister.put(counter, strategy);
     }
 
+    private void attach(final Strategy<T> strategy) {
+      if (changeNotifier != null && strategy instanceof NotifyingStrategy) {
+        ((NotifyingStrategy<T>) strategy).setChangeNotifier(changeNotifier);
+      }
+    }
+
     public Strategy<T> choose(final Uri uri) {
       final int id = idsMatcher.match(uri);
       if (id == UriMatcher.NO_MATCH) { return defaultStrategy; }
@@ -175,6 +350,44 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
                final String selection, final String[] selectionArgs);
   }
 
+  /**
+   * Strategy that can insert many rows at once.
+   * Provider calls it within a transaction.
+   * @param <T> type of SQLiteOpenHelper
+   */
+  public interface BulkStrategy<T extends SQLiteOpenHelper> extends Strategy<T> {
+    /**
+     * @see android.content.ContentProvider#bulkInsert(Uri, ContentValues[])
+     */
+    int bulkInsert(final T appDbManager, final Uri uri, final ContentValues[] values);
+  }
+
+  /**
+   * Sends content change notifications.
+   * Notifications sent during {@code bulkInsert} or {@code applyBatch} are delivered once per URI
+   * when the operation is finished.
+   */
+  public interface ChangeNotifier {
+    /**
+     * @param uri changed URI
+     */
+    void notifyChange(final Uri uri);
+  }
+
+  /**
+   * Strategy that sends change notifications through the provider, so that they are coalesced
+   * during batch operations.
+   * @param <T> type of SQLiteOpenHelper
+   */
+  public interface NotifyingStrategy<T extends SQLiteOpenHelper> extends Strategy<T> {
+    /**
+     * Called when the strategy is registered in a provider's {@link StrategyMatcher}.
+     * @param notifier notifier to use instead of {@link android.content.ContentResolver#notifyChange(Uri,
+     *                 android.database.ContentObserver)}
+     */
+    void setChangeNotifier(final ChangeNotifier notifier);
+  }
+
   /**
    * Empty strategy, use it when you do not want to implement all the methods of {@link Strategy}.
    * @param <T> type of SQLiteOpenHelper
@@ -218,7 +431,7 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
    * @param <T> db open helper type
    */
   @SuppressWarnings("ConstantConditions")
-  public static class TableStrategy<T extends SQLiteOpenHelper> implements Strategy<T> {
+  public static class TableStrategy<T extends SQLiteOpenHelper> implements BulkStrategy<T> {
 
     /** Table name. */
     private final String tableName;
@@ -246,6 +459,23 @@ public abstract class StrategiesContentProvider<T extends SQLiteOpenHelper>
       return ContentUris.withAppendedId(uri, id);
     }
 
+    /** Inserts rows with one compiled statement. */
+    @Override
+    public int bulkInsert(final T appDbManager, final Uri uri, final ContentValues[] values) {
+      final DBInsertHelper helper = new DBInsertHelper(appDbManager.getWritableDatabase(), tableName);
+      try {
+        int count = 0;
+        for (ContentValues v : values) {
+          if (helper.insert(v) != -1) {
+            count++;
+          }
+        }
+        return count;
+      } finally {
+        helper.close();
+      }
+    }
+
     @Override
     public int delete(final T appDbManager, final Uri uri, final String selection,
                       final String[] selectionArgs) {
@@ -15,7 +15,7 @@ import android.os.Looper;
 public class ContentLoader<T> extends BaseAsyncTaskLoader<ResponseData<T>> {
 
   /** Parameters. */
-  private final Params params;
+  final Params params;
 
   /** Factory instance. */
   private DataInstanceFactory<T> factory;
@@ -27,7 +27,7 @@ public class ContentLoader<T> extends BaseAsyncTaskLoader<ResponseData<T>> {
   private PostProcessor<T> postProcessor;
 
   /** Error handler. */
-  private ErrorHandler errorHandler;
+  ErrorHandler errorHandler;
 
   /** Error instance. */
   private Throwable error;
@@ -43,24 +43,9 @@ public class ContentLoader<T> extends BaseAsyncTaskLoader<ResponseData<T>> {
 
   @Override
   public ResponseData<T> loadInBackground() {
-    ContentResolver resolver = getContext().getContentResolver();
-
-    Cursor cursor = resolver.query(params.uri, params.projection, params.selection, params.selectionArgs, params.sort);
-
-    if (cursor == null) {
-      throw new IllegalStateException("Content provider hasn't responded to " + params.uri);
-    }
-
-    synchronized (this) {
-      if (contentObserver == null) {
-        contentObserver = new Observer();
-        resolver.registerContentObserver(params.uri, params.observeDescendentsChanges, contentObserver);
-      }
-    }
-
     try {
 
-      T data = factory.createWithCursor(cursor);
+      T data = loadData(getContext().getContentResolver());
       if (postProcessor != null) {
         data = postProcessor.process(getContext(), data);
       }
@@ -71,11 +56,54 @@ public class ContentLoader<T> extends BaseAsyncTaskLoader<ResponseData<T>> {
       this.error = e;
 
       return new ResponseData<>(params.errorCode, params.errorMessage);
+    }
+  }
+
+  /**
+   * Query the content provider and build the model.
+   * @param resolver content resolver instance
+   * @return loaded data
+   */
+  T loadData(final ContentResolver resolver) {
+    Cursor cursor = query(resolver, params.sort);
+    try {
+      return factory.createWithCursor(cursor);
     } finally {
       cursor.close();
     }
   }
 
+  /**
+   * Perform a query and register content observer.
+   * @param resolver content resolver instance
+   * @param sort sort order
+   * @return cursor instance, never {@code null}
+   */
+  Cursor query(final ContentResolver resolver, final String sort) {
+    return query(resolver, params.projection, params.selection, params.selectionArgs, sort);
+  }
+
+  /**
+   * Perform a query and register content observer.
+   * @return cursor instance, never {@code null}
+   */
+  Cursor query(final ContentResolver resolver, final String[] projection, final String selection,
+               final String[] selectionArgs, final String sort) {
+    Cursor cursor = resolver.query(params.uri, projection, selection, selectionArgs, sort);
+
+    if (cursor == null) {
+      throw new IllegalStateException("Content provider hasn't responded to " + params.uri);
+    }
+
+    synchronized (this) {
+      if (contentObserver == null) {
+        contentObserver = new Observer();
+        resolver.registerContentObserver(params.uri, params.observeDescendentsChanges, contentObserver);
+      }
+    }
+    return cursor;
+  }
+
   @Override
   public void deliverResult(final ResponseData<T> data) {
     if (isReset()) {
@@ -204,6 +232,52 @@ public class ContentLoader<T> extends BaseAsyncTaskLoader<ResponseData<T>> {
       return this;
     }
 
+    /**
+     * Switch to paged mode: rows are loaded in windows of {@code pageSize} rows
+     * and the factory is used to create one element per row.
+     * Sort order is required in this mode. Post processors are not supported.
+     * @param pageSize count of rows in one window
+     * @return paged loader builder
+     * @see PagedContentLoader
+     */
+    public PagedContentLoader.Builder<T> paged(final int pageSize) {
+      if (pageSize <= 0) {
+        throw new IllegalArgumentException("Bad page size " + pageSize);
+      }
+      if (after != null) {
+        throw new IllegalStateException("Post processor cannot be used in paged mode");
+      }
+      return new PagedContentLoader.Builder<T>(params, factory, errorHandler, pageSize);
+    }
+
+    /**
+     * Switch to change tracking mode: the factory is used to create one element per row,
+     * and after content changes only rows with new or changed versions are queried again.
+     * Projection must contain identifier and version columns and columns required by the factory.
+     * Post processors are not supported.
+     * @param idColumn name of a column with unique row identifiers
+     * @param versionColumn name of a column that changes whenever row changes
+     *                      (version number, {@code updated_at} time, etc)
+     * @return tracking loader
+     * @see TrackingContentLoader
+     */
+    public TrackingContentLoader<T> tracked(final Context context, final String idColumn,
+                                            final String versionColumn) {
+      if (idColumn == null || versionColumn == null) {
+        throw new IllegalArgumentException("Id and version columns must be specified");
+      }
+      if (after != null) {
+        throw new IllegalStateException("Post processor cannot be used in change tracking mode");
+      }
+      if (params.uri == null) {
+        throw new IllegalArgumentException("URI is not specified");
+      }
+      TrackingContentLoader<T> loader = new TrackingContentLoader<T>(context, params, factory,
+          idColumn, versionColumn);
+      loader.errorHandler = errorHandler;
+      return loader;
+    }
+
     public ContentLoader<T> get(final Context context) {
       if (params.uri == null) {
         throw new IllegalArgumentException("URI is not specified");
@@ -1,20 +1,40 @@
 package com.stanfy.enroscar.content.loader;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.app.LoaderManager.LoaderCallbacks;
+import android.support.v4.content.AsyncTaskLoader;
 import android.support.v4.content.Loader;
 import android.util.SparseIntArray;
 
 
 /**
  * Utility for operating with multiple loaders.
+ * <p>
+ *   By default results are delivered when every loader of the set has finished.
+ *   In progressive mode (see {@link Builder#progressive()}) partial results are dispatched to
+ *   {@link ProgressiveCallback} as each loader finishes.
+ * </p>
+ * <p>
+ *   A loader that does not finish within its timeout is treated as finished with {@code null}
+ *   result and is canceled if it's an {@link AsyncTaskLoader}. If its result arrives anyway
+ *   (the loader cannot be canceled or has already loaded the data), the result replaces
+ *   {@code null} and is dispatched like any other one. Loaders that are still running
+ *   when the set is restarted or {@link #cancel() canceled} are canceled too.
+ *   Use {@link #getLatency(int)} to find loaders that delay the results.
+ *   All methods must be called from the main thread.
+ * </p>
  * @author Roman Mazur (Stanfy - http://stanfy.com)
  */
 public final class LoaderSet {
@@ -37,7 +57,35 @@ public final class LoaderSet {
   /** Callbacks. */
   private LoaderSetCallback callbacks;
 
-  private LoaderSet(final Context context, final Description[] desc, final int totalCount, final LoaderManager loaderManager) {
+  /** Whether partial results are dispatched. */
+  private final boolean progressive;
+
+  /** Loader identifiers by index. */
+  private final int[] ids;
+
+  /** Timeouts by index, milliseconds, 0 means no timeout. */
+  private final long[] timeouts;
+
+  /** Start times by index. */
+  private final long[] startTimes;
+
+  /** Latencies by index, -1 for unfinished loaders. */
+  private final long[] latencies;
+
+  /** Loaders that have timed out. */
+  private final BitSet timedOut = new BitSet();
+
+  /** Timeout tasks by index. */
+  private final Runnable[] timeoutTasks;
+
+  /** Handler for timeouts. */
+  private Handler handler;
+
+  /** Whether results are dispatched. */
+  private boolean active;
+
+  private LoaderSet(final Context context, final Description[] desc, final int totalCount, final LoaderManager loaderManager,
+                    final boolean progressive, final long[] timeouts) {
     if (desc == null || desc.length == 0) { throw new IllegalArgumentException("Loaders are not provided"); }
     this.descriptions = desc;
     for (final Description d : desc) { d.attach(this); }
@@ -47,6 +95,19 @@ public final class LoaderSet {
     this.loaderManager = loaderManager;
 
     this.loaderIndexMapping = new HashMap<Loader<?>, Integer>();
+
+    this.progressive = progressive;
+    this.timeouts = timeouts;
+    this.ids = new int[totalCount];
+    for (final Description d : desc) {
+      for (int i = 0; i < d.ids.length; i++) {
+        ids[d.startIndex + i] = d.ids[i];
+      }
+    }
+    this.startTimes = new long[totalCount];
+    this.latencies = new long[totalCount];
+    Arrays.fill(latencies, -1);
+    this.timeoutTasks = new Runnable[totalCount];
   }
 
   /**
@@ -66,9 +127,68 @@ public final class LoaderSet {
     touchLoaders(arguments, callbacks, true);
   }
 
+  /**
+   * Cancel loaders that have not finished yet and stop dispatching results
+   * until the next {@link #init(Bundle, LoaderSetCallback)} or {@link #restart(Bundle, LoaderSetCallback)}.
+   */
+  public void cancel() {
+    active = false;
+    cancelPending();
+  }
+
+  /**
+   * @param id loader identifier
+   * @return time between the set (re)start and the last result of the loader in milliseconds,
+   *         -1 if the loader has not delivered a result yet;
+   *         a timed out loader gets its latency if its late result arrives
+   */
+  public long getLatency(final int id) {
+    return latencies[indexOf(id)];
+  }
+
+  /**
+   * @param id loader identifier
+   * @return whether the loader has not finished within its timeout
+   *         and its late result has not arrived yet
+   */
+  public boolean isTimedOut(final int id) {
+    return timedOut.get(indexOf(id));
+  }
+
+  private int indexOf(final int id) {
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] == id) { return i; }
+    }
+    throw new IllegalArgumentException("Loader " + id + " is not a member of this set");
+  }
+
   private void touchLoaders(final Bundle arguments, final LoaderSetCallback callbacks, final boolean reload) {
+    if (reload) {
+      // results of running loaders are superseded
+      cancelPending();
+    } else {
+      removeTimeouts();
+    }
     this.callbacks = callbacks;
     this.resultsSet.clear();
+    this.timedOut.clear();
+    this.active = true;
+
+    final long now = SystemClock.elapsedRealtime();
+    Arrays.fill(startTimes, now);
+    Arrays.fill(latencies, -1);
+    for (int i = 0; i < timeouts.length; i++) {
+      if (timeouts[i] > 0) {
+        final int index = i;
+        timeoutTasks[i] = new Runnable() {
+          @Override
+          public void run() {
+            onTimeout(index);
+          }
+        };
+        getHandler().postDelayed(timeoutTasks[i], timeouts[i]);
+      }
+    }
 
     final LoaderManager loaderManager = LoaderSet.this.loaderManager;
     final Description[] descriptions = LoaderSet.this.descriptions;
@@ -83,13 +203,69 @@ public final class LoaderSet {
     }
   }
 
+  private Handler getHandler() {
+    if (handler == null) {
+      handler = new Handler(Looper.getMainLooper());
+    }
+    return handler;
+  }
+
+  private void removeTimeouts() {
+    for (int i = 0; i < timeoutTasks.length; i++) {
+      if (timeoutTasks[i] != null) {
+        handler.removeCallbacks(timeoutTasks[i]);
+        timeoutTasks[i] = null;
+      }
+    }
+  }
+
+  private void cancelPending() {
+    removeTimeouts();
+    for (int i = 0; i < ids.length; i++) {
+      if (!resultsSet.get(i) || timedOut.get(i)) {
+        cancelLoader(ids[i]);
+      }
+    }
+  }
+
+  private void cancelLoader(final int id) {
+    final Loader<?> loader = loaderManager.getLoader(id);
+    if (loader instanceof AsyncTaskLoader) {
+      ((AsyncTaskLoader<?>) loader).cancelLoad();
+    }
+  }
+
+  void onTimeout(final int index) {
+    timeoutTasks[index] = null;
+    if (!active || resultsSet.get(index)) { return; }
+    timedOut.set(index);
+    cancelLoader(ids[index]);
+    results[index] = null;
+    resultsSet.set(index);
+    dispatch(index);
+  }
+
   void onLoadFinished(final Loader<Object> loader, final Object data) {
     final int index = loaderIndexMapping.get(loader);
+    if (timeoutTasks[index] != null) {
+      handler.removeCallbacks(timeoutTasks[index]);
+      timeoutTasks[index] = null;
+    }
     results[index] = data;
     resultsSet.set(index);
+    timedOut.clear(index);
+    latencies[index] = SystemClock.elapsedRealtime() - startTimes[index];
 
+    if (active) {
+      dispatch(index);
+    }
+  }
+
+  private void dispatch(final int index) {
     if (resultsSet.cardinality() == results.length) {
       callbacks.onLoadFinished(results);
+    } else if (progressive && callbacks instanceof ProgressiveCallback) {
+      ((ProgressiveCallback) callbacks).onPartialResult(results, index);
     }
   }
 
@@ -148,6 +324,8 @@ public final class LoaderSet {
     final CallbacksWrapper callbacks;
     /** Loader identifiers. */
     final int[] ids;
+    /** Index of the first loader. */
+    final int startIndex;
 
     Description(final LoaderCallbacks<?> callbacks, final int[] ids, final int startIndex) {
       final SparseIntArray indecies = new SparseIntArray(ids.length);
@@ -158,6 +336,7 @@ public final class LoaderSet {
 
       this.callbacks = new CallbacksWrapper(callbacks, indecies);
       this.ids = ids;
+      this.startIndex = startIndex;
     }
 
     public void attach(final LoaderSet instance) {
@@ -191,6 +370,19 @@ public final class LoaderSet {
     void onLoadFinished(final Object[] data);
   }
 
+  /**
+   * Callback for progressive loader sets.
+   * {@link #onLoadFinished(Object[])} is called when all the loaders have finished or timed out.
+   */
+  public interface ProgressiveCallback extends LoaderSetCallback {
+    /**
+     * Called when a loader has finished or timed out while other loaders are still running.
+     * @param data results array, elements of unfinished loaders are {@code null}
+     * @param index index of the finished loader in results array
+     */
+    void onPartialResult(final Object[] data, final int index);
+  }
+
   /** Loader builder. */
   public static class Builder {
     /** Context. */
@@ -204,6 +396,15 @@ public final class LoaderSet {
     /** Internal counter. */
     private int counter = 0;
 
+    /** Progressive mode flag. */
+    private boolean progressive;
+
+    /** Default timeout, milliseconds. */
+    private long defaultTimeout;
+
+    /** Timeouts of particular loaders. */
+    private final HashMap<Integer, Long> timeouts = new HashMap<Integer, Long>();
+
     Builder(final Context context) {
       this.context = context;
     }
@@ -223,10 +424,45 @@ public final class LoaderSet {
       return this;
     }
 
+    /**
+     * Dispatch partial results as each loader finishes.
+     * Callback passed to init or restart should implement {@link ProgressiveCallback}.
+     */
+    public Builder progressive() {
+      this.progressive = true;
+      return this;
+    }
+
+    /**
+     * @param time timeout for all loaders without their own timeout
+     * @param unit time unit
+     */
+    public Builder timeout(final long time, final TimeUnit unit) {
+      this.defaultTimeout = unit.toMillis(time);
+      return this;
+    }
+
+    /**
+     * @param id loader identifier
+     * @param time timeout for this loader
+     * @param unit time unit
+     */
+    public Builder timeout(final int id, final long time, final TimeUnit unit) {
+      timeouts.put(id, unit.toMillis(time));
+      return this;
+    }
+
     /** @return loader chain instance */
     public LoaderSet create() {
       final Description[] desc = new Description[descriptions.size()];
-      return new LoaderSet(context, descriptions.toArray(desc), counter, loaderManager);
+      final long[] timeouts = new long[counter];
+      for (final Description d : descriptions) {
+        for (int i = 0; i < d.ids.length; i++) {
+          final Long timeout = this.timeouts.get(d.ids[i]);
+          timeouts[d.startIndex + i] = timeout != null ? timeout : defaultTimeout;
+        }
+      }
+      return new LoaderSet(context, descriptions.toArray(desc), counter, loaderManager, progressive, timeouts);
     }
   }
 
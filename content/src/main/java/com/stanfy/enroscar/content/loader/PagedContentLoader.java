@@ -0,0 +1,417 @@
+package com.stanfy.enroscar.content.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.database.Cursor;
+import android.os.Build;
+
+/**
+ * Content loader that materializes rows lazily, in windows of fixed size.
+ * Windows are queried with {@code LIMIT}/{@code OFFSET} appended to the sort order, so
+ * the content provider must pass sort order to SQLite as is (like
+ * {@link com.stanfy.enroscar.content.StrategiesContentProvider.TableStrategy} does).
+ * If the provider returns more rows than requested, loading fails with {@link IllegalStateException}.
+ * <p>
+ *   Loader delivers {@link PagedList} snapshots. The first one contains only the first window.
+ *   Next windows are requested by the list when an adapter approaches its end, or via
+ *   {@link #forceLoadMore()}. Only {@code maxWindows} windows closest to the last accessed row
+ *   are kept in memory. On low memory (ICS+, or when {@link #trimMemory()} is called) all windows
+ *   except the one with the last accessed row are released. Released rows are loaded
+ *   again when they are accessed.
+ * </p>
+ * <p>
+ *   When content changes, windows that are kept in memory are reloaded.
+ * </p>
+ * @param <E> row type
+ */
+public class PagedContentLoader<E> extends ContentLoader<PagedList<E>> implements LoadmoreLoader {
+
+  /** Row factory. */
+  private final DataInstanceFactory<E> rowFactory;
+
+  /** Window size. */
+  private final int pageSize;
+
+  /** Distance to the end that triggers next window loading. */
+  private final int prefetchDistance;
+
+  /** Max count of windows kept in memory. */
+  private final int maxWindows;
+
+  /** Lock for windows state. */
+  private final Object lock = new Object();
+
+  /** Loaded windows. Guarded by lock. */
+  private final HashMap<Integer, List<E>> windows = new HashMap<Integer, List<E>>();
+
+  /** Windows to load. Guarded by lock. */
+  private final TreeSet<Integer> pendingWindows = new TreeSet<Integer>();
+
+  /** Count of rows known to exist. Guarded by lock. */
+  private int size;
+
+  /** Whether the end of data is reached. Guarded by lock. */
+  private boolean complete;
+
+  /** Whether loaded windows must be reloaded. Guarded by lock. */
+  private boolean invalidated = true;
+
+  /** Last accessed position. */
+  private volatile int anchor;
+
+  /** Whether a load is running. Main thread only. */
+  private boolean busy;
+
+  /** Last delivered list. Main thread only. */
+  private PagedList<E> current;
+
+  /** Memory callbacks. */
+  private MemoryCallbacks memoryCallbacks;
+
+  /** Time spent on the last load, nanoseconds. */
+  private volatile long lastLoadTime;
+
+  PagedContentLoader(final Context context, final Params params,
+                     final DataInstanceFactory<E> rowFactory, final int pageSize,
+                     final int prefetchDistance, final int maxWindows) {
+    super(context, params);
+    this.rowFactory = rowFactory;
+    this.pageSize = pageSize;
+    this.prefetchDistance = prefetchDistance;
+    this.maxWindows = maxWindows;
+  }
+
+  @Override
+  PagedList<E> loadData(final ContentResolver resolver) {
+    final long start = System.nanoTime();
+    Integer[] toLoad;
+    synchronized (lock) {
+      if (invalidated) {
+        pendingWindows.addAll(windows.keySet());
+        pendingWindows.add(anchor / pageSize);
+        windows.clear();
+        size = 0;
+        complete = false;
+        invalidated = false;
+      }
+      toLoad = pendingWindows.toArray(new Integer[pendingWindows.size()]);
+      pendingWindows.clear();
+    }
+
+    // windows are loaded in ascending order, so that the end of data is found as early as possible
+    for (Integer window : toLoad) {
+      synchronized (lock) {
+        if (complete && window * pageSize >= size) {
+          continue;
+        }
+      }
+      final List<E> rows = loadWindow(resolver, window);
+      synchronized (lock) {
+        windows.put(window, rows);
+        if (rows.size() < pageSize) {
+          // a window loaded after invalidation may be beyond the real end, so size can only shrink
+          final int end = window * pageSize + rows.size();
+          size = complete ? Math.min(size, end) : end;
+          complete = true;
+        } else if (!complete) {
+          size = Math.max(size, (window + 1) * pageSize);
+        }
+      }
+    }
+
+    synchronized (lock) {
+      releaseFarWindows(maxWindows);
+      lastLoadTime = System.nanoTime() - start;
+      return snapshot();
+    }
+  }
+
+  private List<E> loadWindow(final ContentResolver resolver, final int window) {
+    final Cursor cursor = query(resolver,
+        params.sort + " LIMIT " + pageSize + " OFFSET " + window * pageSize);
+    try {
+      if (cursor.getCount() > pageSize) {
+        throw new IllegalStateException("Content provider ignores LIMIT in sort order of " + params.uri
+            + ", it cannot be used for paged loading");
+      }
+      final ArrayList<E> rows = new ArrayList<E>(cursor.getCount());
+      while (cursor.moveToNext()) {
+        rows.add(rowFactory.createWithCursor(cursor));
+      }
+      return rows;
+    } finally {
+      cursor.close();
+    }
+  }
+
+  /** Guarded by lock. */
+  private void releaseFarWindows(final int keep) {
+    if (windows.size() <= keep) {
+      return;
+    }
+    final int anchorWindow = anchor / pageSize;
+    final ArrayList<Integer> keys = new ArrayList<Integer>(windows.keySet());
+    Collections.sort(keys, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer lhs, final Integer rhs) {
+        final int result = Math.abs(lhs - anchorWindow) - Math.abs(rhs - anchorWindow);
+        // on equal distance keep windows ahead of the anchor: lists are usually scrolled forward
+        return result != 0 ? result : rhs - lhs;
+      }
+    });
+    for (int i = keep; i < keys.size(); i++) {
+      windows.remove(keys.get(i));
+    }
+  }
+
+  /** Guarded by lock. */
+  private PagedList<E> snapshot() {
+    final Map<Integer, List<E>> copy = new HashMap<Integer, List<E>>(windows);
+    return new PagedList<E>(this, copy, pageSize, size, complete, prefetchDistance);
+  }
+
+  void onAccess(final int position) {
+    anchor = position;
+  }
+
+  /**
+   * Request window loading. Main thread only.
+   * @param window window index
+   */
+  void requestWindow(final int window) {
+    synchronized (lock) {
+      if (windows.containsKey(window) || complete && window * pageSize >= size
+          || !pendingWindows.add(window)) {
+        return;
+      }
+    }
+    if (!busy && isStarted()) {
+      forceLoad();
+    }
+  }
+
+  @Override
+  protected void onForceLoad() {
+    busy = true;
+    super.onForceLoad();
+  }
+
+  @Override
+  public void onContentChanged() {
+    synchronized (lock) {
+      invalidated = true;
+    }
+    super.onContentChanged();
+  }
+
+  @Override
+  public void deliverResult(final ResponseData<PagedList<E>> data) {
+    busy = false;
+    if (data != null && data.getModel() != null) {
+      current = data.getModel();
+    }
+    super.deliverResult(data);
+    if (isStarted()) {
+      boolean more;
+      synchronized (lock) {
+        more = !pendingWindows.isEmpty();
+      }
+      if (more) {
+        forceLoad();
+      }
+    }
+  }
+
+  @Override
+  public void onCanceled(final ResponseData<PagedList<E>> data) {
+    busy = false;
+    super.onCanceled(data);
+  }
+
+  @Override
+  protected void onStartLoading() {
+    registerMemoryCallbacks();
+    super.onStartLoading();
+    boolean pending;
+    synchronized (lock) {
+      pending = !pendingWindows.isEmpty();
+    }
+    if (pending && !busy) {
+      // windows requested while the loader was stopped
+      forceLoad();
+    }
+  }
+
+  @Override
+  protected void onReset() {
+    super.onReset();
+    unregisterMemoryCallbacks();
+    synchronized (lock) {
+      windows.clear();
+      pendingWindows.clear();
+      invalidated = true;
+    }
+    anchor = 0;
+    current = null;
+    busy = false;
+  }
+
+  /**
+   * Release all windows except the one that contains the last accessed row.
+   * A new list snapshot is delivered. Main thread only.
+   */
+  public void trimMemory() {
+    PagedList<E> list;
+    synchronized (lock) {
+      releaseFarWindows(1);
+      list = snapshot();
+    }
+    if (current != null && isStarted()) {
+      current = list;
+      super.deliverResult(new ResponseData<PagedList<E>>(list));
+    }
+  }
+
+  @SuppressLint("NewApi")
+  private void registerMemoryCallbacks() {
+    if (memoryCallbacks == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+      memoryCallbacks = new MemoryCallbacks();
+      getContext().registerComponentCallbacks(memoryCallbacks);
+    }
+  }
+
+  @SuppressLint("NewApi")
+  private void unregisterMemoryCallbacks() {
+    if (memoryCallbacks != null) {
+      getContext().unregisterComponentCallbacks(memoryCallbacks);
+      memoryCallbacks = null;
+    }
+  }
+
+  @Override
+  public void forceLoadMore() {
+    synchronized (lock) {
+      if (complete) {
+        return;
+      }
+    }
+    requestWindow(current != null ? current.size() / pageSize : 0);
+  }
+
+  @Override
+  public boolean moreElementsAvailable() {
+    synchronized (lock) {
+      return !complete;
+    }
+  }
+
+  @Override
+  public boolean isBusy() {
+    return busy;
+  }
+
+  /** @return time spent on the last load */
+  public long getLastLoadTime(final TimeUnit unit) {
+    return unit.convert(lastLoadTime, TimeUnit.NANOSECONDS);
+  }
+
+  /** Releases windows on low memory. */
+  private class MemoryCallbacks implements ComponentCallbacks {
+    @Override
+    public void onConfigurationChanged(final Configuration newConfig) {
+      // nothing
+    }
+
+    @Override
+    public void onLowMemory() {
+      trimMemory();
+    }
+  }
+
+  /**
+   * Paged loader builder.
+   * @param <E> row type
+   */
+  public static class Builder<E> {
+
+    /** Default count of windows kept in memory. */
+    private static final int DEFAULT_MAX_WINDOWS = 5;
+
+    /** Params. */
+    private final Params params;
+
+    /** Row factory. */
+    private final DataInstanceFactory<E> rowFactory;
+
+    /** Error handler. */
+    private final ErrorHandler errorHandler;
+
+    /** Window size. */
+    private final int pageSize;
+
+    /** Prefetch distance. */
+    private int prefetchDistance;
+
+    /** Max windows count. */
+    private int maxWindows = DEFAULT_MAX_WINDOWS;
+
+    Builder(final Params params, final DataInstanceFactory<E> rowFactory,
+            final ErrorHandler errorHandler, final int pageSize) {
+      this.params = params;
+      this.rowFactory = rowFactory;
+      this.errorHandler = errorHandler;
+      this.pageSize = pageSize;
+      this.prefetchDistance = pageSize / 2;
+    }
+
+    /**
+     * @param distance count of rows to the end of the list; accessing them triggers
+     *                 next window loading, half of page size by default
+     */
+    public Builder<E> prefetchDistance(final int distance) {
+      if (distance < 0) {
+        throw new IllegalArgumentException("Bad prefetch distance " + distance);
+      }
+      this.prefetchDistance = distance;
+      return this;
+    }
+
+    /**
+     * @param count max count of windows kept in memory, 5 by default
+     */
+    public Builder<E> maxWindows(final int count) {
+      if (count < 1) {
+        throw new IllegalArgumentException("At least one window must be kept");
+      }
+      this.maxWindows = count;
+      return this;
+    }
+
+    public PagedContentLoader<E> get(final Context context) {
+      if (params.uri == null) {
+        throw new IllegalArgumentException("URI is not specified");
+      }
+      if (params.sort == null) {
+        throw new IllegalArgumentException("Sort order is required for paged loading");
+      }
+      PagedContentLoader<E> loader = new PagedContentLoader<E>(context, params, rowFactory,
+          pageSize, prefetchDistance, maxWindows);
+      loader.errorHandler = errorHandler;
+      return loader;
+    }
+
+  }
+
+}
@@ -0,0 +1,205 @@
+package com.stanfy.enroscar.content.loader;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * List delivered by {@link PagedContentLoader}.
+ * <p>
+ *   It's a snapshot of rows materialized by the loader. {@link #get(int)} returns {@code null}
+ *   for rows that are not loaded yet (or were released to save memory) and asks the loader
+ *   to load them; a new snapshot is delivered when they are loaded.
+ *   Accessing rows close to the end of the list makes the loader prefetch the next window.
+ * </p>
+ * <p>
+ *   Only {@link #get(int)} requests loading. Iterators (and so {@code contains}, {@code indexOf}
+ *   and {@code toArray}) return rows of this snapshot as is, with {@code null} for
+ *   rows that are not loaded. Snapshots are compared by identity.
+ * </p>
+ * <p>
+ *   Like adapters that use it, the list is supposed to be accessed from the main thread.
+ * </p>
+ * @param <E> row type
+ */
+public final class PagedList<E> extends AbstractList<E> {
+
+  /** Loader. */
+  private final PagedContentLoader<E> loader;
+
+  /** Loaded windows. */
+  private final Map<Integer, List<E>> windows;
+
+  /** Window size. */
+  private final int pageSize;
+
+  /** Count of rows known to exist. */
+  private final int size;
+
+  /** Whether all the rows were counted. */
+  private final boolean complete;
+
+  /** Distance to the end that triggers next window loading. */
+  private final int prefetchDistance;
+
+  PagedList(final PagedContentLoader<E> loader, final Map<Integer, List<E>> windows,
+            final int pageSize, final int size, final boolean complete, final int prefetchDistance) {
+    this.loader = loader;
+    this.windows = windows;
+    this.pageSize = pageSize;
+    this.size = size;
+    this.complete = complete;
+    this.prefetchDistance = prefetchDistance;
+  }
+
+  /**
+   * @param location row position
+   * @return row instance or {@code null} if row is not loaded
+   */
+  @Override
+  public E get(final int location) {
+    if (location < 0 || location >= size) {
+      throw new IndexOutOfBoundsException("Index " + location + ", size " + size);
+    }
+    loader.onAccess(location);
+    if (!complete && location >= size - prefetchDistance) {
+      loader.requestWindow(size / pageSize);
+    }
+
+    final int window = location / pageSize;
+    if (!windows.containsKey(window)) {
+      loader.requestWindow(window);
+      return null;
+    }
+    return peek(location);
+  }
+
+  /** @return materialized row or {@code null}, does not request loading */
+  private E peek(final int location) {
+    final List<E> rows = windows.get(location / pageSize);
+    final int index = location % pageSize;
+    return rows != null && index < rows.size() ? rows.get(index) : null;
+  }
+
+  @Override
+  public ListIterator<E> listIterator(final int location) {
+    if (location < 0 || location > size) {
+      throw new IndexOutOfBoundsException("Index " + location + ", size " + size);
+    }
+    return new SnapshotIterator(location);
+  }
+
+  @Override
+  public ListIterator<E> iterator() {
+    return listIterator(0);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    return this == o;
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return "PagedList{size=" + size + ", complete=" + complete
+        + ", materialized=" + getMaterializedCount() + "}";
+  }
+
+  /** @return count of rows known to exist, grows while new windows are loaded */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param location row position
+   * @return whether the row is materialized in this snapshot
+   */
+  public boolean isLoaded(final int location) {
+    final List<E> rows = windows.get(location / pageSize);
+    return rows != null && location % pageSize < rows.size();
+  }
+
+  /** @return true if the end of data is reached and {@link #size()} is the total count */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /** @return count of rows kept in memory */
+  public int getMaterializedCount() {
+    int count = 0;
+    for (List<E> rows : windows.values()) {
+      count += rows.size();
+    }
+    return count;
+  }
+
+  /** Read-only iterator over this snapshot. */
+  private final class SnapshotIterator implements ListIterator<E> {
+    /** Position of the next row. */
+    private int cursor;
+
+    SnapshotIterator(final int cursor) {
+      this.cursor = cursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return cursor < size;
+    }
+
+    @Override
+    public E next() {
+      if (cursor >= size) {
+        throw new NoSuchElementException();
+      }
+      return peek(cursor++);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return cursor > 0;
+    }
+
+    @Override
+    public E previous() {
+      if (cursor <= 0) {
+        throw new NoSuchElementException();
+      }
+      return peek(--cursor);
+    }
+
+    @Override
+    public int nextIndex() {
+      return cursor;
+    }
+
+    @Override
+    public int previousIndex() {
+      return cursor - 1;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(final E e) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(final E e) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
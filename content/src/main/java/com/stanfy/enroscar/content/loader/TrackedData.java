@@ -0,0 +1,100 @@
+package com.stanfy.enroscar.content.loader;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Data delivered by {@link TrackingContentLoader}: rows and changes made since
+ * the previous delivery.
+ * Elements of rows that were not changed are the same instances as in previous data.
+ * @param <E> row type
+ */
+public final class TrackedData<E> {
+
+  /** Rows. */
+  private final List<E> items;
+
+  /** Changes. */
+  private final ChangeSet changes;
+
+  /** Row identifiers in the order of rows. */
+  final long[] ids;
+
+  /** Index: row identifier to its version and element. */
+  final HashMap<Long, Row<E>> index;
+
+  TrackedData(final List<E> items, final ChangeSet changes, final long[] ids,
+              final HashMap<Long, Row<E>> index) {
+    this.items = Collections.unmodifiableList(items);
+    this.changes = changes;
+    this.ids = ids;
+    this.index = index;
+  }
+
+  public List<E> getItems() { return items; }
+
+  /** @return changes relative to the previously delivered data */
+  public ChangeSet getChanges() { return changes; }
+
+  /**
+   * @param position row position
+   * @return row identifier
+   */
+  public long getId(final int position) {
+    return ids[position];
+  }
+
+  /** Tracked row. */
+  static final class Row<E> {
+    /** Row version. */
+    final long version;
+    /** Element. */
+    final E element;
+
+    Row(final long version, final E element) {
+      this.version = version;
+      this.element = element;
+    }
+  }
+
+  /**
+   * Identifiers of inserted, updated and removed rows.
+   */
+  public static final class ChangeSet {
+
+    /** Identifiers. */
+    private final List<Long> inserted, updated, removed;
+
+    /** Full reload flag. */
+    private final boolean fullReload;
+
+    ChangeSet(final List<Long> inserted, final List<Long> updated, final List<Long> removed,
+              final boolean fullReload) {
+      this.inserted = Collections.unmodifiableList(inserted);
+      this.updated = Collections.unmodifiableList(updated);
+      this.removed = Collections.unmodifiableList(removed);
+      this.fullReload = fullReload;
+    }
+
+    public List<Long> getInserted() { return inserted; }
+    public List<Long> getUpdated() { return updated; }
+    public List<Long> getRemoved() { return removed; }
+
+    /** @return true if all the rows were loaded, there is no previous data to compare with */
+    public boolean isFullReload() { return fullReload; }
+
+    /** @return true if nothing has changed */
+    public boolean isEmpty() {
+      return !fullReload && inserted.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+      return fullReload
+          ? "ChangeSet{full reload}"
+          : "ChangeSet{inserted=" + inserted + ", updated=" + updated + ", removed=" + removed + "}";
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+package com.stanfy.enroscar.content.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * Content loader that tracks row changes by row identifier and version columns.
+ * <p>
+ *   The first load queries all the rows. After content changes the loader queries
+ *   identifiers and versions only and materializes rows that are new or whose version has
+ *   changed; elements of other rows are reused. So the cost of an update is one scan of
+ *   two columns plus work proportional to the count of changed rows.
+ *   {@link TrackedData#getChanges()} describes what has changed.
+ * </p>
+ * <p>
+ *   Changes are computed relative to the last delivered data, results of canceled loads
+ *   do not affect them.
+ * </p>
+ * @param <E> row type
+ */
+public class TrackingContentLoader<E> extends ContentLoader<TrackedData<E>> {
+
+  /** Max count of identifiers in one {@code IN} clause. SQLite limits count of arguments. */
+  private static final int MAX_IN_ARGS = 500;
+
+  /** Row factory. */
+  private final DataInstanceFactory<E> rowFactory;
+
+  /** Columns. */
+  private final String idColumn, versionColumn;
+
+  /** Last delivered data. */
+  private volatile TrackedData<E> delivered;
+
+  TrackingContentLoader(final Context context, final Params params,
+                        final DataInstanceFactory<E> rowFactory, final String idColumn,
+                        final String versionColumn) {
+    super(context, params);
+    this.rowFactory = rowFactory;
+    this.idColumn = idColumn;
+    this.versionColumn = versionColumn;
+  }
+
+  @Override
+  TrackedData<E> loadData(final ContentResolver resolver) {
+    final TrackedData<E> previous = delivered;
+    return previous == null ? loadAll(resolver) : loadChanges(resolver, previous);
+  }
+
+  private TrackedData<E> loadAll(final ContentResolver resolver) {
+    final Cursor cursor = query(resolver, params.sort);
+    try {
+      final int idIndex = cursor.getColumnIndexOrThrow(idColumn);
+      final int versionIndex = cursor.getColumnIndexOrThrow(versionColumn);
+      final int count = cursor.getCount();
+      final ArrayList<E> items = new ArrayList<E>(count);
+      final long[] ids = new long[count];
+      final HashMap<Long, TrackedData.Row<E>> index = new HashMap<Long, TrackedData.Row<E>>(count);
+      int i = 0;
+      while (cursor.moveToNext()) {
+        final E element = rowFactory.createWithCursor(cursor);
+        ids[i++] = cursor.getLong(idIndex);
+        index.put(cursor.getLong(idIndex), new TrackedData.Row<E>(cursor.getLong(versionIndex), element));
+        items.add(element);
+      }
+      final List<Long> none = new ArrayList<Long>(0);
+      return new TrackedData<E>(items, new TrackedData.ChangeSet(none, none, none, true), ids, index);
+    } finally {
+      cursor.close();
+    }
+  }
+
+  private TrackedData<E> loadChanges(final ContentResolver resolver, final TrackedData<E> previous) {
+    // scan identifiers and versions
+    final long[] ids;
+    final long[] versions;
+    final Cursor scan = query(resolver, new String[] {idColumn, versionColumn}, params.selection,
+        params.selectionArgs, params.sort);
+    try {
+      final int count = scan.getCount();
+      ids = new long[count];
+      versions = new long[count];
+      final int idIndex = scan.getColumnIndexOrThrow(idColumn);
+      final int versionIndex = scan.getColumnIndexOrThrow(versionColumn);
+      int i = 0;
+      while (scan.moveToNext()) {
+        ids[i] = scan.getLong(idIndex);
+        versions[i] = scan.getLong(versionIndex);
+        i++;
+      }
+    } finally {
+      scan.close();
+    }
+
+    final ArrayList<Long> changed = new ArrayList<Long>();
+    for (int i = 0; i < ids.length; i++) {
+      final TrackedData.Row<E> row = previous.index.get(ids[i]);
+      if (row == null || row.version != versions[i]) {
+        changed.add(ids[i]);
+      }
+    }
+    final HashMap<Long, TrackedData.Row<E>> fresh = loadRows(resolver, changed);
+
+    // changes are built from rows that are actually materialized:
+    // a changed row may disappear between the scan and the load
+    final ArrayList<Long> inserted = new ArrayList<Long>();
+    final ArrayList<Long> updated = new ArrayList<Long>();
+    final ArrayList<E> items = new ArrayList<E>(ids.length);
+    final HashMap<Long, TrackedData.Row<E>> index = new HashMap<Long, TrackedData.Row<E>>(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      final TrackedData.Row<E> old = previous.index.get(ids[i]);
+      TrackedData.Row<E> row = fresh.get(ids[i]);
+      if (row != null) {
+        (old == null ? inserted : updated).add(ids[i]);
+      } else if (old != null && old.version == versions[i]) {
+        row = old;
+      } else {
+        // next change notification will sync it
+        continue;
+      }
+      index.put(ids[i], row);
+      items.add(row.element);
+    }
+    final ArrayList<Long> removed = new ArrayList<Long>();
+    for (long id : previous.ids) {
+      if (!index.containsKey(id)) {
+        removed.add(id);
+      }
+    }
+
+    long[] resultIds = ids;
+    if (items.size() != ids.length) {
+      resultIds = new long[items.size()];
+      int j = 0;
+      for (long id : ids) {
+        if (index.containsKey(id)) {
+          resultIds[j++] = id;
+        }
+      }
+    }
+    return new TrackedData<E>(items, new TrackedData.ChangeSet(inserted, updated, removed, false),
+        resultIds, index);
+  }
+
+  private HashMap<Long, TrackedData.Row<E>> loadRows(final ContentResolver resolver,
+                                                     final List<Long> rowIds) {
+    final HashMap<Long, TrackedData.Row<E>> result = new HashMap<Long, TrackedData.Row<E>>(rowIds.size());
+    final String[] baseArgs = params.selectionArgs != null ? params.selectionArgs : new String[0];
+
+    for (int start = 0; start < rowIds.size(); start += MAX_IN_ARGS) {
+      final int end = Math.min(rowIds.size(), start + MAX_IN_ARGS);
+      final StringBuilder selection = new StringBuilder();
+      if (params.selection != null) {
+        selection.append('(').append(params.selection).append(") AND ");
+      }
+      selection.append(idColumn).append(" IN (");
+      final String[] args = new String[baseArgs.length + end - start];
+      System.arraycopy(baseArgs, 0, args, 0, baseArgs.length);
+      for (int i = start; i < end; i++) {
+        selection.append(i > start ? ",?" : "?");
+        args[baseArgs.length + i - start] = String.valueOf(rowIds.get(i));
+      }
+      selection.append(')');
+
+      final Cursor cursor = query(resolver, params.projection, selection.toString(), args, null);
+      try {
+        final int idIndex = cursor.getColumnIndexOrThrow(idColumn);
+        final int versionIndex = cursor.getColumnIndexOrThrow(versionColumn);
+        while (cursor.moveToNext()) {
+          result.put(cursor.getLong(idIndex),
+              new TrackedData.Row<E>(cursor.getLong(versionIndex), rowFactory.createWithCursor(cursor)));
+        }
+      } finally {
+        cursor.close();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void deliverResult(final ResponseData<TrackedData<E>> data) {
+    if (data != null && data.getModel() != null && !isReset()) {
+      setDelivered(data.getModel());
+    }
+    super.deliverResult(data);
+  }
+
+  /** @param data data that next changes are computed relative to */
+  void setDelivered(final TrackedData<E> data) {
+    delivered = data;
+  }
+
+  @Override
+  protected void onReset() {
+    super.onReset();
+    delivered = null;
+  }
+
+}
@@ -1,8 +1,10 @@
 package com.stanfy.enroscar.content.utils;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import android.content.ContentValues;
 import android.database.Cursor;
@@ -174,6 +176,127 @@ public final class DBInsertHelper {
     }
   }
 
+  /**
+   * Performs inserts of many rows within a transaction.
+   * Values of each row are bound to the compiled statement by their types without
+   * creating {@link ContentValues} objects.
+   * <p>
+   *   If {@code chunkSize} is positive, after each {@code chunkSize} rows the transaction
+   *   yields to other threads that wait for the database
+   *   (see {@link SQLiteDatabase#yieldIfContendedSafely()}). A yield commits the rows inserted
+   *   so far, so the insert is atomic as a whole only if no yield happens.
+   *   Yields are not possible if this method is called within another transaction.
+   *   Rows that cannot be inserted are skipped and counted as failed, like {@link #insert(ContentValues)}
+   *   returns -1 for them. Other errors roll back the rows inserted after the last yield.
+   * </p>
+   *
+   * @param columns names of columns the row values correspond to
+   * @param rows rows to insert, each array must contain {@code columns.length} values
+   *   of types {@code null}, {@link Number}, {@link String}, {@code byte[]} or {@link Boolean}
+   * @param chunkSize count of rows between yield points, zero or negative means no yields
+   * @param allowReplace if true, the statement does "INSERT OR REPLACE" instead of "INSERT"
+   * @return insertion statistics
+   */
+  public synchronized BulkResult bulkInsert(final String[] columns, final Iterator<Object[]> rows,
+                                            final int chunkSize, final boolean allowReplace) {
+    final long start = System.nanoTime();
+    final SQLiteStatement stmt = getStatement(allowReplace);
+    final int[] indexes = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      indexes[i] = getColumnIndex(columns[i]);
+    }
+
+    final boolean nested = mDb.inTransaction();
+    int inserted = 0, failed = 0, transactions = 1;
+    mDb.beginTransaction();
+    try {
+      int chunk = 0;
+      while (rows.hasNext()) {
+        if (chunkSize > 0 && chunk == chunkSize) {
+          chunk = 0;
+          if (!nested && mDb.yieldIfContendedSafely()) {
+            transactions++;
+          }
+        }
+        final Object[] row = rows.next();
+        if (row.length != indexes.length) {
+          throw new IllegalArgumentException("Row has " + row.length + " values, "
+              + indexes.length + " are expected");
+        }
+        stmt.clearBindings();
+        for (int i = 0; i < indexes.length; i++) {
+          bindValue(stmt, indexes[i], row[i]);
+        }
+        try {
+          if (stmt.executeInsert() == -1) {
+            failed++;
+          } else {
+            inserted++;
+          }
+        } catch (final SQLException e) {
+          if (DEBUG) {
+            Log.v(TAG, "Cannot insert row into " + mTableName, e);
+          }
+          failed++;
+        }
+        chunk++;
+      }
+      mDb.setTransactionSuccessful();
+    } finally {
+      mDb.endTransaction();
+    }
+
+    final BulkResult result = new BulkResult(inserted, failed, transactions, System.nanoTime() - start);
+    if (DEBUG) {
+      Log.v(TAG, "Bulk insert into " + mTableName + ": " + result);
+    }
+    return result;
+  }
+
+  /**
+   * Performs inserts of many rows within a transaction.
+   * @see #bulkInsert(String[], Iterator, int, boolean)
+   * @param columns names of columns the row values correspond to
+   * @param rows rows to insert
+   * @param chunkSize count of rows between yield points, zero or negative means no yields
+   * @return insertion statistics
+   */
+  public BulkResult bulkInsert(final String[] columns, final Iterable<Object[]> rows,
+                               final int chunkSize) {
+    return bulkInsert(columns, rows.iterator(), chunkSize, false);
+  }
+
+  /**
+   * Performs replaces of many rows within a transaction.
+   * @see #bulkInsert(String[], Iterator, int, boolean)
+   * @param columns names of columns the row values correspond to
+   * @param rows rows to insert or replace
+   * @param chunkSize count of rows between yield points, zero or negative means no yields
+   * @return insertion statistics
+   */
+  public BulkResult bulkReplace(final String[] columns, final Iterable<Object[]> rows,
+                                final int chunkSize) {
+    return bulkInsert(columns, rows.iterator(), chunkSize, true);
+  }
+
+  private static void bindValue(final SQLiteStatement stmt, final int index, final Object value) {
+    if (value == null) {
+      stmt.bindNull(index);
+    } else if (value instanceof String) {
+      stmt.bindString(index, (String) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      stmt.bindDouble(index, ((Number) value).doubleValue());
+    } else if (value instanceof Number) {
+      stmt.bindLong(index, ((Number) value).longValue());
+    } else if (value instanceof Boolean) {
+      stmt.bindLong(index, (Boolean) value ? 1 : 0);
+    } else if (value instanceof byte[]) {
+      stmt.bindBlob(index, (byte[]) value);
+    } else {
+      stmt.bindString(index, value.toString());
+    }
+  }
+
   /**
    * Returns the index of the specified column. This is index is suitagble for use
    * in calls to bind().
@@ -384,4 +507,42 @@ public final class DBInsertHelper {
     mInsertSQL = null;
     mColumns = null;
   }
+
+  /** Statistics of {@link #bulkInsert(String[], Iterator, int, boolean)}. */
+  public static final class BulkResult {
+    /** Counters. */
+    private final int insertedCount, failedCount, transactionsCount;
+    /** Elapsed time, nanoseconds. */
+    private final long time;
+
+    BulkResult(final int insertedCount, final int failedCount, final int transactionsCount,
+               final long time) {
+      this.insertedCount = insertedCount;
+      this.failedCount = failedCount;
+      this.transactionsCount = transactionsCount;
+      this.time = time;
+    }
+
+    public int getInsertedCount() { return insertedCount; }
+    public int getFailedCount() { return failedCount; }
+    /** @return count of committed transactions, one plus count of yields */
+    public int getTransactionsCount() { return transactionsCount; }
+
+    public long getTime(final TimeUnit unit) {
+      return unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    /** @return count of processed rows per second */
+    public double getRowsPerSecond() {
+      return time > 0 ? (insertedCount + failedCount) * (double) TimeUnit.SECONDS.toNanos(1) / time : 0;
+    }
+
+    @Override
+    public String toString() {
+      return "BulkResult{inserted=" + insertedCount + ", failed=" + failedCount
+          + ", transactions=" + transactionsCount + ", time=" + getTime(TimeUnit.MILLISECONDS)
+          + "ms, rows/sec=" + (long) getRowsPerSecond() + "}";
+    }
+  }
+
 }
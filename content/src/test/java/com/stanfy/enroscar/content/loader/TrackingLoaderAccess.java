@@ -0,0 +1,16 @@
+package com.stanfy.enroscar.content.loader;
+
+/**
+ * Access to {@link TrackingContentLoader}.
+ */
+public final class TrackingLoaderAccess {
+
+  private TrackingLoaderAccess() { }
+
+  public static <E> TrackedData<E> loadAndDeliver(final TrackingContentLoader<E> loader) {
+    TrackedData<E> data = loader.loadInBackground().getModel();
+    loader.setDelivered(data);
+    return data;
+  }
+
+}
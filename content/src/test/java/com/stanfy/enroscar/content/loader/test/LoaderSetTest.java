@@ -2,7 +2,10 @@ package com.stanfy.enroscar.content.loader.test;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -38,7 +41,94 @@ public class LoaderSetTest {
       }
     };
   };
-  
+
+  /** Loader that delivers results only when asked. */
+  private Loader<String> manualLoader;
+
+  /** Partial results indexes. */
+  private final List<Integer> partial = new ArrayList<Integer>();
+
+  /** Complete results. */
+  private Object[] complete;
+
+  private LoaderSet.Builder twoLoaders() {
+    final Fragment fragment = new Fragment();
+    FragmentTestUtil.startFragment(fragment);
+    manualLoader = new Loader<String>(Robolectric.application);
+
+    return LoaderSet.build(Robolectric.application)
+        .withManager(fragment.getLoaderManager())
+        .withCallbacks(new LoaderSet.SetCallbacksAdapter<String>() {
+          @Override
+          public Loader<String> onCreateLoader(final int id, final Bundle args) {
+            return createLoader("R1");
+          }
+        }, 1)
+        .withCallbacks(new LoaderSet.SetCallbacksAdapter<String>() {
+          @Override
+          public Loader<String> onCreateLoader(final int id, final Bundle args) {
+            return manualLoader;
+          }
+        }, 2);
+  }
+
+  private LoaderSet.ProgressiveCallback progressiveCallback() {
+    return new LoaderSet.ProgressiveCallback() {
+      @Override
+      public void onPartialResult(final Object[] data, final int index) {
+        partial.add(index);
+      }
+      @Override
+      public void onLoadFinished(final Object[] data) {
+        complete = data.clone();
+      }
+    };
+  }
+
+  @Test
+  public void progressiveSetShouldDispatchPartialResults() {
+    LoaderSet set = twoLoaders().progressive().create();
+    set.init(null, progressiveCallback());
+
+    assertThat(partial).containsExactly(0);
+    assertThat(complete).isNull();
+    assertThat(set.getLatency(1)).isGreaterThanOrEqualTo(0);
+    assertThat(set.getLatency(2)).isEqualTo(-1);
+
+    manualLoader.deliverResult("R2");
+    assertThat(complete).isEqualTo(new Object[] {"R1", "R2"});
+    assertThat(set.getLatency(2)).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void slowLoaderShouldTimeOut() {
+    LoaderSet set = twoLoaders().progressive().timeout(2, 100, TimeUnit.MILLISECONDS).create();
+    set.init(null, progressiveCallback());
+    assertThat(complete).isNull();
+
+    Robolectric.getUiThreadScheduler().advanceBy(200);
+    assertThat(complete).isEqualTo(new Object[] {"R1", null});
+    assertThat(set.isTimedOut(2)).isTrue();
+    assertThat(set.isTimedOut(1)).isFalse();
+    assertThat(set.getLatency(2)).isEqualTo(-1);
+
+    // late result is delivered too
+    manualLoader.deliverResult("R2");
+    assertThat(complete).isEqualTo(new Object[] {"R1", "R2"});
+    assertThat(set.isTimedOut(2)).isFalse();
+    assertThat(set.getLatency(2)).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void canceledSetShouldNotDispatchResults() {
+    LoaderSet set = twoLoaders().create();
+    set.init(null, progressiveCallback());
+    set.cancel();
+    manualLoader.deliverResult("R2");
+    assertThat(complete).isNull();
+    assertThat(partial).isEmpty();
+  }
+
   @Test
   public void shouldCombineAllResults() throws Throwable {
 
@@ -0,0 +1,131 @@
+package com.stanfy.enroscar.content.loader.test;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+
+import com.stanfy.enroscar.content.StrategiesContentProvider;
+import com.stanfy.enroscar.content.loader.ContentLoader;
+import com.stanfy.enroscar.content.loader.PagedContentLoader;
+import com.stanfy.enroscar.content.loader.PagedList;
+import com.stanfy.enroscar.content.utils.DBInsertHelper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Compares first page latency and retained memory of {@link PagedContentLoader}
+ * with a {@link ContentLoader} that materializes the whole table.
+ * Not a part of the test suite: run {@link #benchmark()} manually.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class PagedContentLoaderBenchmark {
+
+  /** Parameters. */
+  private static final int ROWS = 100000, PAGE_SIZE = 50, ROUNDS = 5;
+
+  /** Content URI. */
+  private static final Uri URI = Uri.parse("content://benchmark/items");
+
+  /** Row factory. */
+  private static final ContentLoader.DataInstanceFactory<String> ROW = new ContentLoader.DataInstanceFactory<String>() {
+    @Override
+    public String createWithCursor(final Cursor cursor) {
+      return cursor.getString(cursor.getColumnIndex("name"));
+    }
+  };
+
+  /** Whole table factory. */
+  private static final ContentLoader.DataInstanceFactory<List<String>> ALL = new ContentLoader.DataInstanceFactory<List<String>>() {
+    @Override
+    public List<String> createWithCursor(final Cursor cursor) {
+      ArrayList<String> result = new ArrayList<String>(cursor.getCount());
+      while (cursor.moveToNext()) {
+        result.add(ROW.createWithCursor(cursor));
+      }
+      return result;
+    }
+  };
+
+  @Test
+  public void benchmark() {
+    createTable();
+
+    for (int round = 0; round < ROUNDS; round++) {
+      long heap = usedHeap();
+      long start = System.nanoTime();
+      ContentLoader<List<String>> fullLoader = ContentLoader.of(ALL).uri(URI).sort("_id")
+          .get(Robolectric.application);
+      List<String> all = fullLoader.loadInBackground().getModel();
+      long fullTime = System.nanoTime() - start;
+      long fullHeap = usedHeap() - heap;
+      assertThat(all).hasSize(ROWS);
+      all = null;
+
+      heap = usedHeap();
+      PagedContentLoader<String> pagedLoader = ContentLoader.of(ROW).uri(URI).sort("_id")
+          .paged(PAGE_SIZE)
+          .get(Robolectric.application);
+      PagedList<String> page = pagedLoader.loadInBackground().getModel();
+      long pagedHeap = usedHeap() - heap;
+      assertThat(page.getMaterializedCount()).isEqualTo(PAGE_SIZE);
+
+      System.out.println("round " + round + ": full load " + TimeUnit.NANOSECONDS.toMillis(fullTime)
+          + " ms, " + fullHeap / 1024 + " KB; first page " + pagedLoader.getLastLoadTime(TimeUnit.MILLISECONDS)
+          + " ms, " + pagedHeap / 1024 + " KB");
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static void createTable() {
+    final SQLiteOpenHelper helper = new SQLiteOpenHelper(Robolectric.application, null, null, 1) {
+      @Override
+      public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+      }
+      @Override
+      public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        // nothing
+      }
+    };
+    List<Object[]> rows = new ArrayList<Object[]>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(new Object[] {i, "item " + i});
+    }
+    DBInsertHelper insertHelper = new DBInsertHelper(helper.getWritableDatabase(), "items");
+    insertHelper.bulkInsert(new String[] {"_id", "name"}, rows, 0);
+    insertHelper.close();
+
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("benchmark", "items", new TableStrategy<SQLiteOpenHelper>("items"));
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    ShadowContentResolver.registerProvider("benchmark", provider);
+  }
+
+}
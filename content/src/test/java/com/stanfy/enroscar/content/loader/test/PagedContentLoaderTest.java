@@ -0,0 +1,238 @@
+package com.stanfy.enroscar.content.loader.test;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+
+import com.stanfy.enroscar.content.StrategiesContentProvider;
+import com.stanfy.enroscar.content.loader.ContentLoader;
+import com.stanfy.enroscar.content.loader.PagedContentLoader;
+import com.stanfy.enroscar.content.loader.PagedList;
+import com.stanfy.enroscar.content.loader.ResponseData;
+import com.stanfy.enroscar.content.utils.DBInsertHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for PagedContentLoader.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class PagedContentLoaderTest {
+
+  /** Rows count of synthetic table. */
+  private static final int ROWS_COUNT = 10000;
+
+  /** Window size. */
+  private static final int PAGE_SIZE = 50;
+
+  /** Content URI. */
+  private static final Uri URI = Uri.parse("content://paged/items");
+
+  /** Row factory. */
+  private static final ContentLoader.DataInstanceFactory<String> ROW = new ContentLoader.DataInstanceFactory<String>() {
+    @Override
+    public String createWithCursor(final Cursor cursor) {
+      return cursor.getString(cursor.getColumnIndex("name"));
+    }
+  };
+
+  /** Database. */
+  private SQLiteOpenHelper helper;
+
+  @Before
+  public void createTable() {
+    helper = new SQLiteOpenHelper(Robolectric.application, null, null, 1) {
+      @Override
+      public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+      }
+      @Override
+      public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        // nothing
+      }
+    };
+    fill(ROWS_COUNT);
+
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("paged", "items", new TableStrategy<SQLiteOpenHelper>("items"));
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    ShadowContentResolver.registerProvider("paged", provider);
+  }
+
+  private void fill(final int count) {
+    SQLiteDatabase db = helper.getWritableDatabase();
+    db.delete("items", null, null);
+    List<Object[]> rows = new ArrayList<Object[]>(count);
+    for (int i = 0; i < count; i++) {
+      rows.add(new Object[] {i, "item " + i});
+    }
+    DBInsertHelper insertHelper = new DBInsertHelper(db, "items");
+    insertHelper.bulkInsert(new String[] {"_id", "name"}, rows, 0);
+    insertHelper.close();
+  }
+
+  private PagedContentLoader<String> pagedLoader(final int maxWindows) {
+    return ContentLoader.of(ROW).uri(URI).sort("_id")
+        .paged(PAGE_SIZE)
+        .prefetchDistance(10)
+        .maxWindows(maxWindows)
+        .get(Robolectric.application);
+  }
+
+  @Test
+  public void firstPageShouldMaterializeOneWindow() {
+    ContentLoader<List<String>> fullLoader = ContentLoader.of(new ContentLoader.DataInstanceFactory<List<String>>() {
+      @Override
+      public List<String> createWithCursor(final Cursor cursor) {
+        ArrayList<String> result = new ArrayList<String>(cursor.getCount());
+        while (cursor.moveToNext()) {
+          result.add(ROW.createWithCursor(cursor));
+        }
+        return result;
+      }
+    }).uri(URI).sort("_id").get(Robolectric.application);
+    assertThat(fullLoader.loadInBackground().getModel()).hasSize(ROWS_COUNT);
+
+    PagedContentLoader<String> loader = pagedLoader(5);
+    PagedList<String> list = loader.loadInBackground().getModel();
+    assertThat(list.get(0)).isEqualTo("item 0");
+    assertThat(list.size()).isEqualTo(PAGE_SIZE);
+    assertThat(list.isComplete()).isFalse();
+    assertThat(list.getMaterializedCount()).isEqualTo(PAGE_SIZE);
+    assertThat(loader.getLastLoadTime(TimeUnit.NANOSECONDS)).isPositive();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void providerThatIgnoresLimitShouldBeRejected() {
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("unpaged", "items", new TableStrategy<SQLiteOpenHelper>("items") {
+          @Override
+          public Cursor query(final SQLiteOpenHelper appDbManager, final Uri uri, final String[] projection,
+                              final String selection, final String[] selectionArgs, final String sortOrder) {
+            return super.query(appDbManager, uri, projection, selection, selectionArgs, "_id");
+          }
+        });
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    ShadowContentResolver.registerProvider("unpaged", provider);
+
+    ContentLoader.of(ROW).uri(Uri.parse("content://unpaged/items")).sort("_id")
+        .paged(PAGE_SIZE)
+        .get(Robolectric.application)
+        .loadInBackground();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void pagedModeShouldRejectPostProcessor() {
+    ContentLoader.of(ROW).uri(URI).sort("_id")
+        .after(new ContentLoader.PostProcessor<String>() {
+          @Override
+          public String process(final Context context, final String data) {
+            return data;
+          }
+        })
+        .paged(PAGE_SIZE);
+  }
+
+  @Test
+  public void shouldPrefetchNextWindowNearTheEnd() {
+    PagedContentLoader<String> loader = pagedLoader(5);
+    PagedList<String> list = loader.loadInBackground().getModel();
+    list.get(PAGE_SIZE - 20);
+    assertThat(loader.loadInBackground().getModel().size()).isEqualTo(PAGE_SIZE);
+
+    list.get(PAGE_SIZE - 5);
+    list = loader.loadInBackground().getModel();
+    assertThat(list.size()).isEqualTo(2 * PAGE_SIZE);
+    assertThat(list.get(PAGE_SIZE + 1)).isEqualTo("item " + (PAGE_SIZE + 1));
+  }
+
+  @Test
+  public void shouldReleaseFarWindows() {
+    PagedContentLoader<String> loader = pagedLoader(2);
+    PagedList<String> list = loader.loadInBackground().getModel();
+    for (int i = 0; i < 5; i++) {
+      list.get(list.size() - 1);
+      list = loader.loadInBackground().getModel();
+    }
+    assertThat(list.size()).isEqualTo(6 * PAGE_SIZE);
+    assertThat(list.getMaterializedCount()).isEqualTo(2 * PAGE_SIZE);
+    assertThat(list.isLoaded(0)).isFalse();
+
+    // released window is loaded again on access
+    assertThat(list.get(0)).isNull();
+    list = loader.loadInBackground().getModel();
+    assertThat(list.get(0)).isEqualTo("item 0");
+  }
+
+  @Test
+  public void iterationShouldNotRequestWindows() {
+    PagedContentLoader<String> loader = pagedLoader(1);
+    PagedList<String> list = loader.loadInBackground().getModel();
+    list.get(PAGE_SIZE - 1);
+    list = loader.loadInBackground().getModel();
+    list.get(PAGE_SIZE + 10);
+    list = loader.loadInBackground().getModel();
+    assertThat(list.isLoaded(0)).isFalse();
+    assertThat(list.isLoaded(PAGE_SIZE)).isTrue();
+
+    int nulls = 0;
+    for (String row : list) {
+      if (row == null) {
+        nulls++;
+      }
+    }
+    assertThat(nulls).isEqualTo(PAGE_SIZE);
+    assertThat(list.contains("item 0")).isFalse();
+    assertThat(list.indexOf("item " + PAGE_SIZE)).isEqualTo(PAGE_SIZE);
+    assertThat(list.toString()).contains("size=" + 2 * PAGE_SIZE);
+    assertThat(list).isNotEqualTo(loader.loadInBackground().getModel());
+
+    // nothing was requested
+    assertThat(loader.loadInBackground().getModel().isLoaded(0)).isFalse();
+  }
+
+  @Test
+  public void shouldDetectEnd() {
+    fill(PAGE_SIZE + 7);
+    PagedContentLoader<String> loader = pagedLoader(5);
+    PagedList<String> list = loader.loadInBackground().getModel();
+    list.get(PAGE_SIZE - 1);
+    ResponseData<PagedList<String>> data = loader.loadInBackground();
+    list = data.getModel();
+    assertThat(list.isComplete()).isTrue();
+    assertThat(list.size()).isEqualTo(PAGE_SIZE + 7);
+    assertThat(loader.moreElementsAvailable()).isFalse();
+  }
+
+}
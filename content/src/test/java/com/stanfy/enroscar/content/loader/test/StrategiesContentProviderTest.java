@@ -1,7 +1,10 @@
 package com.stanfy.enroscar.content.loader.test;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
 
@@ -10,8 +13,13 @@ import com.stanfy.enroscar.content.StrategiesContentProvider;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -69,4 +77,140 @@ public class StrategiesContentProviderTest {
     assertThat(lastUri).describedAs("Incorrect strategy used").isNull();
   }
 
+  /** Creates a provider that works with a real table. */
+  private StrategiesContentProvider<SQLiteOpenHelper> tableProvider() {
+    final SQLiteOpenHelper helper = itemsDatabase();
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("test", "items", new TableStrategy<SQLiteOpenHelper>("items"));
+        matcher.registerStrategy("test", "other", new TableStrategy<SQLiteOpenHelper>("items"));
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+      @Override
+      protected boolean isChangeNotificationEnabled() {
+        return true;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    return provider;
+  }
+
+  private static SQLiteOpenHelper itemsDatabase() {
+    return new SQLiteOpenHelper(Robolectric.application, null, null, 1) {
+      @Override
+      public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+      }
+      @Override
+      public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        // nothing
+      }
+    };
+  }
+
+  private static List<Uri> notifiedUris() {
+    ShadowContentResolver resolver = Robolectric.shadowOf(Robolectric.application.getContentResolver());
+    ArrayList<Uri> result = new ArrayList<Uri>();
+    for (ShadowContentResolver.NotifiedUri notified : resolver.getNotifiedUris()) {
+      result.add(notified.uri);
+    }
+    return result;
+  }
+
+  @Test
+  public void bulkInsertShouldNotifyOnce() {
+    StrategiesContentProvider<SQLiteOpenHelper> provider = tableProvider();
+    Uri uri = Uri.parse("content://test/items");
+    ContentValues[] values = new ContentValues[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new ContentValues();
+      values[i].put("name", "item " + i);
+    }
+    values[50].putNull("name");
+
+    assertThat(provider.bulkInsert(uri, values)).isEqualTo(99);
+    assertThat(notifiedUris()).containsExactly(uri);
+  }
+
+  @Test
+  public void applyBatchShouldCoalesceNotifications() throws Exception {
+    StrategiesContentProvider<SQLiteOpenHelper> provider = tableProvider();
+    Uri items = Uri.parse("content://test/items");
+    Uri other = Uri.parse("content://test/other");
+    ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+    for (int i = 0; i < 10; i++) {
+      operations.add(ContentProviderOperation.newInsert(i % 2 == 0 ? items : other)
+          .withValue("name", "item " + i)
+          .withYieldAllowed(true)
+          .build());
+    }
+    operations.add(ContentProviderOperation.newDelete(items).withSelection("name = 'item 0'", null).build());
+
+    assertThat(provider.applyBatch(operations)).hasSize(11);
+    assertThat(notifiedUris()).containsExactly(items, other);
+    Cursor cursor = provider.query(items, null, null, null, null);
+    try {
+      assertThat(cursor.getCount()).isEqualTo(9);
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void strategyNotificationsShouldBeCoalescedInBatch() throws Exception {
+    final SQLiteOpenHelper helper = itemsDatabase();
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("test", "items", new NotifyingTableStrategy("items"));
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    Uri items = Uri.parse("content://test/items");
+
+    ContentValues values = new ContentValues();
+    values.put("name", "single");
+    provider.insert(items, values);
+    assertThat(notifiedUris()).containsExactly(items);
+
+    ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+    for (int i = 0; i < 10; i++) {
+      operations.add(ContentProviderOperation.newInsert(items).withValue("name", "item " + i).build());
+    }
+    provider.applyBatch(operations);
+    assertThat(notifiedUris()).containsExactly(items, items);
+  }
+
+  /** Table strategy that notifies about every inserted row. */
+  private static final class NotifyingTableStrategy extends StrategiesContentProvider.TableStrategy<SQLiteOpenHelper>
+      implements StrategiesContentProvider.NotifyingStrategy<SQLiteOpenHelper> {
+
+    /** Notifier. */
+    private StrategiesContentProvider.ChangeNotifier notifier;
+
+    NotifyingTableStrategy(final String tableName) {
+      super(tableName);
+    }
+
+    @Override
+    public void setChangeNotifier(final StrategiesContentProvider.ChangeNotifier notifier) {
+      this.notifier = notifier;
+    }
+
+    @Override
+    public Uri insert(final SQLiteOpenHelper appDbManager, final Uri uri, final ContentValues values) {
+      Uri result = super.insert(appDbManager, uri, values);
+      notifier.notifyChange(uri);
+      return result;
+    }
+  }
+
 }
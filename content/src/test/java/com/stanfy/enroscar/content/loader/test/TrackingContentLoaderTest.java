@@ -0,0 +1,177 @@
+package com.stanfy.enroscar.content.loader.test;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+
+import com.stanfy.enroscar.content.StrategiesContentProvider;
+import com.stanfy.enroscar.content.loader.ContentLoader;
+import com.stanfy.enroscar.content.loader.TrackedData;
+import com.stanfy.enroscar.content.loader.TrackingContentLoader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import static com.stanfy.enroscar.content.loader.TrackingLoaderAccess.loadAndDeliver;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for TrackingContentLoader.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class TrackingContentLoaderTest {
+
+  /** Content URI. */
+  private static final Uri URI = Uri.parse("content://tracked/items");
+
+  /** Database. */
+  private SQLiteDatabase db;
+
+  /** Count of created elements. */
+  private int createdCount;
+
+  /** Loader under the test. */
+  private TrackingContentLoader<String> loader;
+
+  /** Invoked once after the next scan of identifiers and versions. */
+  private Runnable afterScan;
+
+  @Before
+  public void create() {
+    final SQLiteOpenHelper helper = new SQLiteOpenHelper(Robolectric.application, null, null, 1) {
+      @Override
+      public void onCreate(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, name TEXT NOT NULL, version INTEGER NOT NULL)");
+      }
+      @Override
+      public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion) {
+        // nothing
+      }
+    };
+    db = helper.getWritableDatabase();
+    for (int i = 1; i <= 100; i++) {
+      insert(i, "item " + i);
+    }
+
+    StrategiesContentProvider<SQLiteOpenHelper> provider = new StrategiesContentProvider<SQLiteOpenHelper>() {
+      @Override
+      protected void onStrategyMatcherCreate(final StrategyMatcher<SQLiteOpenHelper> matcher) {
+        matcher.registerStrategy("tracked", "items", new TableStrategy<SQLiteOpenHelper>("items"));
+      }
+      @Override
+      protected SQLiteOpenHelper getDatabaseManager(final Context context) {
+        return helper;
+      }
+      @Override
+      public Cursor query(final Uri uri, final String[] projection, final String selection,
+                          final String[] selectionArgs, final String sortOrder) {
+        Cursor cursor = super.query(uri, projection, selection, selectionArgs, sortOrder);
+        if (afterScan == null || projection == null || projection.length != 2) {
+          return cursor;
+        }
+        MatrixCursor scan = new MatrixCursor(projection);
+        while (cursor.moveToNext()) {
+          scan.addRow(new Object[] {cursor.getLong(0), cursor.getLong(1)});
+        }
+        cursor.close();
+        Runnable action = afterScan;
+        afterScan = null;
+        action.run();
+        return scan;
+      }
+    };
+    provider.attachInfo(Robolectric.application, null);
+    ShadowContentResolver.registerProvider("tracked", provider);
+
+    loader = ContentLoader.of(new ContentLoader.DataInstanceFactory<String>() {
+      @Override
+      public String createWithCursor(final Cursor cursor) {
+        createdCount++;
+        return cursor.getString(cursor.getColumnIndex("name"));
+      }
+    }).uri(URI).selection("_id > ?").selectionArgs(new String[] {"10"}).sort("_id")
+        .tracked(Robolectric.application, "_id", "version");
+  }
+
+  private void insert(final long id, final String name) {
+    ContentValues values = new ContentValues();
+    values.put("_id", id);
+    values.put("name", name);
+    values.put("version", 1);
+    db.insert("items", null, values);
+  }
+
+  @Test
+  public void firstLoadShouldBeFull() {
+    TrackedData<String> data = loadAndDeliver(loader);
+    assertThat(data.getChanges().isFullReload()).isTrue();
+    assertThat(data.getItems()).hasSize(90);
+    assertThat(data.getId(0)).isEqualTo(11);
+    assertThat(createdCount).isEqualTo(90);
+  }
+
+  @Test
+  public void shouldMaterializeChangedRowsOnly() {
+    TrackedData<String> first = loadAndDeliver(loader);
+    createdCount = 0;
+
+    db.execSQL("UPDATE items SET name = 'changed', version = version + 1 WHERE _id = 20");
+    db.execSQL("UPDATE items SET name = 'silent' WHERE _id = 21");
+    db.delete("items", "_id = 30", null);
+    insert(200, "new item");
+
+    TrackedData<String> data = loadAndDeliver(loader);
+    assertThat(createdCount).isEqualTo(2);
+    assertThat(data.getChanges().getUpdated()).containsExactly(20L);
+    assertThat(data.getChanges().getInserted()).containsExactly(200L);
+    assertThat(data.getChanges().getRemoved()).containsExactly(30L);
+
+    assertThat(data.getItems()).hasSize(90);
+    assertThat(data.getItems().get(9)).isEqualTo("changed");
+    assertThat(data.getItems().get(89)).isEqualTo("new item");
+    // rows without version change are reused
+    assertThat(data.getItems().get(10)).isSameAs(first.getItems().get(10)).isEqualTo("item 21");
+  }
+
+  @Test
+  public void rowsRemovedAfterScanShouldNotBeReportedAsChanged() {
+    loadAndDeliver(loader);
+    createdCount = 0;
+
+    db.execSQL("UPDATE items SET name = 'changed', version = version + 1 WHERE _id = 20");
+    insert(200, "new item");
+    afterScan = new Runnable() {
+      @Override
+      public void run() {
+        db.delete("items", "_id IN (20, 200)", null);
+      }
+    };
+
+    TrackedData<String> data = loadAndDeliver(loader);
+    assertThat(createdCount).isZero();
+    assertThat(data.getChanges().getUpdated()).isEmpty();
+    assertThat(data.getChanges().getInserted()).isEmpty();
+    assertThat(data.getChanges().getRemoved()).containsExactly(20L);
+    assertThat(data.getItems()).hasSize(89).doesNotContain("item 20", "changed");
+  }
+
+  @Test
+  public void nothingChangedShouldProduceEmptyChangeSet() {
+    loadAndDeliver(loader);
+    createdCount = 0;
+    TrackedData<String> data = loadAndDeliver(loader);
+    assertThat(data.getChanges().isEmpty()).isTrue();
+    assertThat(createdCount).isZero();
+  }
+
+}
@@ -0,0 +1,223 @@
+package com.stanfy.enroscar.content.test;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+
+import com.stanfy.enroscar.content.BackgroundQueryHandler;
+import com.stanfy.enroscar.content.BackgroundQueryHandler.WriteErrorListener;
+import com.stanfy.enroscar.content.NotifyingAsyncQueryHandler.AsyncQueryListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for BackgroundQueryHandler.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class BackgroundQueryHandlerTest {
+
+  /** Test URI. */
+  private static final Uri URI = Uri.parse("content://test/items");
+
+  /** Resolver mock. */
+  private ContentResolver resolver;
+
+  /** Listener mock. */
+  private AsyncQueryListener listener;
+
+  /** Handler. */
+  private BackgroundQueryHandler handler;
+
+  /** Sizes of applied batches. */
+  private final List<Integer> batches = new CopyOnWriteArrayList<Integer>();
+
+  /** Signals that the first batch is being applied. */
+  private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+
+  /** Releases the first batch. */
+  private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void init() throws Exception {
+    resolver = mock(ContentResolver.class);
+    listener = mock(AsyncQueryListener.class);
+
+    doAnswer(new Answer<Uri>() {
+      @Override
+      public Uri answer(final InvocationOnMock invocation) throws Throwable {
+        batches.add(1);
+        firstBatchStarted.countDown();
+        releaseFirstBatch.await(5, TimeUnit.SECONDS);
+        return Uri.withAppendedPath(URI, "1");
+      }
+    }).when(resolver).insert(eq(URI), any(ContentValues.class));
+    doAnswer(new Answer<ContentProviderResult[]>() {
+      @Override
+      public ContentProviderResult[] answer(final InvocationOnMock invocation) throws Throwable {
+        List<ContentProviderOperation> ops = (List<ContentProviderOperation>) invocation.getArguments()[1];
+        batches.add(ops.size());
+        ContentProviderResult[] results = new ContentProviderResult[ops.size()];
+        // insert, update, delete
+        results[0] = new ContentProviderResult(Uri.withAppendedPath(URI, "2"));
+        for (int i = 1; i < results.length; i++) {
+          results[i] = new ContentProviderResult(i + 1);
+        }
+        return results;
+      }
+    }).when(resolver).applyBatch(anyString(), any(ArrayList.class));
+    doReturn(new MatrixCursor(new String[] {"_id"}))
+        .when(resolver).query(eq(URI), any(String[].class), anyString(), any(String[].class), anyString());
+
+    handler = BackgroundQueryHandler.build(resolver).listener(listener).atomicBatches(true).create();
+  }
+
+  @After
+  public void quit() {
+    releaseFirstBatch.countDown();
+    handler.quit();
+  }
+
+  private static void waitFor(final BackgroundQueryHandler.QueueStats stats, final int operations)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (stats.getOperationsCount() < operations && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(stats.getOperationsCount()).isEqualTo(operations);
+  }
+
+  @Test
+  public void queuedWritesShouldBeBatched() throws Exception {
+    handler.startInsert(1, null, URI, new ContentValues());
+    assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // queued while the write worker is busy
+    handler.startInsert(2, null, URI, new ContentValues());
+    handler.startUpdate(3, null, URI, new ContentValues(), "_id=?", new String[] {"1"});
+    handler.startDelete(4, null, URI, "_id=?", new String[] {"2"});
+    releaseFirstBatch.countDown();
+
+    waitFor(handler.getWriteStats(), 4);
+    assertThat(batches).containsExactly(1, 3);
+    assertThat(handler.getWriteStats().getBatchesCount()).isEqualTo(2);
+    assertThat(handler.getWriteStats().getMaxWait(TimeUnit.NANOSECONDS)).isGreaterThan(0);
+
+    Robolectric.runUiThreadTasks();
+    verify(listener).onInsertComplete(1, null, Uri.withAppendedPath(URI, "1"));
+    verify(listener).onInsertComplete(2, null, Uri.withAppendedPath(URI, "2"));
+    verify(listener).onUpdateComplete(3, null, 2);
+    verify(listener).onDeleteComplete(4, null, 3);
+  }
+
+  @Test
+  public void writesShouldNotBeBatchedIfProviderIsNotAtomic() throws Exception {
+    handler.quit();
+    handler = BackgroundQueryHandler.build(resolver).listener(listener).create();
+    handler.startInsert(1, null, URI, new ContentValues());
+    assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    handler.startInsert(2, null, URI, new ContentValues());
+    handler.startInsert(3, null, URI, new ContentValues());
+    releaseFirstBatch.countDown();
+
+    waitFor(handler.getWriteStats(), 3);
+    assertThat(batches).containsExactly(1, 1, 1);
+    verify(resolver, never()).applyBatch(anyString(), any(ArrayList.class));
+  }
+
+  @Test
+  public void failedBatchShouldBeAppliedOneByOne() throws Exception {
+    WriteErrorListener errorListener = mock(WriteErrorListener.class);
+    handler.setQueryListener(errorListener);
+    doThrow(new OperationApplicationException("constraint"))
+        .when(resolver).applyBatch(anyString(), any(ArrayList.class));
+    IllegalStateException error = new IllegalStateException("update");
+    doThrow(error).when(resolver).update(eq(URI), any(ContentValues.class), anyString(), any(String[].class));
+    doReturn(3).when(resolver).delete(eq(URI), anyString(), any(String[].class));
+
+    handler.startInsert(1, null, URI, new ContentValues());
+    assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    handler.startInsert(2, null, URI, new ContentValues());
+    handler.startUpdate(3, null, URI, new ContentValues(), "_id=?", new String[] {"1"});
+    handler.startDelete(4, null, URI, "_id=?", new String[] {"2"});
+    releaseFirstBatch.countDown();
+
+    waitFor(handler.getWriteStats(), 4);
+    Robolectric.runUiThreadTasks();
+    verify(errorListener).onInsertComplete(1, null, Uri.withAppendedPath(URI, "1"));
+    verify(errorListener).onInsertComplete(2, null, Uri.withAppendedPath(URI, "1"));
+    verify(errorListener).onWriteError(3, null, error);
+    verify(errorListener, never()).onUpdateComplete(eq(3), any(), anyInt());
+    verify(errorListener).onDeleteComplete(4, null, 3);
+  }
+
+  @Test
+  public void batchFailedWithRuntimeExceptionShouldBeAppliedOneByOne() throws Exception {
+    WriteErrorListener errorListener = mock(WriteErrorListener.class);
+    handler.setQueryListener(errorListener);
+    doThrow(new IllegalArgumentException("unknown column"))
+        .when(resolver).applyBatch(anyString(), any(ArrayList.class));
+    doReturn(3).when(resolver).delete(eq(URI), anyString(), any(String[].class));
+
+    handler.startInsert(1, null, URI, new ContentValues());
+    assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    handler.startInsert(2, null, URI, new ContentValues());
+    handler.startDelete(3, null, URI, "_id=?", new String[] {"2"});
+    releaseFirstBatch.countDown();
+
+    waitFor(handler.getWriteStats(), 3);
+    Robolectric.runUiThreadTasks();
+    verify(errorListener).onInsertComplete(2, null, Uri.withAppendedPath(URI, "1"));
+    verify(errorListener).onDeleteComplete(3, null, 3);
+    verify(errorListener, never()).onWriteError(anyInt(), any(), any(Exception.class));
+  }
+
+  @Test
+  public void queriesShouldNotWaitForWrites() throws Exception {
+    handler.startInsert(1, null, URI, new ContentValues());
+    assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    handler.startQuery(5, "cookie", URI, new String[] {"_id"}, "_id>?", new String[] {"0"}, "_id");
+    waitFor(handler.getReadStats(), 1);
+    assertThat(handler.getWriteStats().getOperationsCount()).isZero();
+
+    Robolectric.runUiThreadTasks();
+    verify(listener).onQueryComplete(eq(5), eq("cookie"), any(Cursor.class));
+  }
+
+}
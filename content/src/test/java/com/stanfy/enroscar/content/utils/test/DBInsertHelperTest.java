@@ -0,0 +1,129 @@
+package com.stanfy.enroscar.content.utils.test;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.stanfy.enroscar.content.utils.DBInsertHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for DBInsertHelper.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class DBInsertHelperTest {
+
+  /** Columns. */
+  private static final String[] COLUMNS = {"_id", "name", "rating"};
+
+  /** Database. */
+  private SQLiteDatabase db;
+
+  /** Helper under the test. */
+  private DBInsertHelper helper;
+
+  @Before
+  public void create() {
+    db = SQLiteDatabase.create(null);
+    db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, name TEXT NOT NULL, rating REAL)");
+    helper = new DBInsertHelper(db, "items");
+  }
+
+  @After
+  public void close() {
+    helper.close();
+    db.close();
+  }
+
+  private static List<Object[]> rows(final int count) {
+    ArrayList<Object[]> rows = new ArrayList<Object[]>(count);
+    for (int i = 1; i <= count; i++) {
+      rows.add(new Object[] {i, "item " + i, i / 2.0});
+    }
+    return rows;
+  }
+
+  @Test
+  public void shouldInsertAllRowsInChunks() {
+    DBInsertHelper.BulkResult result = helper.bulkInsert(COLUMNS, rows(25), 10);
+    assertThat(result.getInsertedCount()).isEqualTo(25);
+    assertThat(result.getFailedCount()).isZero();
+    // nobody waits for the database, so there are no yields
+    assertThat(result.getTransactionsCount()).isEqualTo(1);
+    assertThat(DatabaseUtils.queryNumEntries(db, "items")).isEqualTo(25);
+
+    Cursor c = db.rawQuery("SELECT name, rating FROM items WHERE _id = 4", null);
+    try {
+      assertThat(c.moveToFirst()).isTrue();
+      assertThat(c.getString(0)).isEqualTo("item 4");
+      assertThat(c.getDouble(1)).isEqualTo(2.0);
+    } finally {
+      c.close();
+    }
+  }
+
+  @Test
+  public void shouldUseOneTransactionWithoutChunkSize() {
+    assertThat(helper.bulkInsert(COLUMNS, rows(25), 0).getTransactionsCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void errorShouldRollBackAllChunksWithoutYields() {
+    List<Object[]> rows = rows(25);
+    rows.add(new Object[] {100});
+    try {
+      helper.bulkInsert(COLUMNS, rows, 10);
+      throw new AssertionError("Bad row is not reported");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertThat(DatabaseUtils.queryNumEntries(db, "items")).isZero();
+  }
+
+  @Test
+  public void shouldInsertWithinOuterTransaction() {
+    db.beginTransaction();
+    try {
+      assertThat(helper.bulkInsert(COLUMNS, rows(25), 10).getInsertedCount()).isEqualTo(25);
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+    assertThat(DatabaseUtils.queryNumEntries(db, "items")).isEqualTo(25);
+  }
+
+  @Test
+  public void shouldSkipFailedRows() {
+    List<Object[]> rows = rows(5);
+    rows.add(new Object[] {1, "duplicate", null});
+    rows.add(new Object[] {100, null, null});
+    DBInsertHelper.BulkResult result = helper.bulkInsert(COLUMNS, rows, 0);
+    assertThat(result.getInsertedCount()).isEqualTo(5);
+    assertThat(result.getFailedCount()).isEqualTo(2);
+    assertThat(DatabaseUtils.queryNumEntries(db, "items")).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldReplaceRows() {
+    helper.bulkInsert(COLUMNS, rows(5), 0);
+    List<Object[]> update = new ArrayList<Object[]>();
+    update.add(new Object[] {1, "new", 10});
+    assertThat(helper.bulkReplace(COLUMNS, update, 0).getInsertedCount()).isEqualTo(1);
+    assertThat(DatabaseUtils.stringForQuery(db, "SELECT name FROM items WHERE _id = 1", null))
+        .isEqualTo("new");
+    assertThat(DatabaseUtils.queryNumEntries(db, "items")).isEqualTo(5);
+  }
+
+}
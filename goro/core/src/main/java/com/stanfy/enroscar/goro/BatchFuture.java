@@ -0,0 +1,150 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.stanfy.enroscar.goro.GoroFuture.IMMEDIATE;
+
+/**
+ * Future of tasks scheduled with {@link Goro#scheduleAll(String, java.util.Collection)}.
+ * It is done when all the tasks are done. Its result is a list of task results in the order
+ * of scheduling. If any task fails, the first error in that order is reported.
+ * @param <T> tasks result type
+ */
+public final class BatchFuture<T> implements ObservableFuture<List<T>> {
+
+  /** Task futures. */
+  private final List<GoroFuture<T>> futures;
+
+  /** Count of tasks that are not done. */
+  private final AtomicInteger remaining;
+
+  /** Released when all the tasks are done. */
+  private final CountDownLatch doneLatch = new CountDownLatch(1);
+
+  /** Observers list. */
+  private final ExecutionObserversList observers = new ExecutionObserversList();
+
+  BatchFuture(final List<GoroFuture<T>> futures) {
+    this.futures = futures;
+    this.remaining = new AtomicInteger(futures.size());
+    if (futures.isEmpty()) {
+      complete();
+      return;
+    }
+    Runnable onTaskDone = new Runnable() {
+      @Override
+      public void run() {
+        if (remaining.decrementAndGet() == 0) {
+          complete();
+        }
+      }
+    };
+    for (GoroFuture<T> future : futures) {
+      future.observers.add(onTaskDone, IMMEDIATE);
+    }
+  }
+
+  private void complete() {
+    doneLatch.countDown();
+    observers.execute();
+  }
+
+  /** @return futures of separate tasks */
+  public List<ObservableFuture<T>> getFutures() {
+    return Collections.<ObservableFuture<T>>unmodifiableList(futures);
+  }
+
+  /** @return count of tasks that are done */
+  public int getDoneCount() {
+    return futures.size() - remaining.get();
+  }
+
+  /**
+   * Cancel all the tasks.
+   * @return true if at least one task was canceled
+   */
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    boolean result = false;
+    for (GoroFuture<T> future : futures) {
+      result |= future.cancel(mayInterruptIfRunning);
+    }
+    return result;
+  }
+
+  /** @return true if any task was canceled */
+  @Override
+  public boolean isCancelled() {
+    for (GoroFuture<T> future : futures) {
+      if (future.isCancelled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return doneLatch.getCount() == 0;
+  }
+
+  @Override
+  public List<T> get() throws InterruptedException, ExecutionException {
+    doneLatch.await();
+    return collect();
+  }
+
+  @Override
+  public List<T> get(final long timeout, @SuppressWarnings("NullableProblems") final TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!doneLatch.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return collect();
+  }
+
+  private List<T> collect() throws InterruptedException, ExecutionException {
+    ArrayList<T> results = new ArrayList<>(futures.size());
+    for (GoroFuture<T> future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+
+  @Override
+  public void subscribe(final Executor executor, final FutureObserver<List<T>> observer) {
+    observers.add(new Runnable() {
+      @Override
+      public void run() {
+        List<T> results;
+        try {
+          results = collect();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        } catch (CancellationException e) {
+          // observers are not notified about cancellation
+          return;
+        } catch (ExecutionException e) {
+          observer.onError(e.getCause());
+          return;
+        }
+        observer.onSuccess(results);
+      }
+    }, executor);
+  }
+
+  @Override
+  public void subscribe(final FutureObserver<List<T>> observer) {
+    subscribe(IMMEDIATE, observer);
+  }
+
+}
@@ -6,10 +6,14 @@ import android.content.ServiceConnection;
 import android.os.IBinder;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -31,6 +35,28 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
   /** Bind to {@link com.stanfy.enroscar.goro.GoroService} and unbind as soon as tasks are delegated. */
   public abstract void bindOneshot();
 
+  /**
+   * Allow executing tasks in this process while the service is not bound.
+   * When enabled, tasks scheduled before binding completes are not postponed: they are
+   * performed immediately by a Goro instance local to this object. Such tasks are not ordered
+   * with tasks of the same queue scheduled after binding, and do not keep the service alive.
+   * Disabled by default.
+   * @param enabled whether tasks can be executed before binding completes
+   */
+  public abstract void setExecuteWhileBinding(final boolean enabled);
+
+  /** @return time in milliseconds the last binding took, or -1 if we have never been bound */
+  public abstract long getLastBindLatency();
+
+  /** @return count of postponed actions handed over to the service on the last binding */
+  public abstract int getLastHandedOverCount();
+
+  /** @return max length of the postponed actions list */
+  public abstract int getMaxPostponedCount();
+
+  /** @return count of calls served by the local Goro instance while binding */
+  public abstract int getInProcessCount();
+
   /** Implementation. */
   static class BoundGoroImpl extends BoundGoro implements ServiceConnection {
 
@@ -52,6 +78,20 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     /** Oneshot binding flag. */
     private boolean oneshot;
 
+    /** Whether tasks can be executed locally while binding. */
+    private boolean executeWhileBinding;
+
+    /** Goro used while binding. */
+    private GoroImpl localGoro;
+
+    /** Time of the bind call, nanoseconds, or -1 if there is no pending binding. */
+    private long bindStartTime = -1;
+
+    /** Metrics. */
+    private long lastBindLatency = -1;
+    /** Metrics. */
+    private int lastHandedOverCount, maxPostponedCount, inProcessCount;
+
     BoundGoroImpl(final Context context) {
       this.context = context;
     }
@@ -60,10 +100,17 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     public void bind() {
       synchronized (lock) {
         oneshot = false;
+        markBindStartLocked();
       }
       GoroService.bind(context, this);
     }
 
+    private void markBindStartLocked() {
+      if (service == null && bindStartTime < 0) {
+        bindStartTime = System.nanoTime();
+      }
+    }
+
     @Override
     public void unbind() {
       synchronized (lock) {
@@ -79,6 +126,7 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     public void bindOneshot() {
       synchronized (lock) {
         oneshot = true;
+        markBindStartLocked();
       }
       GoroService.bind(context, this);
     }
@@ -90,6 +138,10 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
           throw new GoroException("Already bound and got onServiceConnected from " + name);
         }
         service = Goro.from(binder);
+        if (bindStartTime >= 0) {
+          lastBindLatency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bindStartTime);
+          bindStartTime = -1;
+        }
 
         // delegate listeners
         if (!scheduledListeners.taskListeners.isEmpty()) {
@@ -100,11 +152,9 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
         }
 
         // delegate tasks
+        lastHandedOverCount = postponed.size();
         if (!postponed.isEmpty()) {
-          for (Postponed p : postponed) {
-            p.act(service);
-          }
-          postponed.clear();
+          handOverPostponedLocked();
         }
 
         if (oneshot) {
@@ -145,6 +195,10 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
         service.addTaskListener(listener);
       } else {
         scheduledListeners.addTaskListener(listener);
+        GoroImpl local = getLocalGoro();
+        if (local != null && !local.listenersHandler.taskListeners.contains(listener)) {
+          local.addTaskListener(listener);
+        }
       }
     }
 
@@ -156,6 +210,16 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
         service.removeTaskListener(listener);
       } else {
         scheduledListeners.removeTaskListener(listener);
+        GoroImpl local = getLocalGoro();
+        if (local != null && local.listenersHandler.taskListeners.contains(listener)) {
+          local.removeTaskListener(listener);
+        }
+      }
+    }
+
+    private GoroImpl getLocalGoro() {
+      synchronized (lock) {
+        return localGoro;
       }
     }
 
@@ -167,11 +231,106 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     @Override
     public <T> ObservableFuture<T> schedule(String queueName, Callable<T> task) {
       synchronized (lock) {
-        if (service != null) {
-          return service.schedule(queueName, task);
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.schedule(queueName, task);
+        } else {
+          BoundFuture<T> future = new BoundFuture<>(queueName, task, -1, null, null);
+          postponeLocked(future);
+          return future;
+        }
+      }
+    }
+
+    @Override
+    public <T> ObservableFuture<List<T>> scheduleAll(final String queueName,
+                                                     final Collection<? extends Callable<T>> tasks) {
+      synchronized (lock) {
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.scheduleAll(queueName, tasks);
+        } else {
+          final ArrayList<Callable<T>> copy = new ArrayList<>(tasks);
+          BoundFuture<List<T>> future = new BoundFuture<List<T>>(queueName, null, -1, null, null) {
+            @Override
+            ObservableFuture<List<T>> launch(final Goro goro) {
+              return goro.scheduleAll(queue, copy);
+            }
+          };
+          postponeLocked(future);
+          return future;
+        }
+      }
+    }
+
+    @Override
+    public <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                            final String key, final DuplicatePolicy policy) {
+      synchronized (lock) {
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.schedule(queueName, task, key, policy);
+        } else {
+          // duplicates are resolved by the service Goro when postponed tasks are delegated
+          BoundFuture<T> future = new BoundFuture<>(queueName, task, -1, key, policy);
+          postponeLocked(future);
+          return future;
+        }
+      }
+    }
+
+    @Override
+    public <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                            final long delay, final TimeUnit unit) {
+      synchronized (lock) {
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.schedule(queueName, task, delay, unit);
+        } else {
+          // keep launch time, so that binding time is not added to the delay
+          BoundFuture<T> future = new BoundFuture<>(queueName, task,
+              System.nanoTime() + Math.max(0, unit.toNanos(delay)), null, null);
+          postponeLocked(future);
+          return future;
+        }
+      }
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(final String queueName, final Callable<?> task,
+                                                  final long initialDelay, final long period,
+                                                  final TimeUnit unit) {
+      synchronized (lock) {
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.scheduleAtFixedRate(queueName, task, initialDelay, period, unit);
         } else {
-          BoundFuture<T> future = new BoundFuture<>(queueName, task);
-          postponed.add(future);
+          if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+          }
+          BoundPeriodicFuture future = new BoundPeriodicFuture(queueName, task,
+              System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period), false);
+          postponeLocked(future);
+          return future;
+        }
+      }
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(final String queueName, final Callable<?> task,
+                                                     final long initialDelay, final long delay,
+                                                     final TimeUnit unit) {
+      synchronized (lock) {
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.scheduleWithFixedDelay(queueName, task, initialDelay, delay, unit);
+        } else {
+          if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be positive");
+          }
+          BoundPeriodicFuture future = new BoundPeriodicFuture(queueName, task,
+              System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(delay), true);
+          postponeLocked(future);
           return future;
         }
       }
@@ -180,8 +339,9 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     @Override
     public Executor getExecutor(final String queueName) {
       synchronized (lock) {
-        if (service != null) {
-          return service.getExecutor(queueName);
+        Goro target = directTargetLocked();
+        if (target != null) {
+          return target.getExecutor(queueName);
         }
         return new PostponeExecutor(queueName);
       }
@@ -190,6 +350,9 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
     @Override
     protected void removeTasksInQueue(final String queueName) {
       synchronized (lock) {
+        if (localGoro != null) {
+          localGoro.clear(queueName);
+        }
         if (service != null) {
           service.clear(queueName);
         }
@@ -197,6 +360,116 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
       }
     }
 
+    /**
+     * @return Goro that can take tasks right now: the service one if we are bound,
+     *         or a local one in the execute-while-binding mode
+     */
+    private Goro directTargetLocked() {
+      if (service != null) {
+        return service;
+      }
+      if (executeWhileBinding) {
+        if (localGoro == null) {
+          localGoro = new GoroImpl();
+          // we may be not in the main thread here, so skip the checks
+          localGoro.listenersHandler.taskListeners.addAll(scheduledListeners.taskListeners);
+        }
+        inProcessCount++;
+        return localGoro;
+      }
+      return null;
+    }
+
+    private void postponeLocked(final Postponed p) {
+      postponed.add(p);
+      if (postponed.size() > maxPostponedCount) {
+        maxPostponedCount = postponed.size();
+      }
+    }
+
+    /**
+     * Delegate postponed actions. Successive tasks for the same queue are handed over
+     * with a single {@link Goro#scheduleAll(String, Collection)} call.
+     */
+    @SuppressWarnings("unchecked")
+    private void handOverPostponedLocked() {
+      // batches give access to separate futures only in our own implementation
+      boolean batching = service instanceof GoroImpl;
+      int count = postponed.size();
+      int i = 0;
+      while (i < count) {
+        Postponed p = postponed.get(i);
+        if (!batching || !(p instanceof BoundFuture) || !((BoundFuture<?>) p).isPlain()) {
+          p.act(service);
+          i++;
+          continue;
+        }
+
+        String queue = ((BoundFuture<?>) p).queue;
+        int end = i + 1;
+        while (end < count && postponed.get(end) instanceof BoundFuture
+            && ((BoundFuture<?>) postponed.get(end)).isPlain()
+            && equal(queue, ((BoundFuture<?>) postponed.get(end)).queue)) {
+          end++;
+        }
+
+        if (end - i == 1) {
+          p.act(service);
+        } else {
+          ArrayList<Callable<Object>> tasks = new ArrayList<>(end - i);
+          for (int j = i; j < end; j++) {
+            tasks.add(((BoundFuture<Object>) postponed.get(j)).task);
+          }
+          List<ObservableFuture<Object>> futures =
+              ((GoroImpl) service).scheduleAll(queue, tasks).getFutures();
+          for (int j = i; j < end; j++) {
+            ((BoundFuture<Object>) postponed.get(j)).attach(futures.get(j - i));
+          }
+        }
+        i = end;
+      }
+      postponed.clear();
+    }
+
+    private static boolean equal(final String a, final String b) {
+      return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public void setExecuteWhileBinding(final boolean enabled) {
+      synchronized (lock) {
+        executeWhileBinding = enabled;
+      }
+    }
+
+    @Override
+    public long getLastBindLatency() {
+      synchronized (lock) {
+        return lastBindLatency;
+      }
+    }
+
+    @Override
+    public int getLastHandedOverCount() {
+      synchronized (lock) {
+        return lastHandedOverCount;
+      }
+    }
+
+    @Override
+    public int getMaxPostponedCount() {
+      synchronized (lock) {
+        return maxPostponedCount;
+      }
+    }
+
+    @Override
+    public int getInProcessCount() {
+      synchronized (lock) {
+        return inProcessCount;
+      }
+    }
+
     /** Some postponed action. */
     private interface Postponed {
       void act(Goro goro);
@@ -251,22 +524,28 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
           if (service != null) {
             service.getExecutor(queueName).execute(command);
           } else {
-            postponed.add(new RunnableData(queueName, command));
+            postponeLocked(new RunnableData(queueName, command));
           }
         }
       }
     }
 
     /** Postponed scheduled future. */
-    private final class BoundFuture<T> implements ObservableFuture<T>, Postponed {
+    private class BoundFuture<T> implements ObservableFuture<T>, Postponed {
 
       /** Queue name. */
       final String queue;
       /** Task instance. */
       final Callable<T> task;
+      /** Launch time in nanoseconds, negative for immediate tasks. */
+      final long launchTime;
+      /** Deduplication key. */
+      final String key;
+      /** Duplicate policy. */
+      final DuplicatePolicy policy;
 
       /** Attached Goro future. */
-      private GoroFuture<T> goroFuture;
+      private ObservableFuture<T> goroFuture;
 
       /** Cancel flag. */
       private boolean canceled;
@@ -274,14 +553,38 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
       /** Observers list. */
       private PendingObserversList pendingObservers;
 
-      private BoundFuture(final String queue, final Callable<T> task) {
+      BoundFuture(final String queue, final Callable<T> task, final long launchTime,
+                          final String key, final DuplicatePolicy policy) {
         this.queue = queue;
         this.task = task;
+        this.launchTime = launchTime;
+        this.key = key;
+        this.policy = policy;
+      }
+
+      /** Schedule the postponed task with the service Goro. */
+      ObservableFuture<T> launch(final Goro goro) {
+        if (launchTime >= 0) {
+          return goro.schedule(queue, task, launchTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        if (key != null) {
+          return goro.schedule(queue, task, key, policy);
+        }
+        return goro.schedule(queue, task);
+      }
+
+      /** @return true if this is a task to be performed as soon as possible */
+      boolean isPlain() {
+        return task != null && launchTime < 0 && key == null;
       }
 
       @Override
-      public synchronized void act(final Goro goro) {
-        goroFuture = (GoroFuture<T>) goro.schedule(queue, task);
+      public void act(final Goro goro) {
+        attach(launch(goro));
+      }
+
+      synchronized void attach(final ObservableFuture<T> future) {
+        goroFuture = future;
         if (pendingObservers != null) {
           pendingObservers.execute();
           pendingObservers = null;
@@ -401,12 +704,143 @@ public abstract class BoundGoro extends Goro implements ServiceConnection {
 
       /** List of pending observers. */
       private final class PendingObserversList extends ExecutionObserversList {
+        @SuppressWarnings("unchecked")
         @Override
         protected void executeObserver(final Executor executor, final Runnable what) {
-          GoroFuture.ObserverRunnable runnable = (GoroFuture.ObserverRunnable) what;
-          runnable.future = goroFuture;
-          goroFuture.observers.add(what, executor);
+          GoroFuture.ObserverRunnable<T> runnable = (GoroFuture.ObserverRunnable<T>) what;
+          if (goroFuture instanceof GoroFuture) {
+            GoroFuture<T> future = (GoroFuture<T>) goroFuture;
+            runnable.future = future;
+            future.observers.add(what, executor);
+          } else {
+            goroFuture.subscribe(executor, runnable.observer);
+          }
+        }
+      }
+    }
+
+    /** Postponed periodic task. */
+    private final class BoundPeriodicFuture implements ScheduledFuture<Object>, Postponed {
+
+      /** Queue name. */
+      final String queue;
+      /** Task instance. */
+      final Callable<?> task;
+      /** First launch time in nanoseconds. */
+      final long launchTime;
+      /** Period or delay in nanoseconds. */
+      final long period;
+      /** Whether the period is a delay between runs. */
+      final boolean fixedDelay;
+
+      /** Attached periodic future. */
+      private ScheduledFuture<?> delegate;
+
+      /** Cancel flag. */
+      private boolean canceled;
+
+      private BoundPeriodicFuture(final String queue, final Callable<?> task,
+                                  final long launchTime, final long period, final boolean fixedDelay) {
+        this.queue = queue;
+        this.task = task;
+        this.launchTime = launchTime;
+        this.period = period;
+        this.fixedDelay = fixedDelay;
+      }
+
+      @Override
+      public synchronized void act(final Goro goro) {
+        long initialDelay = launchTime - System.nanoTime();
+        delegate = fixedDelay
+            ? goro.scheduleWithFixedDelay(queue, task, initialDelay, period, TimeUnit.NANOSECONDS)
+            : goro.scheduleAtFixedRate(queue, task, initialDelay, period, TimeUnit.NANOSECONDS);
+        notifyAll();
+      }
+
+      @Override
+      public synchronized boolean cancel(final boolean mayInterruptIfRunning) {
+        if (delegate != null) {
+          return delegate.cancel(mayInterruptIfRunning);
+        }
+        if (canceled) {
+          return false;
+        }
+        cancelPostponed(this);
+        canceled = true;
+        notifyAll();
+        return true;
+      }
+
+      @Override
+      public synchronized boolean isCancelled() {
+        return delegate != null ? delegate.isCancelled() : canceled;
+      }
+
+      @Override
+      public synchronized boolean isDone() {
+        return delegate != null ? delegate.isDone() : canceled;
+      }
+
+      @Override
+      public Object get() throws InterruptedException, ExecutionException {
+        ScheduledFuture<?> delegate = awaitDelegate(false, 0);
+        if (delegate == null) {
+          throw new CancellationException("Task was canceled");
+        }
+        return delegate.get();
+      }
+
+      @Override
+      public Object get(final long timeout, @SuppressWarnings("NullableProblems") final TimeUnit unit)
+          throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        ScheduledFuture<?> delegate = awaitDelegate(true, deadline);
+        if (delegate == null) {
+          if (isCancelled()) {
+            throw new CancellationException("Task was canceled");
+          }
+          throw new TimeoutException();
         }
+        return delegate.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      }
+
+      /**
+       * Wait for act() or cancel().
+       * @param timed whether the deadline should be respected
+       * @param deadline {@link System#nanoTime()} value to stop waiting at
+       * @return attached future or null if this future was canceled or the deadline has passed
+       */
+      private synchronized ScheduledFuture<?> awaitDelegate(final boolean timed, final long deadline)
+          throws InterruptedException {
+        if (delegate == null && !canceled && checkMainThread()) {
+          throw new GoroException("Blocking main thread here will lead to a deadlock");
+        }
+        while (delegate == null && !canceled) {
+          if (!timed) {
+            wait();
+          } else {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+              break;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+          }
+        }
+        return delegate;
+      }
+
+      @Override
+      public synchronized long getDelay(@SuppressWarnings("NullableProblems") final TimeUnit unit) {
+        if (delegate != null) {
+          return delegate.getDelay(unit);
+        }
+        return unit.convert(launchTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+
+      @Override
+      public int compareTo(@SuppressWarnings("NullableProblems") final Delayed another) {
+        long diff = getDelay(TimeUnit.NANOSECONDS) - another.getDelay(TimeUnit.NANOSECONDS);
+        return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
       }
     }
   }
@@ -0,0 +1,178 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single timer thread that hands delayed and periodic tasks over to Goro queues.
+ * Timer actions must be short: they are expected to only put a task to some executor.
+ */
+class DelayScheduler {
+
+  /** Shared instance. */
+  private static DelayScheduler defaultScheduler;
+
+  /** Pending entries ordered by launch time. */
+  private final PriorityQueue<Entry> entries = new PriorityQueue<>();
+
+  /** Whether a timer thread should be used. */
+  private final boolean threaded;
+
+  /** Entries counter, used to keep FIFO order of entries with equal launch time. */
+  private long sequence;
+
+  /** Timer thread. */
+  private Thread thread;
+
+  DelayScheduler() {
+    this(true);
+  }
+
+  DelayScheduler(final boolean threaded) {
+    this.threaded = threaded;
+  }
+
+  static synchronized DelayScheduler getDefault() {
+    if (defaultScheduler == null) {
+      defaultScheduler = new DelayScheduler();
+    }
+    return defaultScheduler;
+  }
+
+  /** @return current time in nanoseconds */
+  long now() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Schedule an action.
+   * @param action action to run in the timer thread
+   * @param delay delay in nanoseconds
+   * @param period period in nanoseconds, zero for one-shot actions
+   * @return timer entry that can be canceled
+   */
+  Entry schedule(final Runnable action, final long delay, final long period) {
+    synchronized (entries) {
+      Entry entry = new Entry(action, now() + Math.max(0, delay), period, sequence++);
+      entries.add(entry);
+      if (threaded && thread == null) {
+        thread = new Thread(new Loop(), "Goro Timer");
+        thread.setDaemon(true);
+        thread.start();
+      }
+      entries.notifyAll();
+      return entry;
+    }
+  }
+
+  /** @return count of pending entries */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  boolean cancel(final Entry entry) {
+    synchronized (entries) {
+      boolean removed = entries.remove(entry);
+      entries.notifyAll();
+      return removed;
+    }
+  }
+
+  /**
+   * Run all the actions that are due.
+   * @param now current time in nanoseconds
+   * @return nanoseconds to the next launch time or -1 if there are no entries
+   */
+  long runDue(final long now) {
+    while (true) {
+      Entry entry;
+      synchronized (entries) {
+        entry = entries.peek();
+        if (entry == null) {
+          return -1;
+        }
+        if (entry.time > now) {
+          return entry.time - now;
+        }
+        entries.poll();
+        if (entry.period > 0) {
+          // skip missed launches, they are coalesced into a single one
+          long next = entry.time + entry.period;
+          if (next <= now) {
+            next += ((now - next) / entry.period + 1) * entry.period;
+          }
+          entry.time = next;
+          entries.add(entry);
+        }
+      }
+      entry.action.run();
+    }
+  }
+
+  /** Timer entry. */
+  final class Entry implements Comparable<Entry> {
+    /** Action. */
+    final Runnable action;
+    /** Period, zero for one-shot entries. */
+    final long period;
+    /** Order number. */
+    final long order;
+    /** Next launch time. */
+    long time;
+
+    Entry(final Runnable action, final long time, final long period, final long order) {
+      this.action = action;
+      this.time = time;
+      this.period = period;
+      this.order = order;
+    }
+
+    boolean cancel() {
+      return DelayScheduler.this.cancel(this);
+    }
+
+    long getDelay(final TimeUnit unit) {
+      synchronized (entries) {
+        return unit.convert(time - now(), TimeUnit.NANOSECONDS);
+      }
+    }
+
+    @Override
+    public int compareTo(@SuppressWarnings("NullableProblems") final Entry another) {
+      if (time != another.time) {
+        return time < another.time ? -1 : 1;
+      }
+      return order < another.order ? -1 : (order == another.order ? 0 : 1);
+    }
+  }
+
+  /** Timer thread loop. */
+  private final class Loop implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        runDue(now());
+        synchronized (entries) {
+          // entries are checked again under the lock, so that we do not miss notifications
+          try {
+            Entry next = entries.peek();
+            if (next == null) {
+              entries.wait();
+            } else {
+              long wait = next.time - now();
+              if (wait > 0) {
+                TimeUnit.NANOSECONDS.timedWait(entries, wait);
+              }
+            }
+          } catch (InterruptedException e) {
+            thread = null;
+            return;
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.stanfy.enroscar.goro;
+
+/**
+ * Defines what happens when a task is scheduled with a key of another pending task.
+ * @see Goro#schedule(String, java.util.concurrent.Callable, String, DuplicatePolicy)
+ */
+public enum DuplicatePolicy {
+
+  /** New task is dropped, the future of the pending task is returned. */
+  JOIN,
+
+  /**
+   * New task takes the place of the pending one in the queue. The pending task is reported
+   * to listeners as canceled, its future is returned and gets the result of the new task.
+   */
+  REPLACE
+
+}
@@ -3,8 +3,14 @@ package com.stanfy.enroscar.goro;
 import android.content.Context;
 import android.os.IBinder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.stanfy.enroscar.goro.BoundGoro.BoundGoroImpl;
 
@@ -49,6 +55,17 @@ public abstract class Goro {
     return goro;
   }
 
+  /**
+   * Creates a new Goro instance which delegates tasks to a new {@link WorkStealingExecutor}
+   * sized to the count of CPU cores.
+   * Use {@link #createWithDelegate(Executor)} with your own {@link WorkStealingExecutor}
+   * instance if you need to tune it or read its statistics.
+   * @return instance of Goro
+   */
+  public static Goro createWithWorkStealing() {
+    return createWithDelegate(new WorkStealingExecutor());
+  }
+
   /**
    * Creates a Goro implementation that binds to {@link com.stanfy.enroscar.goro.GoroService}
    * in order to run scheduled tasks in service context.
@@ -90,6 +107,94 @@ public abstract class Goro {
    */
   public abstract <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task);
 
+  /**
+   * Add several tasks to the specified queue at once. Tasks are put to the queue with a single
+   * lock acquisition, and listeners get a single notification,
+   * see {@link GoroBatchListener}.
+   * @param queueName name of a queue to use, may be null
+   * @param tasks tasks to schedule
+   * @return future that is done when all the tasks are done, see {@link BatchFuture}
+   */
+  public abstract <T> ObservableFuture<List<T>> scheduleAll(final String queueName,
+                                                            final Collection<? extends Callable<T>> tasks);
+
+  /**
+   * Add a task to the specified queue unless there is a pending task with the same key.
+   * A task is pending while it waits in the queue and is not started.
+   * If such a task exists, the new task either joins it or replaces it according to the policy.
+   * In both cases the new task never reaches the queue executor and the returned future
+   * is the future of the pending task. Hence tasks with the same key
+   * should have the same result type.
+   * @param queueName name of a queue to use, may be null
+   * @param task task instance
+   * @param key deduplication key, keys are scoped by queue; {@code null} means no deduplication
+   * @param policy what to do with a duplicate
+   * @return task future instance
+   */
+  public abstract <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                                   final String key, final DuplicatePolicy policy);
+
+  /**
+   * Add a task to the specified queue after the given delay.
+   * Delays are tracked by a single timer thread that only puts due tasks to their queues,
+   * so the task keeps its queue affinity and is still executed serially with other tasks
+   * in the same queue.
+   * Listeners get {@code onTaskSchedule} immediately.
+   * @param queueName name of a queue to use, may be null
+   * @param task task instance
+   * @param delay delay before the task is put to the queue
+   * @param unit delay time unit
+   * @return task future instance, canceling it before the delay elapses also cancels the timer
+   */
+  public abstract <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                                   final long delay, final TimeUnit unit);
+
+  /**
+   * Add a task to the specified queue at the given time.
+   * @param queueName name of a queue to use, may be null
+   * @param task task instance
+   * @param timeMillis wall clock time in milliseconds, see {@link System#currentTimeMillis()}
+   * @return task future instance
+   * @see #schedule(String, Callable, long, TimeUnit)
+   */
+  public final <T> ObservableFuture<T> scheduleAt(final String queueName, final Callable<T> task,
+                                                  final long timeMillis) {
+    return schedule(queueName, task, timeMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Periodically add a task to the specified queue.
+   * If a previous run of the task is still waiting in the queue or being executed
+   * when the next period starts, the new run is skipped, so that runs never pile up.
+   * Missed periods (e.g. when the device was asleep) are coalesced into a single run too.
+   * Each run is reported to listeners as a separate task execution.
+   * @param queueName name of a queue to use, may be null
+   * @param task task instance
+   * @param initialDelay delay before the first run
+   * @param period period between runs
+   * @param unit time unit of the delay and period
+   * @return future that can be used to stop future runs, it never completes normally
+   */
+  public abstract ScheduledFuture<?> scheduleAtFixedRate(final String queueName, final Callable<?> task,
+                                                         final long initialDelay, final long period,
+                                                         final TimeUnit unit);
+
+  /**
+   * Periodically add a task to the specified queue, waiting for the given delay
+   * after each run is completed (or canceled) before the next one is queued.
+   * Runs never overlap and the delay is not shortened if a run takes longer than expected.
+   * Each run is reported to listeners as a separate task execution.
+   * @param queueName name of a queue to use, may be null
+   * @param task task instance
+   * @param initialDelay delay before the first run
+   * @param delay delay between the end of a run and the start of the next one
+   * @param unit time unit of the delays
+   * @return future that can be used to stop future runs, it never completes normally
+   */
+  public abstract ScheduledFuture<?> scheduleWithFixedDelay(final String queueName, final Callable<?> task,
+                                                            final long initialDelay, final long delay,
+                                                            final TimeUnit unit);
+
   /**
    * Returns an executor for performing tasks in a specified queue. If queue name is null,
    * {@link #DEFAULT_QUEUE} is used.
@@ -100,6 +205,7 @@ public abstract class Goro {
 
   /**
    * Removes all the pending tasks from a specified queue.
+   * Futures of the removed tasks are canceled.
    * @param queueName queue name, must not be {@code null}
    */
   public final void clear(final String queueName) {
@@ -119,12 +225,23 @@ public abstract class Goro {
     /** Queues. */
     private final Queues queues;
 
+    /** Timer for delayed tasks. */
+    private final DelayScheduler delayScheduler;
+
+    /** Pending tasks scheduled with deduplication keys. */
+    private final HashMap<String, GoroFuture<?>> pendingByKey = new HashMap<>();
+
     GoroImpl() {
       this(new Queues.Impl());
     }
 
     GoroImpl(final Queues queues) {
+      this(queues, DelayScheduler.getDefault());
+    }
+
+    GoroImpl(final Queues queues, final DelayScheduler delayScheduler) {
       this.queues = queues;
+      this.delayScheduler = delayScheduler;
     }
 
     @Override
@@ -154,6 +271,138 @@ public abstract class Goro {
       return future;
     }
 
+    @Override
+    public <T> BatchFuture<T> scheduleAll(final String queueName,
+                                          final Collection<? extends Callable<T>> tasks) {
+      if (tasks == null) {
+        throw new IllegalArgumentException("Tasks must not be null");
+      }
+
+      ArrayList<GoroFuture<T>> futures = new ArrayList<>(tasks.size());
+      ArrayList<Callable<?>> scheduled = new ArrayList<>(tasks.size());
+      for (Callable<T> task : tasks) {
+        if (task == null) {
+          throw new IllegalArgumentException("Task must not be null");
+        }
+        futures.add(new GoroFuture<>(this, task));
+        scheduled.add(task);
+      }
+      BatchFuture<T> batch = new BatchFuture<>(futures);
+      if (futures.isEmpty()) {
+        return batch;
+      }
+
+      listenersHandler.postScheduleAll(scheduled, queueName);
+      Executor executor = queues.getExecutor(queueName);
+      if (executor instanceof Queues.SerialExecutor) {
+        ((Queues.SerialExecutor) executor).executeAll(futures);
+      } else {
+        for (GoroFuture<T> future : futures) {
+          executor.execute(future);
+        }
+      }
+      return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                            final String key, final DuplicatePolicy policy) {
+      if (key == null) {
+        return schedule(queueName, task);
+      }
+      if (task == null) {
+        throw new IllegalArgumentException("Task must not be null");
+      }
+      if (policy == null) {
+        throw new IllegalArgumentException("Duplicate policy must not be null");
+      }
+
+      String queueKey = queueName + "/" + key;
+      GoroFuture<T> future;
+      synchronized (pendingByKey) {
+        GoroFuture<T> existing = (GoroFuture<T>) pendingByKey.get(queueKey);
+        if (existing != null) {
+          if (policy == DuplicatePolicy.JOIN) {
+            if (existing.isPending()) {
+              return existing;
+            }
+          } else {
+            Callable<T> replaced = existing.replaceTask(task);
+            if (replaced != null) {
+              listenersHandler.postCancel(replaced);
+              listenersHandler.postSchedule(task, queueName);
+              return existing;
+            }
+          }
+        }
+        future = new GoroFuture<>(this, task);
+        future.key = queueKey;
+        pendingByKey.put(queueKey, future);
+      }
+
+      listenersHandler.postSchedule(task, queueName);
+      queues.getExecutor(queueName).execute(future);
+      return future;
+    }
+
+    /** Called when a task with a deduplication key is started or done. */
+    void releaseKey(final String key, final GoroFuture<?> future) {
+      synchronized (pendingByKey) {
+        if (pendingByKey.get(key) == future) {
+          pendingByKey.remove(key);
+        }
+      }
+    }
+
+    @Override
+    public <T> ObservableFuture<T> schedule(final String queueName, final Callable<T> task,
+                                            final long delay, final TimeUnit unit) {
+      if (delay <= 0) {
+        return schedule(queueName, task);
+      }
+      if (task == null) {
+        throw new IllegalArgumentException("Task must not be null");
+      }
+
+      GoroFuture<T> future = new GoroFuture<>(this, task);
+      listenersHandler.postSchedule(task, queueName);
+      future.timerEntry = delayScheduler.schedule(new DelayedLaunch(queueName, future),
+          unit.toNanos(delay), 0);
+      return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(final String queueName, final Callable<?> task,
+                                                  final long initialDelay, final long period,
+                                                  final TimeUnit unit) {
+      if (task == null) {
+        throw new IllegalArgumentException("Task must not be null");
+      }
+      if (period <= 0) {
+        throw new IllegalArgumentException("Period must be positive");
+      }
+      PeriodicTask periodic = new PeriodicTask(this, queueName, task);
+      periodic.attach(delayScheduler.schedule(periodic, unit.toNanos(initialDelay),
+          unit.toNanos(period)));
+      return periodic;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(final String queueName, final Callable<?> task,
+                                                     final long initialDelay, final long delay,
+                                                     final TimeUnit unit) {
+      if (task == null) {
+        throw new IllegalArgumentException("Task must not be null");
+      }
+      if (delay <= 0) {
+        throw new IllegalArgumentException("Delay must be positive");
+      }
+      PeriodicTask periodic = new PeriodicTask(this, queueName, task, delayScheduler, unit.toNanos(delay));
+      periodic.attach(delayScheduler.schedule(periodic, unit.toNanos(initialDelay), 0));
+      return periodic;
+    }
+
     @Override
     public Executor getExecutor(final String queueName) {
       return queues.getExecutor(queueName == null ? DEFAULT_QUEUE : queueName);
@@ -161,7 +410,39 @@ public abstract class Goro {
 
     @Override
     protected void removeTasksInQueue(final String queueName) {
-      queues.clear(queueName);
+      for (Runnable task : queues.clear(queueName)) {
+        // removed futures will never run: complete them to release keys and notify observers
+        if (task instanceof GoroFuture) {
+          ((GoroFuture<?>) task).cancel(false);
+        }
+      }
+    }
+
+    /** Puts a delayed task to its queue. Invoked by the timer thread. */
+    private final class DelayedLaunch implements Runnable {
+      /** Queue name. */
+      private final String queueName;
+      /** Future to launch. */
+      private final GoroFuture<?> future;
+
+      DelayedLaunch(final String queueName, final GoroFuture<?> future) {
+        this.queueName = queueName;
+        this.future = future;
+      }
+
+      @Override
+      public void run() {
+        future.timerEntry = null;
+        if (future.isDone()) {
+          return;
+        }
+        try {
+          queues.getExecutor(queueName).execute(future);
+        } catch (RuntimeException e) {
+          // do not kill the timer thread, report the error to the future instead
+          future.fail(e);
+        }
+      }
     }
   }
 
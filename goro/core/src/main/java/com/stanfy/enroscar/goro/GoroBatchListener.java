@@ -0,0 +1,22 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Listener to Goro tasks that gets a single notification for tasks scheduled
+ * with {@link Goro#scheduleAll(String, java.util.Collection)}.
+ * Plain {@link GoroListener} instances get {@link #onTaskSchedule(Callable, String)}
+ * for each task of a batch.
+ */
+public interface GoroBatchListener extends GoroListener {
+
+  /**
+   * Callback method invoked when a batch of tasks is scheduled.
+   * {@link #onTaskSchedule(Callable, String)} is not called for these tasks.
+   * @param tasks scheduled tasks
+   * @param queue tasks queue
+   */
+  void onTasksSchedule(List<Callable<?>> tasks, String queue);
+
+}
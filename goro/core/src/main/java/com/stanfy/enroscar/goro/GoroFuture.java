@@ -31,19 +31,65 @@ final class GoroFuture<T> extends FutureTask<T> implements ObservableFuture<T> {
   /** Weak reference to Goro. */
   private final WeakReference<GoroImpl> goroRef;
 
+  /** Calls the current task. */
+  private final TaskHolder<T> holder;
+
   /** Task. */
-  private Callable<T> task;
+  private volatile Callable<T> task;
+
+  /** Timer entry for delayed tasks. */
+  volatile DelayScheduler.Entry timerEntry;
+
+  /** Deduplication key, may be null. */
+  volatile String key;
+
+  /** Whether {@link #run()} was called. */
+  private boolean started;
 
   GoroFuture(final GoroImpl goro, final Callable<T> task) {
-    super(task);
-    this.task = task;
+    this(goro, new TaskHolder<>(task));
+  }
+
+  private GoroFuture(final GoroImpl goro, final TaskHolder<T> holder) {
+    super(holder);
+    this.holder = holder;
+    this.task = holder.task;
     this.goroRef = new WeakReference<>(goro);
   }
 
+  /** @return true if the task is neither started nor done */
+  synchronized boolean isPending() {
+    return !started && !isDone();
+  }
+
+  /**
+   * Replace a task that is not started yet.
+   * @param newTask new task instance
+   * @return replaced task or null if the task is already started or done
+   */
+  synchronized Callable<T> replaceTask(final Callable<T> newTask) {
+    if (started || isDone()) {
+      return null;
+    }
+    Callable<T> old = task;
+    task = newTask;
+    holder.task = newTask;
+    return old;
+  }
+
   @Override
   public void run() {
     GoroImpl goro = goroRef.get();
-    Callable<?> task = this.task;
+    Callable<?> task;
+    synchronized (this) {
+      started = true;
+      task = this.task;
+    }
+    String key = this.key;
+    if (goro != null && key != null) {
+      // started tasks are not deduplicated
+      goro.releaseKey(key, this);
+    }
 
     // if task is null, it's already canceled
 
@@ -56,12 +102,27 @@ final class GoroFuture<T> extends FutureTask<T> implements ObservableFuture<T> {
   }
 
 
+  /** Complete this future with an error that happened before the task could be run. */
+  void fail(final Throwable error) {
+    setException(error);
+  }
+
   @Override
   protected void done() {
+    DelayScheduler.Entry timerEntry = this.timerEntry;
+    if (timerEntry != null) {
+      timerEntry.cancel();
+      this.timerEntry = null;
+    }
+
     GoroImpl goro = goroRef.get();
     if (goro == null) {
       return;
     }
+    String key = this.key;
+    if (key != null) {
+      goro.releaseKey(key, this);
+    }
 
     try {
       Object result = get();
@@ -77,6 +138,7 @@ final class GoroFuture<T> extends FutureTask<T> implements ObservableFuture<T> {
       throw new RuntimeException(e);
     } finally {
       task = null;
+      holder.task = null;
       observers.execute();
     }
 
@@ -92,6 +154,24 @@ final class GoroFuture<T> extends FutureTask<T> implements ObservableFuture<T> {
     subscribe(IMMEDIATE, observer);
   }
 
+  /**
+   * Delegates to a task that can be replaced before execution.
+   * @param <T> task result type
+   */
+  private static final class TaskHolder<T> implements Callable<T> {
+    /** Current task. */
+    volatile Callable<T> task;
+
+    TaskHolder(final Callable<T> task) {
+      this.task = task;
+    }
+
+    @Override
+    public T call() throws Exception {
+      return task.call();
+    }
+  }
+
   /**
    * What can be added to the observers list.
    * @param <T> future data type
@@ -99,7 +179,7 @@ final class GoroFuture<T> extends FutureTask<T> implements ObservableFuture<T> {
   static final class ObserverRunnable<T> implements Runnable {
 
     /** Observer reference. */
-    private final FutureObserver<T> observer;
+    final FutureObserver<T> observer;
 
     /** Future instance. */
     GoroFuture<T> future;
@@ -12,7 +12,13 @@ import android.os.Message;
 import android.os.Parcelable;
 import android.util.Log;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 
@@ -61,6 +67,13 @@ public class GoroService extends Service {
   /** Errors thrower. */
   private static final ErrorThrow ERROR_THROWER = new ErrorThrow();
 
+  /** Persistent queues configuration. */
+  private static final LinkedHashMap<String, PersistentQueueConfig> PERSISTENT_QUEUES =
+      new LinkedHashMap<>();
+
+  /** Opened persistent queues. */
+  private final HashMap<String, PersistentQueue> persistentQueues = new HashMap<>();
+
 
   /** Bound users flag. */
   boolean hasBoundUsers;
@@ -79,6 +92,32 @@ public class GoroService extends Service {
     GoroService.delegateExecutor = delegateExecutor;
   }
 
+  /**
+   * Make a queue persistent. Tasks sent to this queue with {@link #taskIntent(Context, String, Callable)}
+   * are written to a journal file before execution and are executed again after
+   * process death if they have not completed. A persistent queue is restored when the service
+   * creates its Goro instance.
+   * <p>
+   *   Errors thrown by tasks in persistent queues are not rethrown: failed tasks remain
+   *   in the journal and are retried when the queue is restored next time
+   *   or {@link PersistentQueue#drain()} is called.
+   * </p>
+   * Must be called before the service is started, e.g. in {@code Application.onCreate()}.
+   * @param queueName queue name
+   * @param converter converter used to write tasks to the journal
+   * @param parallelism count of tasks from this queue that can be executed concurrently
+   */
+  public static void registerPersistentQueue(final String queueName,
+                                             final PersistentQueue.TaskConverter converter,
+                                             final int parallelism) {
+    if (queueName == null) {
+      throw new IllegalArgumentException("Persistent queue name must not be null");
+    }
+    synchronized (PERSISTENT_QUEUES) {
+      PERSISTENT_QUEUES.put(queueName, new PersistentQueueConfig(converter, parallelism));
+    }
+  }
+
   /**
    * Create an intent that contains a task that should be scheduled
    * on a defined queue.
@@ -175,10 +214,55 @@ public class GoroService extends Service {
         );
       }
       binder = new GoroBinderImpl(createGoro(), new GoroTasksListener());
+      restorePersistentQueues(binder.goro);
     }
     return binder;
   }
 
+  private void restorePersistentQueues(final Goro goro) {
+    synchronized (PERSISTENT_QUEUES) {
+      for (Map.Entry<String, PersistentQueueConfig> entry : PERSISTENT_QUEUES.entrySet()) {
+        final PersistentQueue queue = createPersistentQueue(entry.getKey(), entry.getValue());
+        persistentQueues.put(queue.getName(), queue);
+        // journal is read in a worker thread; its own queue keeps appends after the replay
+        goro.schedule(journalQueueName(queue.getName()), new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            queue.attach(goro);
+            return null;
+          }
+        });
+      }
+    }
+  }
+
+  private PersistentQueue createPersistentQueue(final String name,
+                                                final PersistentQueueConfig config) {
+    File file = new File(new File(getFilesDir(), "goro"), name + ".journal");
+    return new PersistentQueue(file, name, config.converter, config.parallelism) {
+      @Override
+      protected void onTaskRestored(final Callable<?> task) {
+        injectContext(task);
+      }
+    };
+  }
+
+  private static String journalQueueName(final String queueName) {
+    return queueName + ":journal";
+  }
+
+  /**
+   * Returns a persistent queue registered with
+   * {@link #registerPersistentQueue(String, PersistentQueue.TaskConverter, int)}.
+   * Should be called from the main thread.
+   * @param queueName queue name
+   * @return persistent queue instance or null if queue is not registered
+   */
+  public PersistentQueue getPersistentQueue(final String queueName) {
+    getBinder();
+    return persistentQueues.get(queueName);
+  }
+
   private void injectContext(final Callable<?> task) {
     if (task instanceof ServiceContextAware) {
       ((ServiceContextAware) task).injectServiceContext(this);
@@ -196,7 +280,23 @@ public class GoroService extends Service {
             ? intent.getStringExtra(EXTRA_QUEUE_NAME)
             : Goro.DEFAULT_QUEUE;
 
-        ObservableFuture<?> future = getBinder().goro.schedule(queueName, task);
+        Goro goro = getBinder().goro;
+        final PersistentQueue persistentQueue = queueName != null
+            ? persistentQueues.get(queueName)
+            : null;
+        ObservableFuture<?> future;
+        if (persistentQueue != null) {
+          final Callable<?> persistentTask = task;
+          future = goro.schedule(journalQueueName(queueName), new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+              persistentQueue.add(persistentTask);
+              return null;
+            }
+          });
+        } else {
+          future = goro.schedule(queueName, task);
+        }
         if (!intent.getBooleanExtra(EXTRA_IGNORE_ERROR, false)) {
           ensureErrorWillBeThrown(future);
         }
@@ -210,6 +310,19 @@ public class GoroService extends Service {
     future.subscribe(ERROR_THROWER);
   }
 
+  @Override
+  public void onDestroy() {
+    super.onDestroy();
+    for (PersistentQueue queue : persistentQueues.values()) {
+      try {
+        queue.close();
+      } catch (IOException e) {
+        Log.e(TAG, "Cannot close persistent queue " + queue.getName(), e);
+      }
+    }
+    persistentQueues.clear();
+  }
+
   @Override
   public IBinder onBind(final Intent intent) {
     if (DEBUG) {
@@ -251,6 +364,19 @@ public class GoroService extends Service {
     return delegateExecutor != null ? createWithDelegate(delegateExecutor) : create();
   }
 
+  /** Persistent queue parameters. */
+  private static final class PersistentQueueConfig {
+    /** Tasks converter. */
+    final PersistentQueue.TaskConverter converter;
+    /** Parallelism. */
+    final int parallelism;
+
+    PersistentQueueConfig(final PersistentQueue.TaskConverter converter, final int parallelism) {
+      this.converter = converter;
+      this.parallelism = parallelism;
+    }
+  }
+
   /** Returns a Goro instance. */
   public interface GoroBinder extends IBinder {
     Goro goro();
@@ -278,7 +404,7 @@ public class GoroService extends Service {
   }
 
   /** Listens to task events. */
-  class GoroTasksListener implements GoroListener {
+  class GoroTasksListener implements GoroBatchListener {
 
     int activeTasksCount;
 
@@ -288,6 +414,12 @@ public class GoroService extends Service {
       activeTasksCount++;
     }
 
+    @Override
+    public void onTasksSchedule(final List<Callable<?>> tasks, final String queue) {
+      stopHandler.doNotStop();
+      activeTasksCount += tasks.size();
+    }
+
     @Override
     public void onTaskStart(Callable<?> task) { }
 
@@ -6,6 +6,7 @@ import android.os.Message;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -15,7 +16,7 @@ class ListenersHandler extends BaseListenersHandler {
 
   /** Message code. */
   private static final int MSG_START = 1, MSG_FINISH = 2, MSG_ERROR = 3, MSG_CANCEL = 4,
-                           MSG_SCHEDULE = 5;
+                           MSG_SCHEDULE = 5, MSG_SCHEDULE_ALL = 6;
 
   /** Initial capacity. */
   private static final int INIT_CAPACITY = 5;
@@ -33,6 +34,12 @@ class ListenersHandler extends BaseListenersHandler {
     h.sendMessage(msg);
   }
 
+  public void postScheduleAll(final List<Callable<?>> tasks, final String queue) {
+    Message msg = h.obtainMessage(MSG_SCHEDULE_ALL);
+    msg.obj = new MessageData(null, tasks, queue);
+    h.sendMessage(msg);
+  }
+
   public void postStart(final Callable<?> task) {
     Message msg = h.obtainMessage(MSG_START);
     msg.obj = new MessageData(task, null, null);
@@ -93,6 +100,20 @@ class ListenersHandler extends BaseListenersHandler {
           }
           break;
 
+        case MSG_SCHEDULE_ALL:
+          @SuppressWarnings("unchecked")
+          List<Callable<?>> tasks = (List<Callable<?>>) data.resultOrError;
+          for (GoroListener listener : taskListeners) {
+            if (listener instanceof GoroBatchListener) {
+              ((GoroBatchListener) listener).onTasksSchedule(tasks, data.queue);
+            } else {
+              for (Callable<?> task : tasks) {
+                listener.onTaskSchedule(task, data.queue);
+              }
+            }
+          }
+          break;
+
         case MSG_START:
           for (GoroListener listener : taskListeners) {
             listener.onTaskStart(data.task);
@@ -131,7 +152,7 @@ class ListenersHandler extends BaseListenersHandler {
     final String queue;
     /** Task instance. */
     final Callable<?> task;
-    /** Error instance. */
+    /** Result, error or list of scheduled tasks. */
     final Object resultOrError;
 
     public MessageData(final Callable<?> task, final Object resultOrError, final String queue) {
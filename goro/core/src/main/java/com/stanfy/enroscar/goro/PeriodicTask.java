@@ -0,0 +1,214 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.stanfy.enroscar.goro.Util.checkMainThread;
+
+/**
+ * Periodic task handle. Invoked by the timer thread, schedules a new run of the task
+ * only if the previous one is completed.
+ * In fixed delay mode the timer entry is one-shot and the next one is created
+ * when the current run is completed or canceled.
+ */
+final class PeriodicTask implements Runnable, ScheduledFuture<Object> {
+
+  /** Goro instance. */
+  private final Goro goro;
+
+  /** Queue name. */
+  private final String queueName;
+
+  /** Task instance. */
+  private final Callable<?> task;
+
+  /** Timer used to schedule runs in fixed delay mode. */
+  private final DelayScheduler scheduler;
+
+  /** Delay between runs in nanoseconds, zero in fixed rate mode. */
+  private final long delay;
+
+  /** Schedules the next run in fixed delay mode. */
+  private final Runnable scheduleNext = new Runnable() {
+    @Override
+    public void run() {
+      scheduleNext();
+    }
+  };
+
+  /** Timer entry. */
+  private DelayScheduler.Entry entry;
+
+  /** Current run. */
+  private Future<?> current;
+
+  /** Cancel flag. */
+  private boolean canceled;
+
+  /** Count of scheduled runs. */
+  private int runsCount;
+
+  /** Count of skipped runs. */
+  private int coalescedCount;
+
+  PeriodicTask(final Goro goro, final String queueName, final Callable<?> task) {
+    this(goro, queueName, task, null, 0);
+  }
+
+  PeriodicTask(final Goro goro, final String queueName, final Callable<?> task,
+               final DelayScheduler scheduler, final long delay) {
+    this.goro = goro;
+    this.queueName = queueName;
+    this.task = task;
+    this.scheduler = scheduler;
+    this.delay = delay;
+  }
+
+  synchronized void attach(final DelayScheduler.Entry entry) {
+    if (this.entry == null) {
+      // in fixed delay mode the first run may already have created the next entry
+      this.entry = entry;
+    }
+    if (canceled) {
+      entry.cancel();
+    }
+  }
+
+  @Override
+  public void run() {
+    synchronized (this) {
+      if (canceled) {
+        return;
+      }
+      if (current != null && !current.isDone()) {
+        coalescedCount++;
+        return;
+      }
+      runsCount++;
+      try {
+        current = goro.schedule(queueName, task);
+      } catch (RuntimeException e) {
+        // executor rejected the task, try again next time
+        current = null;
+      }
+      if (delay > 0) {
+        watchCurrentRun();
+      }
+    }
+  }
+
+  /** Fixed delay mode: start the delay when the current run is completed or canceled. */
+  @SuppressWarnings("unchecked")
+  private void watchCurrentRun() {
+    if (current == null) {
+      scheduleNext();
+    } else if (current instanceof GoroFuture) {
+      // unlike future observers this list is also executed for canceled tasks
+      ((GoroFuture<?>) current).observers.add(scheduleNext, GoroFuture.IMMEDIATE);
+    } else {
+      ((ObservableFuture<Object>) current).subscribe(GoroFuture.IMMEDIATE, new FutureObserver<Object>() {
+        @Override
+        public void onSuccess(final Object value) {
+          scheduleNext();
+        }
+        @Override
+        public void onError(final Throwable error) {
+          scheduleNext();
+        }
+      });
+    }
+  }
+
+  private synchronized void scheduleNext() {
+    if (!canceled) {
+      entry = scheduler.schedule(this, delay, 0);
+    }
+  }
+
+  /** @return count of runs put to the queue */
+  synchronized int getRunsCount() {
+    return runsCount;
+  }
+
+  /** @return count of runs skipped because a previous run was not completed */
+  synchronized int getCoalescedCount() {
+    return coalescedCount;
+  }
+
+  /**
+   * Stop future runs.
+   * @param mayInterruptIfRunning whether the current run should be canceled too
+   * @return false if this task is already canceled
+   */
+  @Override
+  public synchronized boolean cancel(final boolean mayInterruptIfRunning) {
+    if (canceled) {
+      return false;
+    }
+    canceled = true;
+    if (entry != null) {
+      entry.cancel();
+    }
+    if (mayInterruptIfRunning && current != null) {
+      current.cancel(true);
+    }
+    notifyAll();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    return canceled;
+  }
+
+  @Override
+  public synchronized boolean isDone() {
+    return canceled;
+  }
+
+  @Override
+  public synchronized Object get() throws InterruptedException {
+    if (checkMainThread()) {
+      throw new GoroException("Blocking main thread here will lead to a deadlock");
+    }
+    while (!canceled) {
+      wait();
+    }
+    throw new CancellationException("Periodic task was canceled");
+  }
+
+  @Override
+  public synchronized Object get(final long timeout, @SuppressWarnings("NullableProblems") final TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    if (checkMainThread()) {
+      throw new GoroException("Blocking main thread here will lead to a deadlock");
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    long left = deadline - System.nanoTime();
+    while (!canceled && left > 0) {
+      TimeUnit.NANOSECONDS.timedWait(this, left);
+      left = deadline - System.nanoTime();
+    }
+    if (canceled) {
+      throw new CancellationException("Periodic task was canceled");
+    }
+    throw new TimeoutException();
+  }
+
+  @Override
+  public synchronized long getDelay(@SuppressWarnings("NullableProblems") final TimeUnit unit) {
+    return entry != null ? entry.getDelay(unit) : 0;
+  }
+
+  @Override
+  public int compareTo(@SuppressWarnings("NullableProblems") final Delayed another) {
+    long diff = getDelay(TimeUnit.NANOSECONDS) - another.getDelay(TimeUnit.NANOSECONDS);
+    return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+  }
+
+}
@@ -0,0 +1,302 @@
+package com.stanfy.enroscar.goro;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Queue of tasks that survives process death.
+ * <p>
+ *   Each added task is serialized with a {@link TaskConverter} and written to an append-only
+ *   journal file before it is scheduled with Goro. A task is removed from the journal only after
+ *   it completes successfully. Tasks that failed or were not completed before the process died
+ *   are scheduled again after {@link #attach(Goro)} or {@link #drain()} calls.
+ * </p>
+ * <p>
+ *   Tasks are drained through {@code parallelism} Goro queues. With parallelism equal to 1
+ *   tasks are executed serially in the order of addition.
+ * </p>
+ * <p>
+ *   Methods that touch the journal perform disk I/O and must not be called from the main thread.
+ * </p>
+ * @see GoroService#registerPersistentQueue(String, TaskConverter, int)
+ */
+public class PersistentQueue {
+
+  /** Logging tag. */
+  private static final String TAG = "GoroPersistentQueue";
+
+  /** Queue name. */
+  private final String name;
+
+  /** Journal. */
+  private final TaskJournal journal;
+
+  /** Converter. */
+  private final TaskConverter converter;
+
+  /** Names of Goro queues used to drain this queue. */
+  private final String[] lanes;
+
+  /** Tasks restored from the journal or added since it was opened, by entry id. */
+  private final LinkedHashMap<Long, Callable<?>> pending = new LinkedHashMap<>();
+
+  /** Ids of tasks scheduled with Goro and not finished yet. */
+  private final HashSet<Long> inFlight = new HashSet<>();
+
+  /** Goro instance tasks are scheduled with. */
+  private Goro goro;
+
+  /** Lane selector. */
+  private int nextLane;
+
+  /**
+   * @param file journal file
+   * @param name queue name, also used as a prefix for Goro queue names
+   * @param converter tasks converter
+   * @param parallelism count of tasks that can be executed concurrently
+   */
+  public PersistentQueue(final File file, final String name, final TaskConverter converter,
+                         final int parallelism) {
+    this(new TaskJournal(file), name, converter, parallelism);
+  }
+
+  PersistentQueue(final TaskJournal journal, final String name, final TaskConverter converter,
+                  final int parallelism) {
+    if (name == null) {
+      throw new IllegalArgumentException("Queue name must not be null");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.journal = journal;
+    this.name = name;
+    this.converter = converter;
+    this.lanes = new String[parallelism];
+    if (parallelism == 1) {
+      lanes[0] = name;
+    } else {
+      for (int i = 0; i < parallelism; i++) {
+        lanes[i] = name + "#" + i;
+      }
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** @return count of tasks that are not completed yet */
+  public synchronized int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Open the journal if required and schedule all the pending tasks with a given Goro instance.
+   * @param goro Goro instance
+   * @throws IOException if journal cannot be read
+   */
+  public synchronized void attach(final Goro goro) throws IOException {
+    this.goro = goro;
+    ensureOpened();
+    drain();
+  }
+
+  /**
+   * Schedule all the pending tasks that are not being executed now.
+   * Use it to retry failed tasks.
+   */
+  public synchronized void drain() {
+    if (goro == null) {
+      return;
+    }
+    // copy: tasks may be finished synchronously by some executors
+    ArrayList<Map.Entry<Long, Callable<?>>> entries = new ArrayList<>(pending.entrySet());
+    for (Map.Entry<Long, Callable<?>> entry : entries) {
+      if (!inFlight.contains(entry.getKey())) {
+        dispatch(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Write a task to the journal and schedule it if this queue is attached to Goro.
+   * The method returns after the task is synced to the disk.
+   * @param task task instance
+   * @throws IOException if task cannot be serialized or written
+   */
+  public void add(final Callable<?> task) throws IOException {
+    if (task == null) {
+      throw new IllegalArgumentException("Task must not be null");
+    }
+    byte[] data = converter.toBytes(task);
+    synchronized (this) {
+      ensureOpened();
+    }
+    // appends are not serialized by this monitor, so that they can share fsync calls
+    long id = journal.append(data);
+    synchronized (this) {
+      pending.put(id, task);
+      if (goro != null) {
+        dispatch(id, task);
+      }
+    }
+  }
+
+  /**
+   * Sync the journal and close it.
+   * @throws IOException if write fails
+   */
+  public synchronized void close() throws IOException {
+    goro = null;
+    journal.close();
+  }
+
+  /**
+   * Called for each task restored from the journal.
+   * @param task restored task
+   */
+  protected void onTaskRestored(final Callable<?> task) {
+    // nothing
+  }
+
+  private void ensureOpened() throws IOException {
+    if (journal.isOpened()) {
+      return;
+    }
+    LinkedHashMap<Long, byte[]> entries = journal.open();
+    for (Map.Entry<Long, byte[]> entry : entries.entrySet()) {
+      Callable<?> task;
+      try {
+        task = converter.fromBytes(entry.getValue());
+      } catch (IOException e) {
+        // do not let a broken entry block the queue forever
+        Log.e(TAG, "Cannot restore a task in queue " + name + ", dropping it", e);
+        journal.complete(entry.getKey());
+        continue;
+      }
+      onTaskRestored(task);
+      pending.put(entry.getKey(), task);
+    }
+  }
+
+  private void dispatch(final long id, final Callable<?> task) {
+    inFlight.add(id);
+    String lane = lanes[nextLane];
+    nextLane = (nextLane + 1) % lanes.length;
+    goro.schedule(lane, new JournalTask<>(id, task));
+  }
+
+  void onTaskFinished(final long id, final boolean success) {
+    boolean idle;
+    synchronized (this) {
+      inFlight.remove(id);
+      if (success) {
+        pending.remove(id);
+      }
+      idle = inFlight.isEmpty();
+    }
+    try {
+      if (success) {
+        journal.complete(id);
+      }
+      if (idle) {
+        // queue is drained, persist completions
+        journal.flush();
+      }
+    } catch (IOException e) {
+      Log.e(TAG, "Cannot update journal of queue " + name, e);
+    } catch (IllegalStateException e) {
+      // journal is closed, completion will be lost and the task will be executed again
+      Log.w(TAG, "Queue " + name + " is closed");
+    }
+  }
+
+  /** Wraps a task to update the journal when it finishes. */
+  private final class JournalTask<T> implements Callable<T> {
+    /** Entry id. */
+    private final long id;
+    /** Actual task. */
+    private final Callable<T> task;
+
+    JournalTask(final long id, final Callable<T> task) {
+      this.id = id;
+      this.task = task;
+    }
+
+    @Override
+    public T call() throws Exception {
+      boolean success = false;
+      try {
+        T result = task.call();
+        success = true;
+        return result;
+      } finally {
+        onTaskFinished(id, success);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name + "/" + id + ": " + task;
+    }
+  }
+
+  /**
+   * Converts tasks to bytes and back.
+   */
+  public interface TaskConverter {
+
+    byte[] toBytes(Callable<?> task) throws IOException;
+
+    Callable<?> fromBytes(byte[] data) throws IOException;
+
+  }
+
+  /**
+   * Converter that uses Java serialization. Tasks must implement {@link java.io.Serializable}.
+   */
+  public static class SerializableConverter implements TaskConverter {
+
+    @Override
+    public byte[] toBytes(final Callable<?> task) throws IOException {
+      if (!(task instanceof Serializable)) {
+        throw new IOException("Task " + task + " is not Serializable");
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(task);
+      out.close();
+      return bytes.toByteArray();
+    }
+
+    @Override
+    public Callable<?> fromBytes(final byte[] data) throws IOException {
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+      try {
+        Object task = in.readObject();
+        if (!(task instanceof Callable)) {
+          throw new IOException("Restored object " + task + " is not a Callable");
+        }
+        return (Callable<?>) task;
+      } catch (ClassNotFoundException e) {
+        throw new IOException("Cannot restore task: " + e.getMessage());
+      } finally {
+        in.close();
+      }
+    }
+
+  }
+
+}
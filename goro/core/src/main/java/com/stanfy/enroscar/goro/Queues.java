@@ -4,8 +4,13 @@ import android.annotation.SuppressLint;
 import android.os.AsyncTask;
 import android.os.Build;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -33,8 +38,9 @@ interface Queues {
   /**
    * Remove tasks from a queue.
    * @param queueName queue name
+   * @return tasks that were removed before they could be run
    */
-  void clear(String queueName);
+  List<Runnable> clear(String queueName);
 
   /** Default implementation. */
   class Impl implements Queues {
@@ -49,11 +55,26 @@ interface Queues {
     private static Executor defaultThreadPoolExecutor;
 
     /** Executors map. */
-    private final HashMap<String, TaskQueueExecutor> executorsMap = new HashMap<>();
+    private final HashMap<String, SerialExecutor> executorsMap = new HashMap<>();
+
+    /** Whether queues should run several tasks per delegate handoff. */
+    private final boolean draining;
 
     /** Used threads pool. */
     private Executor delegateExecutor;
 
+    public Impl() {
+      this(true);
+    }
+
+    /**
+     * @param draining true to use {@link DrainingTaskQueueExecutor},
+     *                 false to use {@link TaskQueueExecutor} for queues
+     */
+    Impl(final boolean draining) {
+      this.draining = draining;
+    }
+
     private static Executor getDefaultThreadPoolExecutor() {
       if (defaultThreadPoolExecutor == null) {
         Executor executor = getAsyncTaskThreadPool();
@@ -106,9 +127,11 @@ interface Queues {
           return delegateExecutor;
         }
 
-        TaskQueueExecutor exec = executorsMap.get(queueName);
+        SerialExecutor exec = executorsMap.get(queueName);
         if (exec == null) {
-          exec = new TaskQueueExecutor(delegateExecutor);
+          exec = draining
+              ? new DrainingTaskQueueExecutor(delegateExecutor)
+              : new TaskQueueExecutor(delegateExecutor);
           executorsMap.put(queueName, exec);
         }
         return exec;
@@ -116,25 +139,41 @@ interface Queues {
     }
 
     @Override
-    public void clear(final String queueName) {
-      final TaskQueueExecutor exec;
+    public List<Runnable> clear(final String queueName) {
+      final SerialExecutor exec;
       synchronized (executorsMap) {
         exec = executorsMap.get(queueName);
       }
-      if (exec != null) {
-        exec.clear();
+      if (exec == null) {
+        return Collections.emptyList();
       }
+      return exec.clear();
     }
   }
 
-  /** Executor for the task queue. */
-  final class TaskQueueExecutor implements Executor {
+  /** Executor that performs tasks serially. */
+  interface SerialExecutor extends Executor {
+    /**
+     * Put several tasks to the queue at once.
+     * @param commands tasks to execute
+     */
+    void executeAll(Collection<? extends Runnable> commands);
+
+    /**
+     * Remove pending tasks.
+     * @return removed tasks in the order they were put to the queue
+     */
+    List<Runnable> clear();
+  }
+
+  /** Executor for the task queue. Hands every task over to the delegate separately. */
+  final class TaskQueueExecutor implements SerialExecutor {
     /** Delegate executor. */
     final Executor delegate;
     /** Tasks queue. */
-    final LinkedList<Runnable> tasks = new LinkedList<>();
+    final LinkedList<QueuedTask> tasks = new LinkedList<>();
     /** Active task. */
-    Runnable activeTask;
+    QueuedTask activeTask;
 
     public TaskQueueExecutor(final Executor delegate)  {
       this.delegate = delegate;
@@ -143,21 +182,19 @@ interface Queues {
     @SuppressWarnings("NullableProblems")
     @Override
     public synchronized void execute(final Runnable r) {
-      tasks.offer(new Runnable() {
-        @Override
-        public void run() {
-          try {
-            r.run();
-          } finally {
-            scheduleNext();
-          }
-        }
-      });
+      tasks.offer(new QueuedTask(r));
       if (activeTask == null) {
         scheduleNext();
       }
     }
 
+    @Override
+    public synchronized void executeAll(final Collection<? extends Runnable> commands) {
+      for (Runnable r : commands) {
+        execute(r);
+      }
+    }
+
     synchronized void scheduleNext() {
       activeTask = tasks.poll();
       if (activeTask != null) {
@@ -165,8 +202,141 @@ interface Queues {
       }
     }
 
-    synchronized void clear() {
+    @Override
+    public synchronized List<Runnable> clear() {
+      ArrayList<Runnable> removed = new ArrayList<>(tasks.size());
+      for (QueuedTask t : tasks) {
+        removed.add(t.task);
+      }
       tasks.clear();
+      return removed;
+    }
+
+    /** Runs a task and schedules the next one. */
+    final class QueuedTask implements Runnable {
+      /** Original task. */
+      final Runnable task;
+
+      QueuedTask(final Runnable task) {
+        this.task = task;
+      }
+
+      @Override
+      public void run() {
+        try {
+          task.run();
+        } finally {
+          scheduleNext();
+        }
+      }
+    }
+  }
+
+  /**
+   * Executor for the task queue that does not wrap tasks and does not lock.
+   * Producers put tasks to a lock-free queue. The first producer that finds the queue idle
+   * hands this executor over to the delegate, and it runs up to {@code budget} tasks
+   * in a single delegate thread. If more tasks remain, it is handed over again, so that
+   * a busy queue does not occupy a delegate thread forever.
+   */
+  final class DrainingTaskQueueExecutor implements SerialExecutor, Runnable {
+    /** Default count of tasks run per handoff. */
+    static final int DEFAULT_BUDGET = 16;
+
+    /** Drain states. */
+    private static final int IDLE = 0, SCHEDULED = 1;
+
+    /** Delegate executor. */
+    final Executor delegate;
+    /** Max count of tasks run per handoff. */
+    final int budget;
+    /** Tasks queue. */
+    final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /** Drain state. */
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    /** Count of handoffs to the delegate. */
+    private final AtomicInteger handoffCount = new AtomicInteger();
+
+    public DrainingTaskQueueExecutor(final Executor delegate) {
+      this(delegate, DEFAULT_BUDGET);
+    }
+
+    public DrainingTaskQueueExecutor(final Executor delegate, final int budget) {
+      if (budget < 1) {
+        throw new IllegalArgumentException("Budget must be positive");
+      }
+      this.delegate = delegate;
+      this.budget = budget;
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public void execute(final Runnable r) {
+      if (r == null) {
+        throw new NullPointerException("Null task");
+      }
+      tasks.offer(r);
+      if (state.compareAndSet(IDLE, SCHEDULED)) {
+        handOff();
+      }
+    }
+
+    @Override
+    public void executeAll(final Collection<? extends Runnable> commands) {
+      for (Runnable r : commands) {
+        if (r == null) {
+          throw new NullPointerException("Null task");
+        }
+        tasks.offer(r);
+      }
+      // single handoff for the whole batch
+      if (!commands.isEmpty() && state.compareAndSet(IDLE, SCHEDULED)) {
+        handOff();
+      }
+    }
+
+    private void handOff() {
+      handoffCount.incrementAndGet();
+      try {
+        delegate.execute(this);
+      } catch (RuntimeException e) {
+        // let the next execute() call try again
+        state.set(IDLE);
+        throw e;
+      }
+    }
+
+    @Override
+    public void run() {
+      int count = 0;
+      try {
+        Runnable task;
+        while (count < budget && (task = tasks.poll()) != null) {
+          count++;
+          task.run();
+        }
+      } finally {
+        state.set(IDLE);
+        // tasks added after the last poll or left because of the budget
+        if (!tasks.isEmpty() && state.compareAndSet(IDLE, SCHEDULED)) {
+          handOff();
+        }
+      }
+    }
+
+    @Override
+    public List<Runnable> clear() {
+      ArrayList<Runnable> removed = new ArrayList<>();
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        removed.add(task);
+      }
+      return removed;
+    }
+
+    /** @return count of times this executor was passed to the delegate */
+    int getHandoffCount() {
+      return handoffCount.get();
     }
   }
 
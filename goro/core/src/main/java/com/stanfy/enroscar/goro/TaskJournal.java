@@ -0,0 +1,402 @@
+package com.stanfy.enroscar.goro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file that keeps serialized tasks.
+ * <p>
+ *   File starts with a magic number followed by records. Each record contains
+ *   a type byte, an entry id, payload length, CRC32 of all previous fields and payload,
+ *   and the payload itself. A task is added with an {@code ADD} record and
+ *   removed with a {@code DONE} record. A partially written record at the end of the file
+ *   is dropped when the journal is opened.
+ * </p>
+ * <p>
+ *   Records are collected in memory and written with a single call.
+ *   {@link #append(byte[])} returns only after its record is synced to the disk, but concurrent
+ *   appends share a single {@code fsync}. {@code DONE} records are not synced immediately:
+ *   a crash may only cause a completed task to be executed again.
+ * </p>
+ * <p>
+ *   When the file grows beyond the compaction threshold and most of its records are dead,
+ *   live entries are rewritten to a new file that replaces the old one.
+ * </p>
+ */
+final class TaskJournal {
+
+  /** File header. */
+  static final int MAGIC = 0x476f524a;
+
+  /** Record types. */
+  private static final byte ADD = 1, DONE = 2;
+
+  /** Record header size: type, id, length, CRC. */
+  private static final int RECORD_HEADER_SIZE = 1 + 8 + 4 + 4;
+
+  /** Header size. */
+  private static final int FILE_HEADER_SIZE = 4;
+
+  /** Default compaction threshold. */
+  static final long DEFAULT_COMPACTION_THRESHOLD = 256 * 1024;
+
+  /** Journal file. */
+  private final File file;
+
+  /** File size that triggers compaction. */
+  private final long compactionThreshold;
+
+  /** Guards fsync calls, acquired before the journal monitor. */
+  private final Object syncLock = new Object();
+
+  /** Records that are not written to the file yet. */
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+  /** Buffer writer. */
+  private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+
+  /** Live entries in the order of addition. */
+  private final LinkedHashMap<Long, byte[]> live = new LinkedHashMap<>();
+
+  /** File access. */
+  private RandomAccessFile raf;
+
+  /** Count of bytes in the file and buffer. */
+  private long length;
+
+  /** Bytes occupied by live entries. */
+  private long liveBytes;
+
+  /** Next entry id. */
+  private long nextId = 1;
+
+  /** Number of the last buffered record that requires sync. */
+  private long writtenSeq;
+
+  /** Number of the last synced record. */
+  private long syncedSeq;
+
+  /** Count of performed syncs. */
+  private int syncCount;
+
+  /** Count of performed compactions. */
+  private int compactionCount;
+
+  TaskJournal(final File file) {
+    this(file, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  TaskJournal(final File file, final long compactionThreshold) {
+    this.file = file;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  /**
+   * Open the journal and read live entries.
+   * @return live entries in the order of addition
+   * @throws IOException if file cannot be read or written
+   */
+  synchronized LinkedHashMap<Long, byte[]> open() throws IOException {
+    if (raf != null) {
+      throw new IllegalStateException("Journal " + file + " is already opened");
+    }
+    File dir = file.getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs()) {
+      throw new IOException("Cannot create " + dir);
+    }
+
+    raf = new RandomAccessFile(file, "rw");
+    if (raf.length() < FILE_HEADER_SIZE) {
+      raf.setLength(0);
+      raf.writeInt(MAGIC);
+      raf.getFD().sync();
+    } else if (raf.readInt() != MAGIC) {
+      raf.close();
+      raf = null;
+      throw new IOException(file + " is not a Goro journal");
+    }
+
+    replay();
+    return new LinkedHashMap<>(live);
+  }
+
+  private void replay() throws IOException {
+    long position = FILE_HEADER_SIZE;
+    long fileLength = raf.length();
+    raf.seek(position);
+    CRC32 crc = new CRC32();
+    byte[] header = new byte[RECORD_HEADER_SIZE - 4];
+    while (fileLength - position >= RECORD_HEADER_SIZE) {
+      raf.readFully(header);
+      byte type = header[0];
+      long id = readLong(header, 1);
+      int size = readInt(header, 9);
+      int checksum = raf.readInt();
+      if ((type != ADD && type != DONE) || size < 0
+          || size > fileLength - position - RECORD_HEADER_SIZE) {
+        break;
+      }
+      byte[] payload = new byte[size];
+      raf.readFully(payload);
+      crc.reset();
+      crc.update(header);
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+
+      if (type == ADD) {
+        live.put(id, payload);
+        liveBytes += RECORD_HEADER_SIZE + size;
+      } else {
+        byte[] removed = live.remove(id);
+        if (removed != null) {
+          liveBytes -= RECORD_HEADER_SIZE + removed.length;
+        }
+      }
+      if (id >= nextId) {
+        nextId = id + 1;
+      }
+      position += RECORD_HEADER_SIZE + size;
+    }
+
+    if (position < fileLength) {
+      // drop a torn tail
+      raf.setLength(position);
+      raf.getFD().sync();
+    }
+    raf.seek(position);
+    length = position;
+  }
+
+  /**
+   * Add a new entry. Returns after the entry is synced to the disk.
+   * @param payload entry data
+   * @return entry id
+   * @throws IOException if write fails
+   */
+  long append(final byte[] payload) throws IOException {
+    long id;
+    long seq;
+    synchronized (this) {
+      checkOpened();
+      id = nextId++;
+      writeRecord(ADD, id, payload);
+      live.put(id, payload);
+      liveBytes += RECORD_HEADER_SIZE + payload.length;
+      seq = ++writtenSeq;
+    }
+    syncUpTo(seq);
+    return id;
+  }
+
+  /**
+   * Remove an entry. Removal is written to the disk lazily.
+   * @param id entry id
+   * @throws IOException if compaction fails
+   */
+  void complete(final long id) throws IOException {
+    boolean compact;
+    synchronized (this) {
+      checkOpened();
+      byte[] removed = live.remove(id);
+      if (removed == null) {
+        return;
+      }
+      liveBytes -= RECORD_HEADER_SIZE + removed.length;
+      writeRecord(DONE, id, new byte[0]);
+      compact = needsCompaction();
+    }
+    if (compact) {
+      compact();
+    }
+  }
+
+  /**
+   * Write and sync all the buffered records.
+   * @throws IOException if write fails
+   */
+  void flush() throws IOException {
+    long seq;
+    synchronized (this) {
+      checkOpened();
+      if (buffer.size() == 0) {
+        return;
+      }
+      // make sure syncUpTo does not skip buffered DONE records
+      seq = ++writtenSeq;
+    }
+    syncUpTo(seq);
+  }
+
+  void close() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        if (raf == null) {
+          return;
+        }
+        try {
+          writeBuffer();
+          raf.getFD().sync();
+        } finally {
+          raf.close();
+          raf = null;
+        }
+      }
+    }
+  }
+
+  synchronized boolean isOpened() {
+    return raf != null;
+  }
+
+  synchronized int getLiveCount() {
+    return live.size();
+  }
+
+  synchronized long getLength() {
+    return length;
+  }
+
+  synchronized int getSyncCount() {
+    return syncCount;
+  }
+
+  synchronized int getCompactionCount() {
+    return compactionCount;
+  }
+
+  private void checkOpened() {
+    if (raf == null) {
+      throw new IllegalStateException("Journal " + file + " is not opened");
+    }
+  }
+
+  private boolean needsCompaction() {
+    return length > compactionThreshold && liveBytes * 2 < length;
+  }
+
+  private void writeRecord(final byte type, final long id, final byte[] payload) throws IOException {
+    byte[] header = new byte[RECORD_HEADER_SIZE - 4];
+    header[0] = type;
+    writeLong(header, 1, id);
+    writeInt(header, 9, payload.length);
+    CRC32 crc = new CRC32();
+    crc.update(header);
+    crc.update(payload);
+    bufferOut.write(header);
+    bufferOut.writeInt((int) crc.getValue());
+    bufferOut.write(payload);
+    length += RECORD_HEADER_SIZE + payload.length;
+  }
+
+  private void writeBuffer() throws IOException {
+    if (buffer.size() > 0) {
+      raf.write(buffer.toByteArray());
+      buffer.reset();
+    }
+  }
+
+  private void syncUpTo(final long seq) throws IOException {
+    synchronized (syncLock) {
+      if (syncedSeq >= seq) {
+        // our record was synced by another writer
+        return;
+      }
+      long batchSeq;
+      RandomAccessFile target;
+      synchronized (this) {
+        checkOpened();
+        writeBuffer();
+        batchSeq = writtenSeq;
+        target = raf;
+      }
+      // other writers keep buffering records while we wait for the disk
+      target.getFD().sync();
+      synchronized (this) {
+        syncCount++;
+      }
+      syncedSeq = batchSeq;
+    }
+  }
+
+  private void compact() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        if (raf == null || !needsCompaction()) {
+          return;
+        }
+
+        // keep the old file complete in case compaction fails
+        writeBuffer();
+        long oldLength = length;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        ArrayList<Map.Entry<Long, byte[]>> entries = new ArrayList<>(live.entrySet());
+        boolean success = false;
+        RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+        try {
+          out.setLength(0);
+          out.writeInt(MAGIC);
+          for (Map.Entry<Long, byte[]> entry : entries) {
+            writeRecord(ADD, entry.getKey(), entry.getValue());
+          }
+          out.write(buffer.toByteArray());
+          out.getFD().sync();
+          out.close();
+          out = null;
+
+          raf.close();
+          raf = null;
+          success = tmp.renameTo(file);
+        } finally {
+          buffer.reset();
+          if (out != null) {
+            out.close();
+          }
+          if (raf == null) {
+            raf = new RandomAccessFile(file, "rw");
+          }
+          raf.seek(raf.length());
+          length = success ? raf.length() : oldLength;
+        }
+        if (!success) {
+          throw new IOException("Cannot replace " + file + " with " + tmp);
+        }
+
+        // everything is on the disk now
+        syncedSeq = writtenSeq;
+        compactionCount++;
+      }
+    }
+  }
+
+  private static void writeInt(final byte[] dst, final int offset, final int value) {
+    dst[offset] = (byte) (value >>> 24);
+    dst[offset + 1] = (byte) (value >>> 16);
+    dst[offset + 2] = (byte) (value >>> 8);
+    dst[offset + 3] = (byte) value;
+  }
+
+  private static void writeLong(final byte[] dst, final int offset, final long value) {
+    writeInt(dst, offset, (int) (value >>> 32));
+    writeInt(dst, offset + 4, (int) value);
+  }
+
+  private static int readInt(final byte[] src, final int offset) {
+    return (src[offset] & 0xff) << 24 | (src[offset + 1] & 0xff) << 16
+        | (src[offset + 2] & 0xff) << 8 | (src[offset + 3] & 0xff);
+  }
+
+  private static long readLong(final byte[] src, final int offset) {
+    return (long) readInt(src, offset) << 32 | readInt(src, offset + 4) & 0xffffffffL;
+  }
+
+}
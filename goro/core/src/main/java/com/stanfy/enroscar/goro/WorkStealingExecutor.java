@@ -0,0 +1,343 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that can be used by Goro to actually perform tasks.
+ * <p>
+ *   The pool starts with a worker per CPU core. Each worker has its own deque: tasks submitted from
+ *   a worker thread go to that deque, other tasks go to a shared submission queue.
+ *   A worker takes tasks from the head of its deque, then from the submission queue,
+ *   and then steals from the tail of other workers' deques.
+ * </p>
+ * <p>
+ *   When all the workers are busy (e.g. blocked on I/O) and a new task arrives, an extra worker is
+ *   started, up to the maximum pool size. Extra workers finish after being idle
+ *   for the keep-alive time. Tasks are rejected only when the count of pending tasks reaches
+ *   the limit or after {@link #shutdown()}.
+ * </p>
+ * @see Goro#createWithDelegate(java.util.concurrent.Executor)
+ */
+public class WorkStealingExecutor implements Executor {
+
+  /** Default parameters. */
+  private static final int DEFAULT_MAX_POOL_SIZE = 32,
+      DEFAULT_KEEP_ALIVE_SECONDS = 7,
+      DEFAULT_MAX_PENDING = 10000;
+
+  /** Threads counter for names. */
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  /** Count of workers that are never stopped. */
+  private final int corePoolSize;
+
+  /** Max count of workers. */
+  private final int maxPoolSize;
+
+  /** Idle time after which extra workers finish, in nanoseconds. */
+  private final long keepAlive;
+
+  /** Max count of pending tasks. */
+  private final int maxPending;
+
+  /** Workers. */
+  private final CopyOnWriteArrayList<Worker> workers = new CopyOnWriteArrayList<>();
+
+  /** Tasks submitted from threads that are not workers of this pool. */
+  private final ConcurrentLinkedQueue<Runnable> submissions = new ConcurrentLinkedQueue<>();
+
+  /** Current worker of the thread. */
+  private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+
+  /** Guards idle waiting and workers creation. */
+  private final Object lock = new Object();
+
+  /** Count of tasks in all the queues. */
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /** Count of workers running tasks. */
+  private final AtomicInteger active = new AtomicInteger();
+
+  /** Count of waiting workers. */
+  private volatile int idleCount;
+
+  /** Shutdown flag. */
+  private volatile boolean shutdown;
+
+  /** Stats. */
+  private final AtomicLong stealCount = new AtomicLong(),
+      rejectedCount = new AtomicLong(),
+      completedCount = new AtomicLong();
+
+  /** Largest count of workers. */
+  private int largestPoolSize;
+
+  /** Creates a pool with a worker per CPU core. */
+  public WorkStealingExecutor() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_POOL_SIZE,
+        DEFAULT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, DEFAULT_MAX_PENDING);
+  }
+
+  /**
+   * @param corePoolSize count of workers that are never stopped
+   * @param maxPoolSize max count of workers
+   * @param keepAlive idle time after which extra workers are stopped
+   * @param unit keep-alive time unit
+   * @param maxPending max count of pending tasks
+   */
+  public WorkStealingExecutor(final int corePoolSize, final int maxPoolSize,
+                              final long keepAlive, final TimeUnit unit, final int maxPending) {
+    if (corePoolSize < 1 || maxPoolSize < corePoolSize) {
+      throw new IllegalArgumentException("Bad pool size: " + corePoolSize + ", " + maxPoolSize);
+    }
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("Max pending tasks count must be positive");
+    }
+    this.corePoolSize = corePoolSize;
+    this.maxPoolSize = maxPoolSize;
+    this.keepAlive = unit.toNanos(keepAlive);
+    this.maxPending = maxPending;
+  }
+
+  @Override
+  public void execute(@SuppressWarnings("NullableProblems") final Runnable command) {
+    if (command == null) {
+      throw new NullPointerException("Null task");
+    }
+    if (shutdown) {
+      rejectedCount.incrementAndGet();
+      throw new RejectedExecutionException("Executor is shut down");
+    }
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      rejectedCount.incrementAndGet();
+      throw new RejectedExecutionException("Too many pending tasks: " + maxPending);
+    }
+
+    Worker worker = currentWorker.get();
+    if (worker != null) {
+      worker.push(command);
+    } else {
+      submissions.offer(command);
+    }
+    signalWork();
+  }
+
+  private void signalWork() {
+    // idleCount is read after pending is incremented, workers update them in the reverse order
+    if (idleCount > 0) {
+      synchronized (lock) {
+        lock.notify();
+      }
+      return;
+    }
+    if (workers.size() < corePoolSize
+        || active.get() >= workers.size() && workers.size() < maxPoolSize) {
+      synchronized (lock) {
+        int size = workers.size();
+        if (idleCount == 0 && !shutdown
+            && (size < corePoolSize || active.get() >= size && size < maxPoolSize)) {
+          Worker w = new Worker(size >= corePoolSize);
+          workers.add(w);
+          if (workers.size() > largestPoolSize) {
+            largestPoolSize = workers.size();
+          }
+          w.thread.start();
+        } else if (idleCount > 0) {
+          lock.notify();
+        }
+      }
+    }
+  }
+
+  /** Stop accepting tasks. Pending tasks are still executed, idle workers are stopped. */
+  public void shutdown() {
+    synchronized (lock) {
+      shutdown = true;
+      lock.notifyAll();
+    }
+  }
+
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  /** @return current count of workers */
+  public int getPoolSize() {
+    return workers.size();
+  }
+
+  /** @return largest count of workers that existed simultaneously */
+  public int getLargestPoolSize() {
+    synchronized (lock) {
+      return largestPoolSize;
+    }
+  }
+
+  /** @return count of workers running tasks now */
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  /** @return count of tasks waiting for execution */
+  public int getPendingCount() {
+    return pending.get();
+  }
+
+  /** @return count of tasks taken from deques of other workers */
+  public long getStealCount() {
+    return stealCount.get();
+  }
+
+  /** @return count of rejected tasks */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /** @return count of executed tasks */
+  public long getCompletedTaskCount() {
+    return completedCount.get();
+  }
+
+  private Runnable findTask(final Worker worker) {
+    Runnable task = worker.poll();
+    if (task == null) {
+      task = submissions.poll();
+    }
+    if (task == null) {
+      task = steal(worker);
+    }
+    if (task != null) {
+      pending.decrementAndGet();
+    }
+    return task;
+  }
+
+  private Runnable steal(final Worker thief) {
+    Object[] victims = workers.toArray();
+    int count = victims.length;
+    if (count < 2) {
+      return null;
+    }
+    // start from a different position for each worker to spread the contention
+    int start = thief.index % count;
+    for (int i = 0; i < count; i++) {
+      Worker victim = (Worker) victims[(start + i) % count];
+      if (victim != thief) {
+        Runnable task = victim.stealLast();
+        if (task != null) {
+          stealCount.incrementAndGet();
+          return task;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Wait for work.
+   * @return false if the worker must be stopped
+   */
+  private boolean awaitWork(final Worker worker) throws InterruptedException {
+    synchronized (lock) {
+      idleCount++;
+      boolean idle = true;
+      try {
+        long deadline = System.nanoTime() + keepAlive;
+        // pending is checked after idleCount is incremented, see signalWork()
+        while (pending.get() == 0) {
+          long left = deadline - System.nanoTime();
+          if (shutdown || worker.extra && left <= 0) {
+            idleCount--;
+            idle = false;
+            // a task could be submitted while this worker was counted as idle
+            if (pending.get() > 0) {
+              return true;
+            }
+            // own deque is filled only by the worker itself, so it is empty here
+            workers.remove(worker);
+            return false;
+          }
+          if (worker.extra) {
+            TimeUnit.NANOSECONDS.timedWait(lock, left);
+          } else {
+            lock.wait();
+          }
+        }
+        return true;
+      } finally {
+        if (idle) {
+          idleCount--;
+        }
+      }
+    }
+  }
+
+  /** Worker thread with its own deque. */
+  private final class Worker implements Runnable {
+    /** Tasks deque. */
+    private final LinkedList<Runnable> deque = new LinkedList<>();
+    /** Whether this worker is above the core pool size. */
+    final boolean extra;
+    /** Worker index. */
+    final int index;
+    /** Thread. */
+    final Thread thread;
+
+    Worker(final boolean extra) {
+      this.extra = extra;
+      this.index = THREAD_COUNTER.incrementAndGet();
+      this.thread = new Thread(this, "Goro WS Thread #" + index);
+    }
+
+    synchronized void push(final Runnable task) {
+      deque.addLast(task);
+    }
+
+    synchronized Runnable poll() {
+      return deque.poll();
+    }
+
+    synchronized Runnable stealLast() {
+      return deque.isEmpty() ? null : deque.removeLast();
+    }
+
+    @Override
+    public void run() {
+      currentWorker.set(this);
+      try {
+        while (true) {
+          Runnable task = findTask(this);
+          if (task == null) {
+            if (!awaitWork(this)) {
+              return;
+            }
+            continue;
+          }
+          active.incrementAndGet();
+          try {
+            task.run();
+          } catch (Throwable e) {
+            Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+            if (handler != null) {
+              handler.uncaughtException(thread, e);
+            }
+          } finally {
+            active.decrementAndGet();
+            completedCount.incrementAndGet();
+          }
+        }
+      } catch (InterruptedException e) {
+        workers.remove(this);
+      }
+    }
+  }
+
+}
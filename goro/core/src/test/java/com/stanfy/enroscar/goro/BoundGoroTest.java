@@ -299,4 +299,42 @@ public class BoundGoroTest {
     order.verify(serviceInstance).schedule("clearedQueue", task2);
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void postponedTasksForOneQueueShouldBeHandedOverInBatch() throws Exception {
+    Callable<String> task1 = okTask();
+    Callable<String> task2 = okTask();
+    FutureObserver<String> observer = mock(FutureObserver.class);
+    goro.schedule("q", task1);
+    goro.schedule("q", task2).subscribe(observer);
+    goro.schedule("other", okTask());
+    goro.bind();
+    assertBinding();
+    verify(serviceInstance).scheduleAll(eq("q"), anyCollection());
+    verify(serviceInstance, never()).schedule("q", task1);
+    assertThat(goro.getLastHandedOverCount()).isEqualTo(3);
+    assertThat(goro.getMaxPostponedCount()).isEqualTo(3);
+    assertThat(goro.getLastBindLatency()).isGreaterThanOrEqualTo(0);
+
+    testingQueues.executeAll();
+    verify(observer).onSuccess("ok");
+  }
+
+  @Test
+  public void executeWhileBindingShouldUseLocalGoro() throws Exception {
+    goro.setExecuteWhileBinding(true);
+    Future<String> future = goro.schedule(okTask());
+    assertThat(goro.getInProcessCount()).isEqualTo(1);
+    assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo("ok");
+    assertThat(goro.getMaxPostponedCount()).isZero();
+
+    goro.bind();
+    assertBinding();
+    assertThat(goro.getLastHandedOverCount()).isZero();
+    Callable<String> task = okTask();
+    goro.schedule(task);
+    verify(serviceInstance).schedule(Goro.DEFAULT_QUEUE, task);
+    assertThat(goro.getInProcessCount()).isEqualTo(1);
+  }
+
 }
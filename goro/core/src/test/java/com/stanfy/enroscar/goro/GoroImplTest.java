@@ -10,9 +10,13 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -223,4 +227,226 @@ public class GoroImplTest {
     assertThat(testingQueues.getLastQueueName()).isEqualTo("q1");
   }
 
+
+  @Test
+  public void delayedTaskShouldBeQueuedWhenDue() throws Exception {
+    ManualDelayScheduler timer = new ManualDelayScheduler();
+    goro = new GoroImpl(testingQueues, timer);
+    goro.addTaskListener(listener);
+    Callable<?> task = mock(Callable.class);
+
+    Future<?> future = goro.schedule("q", task, 10, TimeUnit.SECONDS);
+    verify(listener).onTaskSchedule(task, "q");
+    timer.advance(TimeUnit.SECONDS.toNanos(9));
+    testingQueues.executeAll();
+    verify(task, never()).call();
+
+    timer.advance(TimeUnit.SECONDS.toNanos(1));
+    assertThat(testingQueues.getLastQueueName()).isEqualTo("q");
+    testingQueues.executeAll();
+    verify(task).call();
+    assertThat(future.isDone()).isTrue();
+  }
+
+  @Test
+  public void canceledDelayedTaskShouldRemoveTimerEntry() {
+    ManualDelayScheduler timer = new ManualDelayScheduler();
+    goro = new GoroImpl(testingQueues, timer);
+    goro.schedule("q", mock(Callable.class), 1, TimeUnit.MINUTES).cancel(false);
+    assertThat(timer.size()).isZero();
+  }
+
+  @Test
+  public void periodicTaskShouldCoalesceOverlappingRuns() throws Exception {
+    ManualDelayScheduler timer = new ManualDelayScheduler();
+    goro = new GoroImpl(testingQueues, timer);
+    Callable<?> task = mock(Callable.class);
+
+    PeriodicTask periodic = (PeriodicTask) goro.scheduleAtFixedRate("q", task, 0, 1, TimeUnit.SECONDS);
+    timer.advance(0);
+    // previous run is still in the queue
+    timer.advance(TimeUnit.SECONDS.toNanos(1));
+    timer.advance(TimeUnit.SECONDS.toNanos(1));
+    assertThat(periodic.getRunsCount()).isEqualTo(1);
+    assertThat(periodic.getCoalescedCount()).isEqualTo(2);
+    testingQueues.executeAll();
+    verify(task).call();
+
+    // missed periods result in a single run
+    timer.advance(TimeUnit.SECONDS.toNanos(5));
+    assertThat(periodic.getRunsCount()).isEqualTo(2);
+
+    periodic.cancel(false);
+    assertThat(periodic.isCancelled()).isTrue();
+    assertThat(timer.size()).isZero();
+  }
+
+  @Test
+  public void fixedDelayTaskShouldWaitForPreviousRun() throws Exception {
+    ManualDelayScheduler timer = new ManualDelayScheduler();
+    goro = new GoroImpl(testingQueues, timer);
+    Callable<?> task = mock(Callable.class);
+
+    PeriodicTask periodic = (PeriodicTask) goro.scheduleWithFixedDelay("q", task, 0, 1, TimeUnit.SECONDS);
+    timer.advance(0);
+    // delay does not start until the run is completed
+    timer.advance(TimeUnit.SECONDS.toNanos(5));
+    assertThat(periodic.getRunsCount()).isEqualTo(1);
+    assertThat(timer.size()).isZero();
+
+    testingQueues.executeAll();
+    verify(task).call();
+    timer.advance(TimeUnit.MILLISECONDS.toNanos(999));
+    assertThat(periodic.getRunsCount()).isEqualTo(1);
+    timer.advance(TimeUnit.MILLISECONDS.toNanos(1));
+    assertThat(periodic.getRunsCount()).isEqualTo(2);
+    assertThat(periodic.getCoalescedCount()).isZero();
+
+    periodic.cancel(false);
+    testingQueues.executeAll();
+    assertThat(timer.size()).isZero();
+  }
+
+  @Test
+  public void periodicTaskShouldRunAfterClear() throws Exception {
+    ManualDelayScheduler timer = new ManualDelayScheduler();
+    goro = new GoroImpl(testingQueues, timer);
+    Callable<?> task = mock(Callable.class);
+
+    PeriodicTask periodic = (PeriodicTask) goro.scheduleAtFixedRate("q", task, 0, 1, TimeUnit.SECONDS);
+    timer.advance(0);
+    // the queued run is canceled and does not block the next period
+    goro.clear("q");
+    timer.advance(TimeUnit.SECONDS.toNanos(1));
+    assertThat(periodic.getRunsCount()).isEqualTo(2);
+    assertThat(periodic.getCoalescedCount()).isZero();
+    testingQueues.executeAll();
+    verify(task).call();
+
+    periodic.cancel(false);
+  }
+
+  @Test
+  public void duplicateShouldJoinPendingTask() throws Exception {
+    goro.addTaskListener(listener);
+    Callable<?> task1 = mock(Callable.class), task2 = mock(Callable.class);
+    Future<?> future1 = goro.schedule("q", task1, "refresh", DuplicatePolicy.JOIN);
+    Future<?> future2 = goro.schedule("q", task2, "refresh", DuplicatePolicy.JOIN);
+    assertThat(future2).isSameAs(future1);
+    verify(listener, never()).onTaskSchedule(task2, "q");
+
+    testingQueues.executeAll();
+    verify(task1).call();
+    verify(task2, never()).call();
+
+    // key is released after the task is started
+    Future<?> future3 = goro.schedule("q", task2, "refresh", DuplicatePolicy.JOIN);
+    assertThat(future3).isNotSameAs(future1);
+  }
+
+  @Test
+  public void duplicateShouldReplacePendingTask() throws Exception {
+    goro.addTaskListener(listener);
+    Callable<?> task1 = mock(Callable.class), task2 = mock(Callable.class);
+    Future<?> future1 = goro.schedule("q", task1, "refresh", DuplicatePolicy.REPLACE);
+    Future<?> future2 = goro.schedule("q", task2, "refresh", DuplicatePolicy.REPLACE);
+    assertThat(future2).isSameAs(future1);
+    verify(listener).onTaskCancel(task1);
+    verify(listener).onTaskSchedule(task2, "q");
+
+    testingQueues.executeAll();
+    verify(task1, never()).call();
+    verify(task2).call();
+    verify(listener).onTaskStart(task2);
+  }
+
+  @Test
+  public void keysShouldBeScopedByQueue() {
+    Callable<?> task = mock(Callable.class);
+    Future<?> future1 = goro.schedule("q1", task, "refresh", DuplicatePolicy.JOIN);
+    Future<?> future2 = goro.schedule("q2", task, "refresh", DuplicatePolicy.JOIN);
+    assertThat(future2).isNotSameAs(future1);
+  }
+
+  @Test
+  public void clearShouldCancelRemovedTasksAndReleaseKeys() throws Exception {
+    goro.addTaskListener(listener);
+    Callable<?> task1 = mock(Callable.class), task2 = mock(Callable.class);
+    Future<?> future1 = goro.schedule("q", task1, "refresh", DuplicatePolicy.JOIN);
+    goro.clear("q");
+    assertThat(future1.isCancelled()).isTrue();
+    verify(listener).onTaskCancel(task1);
+
+    Future<?> future2 = goro.schedule("q", task2, "refresh", DuplicatePolicy.JOIN);
+    assertThat(future2).isNotSameAs(future1);
+    testingQueues.executeAll();
+    verify(task1, never()).call();
+    verify(task2).call();
+    assertThat(future2.isDone()).isTrue();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void scheduleAllShouldNotifyBatchListenersOnce() throws Exception {
+    GoroBatchListener batchListener = mock(GoroBatchListener.class);
+    goro.addTaskListener(batchListener);
+    goro.addTaskListener(listener);
+    Callable<String> task1 = mock(Callable.class), task2 = mock(Callable.class);
+    doReturn("1").when(task1).call();
+    doReturn("2").when(task2).call();
+
+    BatchFuture<String> batch = goro.scheduleAll("q", Arrays.asList(task1, task2));
+    verify(batchListener).onTasksSchedule(Arrays.<Callable<?>>asList(task1, task2), "q");
+    verify(batchListener, never()).onTaskSchedule(any(Callable.class), anyString());
+    // plain listeners get separate notifications
+    verify(listener).onTaskSchedule(task1, "q");
+    verify(listener).onTaskSchedule(task2, "q");
+
+    FutureObserver<List<String>> observer = mock(FutureObserver.class);
+    batch.subscribe(observer);
+    assertThat(batch.isDone()).isFalse();
+    testingQueues.executeAll();
+    assertThat(batch.isDone()).isTrue();
+    assertThat(batch.getDoneCount()).isEqualTo(2);
+    assertThat(batch.get()).containsExactly("1", "2");
+    verify(observer).onSuccess(Arrays.asList("1", "2"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void scheduleAllShouldReportFirstError() throws Exception {
+    Callable<String> ok = mock(Callable.class), failing = mock(Callable.class);
+    Exception error = new Exception();
+    doThrow(error).when(failing).call();
+    FutureObserver<List<String>> observer = mock(FutureObserver.class);
+    goro.scheduleAll("q", Arrays.asList(ok, failing)).subscribe(observer);
+    testingQueues.executeAll();
+    verify(observer).onError(error);
+  }
+
+  @Test
+  public void emptyBatchShouldBeDone() {
+    assertThat(goro.scheduleAll("q", Collections.<Callable<Object>>emptyList()).isDone()).isTrue();
+  }
+
+  /** Timer with manual clock. */
+  private static final class ManualDelayScheduler extends DelayScheduler {
+    /** Current time. */
+    private long time;
+
+    ManualDelayScheduler() {
+      super(false);
+    }
+
+    @Override
+    long now() {
+      return time;
+    }
+
+    void advance(final long nanos) {
+      time += nanos;
+      runDue(time);
+    }
+  }
+
 }
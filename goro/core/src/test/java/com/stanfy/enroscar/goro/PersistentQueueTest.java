@@ -0,0 +1,139 @@
+package com.stanfy.enroscar.goro;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import com.stanfy.enroscar.goro.Goro.GoroImpl;
+
+/**
+ * Tests for {@link com.stanfy.enroscar.goro.PersistentQueue}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class PersistentQueueTest {
+
+  /** Executed tasks. */
+  static final ArrayList<String> EXECUTED = new ArrayList<>();
+
+  /** Temporary files. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /** Journal file. */
+  private File file;
+
+  /** Testing queues. */
+  private TestingQueues testingQueues;
+
+  /** Goro instance. */
+  private GoroImpl goro;
+
+  /** Instance under tests. */
+  private PersistentQueue queue;
+
+  @Before
+  public void init() {
+    EXECUTED.clear();
+    file = new File(folder.getRoot(), "uploads.journal");
+    testingQueues = new TestingQueues();
+    goro = new GoroImpl(testingQueues);
+    queue = createQueue(1);
+  }
+
+  @After
+  public void close() throws IOException {
+    queue.close();
+  }
+
+  private PersistentQueue createQueue(final int parallelism) {
+    return new PersistentQueue(file, "uploads", new PersistentQueue.SerializableConverter(),
+        parallelism);
+  }
+
+  @Test
+  public void notExecutedTasksShouldBeReplayed() throws Exception {
+    queue.add(new NamedTask("1", false));
+    queue.add(new NamedTask("2", false));
+    assertThat(queue.getPendingCount()).isEqualTo(2);
+    // "process dies" before attaching to Goro
+    queue.close();
+
+    queue = createQueue(1);
+    queue.attach(goro);
+    assertThat(queue.getPendingCount()).isEqualTo(2);
+    testingQueues.executeAll();
+    assertThat(EXECUTED).containsExactly("1", "2");
+    assertThat(queue.getPendingCount()).isZero();
+
+    queue.close();
+    queue = createQueue(1);
+    queue.attach(goro);
+    assertThat(queue.getPendingCount()).isZero();
+  }
+
+  @Test
+  public void failedTasksShouldStayInJournal() throws Exception {
+    queue.attach(goro);
+    queue.add(new NamedTask("ok", false));
+    queue.add(new NamedTask("fail", true));
+    testingQueues.executeAll();
+    assertThat(EXECUTED).containsExactly("ok", "fail");
+    assertThat(queue.getPendingCount()).isEqualTo(1);
+
+    queue.drain();
+    testingQueues.executeAll();
+    assertThat(EXECUTED).containsExactly("ok", "fail", "fail");
+  }
+
+  @Test
+  public void parallelQueueShouldUseSeveralLanes() throws Exception {
+    queue.close();
+    queue = createQueue(3);
+    queue.attach(goro);
+    queue.add(new NamedTask("1", false));
+    assertThat(testingQueues.getLastQueueName()).isEqualTo("uploads#0");
+    queue.add(new NamedTask("2", false));
+    assertThat(testingQueues.getLastQueueName()).isEqualTo("uploads#1");
+  }
+
+  /** Serializable testing task. */
+  private static final class NamedTask implements Callable<Void>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Name. */
+    private final String name;
+    /** Whether to fail. */
+    private final boolean fail;
+
+    NamedTask(final String name, final boolean fail) {
+      this.name = name;
+      this.fail = fail;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      EXECUTED.add(name);
+      if (fail) {
+        throw new IOException("Failed " + name);
+      }
+      return null;
+    }
+  }
+
+}
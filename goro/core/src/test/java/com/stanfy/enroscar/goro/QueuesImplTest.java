@@ -69,6 +69,8 @@ public class QueuesImplTest {
 
   @Test
   public void clearShouldRemoveTasks() {
+    // executor that hands over every task separately
+    queuesImpl = new Queues.Impl(false);
     final ArrayList<Runnable> tasks = new ArrayList<>();
     //noinspection NullableProblems
     queuesImpl.setDelegateExecutor(new Executor() {
@@ -88,13 +90,107 @@ public class QueuesImplTest {
     assertThat(tasks).isEmpty();
 
     // clear scenario
+    Runnable task2 = mock(Runnable.class), task3 = mock(Runnable.class);
     queuesImpl.getExecutor("q").execute(mock(Runnable.class));
-    queuesImpl.getExecutor("q").execute(mock(Runnable.class));
-    queuesImpl.getExecutor("q").execute(mock(Runnable.class));
-    queuesImpl.clear("q");
+    queuesImpl.getExecutor("q").execute(task2);
+    queuesImpl.getExecutor("q").execute(task3);
+    assertThat(queuesImpl.clear("q")).containsExactly(task2, task3);
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+    assertThat(tasks).isEmpty();
+  }
+
+
+  @Test
+  public void clearShouldRemoveTasksFromDrainingQueue() {
+    final ArrayList<Runnable> tasks = new ArrayList<>();
+    //noinspection NullableProblems
+    queuesImpl.setDelegateExecutor(new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        tasks.add(command);
+      }
+    });
+
+    Runnable task1 = mock(Runnable.class), task2 = mock(Runnable.class);
+    queuesImpl.getExecutor("q").execute(task1);
+    queuesImpl.getExecutor("q").execute(task2);
+    // both tasks are run in one handoff
     assertThat(tasks).hasSize(1);
     tasks.remove(0).run();
+    verify(task1).run();
+    verify(task2).run();
     assertThat(tasks).isEmpty();
+
+    Runnable task3 = mock(Runnable.class);
+    queuesImpl.getExecutor("q").execute(task3);
+    assertThat(queuesImpl.clear("q")).containsExactly(task3);
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+    verify(task3, never()).run();
+    assertThat(tasks).isEmpty();
+  }
+
+  @Test
+  public void drainingExecutorShouldRespectBudget() {
+    final ArrayList<Runnable> tasks = new ArrayList<>();
+    //noinspection NullableProblems
+    Executor delegate = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        tasks.add(command);
+      }
+    };
+    Queues.DrainingTaskQueueExecutor executor = new Queues.DrainingTaskQueueExecutor(delegate, 2);
+    final ArrayList<Integer> order = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      final int n = i;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          order.add(n);
+        }
+      });
+    }
+
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+    assertThat(order).containsExactly(0, 1);
+    // the rest is handed over again
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+    tasks.remove(0).run();
+    assertThat(order).containsExactly(0, 1, 2, 3, 4);
+    assertThat(tasks).isEmpty();
+    assertThat(executor.getHandoffCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void drainingExecutorShouldContinueAfterError() {
+    final ArrayList<Runnable> tasks = new ArrayList<>();
+    //noinspection NullableProblems
+    Executor delegate = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        tasks.add(command);
+      }
+    };
+    Queues.DrainingTaskQueueExecutor executor = new Queues.DrainingTaskQueueExecutor(delegate);
+    Runnable failing = mock(Runnable.class);
+    doThrow(new RuntimeException()).when(failing).run();
+    Runnable next = mock(Runnable.class);
+    executor.execute(failing);
+    executor.execute(next);
+
+    try {
+      tasks.remove(0).run();
+    } catch (RuntimeException e) {
+      // expected
+    }
+    verify(next, never()).run();
+    assertThat(tasks).hasSize(1);
+    tasks.remove(0).run();
+    verify(next).run();
   }
 
 }
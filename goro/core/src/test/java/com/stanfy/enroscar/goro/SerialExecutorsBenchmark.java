@@ -0,0 +1,67 @@
+package com.stanfy.enroscar.goro;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares {@link Queues.TaskQueueExecutor} and {@link Queues.DrainingTaskQueueExecutor}
+ * on many tiny tasks submitted from several threads.
+ * Not a test: run {@link #main(String[])} manually.
+ */
+public final class SerialExecutorsBenchmark {
+
+  /** Parameters. */
+  private static final int PRODUCERS = 4, TASKS_PER_PRODUCER = 250000, ROUNDS = 5;
+
+  private SerialExecutorsBenchmark() { }
+
+  public static void main(final String[] args) throws InterruptedException {
+    ExecutorService delegate = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        long plain = measure(new Queues.TaskQueueExecutor(delegate));
+        long draining = measure(new Queues.DrainingTaskQueueExecutor(delegate));
+        System.out.println("round " + round + ": wrapping " + plain / 1000000 + " ms, draining "
+            + draining / 1000000 + " ms");
+      }
+    } finally {
+      delegate.shutdown();
+    }
+  }
+
+  private static long measure(final Queues.SerialExecutor executor) throws InterruptedException {
+    final int total = PRODUCERS * TASKS_PER_PRODUCER;
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicLong counter = new AtomicLong();
+    final Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        if (counter.incrementAndGet() == total) {
+          done.countDown();
+        }
+      }
+    };
+
+    long start = System.nanoTime();
+    Thread[] producers = new Thread[PRODUCERS];
+    for (int i = 0; i < PRODUCERS; i++) {
+      producers[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < TASKS_PER_PRODUCER; j++) {
+            executor.execute(task);
+          }
+        }
+      };
+      producers[i].start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    done.await();
+    return System.nanoTime() - start;
+  }
+
+}
@@ -0,0 +1,108 @@
+package com.stanfy.enroscar.goro;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link com.stanfy.enroscar.goro.TaskJournal}.
+ */
+public class TaskJournalTest {
+
+  /** Temporary files. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /** Journal file. */
+  private File file;
+
+  /** Instance under tests. */
+  private TaskJournal journal;
+
+  @Before
+  public void openJournal() throws IOException {
+    file = new File(folder.getRoot(), "q.journal");
+    journal = new TaskJournal(file, 1024);
+    assertThat(journal.open()).isEmpty();
+  }
+
+  @After
+  public void closeJournal() throws IOException {
+    journal.close();
+  }
+
+  private LinkedHashMap<Long, byte[]> reopen() throws IOException {
+    journal.close();
+    journal = new TaskJournal(file, 1024);
+    return journal.open();
+  }
+
+  @Test
+  public void shouldReplayNotCompletedEntries() throws IOException {
+    long id1 = journal.append(new byte[] {1});
+    long id2 = journal.append(new byte[] {2, 2});
+    long id3 = journal.append(new byte[] {3});
+    journal.complete(id2);
+
+    LinkedHashMap<Long, byte[]> entries = reopen();
+    assertThat(entries.keySet()).containsExactly(id1, id3);
+    assertThat(entries.get(id3)).isEqualTo(new byte[] {3});
+
+    // ids are not reused
+    assertThat(journal.append(new byte[0])).isGreaterThan(id3);
+  }
+
+  @Test
+  public void shouldDropTornTail() throws IOException {
+    long id = journal.append(new byte[] {1, 2, 3});
+    journal.append(new byte[] {4, 5, 6});
+    journal.close();
+
+    // cut the last record in the middle
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(raf.length() - 2);
+    raf.close();
+
+    journal = new TaskJournal(file, 1024);
+    LinkedHashMap<Long, byte[]> entries = journal.open();
+    assertThat(entries.keySet()).containsExactly(id);
+
+    // file is writable after recovery
+    long next = journal.append(new byte[] {7});
+    assertThat(reopen().keySet()).containsExactly(id, next);
+  }
+
+  @Test
+  public void shouldCompactDeadRecords() throws IOException {
+    long keep = journal.append(new byte[] {42});
+    byte[] data = new byte[100];
+    for (int i = 0; i < 30; i++) {
+      journal.complete(journal.append(data));
+    }
+    assertThat(journal.getCompactionCount()).isPositive();
+    assertThat(journal.getLength()).isLessThanOrEqualTo(1024);
+
+    LinkedHashMap<Long, byte[]> entries = reopen();
+    assertThat(entries.keySet()).containsExactly(keep);
+  }
+
+  @Test
+  public void appendShouldSyncButCompleteShouldNot() throws IOException {
+    journal.append(new byte[] {1});
+    int syncs = journal.getSyncCount();
+    journal.complete(journal.append(new byte[] {2}));
+    assertThat(journal.getSyncCount()).isEqualTo(syncs + 1);
+    journal.flush();
+    assertThat(journal.getSyncCount()).isEqualTo(syncs + 2);
+  }
+
+}
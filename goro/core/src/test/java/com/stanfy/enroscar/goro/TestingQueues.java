@@ -1,6 +1,7 @@
 package com.stanfy.enroscar.goro;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 /**
@@ -34,9 +35,16 @@ public class TestingQueues implements Queues {
   }
 
   @Override
-  public void clear(final String queueName) {
+  public List<Runnable> clear(final String queueName) {
     lastQueueName = queueName;
+    ArrayList<Runnable> removed = new ArrayList<>(tasks.size());
+    for (Runnable command : tasks) {
+      removed.add(command instanceof TaskQueueExecutor.QueuedTask
+          ? ((TaskQueueExecutor.QueuedTask) command).task
+          : command);
+    }
     tasks.clear();
+    return removed;
   }
 
   public String getLastQueueName() {
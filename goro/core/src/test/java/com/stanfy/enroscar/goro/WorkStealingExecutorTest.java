@@ -0,0 +1,160 @@
+package com.stanfy.enroscar.goro;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link com.stanfy.enroscar.goro.WorkStealingExecutor}.
+ */
+public class WorkStealingExecutorTest {
+
+  /** Instance under tests. */
+  private WorkStealingExecutor executor;
+
+  @After
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldExecuteAllTasks() throws InterruptedException {
+    executor = new WorkStealingExecutor(2, 4, 1, TimeUnit.SECONDS, 10000);
+    final int count = 1000;
+    final CountDownLatch done = new CountDownLatch(count);
+    for (int i = 0; i < count; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          done.countDown();
+        }
+      });
+    }
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.getPoolSize()).isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  public void tasksSubmittedByWorkerShouldBeStolenByOthers() throws InterruptedException {
+    executor = new WorkStealingExecutor(2, 2, 1, TimeUnit.SECONDS, 10000);
+    final int count = 100;
+    final CountDownLatch done = new CountDownLatch(count);
+    final Runnable child = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }
+    };
+    // warm up both workers
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // nothing
+      }
+    });
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < count; i++) {
+          executor.execute(child);
+        }
+      }
+    });
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.getStealCount()).isPositive();
+  }
+
+  @Test
+  public void shouldGrowWhenWorkersAreBlocked() throws InterruptedException {
+    executor = new WorkStealingExecutor(1, 3, 50, TimeUnit.MILLISECONDS, 10000);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+      // give the worker time to start the task
+      Thread.sleep(20);
+    }
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.getLargestPoolSize()).isEqualTo(3);
+
+    release.countDown();
+    // extra workers are stopped after keep-alive time
+    long deadline = System.currentTimeMillis() + 5000;
+    while (executor.getPoolSize() > 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(executor.getPoolSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRejectWhenTooManyTasksArePending() throws InterruptedException {
+    executor = new WorkStealingExecutor(1, 1, 1, TimeUnit.SECONDS, 2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicInteger executed = new AtomicInteger();
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        executed.incrementAndGet();
+      }
+    };
+    executor.execute(task);
+    executor.execute(task);
+    try {
+      executor.execute(task);
+      throw new AssertionError("Task is not rejected");
+    } catch (RejectedExecutionException e) {
+      assertThat(executor.getRejectedCount()).isEqualTo(1);
+    }
+    release.countDown();
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void shouldRejectAfterShutdown() {
+    executor = new WorkStealingExecutor();
+    executor.shutdown();
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // nothing
+      }
+    });
+  }
+
+}
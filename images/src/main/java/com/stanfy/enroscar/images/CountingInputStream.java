@@ -0,0 +1,48 @@
+package com.stanfy.enroscar.images;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts bytes read from the underlying stream.
+ * Skipped bytes are counted as well. Marks are not taken into account.
+ */
+final class CountingInputStream extends FilterInputStream {
+
+  /** Counter. */
+  private long count;
+
+  public CountingInputStream(final InputStream in) {
+    super(in);
+  }
+
+  /** @return count of bytes read so far */
+  public long getCount() { return count; }
+
+  @Override
+  public int read() throws IOException {
+    int result = in.read();
+    if (result != -1) {
+      count++;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+    int result = in.read(buffer, offset, length);
+    if (result > 0) {
+      count += result;
+    }
+    return result;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    long result = in.skip(n);
+    count += result;
+    return result;
+  }
+
+}
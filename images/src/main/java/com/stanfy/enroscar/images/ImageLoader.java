@@ -2,6 +2,9 @@ package com.stanfy.enroscar.images;
 
 import android.graphics.Bitmap;
 import android.util.Log;
+import android.util.StateSet;
+
+import com.stanfy.enroscar.images.decorator.ImageDecorator;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -159,15 +162,45 @@ class ImageLoader implements Callable<Void> {
     return scaled;
   }
 
+  private Bitmap decorate(final Bitmap map, final ImageDecorator decorator) {
+    Bitmap target = map;
+    if (!map.isMutable() || map.getConfig() != Bitmap.Config.ARGB_8888) {
+      target = map.copy(Bitmap.Config.ARGB_8888, true);
+      if (target == null) { return map; }
+      target.setDensity(map.getDensity());
+    }
+
+    final int w = target.getWidth(), h = target.getHeight();
+    final Bitmap decorated;
+    synchronized (decorator) {
+      decorator.setup(w, h, StateSet.NOTHING, 0, w, h);
+      decorated = decorator.decorateBitmap(target, null);
+    }
+    if (decorated != target) {
+      decorated.setDensity(target.getDensity());
+      target.recycle();
+    }
+    if (imagesManager.debug) { Log.d(TAG, "Decorated " + request.getCacheKey()); }
+    return decorated;
+  }
+
   private void memCacheImage(final ImageResult result) {
     if (result.getType() != ImageSourceType.MEMORY) {
       Bitmap input = result.getBitmap();
       Bitmap resultBitmap = prepare(input);
+      final ImageDecorator decorator = request.getDecorator();
+      if (decorator != null) {
+        Bitmap scaled = resultBitmap;
+        resultBitmap = decorate(scaled, decorator);
+        if (scaled != input && scaled != resultBitmap) {
+          scaled.recycle();
+        }
+      }
       if (resultBitmap != input) {
         result.setBitmap(resultBitmap);
         input.recycle();
       }
-      imagesManager.memCacheImage(request.url, resultBitmap);
+      imagesManager.memCacheImage(request.url, request.getCacheKey(), resultBitmap);
     }
   }
 
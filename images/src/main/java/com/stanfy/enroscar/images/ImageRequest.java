@@ -6,6 +6,7 @@ import android.util.DisplayMetrics;
 import android.util.Log;
 
 import com.stanfy.enroscar.beans.BeansManager;
+import com.stanfy.enroscar.images.decorator.ImageDecorator;
 import com.stanfy.enroscar.io.FlushedInputStream;
 import com.stanfy.enroscar.io.IoUtils;
 import com.stanfy.enroscar.net.UrlConnectionBuilderFactory;
@@ -16,6 +17,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URLConnection;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import static com.stanfy.enroscar.images.ImagesManager.TAG;
 
@@ -31,6 +34,11 @@ public class ImageRequest {
   /** Buffer size for image IO operations. */
   private static final int IMAGES_BUFFER_SIZE = IoUtils.BUFFER_SIZE_16K;
 
+  /** Decorator identifiers used in cache keys. */
+  private static final Map<ImageDecorator, Integer> DECORATOR_IDS = new WeakHashMap<ImageDecorator, Integer>();
+  /** Last decorator identifier. */
+  private static int lastDecoratorId;
+
   /** Images manager. */
   private final ImagesManager manager;
 
@@ -49,6 +57,11 @@ public class ImageRequest {
   /** Image format. */
   private Bitmap.Config format = Bitmap.Config.ARGB_8888;
 
+  /** Decorator applied in a worker thread. */
+  private ImageDecorator decorator;
+  /** Decorator identifier. */
+  private int decoratorId;
+
   /**
    * @param manager images manager instance
    * @param url image URL
@@ -100,12 +113,50 @@ public class ImageRequest {
     this.format = format;
   }
 
+  /**
+   * Set a decorator that will be applied to the loaded image in a worker thread before it is put to
+   * the memory cache. Decorated images are cached separately for each decorator and required size,
+   * so that one decorator instance shared between views decorates an image only once.
+   * <p>
+   *   Decorator is set up with the size of the loaded bitmap (after scaling to the required size).
+   *   Access to the decorator is synchronized on the decorator instance, so workers can share it,
+   *   yet it must not be used for drawing in the main thread.
+   * </p>
+   * @param decorator image decorator, must not depend on drawable state
+   */
+  public void setDecorator(final ImageDecorator decorator) {
+    if (decorator != null && decorator.dependsOnDrawableState()) {
+      throw new IllegalArgumentException("Decorators that depend on drawable state cannot be applied in background");
+    }
+    this.decorator = decorator;
+    this.decoratorId = decorator != null ? decoratorId(decorator) : 0;
+  }
+
+  public ImageDecorator getDecorator() {
+    return decorator;
+  }
+
+  private static int decoratorId(final ImageDecorator decorator) {
+    synchronized (DECORATOR_IDS) {
+      Integer id = DECORATOR_IDS.get(decorator);
+      if (id == null) {
+        id = ++lastDecoratorId;
+        DECORATOR_IDS.put(decorator, id);
+      }
+      return id;
+    }
+  }
+
+  private String decorationSuffix() {
+    return decorator == null ? "" : "#d" + decoratorId + "@" + getRequiredWidth() + "x" + getRequiredHeight();
+  }
+
   public String getKey() {
-    return url + "!" + getRequiredHeight() + "x" + getRequiredHeight();
+    return url + "!" + getRequiredHeight() + "x" + getRequiredHeight() + decorationSuffix();
   }
 
   public String getCacheKey() {
-    return url;
+    return url + decorationSuffix();
   }
 
   public boolean hasAllowedSize() {
@@ -115,23 +166,39 @@ public class ImageRequest {
   /**
    * Store image to the disk cache.
    * If max allowed size is set image may be rescaled on disk.
+   * @return count of bytes read from the source, 0 if image is already on disk
    * @throws IOException if error happens
    */
-  public void storeToDisk() throws IOException {
+  public long storeToDisk() throws IOException {
     if (manager.isPresentOnDisk(url)) {
-      return;
+      return 0;
     }
 
     if (!hasAllowedSize()) {
-      IoUtils.consumeStream(getRemoteInputStream(), manager.getBuffersPool());
-      return;
+      return downloadToDisk();
     }
 
-    ImageResult result = decodeStream(getRemoteInputStream(), true);
+    CountingInputStream input = new CountingInputStream(getRemoteInputStream());
+    ImageResult result = decodeStream(input, true);
     if (result.getType() == ImageSourceType.NETWORK && result.getBitmap() != null) {
       // image was scaled
       writeBitmapToDisk(result.getBitmap());
     }
+    return input.getCount();
+  }
+
+  /**
+   * Store image to the disk cache without decoding it. Max allowed size is ignored.
+   * @return count of bytes read from the source, 0 if image is already on disk
+   * @throws IOException if error happens
+   */
+  public long downloadToDisk() throws IOException {
+    if (manager.isPresentOnDisk(url)) {
+      return 0;
+    }
+    CountingInputStream input = new CountingInputStream(getRemoteInputStream());
+    IoUtils.consumeStream(input, manager.getBuffersPool());
+    return input.getCount();
   }
 
   /**
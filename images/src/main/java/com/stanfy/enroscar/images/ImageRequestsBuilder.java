@@ -1,5 +1,6 @@
 package com.stanfy.enroscar.images;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.concurrent.Executor;
 
@@ -18,6 +19,12 @@ public class ImageRequestsBuilder {
   /** Executor instance. */
   private Executor executor;
 
+  /** Prefetch parallelism. */
+  private int parallelism = ImagesManager.DEFAULT_PREFETCH_PARALLELISM;
+
+  /** Whether images should be stored without decoding. */
+  private boolean downloadOnly;
+
   ImageRequestsBuilder(final ImagesManager manager) {
     this.manager = manager;
   }
@@ -41,6 +48,26 @@ public class ImageRequestsBuilder {
     return this;
   }
 
+  /**
+   * Set max count of images loaded simultaneously.
+   * @param parallelism count of images
+   * @return this for chaining
+   */
+  public ImageRequestsBuilder withParallelism(final int parallelism) {
+    if (parallelism <= 0) { throw new IllegalArgumentException("parallelism must be positive"); }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Store images on disk without decoding them. Relative sizes are ignored in this mode.
+   * @return this for chaining
+   */
+  public ImageRequestsBuilder downloadOnly() {
+    this.downloadOnly = true;
+    return this;
+  }
+
   /**
    * Store images of original size on disk.
    * @return this for chaining
@@ -91,6 +118,15 @@ public class ImageRequestsBuilder {
     return this;
   }
 
+  /**
+   * Check which of the added images are already cached in memory.
+   * @return bit set where bit {@code i} is set if image {@code i} is cached in memory
+   * @see ImagesManager#probeMemCache(java.util.List)
+   */
+  public BitSet probeMemCache() {
+    return manager.probeMemCache(requests);
+  }
+
   /**
    * Start images loading.
    */
@@ -98,4 +134,13 @@ public class ImageRequestsBuilder {
     manager.ensureImages(requests, executor);
   }
 
+  /**
+   * Start images prefetching. If executor is not specified, a low priority prefetch executor is used.
+   * @return prefetch handle
+   */
+  public ImagesPrefetch prefetch() {
+    return manager.prefetchImages(requests, parallelism, downloadOnly,
+        executor != null ? executor : manager.getPrefetchExecutor());
+  }
+
 }
@@ -24,6 +24,10 @@ import com.stanfy.enroscar.net.cache.EnhancedResponseCache;
 
 import java.io.IOException;
 import java.net.ResponseCache;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
@@ -50,6 +54,9 @@ public class ImagesManager implements InitializingBean {
   /** Logging tag. */
   static final String TAG = BEAN_NAME;
 
+  /** Default count of requests processed simultaneously during prefetching. */
+  public static final int DEFAULT_PREFETCH_PARALLELISM = 2;
+
   /** Max distance between sample factor and its nearest power of 2 to use the latter. */
   static final int MAX_POWER_OF_2_DISTANCE = 3;
 
@@ -57,6 +64,11 @@ public class ImagesManager implements InitializingBean {
   // TODO make private
   final ConcurrentHashMap<String, ImageLoader> currentLoads = new ConcurrentHashMap<String, ImageLoader>(Threading.imagesWorkersCount);
 
+  /** Cache keys of decorated images by source URL. Guarded by itself. */
+  private final HashMap<String, HashSet<String>> derivedKeys = new HashMap<String, HashSet<String>>();
+  /** Source URLs by cache keys of decorated images. Guarded by {@link #derivedKeys}. */
+  private final HashMap<String, String> derivedSources = new HashMap<String, String>();
+
   /** Application context. */
   private final Context context;
 
@@ -87,6 +99,14 @@ public class ImagesManager implements InitializingBean {
     Threading.configureImageTasksExecutor(count);
   }
 
+  /**
+   * Set count of threads used to prefetch images by default.
+   * @param count count of threads
+   */
+  public static void configurePrefetchExecutorsCount(final int count) {
+    Threading.configurePrefetchExecutor(count);
+  }
+
 
   /** @return application context */
   public Context getContext() {
@@ -116,6 +136,7 @@ public class ImagesManager implements InitializingBean {
     if (buffersPool == null || memCache == null) {
       throw new IllegalStateException("Buffers pool and images memory cache must be initialized before images manager.");
     }
+    memCache.setEvictionListener(new DerivedKeysCleaner());
 
     this.imagesResponseCache = (EnhancedResponseCache) beansContainer.getBean(CACHE_BEAN_NAME, ResponseCache.class);
     if (imagesResponseCache == null) {
@@ -141,30 +162,30 @@ public class ImagesManager implements InitializingBean {
   }
 
   /**
+   * Store images to the disk cache.
    * @param images list of requests to load
    * @param executor executor to run the task (if null task is solved in the current thread)
+   * @see #prefetchImages(List, int, boolean, Executor)
    */
   public void ensureImages(final List<ImageRequest> images, final Executor executor) {
-    final Runnable task = new Runnable() {
-      @Override
-      public void run() {
-        for (final ImageRequest request : images) {
-          try {
-            request.storeToDisk();
-          } catch (final IOException e) {
-            if (debug) { Log.e(TAG, "IO error for " + request.url + ": " + e.getMessage()); }
-          } catch (final Exception e) {
-            Log.e(TAG, "Ignored error for ensureImages", e);
-          }
-        }
-      }
-    };
+    prefetchImages(images, DEFAULT_PREFETCH_PARALLELISM, false, executor);
+  }
 
-    if (executor == null) {
-      task.run();
-    } else {
-      executor.execute(task);
-    }
+  /**
+   * Start storing images to the disk cache. Requests are processed by {@code parallelism} workers
+   * running with the lowest thread priority. Loading pause is respected.
+   * Errors are ignored and just counted.
+   * @param images list of requests to load
+   * @param parallelism max count of requests processed simultaneously
+   * @param downloadOnly if true, images are stored without decoding (max allowed size is ignored)
+   * @param executor executor to run workers on (if null all requests are processed in the current thread)
+   * @return prefetch handle that can be used for cancellation and statistics
+   */
+  public ImagesPrefetch prefetchImages(final List<ImageRequest> images, final int parallelism,
+                                       final boolean downloadOnly, final Executor executor) {
+    ImagesPrefetch prefetch = new ImagesPrefetch(this, images, parallelism, downloadOnly);
+    prefetch.start(executor);
+    return prefetch;
   }
 
   /**
@@ -196,6 +217,20 @@ public class ImagesManager implements InitializingBean {
    */
   public boolean clearCache(final String url) {
     memCache.remove(url);
+    final HashSet<String> derived;
+    synchronized (derivedKeys) {
+      derived = derivedKeys.remove(url);
+      if (derived != null) {
+        for (final String key : derived) {
+          derivedSources.remove(key);
+        }
+      }
+    }
+    if (derived != null) {
+      for (final String key : derived) {
+        memCache.remove(key);
+      }
+    }
     try {
       return imagesResponseCache.deleteGetEntry(url);
     } catch (final IOException e) {
@@ -258,9 +293,37 @@ public class ImagesManager implements InitializingBean {
 
   /**
    * @param url image URL
-   * @return true if image is cached in memory
+   * @return true if image or any of its decorated versions is cached in memory
+   */
+  public boolean isMemCached(final String url) {
+    if (memCache.contains(url)) { return true; }
+    synchronized (derivedKeys) {
+      final HashSet<String> derived = derivedKeys.get(url);
+      if (derived == null) { return false; }
+      boolean result = false;
+      final Iterator<String> i = derived.iterator();
+      while (i.hasNext()) {
+        final String key = i.next();
+        if (memCache.contains(key)) {
+          result = true;
+        } else {
+          // collected in the overflow tier of the memory cache
+          i.remove();
+          derivedSources.remove(key);
+        }
+      }
+      if (derived.isEmpty()) { derivedKeys.remove(url); }
+      return result;
+    }
+  }
+
+  /**
+   * Check which of the requested images are cached in memory.
+   * Unlike loading this does not affect memory cache eviction order.
+   * @param requests image requests
+   * @return bit set where bit {@code i} is set if request {@code i} is cached in memory
    */
-  public boolean isMemCached(final String url) { return memCache.contains(url); }
+  public BitSet probeMemCache(final List<ImageRequest> requests) { return memCache.probe(requests); }
 
   /**
    * @param url image URL
@@ -355,6 +418,11 @@ public class ImagesManager implements InitializingBean {
    */
   protected Executor getImageTaskExecutor() { return Threading.getImageTasksExecutor(); }
 
+  /**
+   * @return an executor for images prefetching, its threads are not shared with visible image loads
+   */
+  protected Executor getPrefetchExecutor() { return Threading.getPrefetchExecutor(); }
+
   /**
    * @param holder image consumer
    * @return drawable to display while image is being loaded
@@ -474,6 +542,35 @@ public class ImagesManager implements InitializingBean {
     memCache.putElement(url, bitmap);
   }
 
+  /**
+   * Add an image derived from the source one (e.g. decorated) to memory cache.
+   * Derived images are cleared together with the source one.
+   * @param url source image URL
+   * @param key cache key of the derived image
+   * @param bitmap bitmap
+   */
+  void memCacheImage(final String url, final String key, final Bitmap bitmap) {
+    if (!key.equals(url)) {
+      synchronized (derivedKeys) {
+        HashSet<String> derived = derivedKeys.get(url);
+        if (derived == null) {
+          derived = new HashSet<String>();
+          derivedKeys.put(url, derived);
+        }
+        derived.add(key);
+        derivedSources.put(key, url);
+      }
+    }
+    memCacheImage(key, bitmap);
+  }
+
+  /** @return count of tracked cache keys of decorated images */
+  int getDerivedKeysCount() {
+    synchronized (derivedKeys) {
+      return derivedSources.size();
+    }
+  }
+
   static int calculateSampleFactor(final int inW, final int inH, final int width, final int height) {
     if (inW <= width && inH <= height) {
       return 1;
@@ -507,4 +604,32 @@ public class ImagesManager implements InitializingBean {
     }
   }
 
+  /** Forgets cache keys of decorated images that are no longer in the memory cache. */
+  private final class DerivedKeysCleaner implements ImageMemoryCache.EvictionListener {
+    @Override
+    public void onImageEvicted(final String key, final Bitmap image) {
+      if (memCache.contains(key)) {
+        // kept by the overflow tier, still must be removed together with its source
+        return;
+      }
+      synchronized (derivedKeys) {
+        final String url = derivedSources.remove(key);
+        if (url == null) { return; }
+        final HashSet<String> derived = derivedKeys.get(url);
+        if (derived != null) {
+          derived.remove(key);
+          if (derived.isEmpty()) { derivedKeys.remove(url); }
+        }
+      }
+    }
+
+    @Override
+    public void onCacheCleared() {
+      synchronized (derivedKeys) {
+        derivedKeys.clear();
+        derivedSources.clear();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,211 @@
+package com.stanfy.enroscar.images;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.stanfy.enroscar.images.ImagesManager.TAG;
+
+/**
+ * Handle of images prefetching started with
+ * {@link ImagesManager#prefetchImages(List, int, boolean, Executor)}.
+ * Can be used to cancel prefetching and to get its statistics.
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public final class ImagesPrefetch {
+
+  /** Images manager. */
+  private final ImagesManager manager;
+
+  /** Requests to process. */
+  private final ConcurrentLinkedQueue<ImageRequest> pending;
+
+  /** Total count of requests. */
+  private final int totalCount;
+
+  /** Count of workers. */
+  private final int workersCount;
+
+  /** Whether images should not be decoded. */
+  private final boolean downloadOnly;
+
+  /** Counters. */
+  private final AtomicInteger completedCount = new AtomicInteger(),
+                              failedCount = new AtomicInteger(),
+                              activeWorkers = new AtomicInteger();
+
+  /** Bytes counter. */
+  private final AtomicLong bytesLoaded = new AtomicLong();
+
+  /** Finish latch. */
+  private final CountDownLatch finishLatch = new CountDownLatch(1);
+
+  /** Cancel flag. */
+  private volatile boolean cancelled;
+
+  /** Listener instance. */
+  private Listener listener;
+
+  ImagesPrefetch(final ImagesManager manager, final List<ImageRequest> requests, final int parallelism,
+                 final boolean downloadOnly) {
+    if (parallelism <= 0) { throw new IllegalArgumentException("Parallelism must be positive"); }
+    this.manager = manager;
+    this.pending = new ConcurrentLinkedQueue<ImageRequest>(requests);
+    this.totalCount = requests.size();
+    this.workersCount = Math.max(1, Math.min(parallelism, totalCount));
+    this.downloadOnly = downloadOnly;
+  }
+
+  /**
+   * @param executor executor to run workers on, if null all requests are processed in the current thread
+   */
+  void start(final Executor executor) {
+    if (executor == null) {
+      activeWorkers.set(1);
+      new Worker(false).run();
+      return;
+    }
+
+    activeWorkers.set(workersCount);
+    for (int i = 0; i < workersCount; i++) {
+      executor.execute(new Worker(true));
+    }
+  }
+
+  /**
+   * Cancel prefetching. Requests that are being processed at the moment are not interrupted.
+   */
+  public void cancel() {
+    cancelled = true;
+    pending.clear();
+  }
+
+  public boolean isCancelled() { return cancelled; }
+
+  /** @return true if all the workers have finished */
+  public boolean isDone() { return finishLatch.getCount() == 0; }
+
+  /**
+   * Wait for prefetching to finish.
+   * @param timeout max time to wait
+   * @param unit time unit
+   * @return true if prefetching is finished, false if timeout elapsed
+   * @throws InterruptedException if current thread is interrupted
+   */
+  public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return finishLatch.await(timeout, unit);
+  }
+
+  /** @return count of requests passed to prefetching */
+  public int getTotalCount() { return totalCount; }
+
+  /** @return count of images that are stored to the disk cache (or were already there) */
+  public int getCompletedCount() { return completedCount.get(); }
+
+  /** @return count of images that could not be loaded */
+  public int getFailedCount() { return failedCount.get(); }
+
+  /** @return total count of bytes loaded from the network */
+  public long getBytesLoaded() { return bytesLoaded.get(); }
+
+  /**
+   * Set a listener notified when prefetching is finished.
+   * If prefetching is already done, listener is notified immediately in the current thread.
+   * Otherwise it's notified in a worker thread.
+   * @param listener listener instance
+   */
+  public void setListener(final Listener listener) {
+    boolean notify;
+    synchronized (this) {
+      this.listener = listener;
+      notify = isDone();
+    }
+    if (notify && listener != null) {
+      listener.onPrefetchFinished(this);
+    }
+  }
+
+  private void process(final ImageRequest request) {
+    try {
+      bytesLoaded.addAndGet(downloadOnly ? request.downloadToDisk() : request.storeToDisk());
+      completedCount.incrementAndGet();
+    } catch (final IOException e) {
+      failedCount.incrementAndGet();
+      if (manager.debug) { Log.e(TAG, "IO error for " + request.url + ": " + e.getMessage()); }
+    } catch (final Exception e) {
+      failedCount.incrementAndGet();
+      Log.e(TAG, "Ignored error for ensureImages", e);
+    }
+  }
+
+  private void workerFinished() {
+    if (activeWorkers.decrementAndGet() > 0) {
+      return;
+    }
+    Listener listener;
+    synchronized (this) {
+      finishLatch.countDown();
+      listener = this.listener;
+    }
+    if (manager.debug) {
+      Log.d(TAG, "Prefetch finished: " + completedCount + "/" + totalCount + ", failed " + failedCount
+          + ", bytes " + bytesLoaded + (cancelled ? ", cancelled" : ""));
+    }
+    if (listener != null) {
+      listener.onPrefetchFinished(this);
+    }
+  }
+
+  /** Worker that takes requests from the shared queue. */
+  private final class Worker implements Runnable {
+
+    /** Whether thread priority should be lowered. */
+    private final boolean lowerPriority;
+
+    Worker(final boolean lowerPriority) {
+      this.lowerPriority = lowerPriority;
+    }
+
+    @Override
+    public void run() {
+      final int tid = Process.myTid();
+      final int priority = lowerPriority ? Process.getThreadPriority(tid) : 0;
+      if (lowerPriority) {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+      }
+
+      try {
+        ImageRequest request;
+        while (!cancelled && (request = pending.poll()) != null) {
+          if (!manager.waitForPause()) {
+            // interrupted
+            break;
+          }
+          process(request);
+        }
+      } finally {
+        if (lowerPriority) {
+          Process.setThreadPriority(priority);
+        }
+        workerFinished();
+      }
+    }
+
+  }
+
+  /**
+   * Prefetch listener.
+   */
+  public interface Listener {
+    void onPrefetchFinished(ImagesPrefetch prefetch);
+  }
+
+}
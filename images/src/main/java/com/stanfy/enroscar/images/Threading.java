@@ -15,14 +15,20 @@ import android.os.Process;
  */
 final class Threading {
   /** Thread factory. */
-  private static final ThreadFactory THREAD_FACTORY = new ThreadFactory();
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactory("ImageWorker", Process.THREAD_PRIORITY_BACKGROUND);
+  /** Prefetch thread factory. */
+  private static final ThreadFactory PREFETCH_THREAD_FACTORY = new ThreadFactory("ImagePrefetch", Process.THREAD_PRIORITY_LOWEST);
   /** Tasks queue. */
   private static final LinkedBlockingQueue<Runnable> IMAGE_TASKS_QUEUE = new LinkedBlockingQueue<Runnable>();
+  /** Prefetch tasks queue. */
+  private static final LinkedBlockingQueue<Runnable> PREFETCH_TASKS_QUEUE = new LinkedBlockingQueue<Runnable>();
   /** Workers count. */
   static int imagesWorkersCount = 2;
+  /** Prefetch workers count. */
+  static int prefetchWorkersCount = ImagesManager.DEFAULT_PREFETCH_PARALLELISM;
 
   /** executors. */
-  private static Executor imageTasksExecutor;
+  private static Executor imageTasksExecutor, prefetchExecutor;
 
   /** Hidden constructor. */
   private Threading() { /* just hide */ }
@@ -33,6 +39,11 @@ final class Threading {
     return new ThreadPoolExecutor(wCount, wCount, Long.MAX_VALUE, TimeUnit.MILLISECONDS, queue);
   }
 
+  private static ThreadPoolExecutor createExecutor(final int wCount, final BlockingQueue<Runnable> queue,
+                                                   final ThreadFactory threadFactory) {
+    return new ThreadPoolExecutor(wCount, wCount, Long.MAX_VALUE, TimeUnit.MILLISECONDS, queue, threadFactory);
+  }
+
   /**
    * @param workersCount max count of workers
    */
@@ -50,6 +61,23 @@ final class Threading {
     return imageTasksExecutor;
   }
 
+  /**
+   * @param workersCount max count of prefetch workers
+   */
+  public static void configurePrefetchExecutor(final int workersCount) {
+    prefetchWorkersCount = workersCount;
+  }
+
+  /**
+   * @return the executor for images prefetching
+   */
+  public static Executor getPrefetchExecutor() {
+    if (prefetchExecutor == null) {
+      prefetchExecutor = createExecutor(prefetchWorkersCount, PREFETCH_TASKS_QUEUE, PREFETCH_THREAD_FACTORY);
+    }
+    return prefetchExecutor;
+  }
+
   /**
    * A custom thread factory.
    * @author Roman Mazur - Stanfy (http://www.stanfy.com)
@@ -57,20 +85,33 @@ final class Threading {
   private static class ThreadFactory implements java.util.concurrent.ThreadFactory {
     /** Threads counter. */
     private final AtomicInteger counter = new AtomicInteger(1);
+    /** Name prefix. */
+    private final String name;
+    /** Thread priority. */
+    private final int priority;
+    public ThreadFactory(final String name, final int priority) {
+      this.name = name;
+      this.priority = priority;
+    }
     @Override
-    public Thread newThread(final Runnable worker) { return new ImageThread(worker, counter.getAndIncrement()); }
+    public Thread newThread(final Runnable worker) {
+      return new ImageThread(worker, name + " #" + counter.getAndIncrement(), priority);
+    }
   }
 
   /**
    * @author Roman Mazur (Stanfy - http://www.stanfy.com)
    */
   private static class ImageThread extends Thread {
-    public ImageThread(final Runnable worker, final int counter) {
-      super(worker, "ImageWorker #" + counter);
+    /** Thread priority. */
+    private final int priority;
+    public ImageThread(final Runnable worker, final String name, final int priority) {
+      super(worker, name);
+      this.priority = priority;
     }
     @Override
     public void run() {
-      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+      Process.setThreadPriority(priority);
       super.run();
     }
   }
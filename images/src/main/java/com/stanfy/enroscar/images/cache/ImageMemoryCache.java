@@ -3,6 +3,10 @@ package com.stanfy.enroscar.images.cache;
 import android.graphics.Bitmap;
 
 import com.stanfy.enroscar.beans.FlushableBean;
+import com.stanfy.enroscar.images.ImageRequest;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Interface of images memory cache.
@@ -20,15 +24,77 @@ public interface ImageMemoryCache extends FlushableBean {
   void putElement(String url, Bitmap image);
 
   /**
+   * Get an image and mark it as recently used.
    * @param url URL
    * @return image bitmap
    */
   Bitmap getElement(String url);
 
+  /**
+   * Get an image without affecting eviction order and hit/miss counters.
+   * @param url URL
+   * @return image bitmap or null
+   */
+  Bitmap peekElement(String url);
+
+  /**
+   * Check whether an image is cached. Does not affect eviction order.
+   * @param url URL
+   * @return true if image is in memory
+   */
   boolean contains(String url);
 
+  /**
+   * Check a batch of requests. Does not affect eviction order.
+   * @param requests image requests
+   * @return bit set where bit {@code i} is set if request {@code i} is cached
+   */
+  BitSet probe(List<ImageRequest> requests);
+
   Bitmap remove(String url);
 
   void clear();
 
+  /**
+   * @param listener listener notified when images are evicted from this cache, may be null
+   */
+  void setEvictionListener(EvictionListener listener);
+
+  /** @return count of {@link #getElement(String)} calls that returned an image */
+  int getHitCount();
+
+  /** @return count of {@link #getElement(String)} calls that returned null */
+  int getMissCount();
+
+  /** @return count of images evicted because of the size limit */
+  int getEvictionCount();
+
+  /** @return current cache size in bytes */
+  int getSize();
+
+  /** @return max cache size in bytes */
+  int getMaxSize();
+
+  /**
+   * Eviction listener.
+   */
+  interface EvictionListener {
+
+    /**
+     * Called when an image is removed from the cache because of the size limit.
+     * Invoked in the thread that caused eviction.
+     * @param url image URL
+     * @param image evicted image
+     */
+    void onImageEvicted(String url, Bitmap image);
+
+    /**
+     * Called after all the images are removed from the cache with {@link ImageMemoryCache#clear()}
+     * (also used to flush resources on low memory).
+     * Invoked in the thread that cleared the cache.
+     */
+    void onCacheCleared();
+
+  }
+
 }
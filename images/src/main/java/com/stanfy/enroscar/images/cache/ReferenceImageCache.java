@@ -0,0 +1,178 @@
+package com.stanfy.enroscar.images.cache;
+
+import android.graphics.Bitmap;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Images cache that holds bitmaps under soft or weak references.
+ * It does not prevent images from being garbage collected and is meant to be used as an overflow tier
+ * for a cache with strong references.
+ * <p>
+ *   Note that before Honeycomb bitmap pixels are allocated in native memory, so GC
+ *   does not take them into account when clearing soft references.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ReferenceImageCache {
+
+  /** References type. */
+  public enum Type {
+    /** Use {@link SoftReference}s. Images live until VM is low on memory. */
+    SOFT,
+    /** Use {@link WeakReference}s. Images live until next GC. */
+    WEAK
+  }
+
+  /** References type. */
+  private final Type type;
+
+  /** Images. */
+  private final ConcurrentHashMap<String, Reference<Bitmap>> images = new ConcurrentHashMap<String, Reference<Bitmap>>();
+
+  /** Queue of collected references. */
+  private final ReferenceQueue<Bitmap> queue = new ReferenceQueue<Bitmap>();
+
+  /** Counters. */
+  private final AtomicInteger hitCount = new AtomicInteger(), missCount = new AtomicInteger();
+
+  public ReferenceImageCache(final Type type) {
+    this.type = type;
+  }
+
+  public Type getType() { return type; }
+
+  /**
+   * @param key image key
+   * @param image image bitmap
+   */
+  public void put(final String key, final Bitmap image) {
+    purge();
+    images.put(key, type == Type.WEAK
+        ? new WeakImageReference(key, image, queue)
+        : new SoftImageReference(key, image, queue));
+  }
+
+  /**
+   * Get an image and count a hit or a miss.
+   * @param key image key
+   * @return image bitmap or null if it is not cached or has been collected
+   */
+  public Bitmap get(final String key) {
+    Bitmap image = lookup(key);
+    (image != null ? hitCount : missCount).incrementAndGet();
+    return image;
+  }
+
+  /**
+   * Get an image and remove it from this cache. Counts a hit or a miss.
+   * @param key image key
+   * @return image bitmap or null if it is not cached or has been collected
+   */
+  public Bitmap take(final String key) {
+    Bitmap image = get(key);
+    if (image != null) {
+      images.remove(key);
+    }
+    return image;
+  }
+
+  /**
+   * Get an image without counting a hit or a miss.
+   * @param key image key
+   * @return image bitmap or null if it is not cached or has been collected
+   */
+  public Bitmap peek(final String key) {
+    return lookup(key);
+  }
+
+  public boolean contains(final String key) {
+    return lookup(key) != null;
+  }
+
+  public Bitmap remove(final String key) {
+    Reference<Bitmap> ref = images.remove(key);
+    return ref != null ? ref.get() : null;
+  }
+
+  public void clear() {
+    images.clear();
+    purge();
+  }
+
+  /** @return count of references held, some of them may be already cleared */
+  public int size() {
+    purge();
+    return images.size();
+  }
+
+  public int getHitCount() { return hitCount.get(); }
+
+  public int getMissCount() { return missCount.get(); }
+
+  /** @return ratio of hits to all {@link #get(String)} calls */
+  public float getHitRatio() {
+    return SupportLruImageMemoryCache.hitRatio(getHitCount(), getMissCount());
+  }
+
+  private Bitmap lookup(final String key) {
+    purge();
+    Reference<Bitmap> ref = images.get(key);
+    if (ref == null) {
+      return null;
+    }
+    Bitmap image = ref.get();
+    if (image == null || image.isRecycled()) {
+      images.remove(key, ref);
+      return null;
+    }
+    return image;
+  }
+
+  /** Remove entries whose bitmaps have been collected. */
+  private void purge() {
+    Reference<? extends Bitmap> ref;
+    while ((ref = queue.poll()) != null) {
+      images.remove(((ImageReference) ref).getKey(), ref);
+    }
+  }
+
+  /** Reference that knows its key. */
+  private interface ImageReference {
+    String getKey();
+  }
+
+  /** Soft reference to an image. */
+  private static final class SoftImageReference extends SoftReference<Bitmap> implements ImageReference {
+    /** Image key. */
+    private final String key;
+
+    SoftImageReference(final String key, final Bitmap image, final ReferenceQueue<Bitmap> queue) {
+      super(image, queue);
+      this.key = key;
+    }
+
+    @Override
+    public String getKey() { return key; }
+  }
+
+  /** Weak reference to an image. */
+  private static final class WeakImageReference extends WeakReference<Bitmap> implements ImageReference {
+    /** Image key. */
+    private final String key;
+
+    WeakImageReference(final String key, final Bitmap image, final ReferenceQueue<Bitmap> queue) {
+      super(image, queue);
+      this.key = key;
+    }
+
+    @Override
+    public String getKey() { return key; }
+  }
+
+}
@@ -9,8 +9,13 @@ import android.util.Log;
 import com.stanfy.enroscar.beans.Bean;
 import com.stanfy.enroscar.beans.BeansContainer;
 import com.stanfy.enroscar.beans.EnroscarBean;
+import com.stanfy.enroscar.images.ImageRequest;
 import com.stanfy.enroscar.utils.Bitmaps;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Memory cache based on {@link LruCache}.
  * @author Roman Mazur (Stanfy - http://stanfy.com)
@@ -24,6 +29,15 @@ public class SupportLruImageMemoryCache implements ImageMemoryCache, Bean {
   /** LRU cache instance. */
   private final LruCache<String, Bitmap> cache;
 
+  /**
+   * Mirror of cache entries. Used for lookups that must not change LRU order
+   * ({@link LruCache#get(Object)} always promotes an entry).
+   */
+  private final ConcurrentHashMap<String, Bitmap> index = new ConcurrentHashMap<String, Bitmap>();
+
+  /** Eviction listener. */
+  private volatile EvictionListener evictionListener;
+
   public SupportLruImageMemoryCache(final Context context) {
     this(context, 0);
   }
@@ -45,21 +59,67 @@ public class SupportLruImageMemoryCache implements ImageMemoryCache, Bean {
       @Override
       protected int sizeOf(final String key, final Bitmap value) {
         return Bitmaps.bitmapSize(value);
-      };
+      }
+      @Override
+      protected void entryRemoved(final boolean evicted, final String key, final Bitmap oldValue, final Bitmap newValue) {
+        if (newValue == null) {
+          index.remove(key, oldValue);
+        } else {
+          // replaced: index must mirror the value that stays in the cache
+          index.put(key, newValue);
+        }
+        if (evicted) {
+          onImageEvicted(key, oldValue);
+        }
+      }
     };
   }
 
+  /**
+   * Called when an image is evicted because of the size limit.
+   * Is not called when cache is cleared.
+   * @param url image URL
+   * @param image evicted image
+   */
+  protected void onImageEvicted(final String url, final Bitmap image) {
+    EvictionListener listener = evictionListener;
+    if (listener != null) {
+      listener.onImageEvicted(url, image);
+    }
+  }
+
   @Override
   public void putElement(final String url, final Bitmap image) {
-    cache.put(url, image);
+    // updates of index and cache must not interleave with concurrent puts of the same URL
+    synchronized (index) {
+      // index goes first: entryRemoved for this very entry may follow if the image is larger than the cache
+      index.put(url, image);
+      cache.put(url, image);
+    }
   }
 
   @Override
   public Bitmap getElement(final String url) { return cache.get(url); }
 
+  @Override
+  public Bitmap peekElement(final String url) { return index.get(url); }
+
   @Override
   public boolean contains(final String url) {
-    return cache.get(url) != null;
+    return index.containsKey(url);
+  }
+
+  @Override
+  public BitSet probe(final List<ImageRequest> requests) {
+    BitSet result = new BitSet(requests.size());
+    int i = 0;
+    for (ImageRequest request : requests) {
+      if (index.containsKey(request.getCacheKey())) {
+        result.set(i);
+      }
+      i++;
+    }
+    return result;
   }
 
   @Override
@@ -67,15 +127,54 @@ public class SupportLruImageMemoryCache implements ImageMemoryCache, Bean {
     return cache.remove(url);
   }
 
+  @Override
+  public void setEvictionListener(final EvictionListener listener) {
+    this.evictionListener = listener;
+  }
+
+  @Override
+  public int getHitCount() { return cache.hitCount(); }
+
+  @Override
+  public int getMissCount() { return cache.missCount(); }
+
+  @Override
+  public int getEvictionCount() { return cache.evictionCount(); }
+
+  /** @return ratio of hits to all {@link #getElement(String)} calls */
+  public float getHitRatio() {
+    return hitRatio(getHitCount(), getMissCount());
+  }
+
+  @Override
+  public int getSize() { return cache.size(); }
+
+  @Override
+  public int getMaxSize() { return cache.maxSize(); }
+
   @Override
   public void clear() {
-    cache.evictAll();
+    // unlike evictAll() removal is not reported as eviction,
+    // while evictions caused by concurrent puts still are
+    for (final String key : cache.snapshot().keySet()) {
+      cache.remove(key);
+    }
+    EvictionListener listener = evictionListener;
+    if (listener != null) {
+      listener.onCacheCleared();
+    }
+  }
+
+  static float hitRatio(final int hits, final int misses) {
+    final int total = hits + misses;
+    return total == 0 ? 0 : (float) hits / total;
   }
 
   @Override
   public void flushResources(final BeansContainer beansContainer) {
     clear();
-    Log.i(BEAN_NAME, "Images memory cache flushed");
+    Log.i(BEAN_NAME, "Images memory cache flushed. Hits: " + getHitCount() + ", misses: " + getMissCount()
+        + ", evictions: " + getEvictionCount());
   }
 
 }
@@ -0,0 +1,114 @@
+package com.stanfy.enroscar.images.cache;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.stanfy.enroscar.beans.BeansContainer;
+import com.stanfy.enroscar.beans.EnroscarBean;
+import com.stanfy.enroscar.images.ImageRequest;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Memory cache with two tiers: images evicted from the strong LRU tier are kept in a
+ * {@link ReferenceImageCache} until they are garbage collected.
+ * Hit in the overflow tier promotes an image back to the LRU.
+ * <p>
+ *   Hit and miss counters of {@link ImageMemoryCache} refer to the strong tier only.
+ *   Use {@link #getOverflowTier()} to get overflow tier statistics.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+@EnroscarBean(value = ImageMemoryCache.BEAN_NAME, contextDependent = true)
+public class TwoTierImageMemoryCache extends SupportLruImageMemoryCache {
+
+  /** Overflow tier. */
+  private final ReferenceImageCache overflow;
+
+  public TwoTierImageMemoryCache(final Context context) {
+    this(context, 0);
+  }
+
+  public TwoTierImageMemoryCache(final Context context, final int size) {
+    this(context, size, ReferenceImageCache.Type.SOFT);
+  }
+
+  public TwoTierImageMemoryCache(final Context context, final int size, final ReferenceImageCache.Type overflowType) {
+    super(context, size);
+    this.overflow = new ReferenceImageCache(overflowType);
+  }
+
+  /** @return overflow tier */
+  public ReferenceImageCache getOverflowTier() { return overflow; }
+
+  @Override
+  protected void onImageEvicted(final String url, final Bitmap image) {
+    overflow.put(url, image);
+    super.onImageEvicted(url, image);
+  }
+
+  @Override
+  public void putElement(final String url, final Bitmap image) {
+    overflow.remove(url);
+    super.putElement(url, image);
+  }
+
+  @Override
+  public Bitmap getElement(final String url) {
+    Bitmap image = super.getElement(url);
+    if (image == null) {
+      image = overflow.take(url);
+      if (image != null) {
+        super.putElement(url, image);
+      }
+    }
+    return image;
+  }
+
+  @Override
+  public Bitmap peekElement(final String url) {
+    Bitmap image = super.peekElement(url);
+    return image != null ? image : overflow.peek(url);
+  }
+
+  @Override
+  public boolean contains(final String url) {
+    return super.contains(url) || overflow.contains(url);
+  }
+
+  @Override
+  public BitSet probe(final List<ImageRequest> requests) {
+    BitSet result = super.probe(requests);
+    int i = 0;
+    for (ImageRequest request : requests) {
+      if (!result.get(i) && overflow.contains(request.getCacheKey())) {
+        result.set(i);
+      }
+      i++;
+    }
+    return result;
+  }
+
+  @Override
+  public Bitmap remove(final String url) {
+    Bitmap overflowImage = overflow.remove(url);
+    Bitmap image = super.remove(url);
+    return image != null ? image : overflowImage;
+  }
+
+  @Override
+  public void clear() {
+    // clear the overflow tier first, so that the listener is notified when both tiers are empty
+    overflow.clear();
+    super.clear();
+  }
+
+  @Override
+  public void flushResources(final BeansContainer beansContainer) {
+    Log.i(BEAN_NAME, "Overflow tier hits: " + overflow.getHitCount() + ", misses: " + overflow.getMissCount());
+    super.flushResources(beansContainer);
+  }
+
+}
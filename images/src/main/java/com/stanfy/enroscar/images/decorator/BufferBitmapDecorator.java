@@ -2,43 +2,86 @@ package com.stanfy.enroscar.images.decorator;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 
 /**
- * Decorator that requires a buffer. It caches the bitmap whenever it's possible.
+ * Decorator that requires a buffer. Buffer is taken from {@link ScratchBitmapPool} during setup
+ * and returned to the pool after decoration.
  * @author Roman Mazur (Stanfy - http://www.stanfy.com)
  */
 public abstract class BufferBitmapDecorator extends ImageDecoratorAdapter {
 
+  /** Paint that replaces target pixels (no need to erase the target before drawing). */
+  private static final Paint COPY_PAINT = new Paint();
+  static {
+    COPY_PAINT.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+  }
+
+  /** Buffers pool. */
+  private ScratchBitmapPool pool = ScratchBitmapPool.getDefault();
+  /** Acquired buffer. */
+  private ScratchBitmapPool.Scratch scratch;
+
   /** Buffer bitmap. */
   Bitmap bitmap;
   /** Buffer canvas. */
   Canvas bitmapCanvas;
 
+  /** @param pool buffers pool to use */
+  public void setScratchPool(final ScratchBitmapPool pool) {
+    releaseBuffer();
+    this.pool = pool;
+  }
+
   /**
    * Prepare for new width and hight.
+   * Buffer can be larger than requested.
    * @param width new width
    * @param height new height
    */
   protected void reset(final int width, final int height) {
-    Bitmap bitmap = this.bitmap;
-    // recycle old buffer
-    if (bitmap != null) { bitmap.recycle(); }
-    bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888); // high quality
-    this.bitmap = bitmap;
-    this.bitmapCanvas = new Canvas(bitmap);
+    releaseBuffer();
+    final ScratchBitmapPool.Scratch scratch = pool.acquire(width, height);
+    this.scratch = scratch;
+    this.bitmap = scratch.bitmap;
+    this.bitmapCanvas = scratch.canvas;
+  }
+
+  /** Return current buffer to the pool. */
+  void releaseBuffer() {
+    final ScratchBitmapPool.Scratch scratch = this.scratch;
+    if (scratch != null) {
+      this.scratch = null;
+      this.bitmap = null;
+      this.bitmapCanvas = null;
+      pool.release(scratch);
+    }
   }
 
   @Override
   public void setup(final int width, final int height, final int[] state, final int level, final int sourceWidth, final int sourceHeight) {
-    if (width <= 0 || height <= 0) { this.bitmap = null; return; }
-    final Bitmap bitmap = this.bitmap;
+    if (width <= 0 || height <= 0) { releaseBuffer(); return; }
+    reset(width, height);
+  }
 
-    // need a new buffer?
-    if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
-      reset(width, height);
-    }
+  @Override
+  protected void onDecorated() {
+    releaseBuffer();
+  }
+
+  /**
+   * Copy buffer contents to the target replacing its pixels.
+   * @param target target canvas
+   */
+  protected void copyBufferTo(final Canvas target) {
+    target.drawBitmap(bitmap, 0, 0, COPY_PAINT);
   }
 
+  /** @return true if buffer is prepared */
+  boolean hasBuffer() { return bitmap != null; }
+
   /** @return the bitmap */
   protected Bitmap getBitmap() { return bitmap; }
   /** @return the bitmapCanvas */
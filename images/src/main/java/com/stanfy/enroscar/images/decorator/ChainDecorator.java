@@ -15,6 +15,9 @@ public class ChainDecorator extends ImageDecoratorAdapter {
   /** Stateful flag. */
   private final boolean stateful;
 
+  /** Count of fused passes. */
+  private int fusedPassCount;
+
   public ChainDecorator(final ImageDecorator... decorators) {
     this.chain = decorators;
     for (final ImageDecorator d : decorators) {
@@ -29,15 +32,65 @@ public class ChainDecorator extends ImageDecoratorAdapter {
   @Override
   public Bitmap processBitmap(final Bitmap bitmap, final Canvas bitmapVanvas) {
     Bitmap result = bitmap;
+    Canvas canvas = bitmapVanvas;
     final ImageDecorator[] chain = this.chain;
-    for (int i = 0; i < chain.length; i++) {
-      final Bitmap next = chain[i].decorateBitmap(result, bitmapVanvas);
-      if (next != result) { result.recycle(); }
+    int i = 0;
+    while (i < chain.length) {
+      int runEnd = i;
+      while (runEnd < chain.length && isFusable(chain[runEnd])) { runEnd++; }
+      if (runEnd - i > 1) {
+        processFused(i, runEnd, result, canvas);
+        i = runEnd;
+        continue;
+      }
+
+      final Bitmap next = chain[i].decorateBitmap(result, canvas);
+      if (next != result) {
+        result.recycle();
+        canvas = new Canvas(next);
+      }
       result = next;
+      i++;
     }
     return result;
   }
 
+  private static boolean isFusable(final ImageDecorator decorator) {
+    return decorator instanceof BufferBitmapDecorator
+        && decorator instanceof FusableDecorator
+        && ((BufferBitmapDecorator) decorator).hasBuffer();
+  }
+
+  /**
+   * Apply a run of fusable decorators: each one draws previous buffer to its own buffer,
+   * only the last buffer is copied to the target.
+   */
+  private void processFused(final int start, final int end, final Bitmap target, final Canvas targetCanvas) {
+    final ImageDecorator[] chain = this.chain;
+    Bitmap input = target;
+    BufferBitmapDecorator last = null;
+    for (int i = start; i < end; i++) {
+      final BufferBitmapDecorator d = (BufferBitmapDecorator) chain[i];
+      final Bitmap output = ((FusableDecorator) d).drawToBuffer(input);
+      if (output == null) {
+        // decorator skipped its work
+        d.releaseBuffer();
+        continue;
+      }
+      if (last != null) { last.releaseBuffer(); }
+      last = d;
+      input = output;
+    }
+    if (last != null) {
+      last.copyBufferTo(targetCanvas);
+      last.releaseBuffer();
+      fusedPassCount += end - start - 1;
+    }
+  }
+
+  /** @return count of intermediate buffer copies avoided by fusing decorators */
+  public int getFusedPassCount() { return fusedPassCount; }
+
   @Override
   public boolean dependsOnDrawableState() { return stateful; }
 
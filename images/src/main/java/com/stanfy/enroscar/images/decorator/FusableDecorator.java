@@ -0,0 +1,18 @@
+package com.stanfy.enroscar.images.decorator;
+
+import android.graphics.Bitmap;
+
+/**
+ * {@link BufferBitmapDecorator} that can draw its result to its own buffer without modifying the source.
+ * {@link ChainDecorator} uses it to skip intermediate buffer copies.
+ */
+public interface FusableDecorator {
+
+  /**
+   * Draw decorated source to the buffer without modifying the source.
+   * @param source source bitmap (can be larger than the decorated area)
+   * @return buffer bitmap, null if decorator skipped its work
+   */
+  Bitmap drawToBuffer(Bitmap source);
+
+}
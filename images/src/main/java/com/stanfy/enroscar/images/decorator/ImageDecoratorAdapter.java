@@ -19,7 +19,18 @@ public abstract class ImageDecoratorAdapter implements ImageDecorator {
 
   @Override
   public final Bitmap decorateBitmap(final Bitmap bitmap, final Canvas canvas) {
-    return processBitmap(bitmap, canvas == null ? new Canvas(bitmap) : canvas);
+    try {
+      return processBitmap(bitmap, canvas == null ? new Canvas(bitmap) : canvas);
+    } finally {
+      onDecorated();
+    }
+  }
+
+  /**
+   * Called after {@link #processBitmap(Bitmap, Canvas)}. Can be used to release resources prepared in setup.
+   */
+  protected void onDecorated() {
+    // nothing
   }
 
   /**
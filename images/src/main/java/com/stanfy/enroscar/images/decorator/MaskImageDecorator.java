@@ -13,7 +13,7 @@ import android.graphics.RectF;
  * Decorate an image using mask (for corners rounding, for example).
  * @author Roman Mazur (Stanfy - http://www.stanfy.com)
  */
-public class MaskImageDecorator extends BufferBitmapDecorator {
+public class MaskImageDecorator extends BufferBitmapDecorator implements FusableDecorator {
 
   /** Custom mask mode. */
   private static final int CUSTOM_MASK = 0;
@@ -80,8 +80,15 @@ public class MaskImageDecorator extends BufferBitmapDecorator {
   @Override
   public Bitmap processBitmap(final Bitmap source, final Canvas sourceCanvas) {
     if (source == null) { return null; }
+    if (!hasBuffer()) { return source; }
+    if (drawToBuffer(source) == null) { return source; }
+    copyBufferTo(sourceCanvas);
+    return source;
+  }
+
+  @Override
+  public Bitmap drawToBuffer(final Bitmap source) {
     final Bitmap buffer = this.bitmap;
-    if (buffer == null) { return source; }
     buffer.eraseColor(0);
     final Canvas bufferCanvas = this.bitmapCanvas;
 
@@ -104,18 +111,12 @@ public class MaskImageDecorator extends BufferBitmapDecorator {
         bufferCanvas.drawPath(path, fillPaint);
       }
       break;
-    default: return source;
+    default: return null;
     }
 
     // main drawing
     bufferCanvas.drawBitmap(source, 0, 0, maskPaint);
-
-    // modify source
-    source.eraseColor(0);
-    sourceCanvas.drawBitmap(buffer, 0, 0, null);
-
-    // return source
-    return source;
+    return buffer;
   }
 
   @Override
@@ -123,17 +124,8 @@ public class MaskImageDecorator extends BufferBitmapDecorator {
     final int w = fitSourcePolicy ? Math.min(width, sourceWidth) : width;
     final int h = fitSourcePolicy ? Math.min(height, sourceHeight) : height;
     rect.set(0, 0, w, h);
-    if (w <= 0 || h <= 0) { this.bitmap = null; return; }
-    Bitmap bitmap = this.bitmap;
-
-    // need a new buffer?
-    if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
-      // recycle old buffer
-      if (bitmap != null) { bitmap.recycle(); }
-      bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888); // high quality
-      this.bitmap = bitmap;
-      this.bitmapCanvas = new Canvas(bitmap);
-    }
+    if (w <= 0 || h <= 0) { releaseBuffer(); return; }
+    reset(width, height);
   }
 
 }
@@ -0,0 +1,165 @@
+package com.stanfy.enroscar.images.decorator;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of scratch bitmaps used by decorators as drawing buffers.
+ * Bitmap sizes are rounded up to {@link #BUCKET_STEP}, so that views with slightly different sizes
+ * share the same buffers. Released buffers are kept while their total size fits the memory budget,
+ * least recently released buffers are recycled first.
+ * <p>
+ *   Acquired buffers can be larger than requested and may contain garbage:
+ *   erase them before drawing.
+ * </p>
+ * @author Roman Mazur (Stanfy - http://stanfy.com)
+ */
+public class ScratchBitmapPool {
+
+  /** Size rounding step. */
+  public static final int BUCKET_STEP = 32;
+
+  /** Default budget (2 MB). */
+  public static final int DEFAULT_BUDGET = 2 * 1024 * 1024;
+
+  /** Bytes per ARGB_8888 pixel. */
+  private static final int BYTES_PER_PIXEL = 4;
+
+  /** Default instance. */
+  private static ScratchBitmapPool defaultPool;
+
+  /** Memory budget. */
+  private final int budget;
+
+  /** Released buffers. First is the oldest. */
+  private final LinkedList<Scratch> idle = new LinkedList<Scratch>();
+
+  /** Size of released buffers. */
+  private int idleSize;
+
+  /** Counters. */
+  private int allocationCount, reuseCount, discardCount;
+
+  public ScratchBitmapPool(final int budget) {
+    this.budget = budget;
+  }
+
+  /** @return shared pool instance */
+  public static synchronized ScratchBitmapPool getDefault() {
+    if (defaultPool == null) {
+      defaultPool = new ScratchBitmapPool(DEFAULT_BUDGET);
+    }
+    return defaultPool;
+  }
+
+  /**
+   * Replace the shared pool. Decorators created before this call keep using the old one.
+   * @param pool new pool instance
+   */
+  public static synchronized void setDefault(final ScratchBitmapPool pool) {
+    defaultPool = pool;
+  }
+
+  static int bucket(final int size) {
+    return (size + BUCKET_STEP - 1) / BUCKET_STEP * BUCKET_STEP;
+  }
+
+  /**
+   * @param width min required width
+   * @param height min required height
+   * @return scratch buffer with at least required size
+   */
+  public Scratch acquire(final int width, final int height) {
+    final int w = bucket(width), h = bucket(height);
+    synchronized (this) {
+      for (Iterator<Scratch> i = idle.iterator(); i.hasNext();) {
+        Scratch scratch = i.next();
+        if (scratch.bitmap.getWidth() == w && scratch.bitmap.getHeight() == h) {
+          i.remove();
+          idleSize -= scratch.size();
+          reuseCount++;
+          return scratch;
+        }
+      }
+      allocationCount++;
+    }
+    return new Scratch(Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888)); // high quality
+  }
+
+  /**
+   * Return a buffer to the pool.
+   * @param scratch buffer acquired with {@link #acquire(int, int)}
+   */
+  public void release(final Scratch scratch) {
+    final int size = scratch.size();
+    synchronized (this) {
+      if (size <= budget) {
+        idle.addLast(scratch);
+        idleSize += size;
+        while (idleSize > budget) {
+          Scratch oldest = idle.removeFirst();
+          idleSize -= oldest.size();
+          discard(oldest);
+        }
+        return;
+      }
+    }
+    discard(scratch);
+  }
+
+  private void discard(final Scratch scratch) {
+    synchronized (this) {
+      discardCount++;
+    }
+    scratch.bitmap.recycle();
+  }
+
+  /** Recycle all released buffers. */
+  public synchronized void clear() {
+    for (Scratch scratch : idle) {
+      scratch.bitmap.recycle();
+    }
+    discardCount += idle.size();
+    idle.clear();
+    idleSize = 0;
+  }
+
+  /** @return count of allocated bitmaps */
+  public synchronized int getAllocationCount() { return allocationCount; }
+
+  /** @return count of allocations avoided by reusing released buffers */
+  public synchronized int getReuseCount() { return reuseCount; }
+
+  /** @return count of recycled buffers */
+  public synchronized int getDiscardCount() { return discardCount; }
+
+  /** @return total size of released buffers kept in the pool */
+  public synchronized int getIdleSize() { return idleSize; }
+
+  /**
+   * Scratch buffer: bitmap and its canvas.
+   */
+  public static final class Scratch {
+    /** Bitmap. */
+    final Bitmap bitmap;
+    /** Canvas bound to the bitmap. */
+    final Canvas canvas;
+
+    Scratch(final Bitmap bitmap) {
+      this.bitmap = bitmap;
+      this.canvas = new Canvas(bitmap);
+    }
+
+    public Bitmap getBitmap() { return bitmap; }
+
+    public Canvas getCanvas() { return canvas; }
+
+    int size() {
+      return bitmap.getWidth() * bitmap.getHeight() * BYTES_PER_PIXEL;
+    }
+  }
+
+}
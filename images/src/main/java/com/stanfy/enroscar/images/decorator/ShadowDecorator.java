@@ -12,7 +12,7 @@ import android.graphics.Rect;
  * Always behaves like  {@link #fitSourcePolicy} = true.
  * @author Roman Mazur (Stanfy - http://www.stanfy.com)
  */
-public class ShadowDecorator extends BufferBitmapDecorator {
+public class ShadowDecorator extends BufferBitmapDecorator implements FusableDecorator {
 
   /** Internal coefficient. */
   private static final int BLUR_C = 7;
@@ -36,6 +36,14 @@ public class ShadowDecorator extends BufferBitmapDecorator {
 
   @Override
   protected Bitmap processBitmap(final Bitmap source, final Canvas sourceCanvas) {
+    if (!hasBuffer()) { return source; }
+    drawToBuffer(source);
+    copyBufferTo(sourceCanvas);
+    return source;
+  }
+
+  @Override
+  public Bitmap drawToBuffer(final Bitmap source) {
     final Bitmap buffer = this.bitmap;
     final Canvas bufferCanvas = this.bitmapCanvas;
     final Paint shadowPaint = this.shadowPaint;
@@ -46,11 +54,7 @@ public class ShadowDecorator extends BufferBitmapDecorator {
     shadowPaint.setShadowLayer(blur, size, size, Color.BLACK);
     bufferCanvas.drawRect(dst, shadowPaint);
     bufferCanvas.drawBitmap(source, src, dst, null);
-
-    source.eraseColor(0);
-    sourceCanvas.drawBitmap(buffer, 0, 0, null);
-
-    return source;
+    return buffer;
   }
 
   @Override
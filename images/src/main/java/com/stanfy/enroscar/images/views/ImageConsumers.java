@@ -13,6 +13,7 @@ import com.stanfy.enroscar.images.ImageRequest;
 import com.stanfy.enroscar.images.ImagesManager;
 import com.stanfy.enroscar.images.ViewImageConsumer;
 import com.stanfy.enroscar.images.ViewImageConsumerFactory;
+import com.stanfy.enroscar.images.decorator.ImageDecorator;
 
 /**
  * Image holders.
@@ -46,6 +47,9 @@ public final class ImageConsumers implements ViewImageConsumerFactory {
    */
   static class LoadableImageViewConsumer extends ImageViewConsumer {
 
+    /** Whether the last request asked for background decoration. */
+    private boolean decorationRequested;
+
     public LoadableImageViewConsumer(final LoadableImageView view) {
       super(view);
     }
@@ -53,7 +57,11 @@ public final class ImageConsumers implements ViewImageConsumerFactory {
     @Override
     protected void prepareImageRequest(final ImageRequest request) {
       super.prepareImageRequest(request);
-      request.setSkipScaleBeforeMemCache(((LoadableImageView)getView()).isSkipScaleBeforeCache());
+      final LoadableImageView view = (LoadableImageView)getView();
+      request.setSkipScaleBeforeMemCache(view.isSkipScaleBeforeCache());
+      final ImageDecorator decorator = view.getBackgroundDecorator();
+      request.setDecorator(decorator);
+      decorationRequested = decorator != null;
     }
 
     @Override
@@ -79,6 +87,7 @@ public final class ImageConsumers implements ViewImageConsumerFactory {
       } else {
         view.setImageDrawable(d);
       }
+      view.setDrawablePredecorated(decorationRequested);
     }
 
     @Override
@@ -41,12 +41,16 @@ public class ImageView extends android.widget.ImageView {
 
   /** Corners decorators store. */
   private static final RadiusDecoratorsCache CORNERS_DOCORATORS = new RadiusDecoratorsCache();
+  /** Corners decorators used by image loaders in worker threads. */
+  private static final RadiusDecoratorsCache BACKGROUND_CORNERS_DOCORATORS = new RadiusDecoratorsCache();
 
   /** Very small bitmap to be set to decoration canvas ({@link #decorationCanvas}). */
   private static final Bitmap NULL_BITMAP = Bitmap.createBitmap(1, 1, Config.ALPHA_8);
 
   /** Image decorator. */
   private ImageDecorator imageDecorator;
+  /** Image decorator instance for worker threads. */
+  private ImageDecorator backgroundImageDecorator;
 
   /** Draw matrix. */
   private Matrix drawMatrix = null;
@@ -69,6 +73,13 @@ public class ImageView extends android.widget.ImageView {
   private SoftReference<Bitmap> decoratedCache;
   /** Flag that decorated cache bitmap is actual. */
   private boolean decoratedCacheActual;
+  /** Flag that current drawable is already decorated (e.g. in a worker thread). */
+  private boolean drawablePredecorated;
+
+  /** Draw statistics. */
+  private static final DrawStats DRAW_STATS = new DrawStats();
+  /** Whether to collect draw statistics. */
+  private static boolean collectDrawStats;
 
   /** Flag to respect {@link Drawable#getIntrinsicWidth()} and {@link Drawable#getIntrinsicHeight()} values. */
   private Boolean respectIntrinsicDrawableSize = null;
@@ -144,19 +155,60 @@ public class ImageView extends android.widget.ImageView {
 
   /** @param imageDecorator the imageDecorator to set */
   public void setImageDecorator(final ImageDecorator imageDecorator) {
+    setImageDecorator(imageDecorator, null);
+  }
+
+  /**
+   * Set image decorators. Decorators are not thread-safe, so images decorated in worker threads
+   * require a separate instance that is never used for drawing.
+   * @param imageDecorator decorator applied on drawing
+   * @param backgroundImageDecorator instance of the same decorator that can be applied in worker threads,
+   *                                 may be null
+   */
+  public void setImageDecorator(final ImageDecorator imageDecorator, final ImageDecorator backgroundImageDecorator) {
     this.imageDecorator = imageDecorator;
+    this.backgroundImageDecorator = backgroundImageDecorator;
     setDrawingCacheEnabled(true);
   }
 
   /** @return image decorator */
   public ImageDecorator getImageDecorator() { return imageDecorator; }
 
+  /** @return image decorator instance for worker threads */
+  public ImageDecorator getBackgroundImageDecorator() { return backgroundImageDecorator; }
+
+  /**
+   * Mark current drawable as already decorated, so that image decorator is not applied on drawing.
+   * The flag is reset by the next call to {@link #setImageDrawable(Drawable)}.
+   * @param predecorated flag value
+   */
+  public void setDrawablePredecorated(final boolean predecorated) {
+    if (this.drawablePredecorated != predecorated) {
+      this.drawablePredecorated = predecorated;
+      clearDecorateCache();
+      invalidate();
+    }
+  }
+
+  /** @return whether current drawable is already decorated */
+  public boolean isDrawablePredecorated() { return drawablePredecorated; }
+
+  /**
+   * Enable or disable collecting of main thread draw time statistics (for all instances).
+   * @param collect flag value
+   */
+  public static void setCollectDrawStats(final boolean collect) { collectDrawStats = collect; }
+
+  /** @return main thread draw time statistics */
+  public static DrawStats getDrawStats() { return DRAW_STATS; }
+
   /**
    * Set a radius of corners when drawing a bitmap image.
    * @param r radius to set
    */
   public void setCornersRadius(final int r) {
     imageDecorator = r > 0 ? CORNERS_DOCORATORS.getDecorator(r) : null;
+    backgroundImageDecorator = r > 0 ? BACKGROUND_CORNERS_DOCORATORS.getDecorator(r) : null;
   }
 
   /** @param drawMatrix the drawMatrix to set */
@@ -191,20 +243,34 @@ public class ImageView extends android.widget.ImageView {
 
   @Override
   protected void onDraw(final Canvas canvas) {
+    if (!collectDrawStats) {
+      drawImage(canvas);
+      return;
+    }
+    final long start = System.nanoTime();
+    final boolean decorated = drawImage(canvas);
+    DRAW_STATS.record(System.nanoTime() - start, decorated);
+  }
+
+  /**
+   * @param canvas canvas to draw on
+   * @return true if image decorator has been applied
+   */
+  private boolean drawImage(final Canvas canvas) {
     final Drawable d = getDrawable();
-    if (d == null) { return; }
+    if (d == null) { return false; }
 
     final ImageDecorator imageDecorator = this.imageDecorator;
-    if (imageDecorator == null) {
+    if (imageDecorator == null || drawablePredecorated) {
       super.onDraw(canvas);
-      return;
+      return false;
     }
 
     final int pl = getPaddingLeft(), pt = getPaddingTop();
     final int resultW = getMeasuredWidth() - pl - getPaddingRight(), resultH = getMeasuredHeight() - pt - getPaddingBottom();
     if (resultW <= 0 || resultH <= 0) {
       super.onDraw(canvas);
-      return;
+      return false;
     }
 
     final Matrix drawMatrix = this.drawMatrix;
@@ -214,7 +280,7 @@ public class ImageView extends android.widget.ImageView {
     if (useIntrinsic) {
       realW = d.getIntrinsicWidth();
       realH = d.getIntrinsicHeight();
-      if (realW == 0 || realH == 0) { return; } // nothing to draw
+      if (realW == 0 || realH == 0) { return false; } // nothing to draw
       if (drawMatrix != null) {
         final float[] src = bufferSrcVector, dst = bufferDstVector;
         src[0] = realW;
@@ -229,6 +295,7 @@ public class ImageView extends android.widget.ImageView {
     }
 
     final Bitmap decorated;
+    boolean decoratedNow = false;
 
     Bitmap bitmap = decoratedCache != null ? decoratedCache.get() : null;
     if (bitmap == null || bitmap.getWidth() != resultW || bitmap.getHeight() != resultH) {
@@ -246,6 +313,7 @@ public class ImageView extends android.widget.ImageView {
        * it can be reset by invalidateSelf call (see TransitionDrawable)
        */
       decoratedCacheActual = true;
+      decoratedNow = true;
 
       imageDecorator.setup(resultW, resultH, getDrawableState(), d.getLevel(), realW, realH);
 
@@ -280,6 +348,7 @@ public class ImageView extends android.widget.ImageView {
       canvas.drawBitmap(decorated, 0, 0, null);
       canvas.restoreToCount(saveCount);
     }
+    return decoratedNow;
   }
 
   @Override
@@ -347,6 +416,8 @@ public class ImageView extends android.widget.ImageView {
       storedScaleType = null;
     }
 
+    drawablePredecorated = false;
+
     // block layout requests if needed
     if (minimizeLayoutRequests) { blockLayoutRequests = true; }
     super.setImageDrawable(drawable);
@@ -379,6 +450,51 @@ public class ImageView extends android.widget.ImageView {
     decoratedCacheActual = false;
   }
 
+  /**
+   * Main thread draw time statistics.
+   * Should be accessed from the main thread only.
+   */
+  public static final class DrawStats {
+    /** Counters. */
+    private long drawCount, decorationCount;
+    /** Time counters (nanos). */
+    private long drawTime, decorationTime;
+
+    DrawStats() { }
+
+    void record(final long time, final boolean decorated) {
+      if (decorated) {
+        decorationCount++;
+        decorationTime += time;
+      } else {
+        drawCount++;
+        drawTime += time;
+      }
+    }
+
+    /** @return count of draws without decoration */
+    public long getDrawCount() { return drawCount; }
+    /** @return count of draws that applied the decorator */
+    public long getDecorationCount() { return decorationCount; }
+    /** @return average time of draws without decoration (nanos) */
+    public long getAverageDrawTime() { return drawCount == 0 ? 0 : drawTime / drawCount; }
+    /** @return average time of draws that applied the decorator (nanos) */
+    public long getAverageDecorationTime() { return decorationCount == 0 ? 0 : decorationTime / decorationCount; }
+
+    public void reset() {
+      drawCount = 0;
+      decorationCount = 0;
+      drawTime = 0;
+      decorationTime = 0;
+    }
+
+    @Override
+    public String toString() {
+      return "draws: " + drawCount + " (avg " + getAverageDrawTime() + "ns), decorations: " + decorationCount
+          + " (avg " + getAverageDecorationTime() + "ns)";
+    }
+  }
+
   /**
    * @author Roman Mazur (Stanfy - http://www.stanfy.com)
    */
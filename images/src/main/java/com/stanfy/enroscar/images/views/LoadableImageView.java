@@ -12,6 +12,7 @@ import com.stanfy.enroscar.images.ImagesLoadListenerProvider;
 import com.stanfy.enroscar.images.ImagesManager;
 import com.stanfy.enroscar.images.R;
 import com.stanfy.enroscar.images.ViewImageConsumer;
+import com.stanfy.enroscar.images.decorator.ImageDecorator;
 
 /**
  * Image view that can load a remote image.
@@ -30,6 +31,8 @@ public class LoadableImageView extends ImageView implements ImagesLoadListenerPr
   private boolean skipLoadingImage;
   /** Use transition option. */
   private int useTransition;
+  /** Decorate loaded images in worker threads. */
+  private boolean decorateInBackground;
 
   /** Images load listener. */
   private ImagesLoadListener listener;
@@ -63,6 +66,7 @@ public class LoadableImageView extends ImageView implements ImagesLoadListenerPr
     final boolean allowSmallCachedImages = a.getBoolean(R.styleable.LoadableImageView_allowSmallImagesInCache, false);
     final Drawable loadingImage = a.getDrawable(R.styleable.LoadableImageView_loadingImage);
     final int useTransition = a.getInt(R.styleable.LoadableImageView_useTransition, USE_TRANSITION_NO);
+    final boolean decorateInBackground = a.getBoolean(R.styleable.LoadableImageView_decorateInBackground, false);
     a.recycle();
 
     setAllowSmallImagesInCache(allowSmallCachedImages);
@@ -72,6 +76,7 @@ public class LoadableImageView extends ImageView implements ImagesLoadListenerPr
       setLoadingImageDrawable(loadingImage);
     }
     setUseTransitionMode(useTransition);
+    setDecorateInBackground(decorateInBackground);
 
     if (!isInEditMode()) {
       this.imagesManager = BeansManager.get(context).getContainer().getBean(ImagesManager.class);
@@ -116,6 +121,30 @@ public class LoadableImageView extends ImageView implements ImagesLoadListenerPr
     return skipLoadingImage;
   }
 
+  /**
+   * Apply image decorator to loaded images in worker threads. Decorated images are stored in the memory cache
+   * and shared between views that use the same decorator instance.
+   * Ignored if decorator depends on drawable state or if there is no background decorator instance
+   * (see {@link #setImageDecorator(ImageDecorator, ImageDecorator)}).
+   * Decorator is applied to the scaled bitmap, not to the view area, so this mode suits best
+   * for scale types that display the whole image.
+   * @param decorateInBackground flag value
+   */
+  public void setDecorateInBackground(final boolean decorateInBackground) {
+    this.decorateInBackground = decorateInBackground;
+  }
+
+  /** @return whether loaded images are decorated in worker threads */
+  public boolean isDecorateInBackground() {
+    return decorateInBackground;
+  }
+
+  /** @return decorator to apply to loaded images in a worker thread, null if images are decorated on drawing */
+  ImageDecorator getBackgroundDecorator() {
+    final ImageDecorator decorator = getBackgroundImageDecorator();
+    return decorateInBackground && decorator != null && !decorator.dependsOnDrawableState() ? decorator : null;
+  }
+
   public void setAllowSmallImagesInCache(final boolean allowSmallImagesInCache) {
     this.allowSmallImagesInCache = allowSmallImagesInCache;
   }
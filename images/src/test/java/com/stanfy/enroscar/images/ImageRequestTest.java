@@ -6,6 +6,7 @@ import android.graphics.BitmapFactory;
 import android.util.Base64;
 
 import com.google.mockwebserver.MockResponse;
+import com.stanfy.enroscar.images.decorator.MaskImageDecorator;
 import com.stanfy.enroscar.io.IoUtils;
 
 import org.hamcrest.BaseMatcher;
@@ -55,6 +56,27 @@ public class ImageRequestTest extends AbstractImagesTest {
     assertThat(request.hasAllowedSize()).isTrue();
   }
 
+  @Test
+  public void cacheKeyShouldIncludeDecoratorAndSize() {
+    MaskImageDecorator decorator = new MaskImageDecorator(2);
+    ImageRequest plain = new ImageRequest(manager, "any", -1);
+    ImageRequest decorated = new ImageRequest(manager, "any", -1);
+    decorated.setDecorator(decorator);
+    ImageRequest sameDecorated = new ImageRequest(manager, "any", -1);
+    sameDecorated.setDecorator(decorator);
+    ImageRequest otherDecorated = new ImageRequest(manager, "any", -1);
+    otherDecorated.setDecorator(new MaskImageDecorator(2));
+
+    assertThat(plain.getCacheKey()).isEqualTo("any");
+    assertThat(decorated.getCacheKey()).isNotEqualTo(plain.getCacheKey());
+    assertThat(decorated.getCacheKey()).isEqualTo(sameDecorated.getCacheKey());
+    assertThat(decorated.getCacheKey()).isNotEqualTo(otherDecorated.getCacheKey());
+    assertThat(decorated.getKey()).isNotEqualTo(plain.getKey());
+
+    sameDecorated.setRequiredWidth(TEST_BITMAP_SIZE);
+    assertThat(decorated.getCacheKey()).isNotEqualTo(sameDecorated.getCacheKey());
+  }
+
   @Test
   public void shouldNotThrowIfUndefinedRequiredSize() throws IOException {
     ImageRequest request = new ImageRequest(manager, defaultUrl, -1);
@@ -13,6 +13,9 @@ import org.robolectric.Robolectric;
 import org.robolectric.annotation.Config;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -54,6 +57,56 @@ public class ImagesManagerTest extends AbstractImagesTest {
     assertThat(imagesManager.getMemCached("http://123.com", new Consumer(0, size))).isNull();
   }
 
+  @Test
+  public void probeMemCacheShouldReportCachedImages() {
+    SupportLruImageMemoryCache memCache = BeansManager.get(Robolectric.application).getContainer().getBean(SupportLruImageMemoryCache.class);
+    memCache.clear();
+    memCache.putElement("http://1.com", Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    memCache.putElement("http://3.com", Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    int hits = memCache.getHitCount();
+
+    BitSet cached = manager.load().add("http://1.com").add("http://2.com").add("http://3.com").probeMemCache();
+    assertThat(cached.get(0)).isTrue();
+    assertThat(cached.get(1)).isFalse();
+    assertThat(cached.get(2)).isTrue();
+    assertThat(memCache.getHitCount()).isEqualTo(hits);
+  }
+
+  @Test
+  public void clearCacheShouldRemoveDecoratedImages() {
+    SupportLruImageMemoryCache memCache = BeansManager.get(Robolectric.application).getContainer().getBean(SupportLruImageMemoryCache.class);
+    memCache.clear();
+    manager.memCacheImage("http://1.com", "http://1.com#d1@10x10", Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    assertThat(manager.isMemCached("http://1.com")).isTrue();
+
+    manager.clearCache("http://1.com");
+    assertThat(memCache.contains("http://1.com#d1@10x10")).isFalse();
+    assertThat(manager.isMemCached("http://1.com")).isFalse();
+  }
+
+  @Test
+  public void clearedMemCacheShouldDropDecoratedKeys() {
+    SupportLruImageMemoryCache memCache = BeansManager.get(Robolectric.application).getContainer().getBean(SupportLruImageMemoryCache.class);
+    memCache.clear();
+    manager.memCacheImage("http://1.com", "http://1.com#d1@10x10", Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    assertThat(manager.getDerivedKeysCount()).isEqualTo(1);
+
+    memCache.clear();
+    assertThat(manager.getDerivedKeysCount()).isZero();
+  }
+
+  @Test
+  public void evictedDecoratedImagesShouldDropTheirKeys() {
+    SupportLruImageMemoryCache memCache = BeansManager.get(Robolectric.application).getContainer().getBean(SupportLruImageMemoryCache.class);
+    memCache.clear();
+    // larger than the whole cache, so it is evicted right away
+    final int side = (int) Math.sqrt(memCache.getMaxSize() / 4) + 1;
+    manager.memCacheImage("http://1.com", "http://1.com#d1@10x10", Bitmap.createBitmap(side, side, Bitmap.Config.ARGB_8888));
+
+    assertThat(memCache.contains("http://1.com#d1@10x10")).isFalse();
+    assertThat(manager.getDerivedKeysCount()).isZero();
+  }
+
   @Test
   public void calculateSampleFactorShouldRespectDynamicSize() {
     //CHECKSTYLE:OFF
@@ -115,4 +168,50 @@ public class ImagesManagerTest extends AbstractImagesTest {
     verify(request).storeToDisk();
   }
 
+  @Test
+  public void prefetchShouldCollectStatistics() throws IOException {
+    final int bytes = 10;
+    ImageRequest r1 = spy(new ImageRequest(manager, "1", -1));
+    ImageRequest r2 = spy(new ImageRequest(manager, "2", -1));
+    doReturn((long) bytes).when(r1).downloadToDisk();
+    doThrow(IOException.class).when(r2).downloadToDisk();
+
+    ImagesPrefetch prefetch = manager.prefetchImages(Arrays.asList(r1, r2), 2, true, new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        command.run();
+      }
+    });
+
+    verify(r1, never()).storeToDisk();
+    assertThat(prefetch.isDone()).isTrue();
+    assertThat(prefetch.getTotalCount()).isEqualTo(2);
+    assertThat(prefetch.getCompletedCount()).isEqualTo(1);
+    assertThat(prefetch.getFailedCount()).isEqualTo(1);
+    assertThat(prefetch.getBytesLoaded()).isEqualTo(bytes);
+  }
+
+  @Test
+  public void cancelledPrefetchShouldSkipPendingRequests() throws IOException {
+    ImageRequest request = spy(new ImageRequest(manager, "1", -1));
+    final List<Runnable> workers = new ArrayList<Runnable>();
+
+    ImagesPrefetch prefetch = manager.prefetchImages(Collections.singletonList(request), 2, false, new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        workers.add(command);
+      }
+    });
+    assertThat(workers).hasSize(1);
+    assertThat(prefetch.isDone()).isFalse();
+
+    prefetch.cancel();
+    workers.get(0).run();
+
+    verify(request, never()).storeToDisk();
+    assertThat(prefetch.isCancelled()).isTrue();
+    assertThat(prefetch.isDone()).isTrue();
+    assertThat(prefetch.getCompletedCount()).isEqualTo(0);
+  }
+
 }
@@ -0,0 +1,156 @@
+package com.stanfy.enroscar.images.cache;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SupportLruImageMemoryCache}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class SupportLruImageMemoryCacheTest {
+
+  /** Image side. */
+  private static final int SIDE = 10;
+
+  /** Cache instance. */
+  private SupportLruImageMemoryCache cache;
+
+  /** Evicted URLs. */
+  private List<String> evicted;
+
+  @Before
+  public void init() {
+    // 2 images fit
+    cache = new SupportLruImageMemoryCache(Robolectric.application, SIDE * SIDE * 4 * 2 + 1);
+    evicted = Collections.synchronizedList(new ArrayList<String>());
+    cache.setEvictionListener(new ImageMemoryCache.EvictionListener() {
+      @Override
+      public void onImageEvicted(final String url, final Bitmap image) {
+        evicted.add(url);
+      }
+      @Override
+      public void onCacheCleared() {
+        // nothing
+      }
+    });
+  }
+
+  private static Bitmap image() {
+    return Bitmap.createBitmap(SIDE, SIDE, Bitmap.Config.ARGB_8888);
+  }
+
+  @Test
+  public void containsShouldNotPromote() {
+    cache.putElement("a", image());
+    cache.putElement("b", image());
+    assertThat(cache.contains("a")).isTrue();
+    assertThat(cache.peekElement("a")).isNotNull();
+    cache.putElement("c", image());
+
+    assertThat(evicted).containsExactly("a");
+    assertThat(cache.contains("a")).isFalse();
+    assertThat(cache.peekElement("a")).isNull();
+    assertThat(cache.contains("b")).isTrue();
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void getShouldPromoteAndCount() {
+    cache.putElement("a", image());
+    cache.putElement("b", image());
+    assertThat(cache.getElement("a")).isNotNull();
+    assertThat(cache.getElement("x")).isNull();
+    cache.putElement("c", image());
+
+    assertThat(evicted).containsExactly("b");
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void removeAndClearShouldNotNotifyListener() {
+    cache.putElement("a", image());
+    cache.putElement("b", image());
+    cache.remove("a");
+    assertThat(cache.contains("a")).isFalse();
+    cache.clear();
+    assertThat(cache.contains("b")).isFalse();
+    assertThat(cache.getSize()).isEqualTo(0);
+    assertThat(evicted).isEmpty();
+  }
+
+  @Test
+  public void evictionsDuringClearShouldBeReported() throws Exception {
+    final int iterations = 2000;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < iterations; i++) {
+          cache.putElement("i" + i, image());
+        }
+      }
+    };
+    writer.start();
+    start.countDown();
+    while (writer.isAlive()) {
+      cache.clear();
+    }
+    writer.join();
+    // clear() does not count evictions, so every counted eviction is caused by a put and must be reported
+    assertThat(evicted).hasSize(cache.getEvictionCount());
+  }
+
+  @Test
+  public void concurrentPutsShouldKeepIndexConsistent() throws Exception {
+    final Bitmap[] images = {image(), image()};
+    final int iterations = 2000;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[images.length];
+    for (int t = 0; t < threads.length; t++) {
+      final Bitmap image = images[t];
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < iterations; i++) {
+            cache.putElement("a", image);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(cache.peekElement("a")).isSameAs(cache.getElement("a"));
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.stanfy.enroscar.images.cache;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TwoTierImageMemoryCache}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class TwoTierImageMemoryCacheTest {
+
+  /** Image side. */
+  private static final int SIDE = 10;
+
+  /** Cache instance. */
+  private TwoTierImageMemoryCache cache;
+
+  /** Images (hold strong references so that they are not collected). */
+  private Bitmap a, b, c;
+
+  @Before
+  public void init() {
+    // 2 images fit
+    cache = new TwoTierImageMemoryCache(Robolectric.application, SIDE * SIDE * 4 * 2 + 1);
+    a = Bitmap.createBitmap(SIDE, SIDE, Bitmap.Config.ARGB_8888);
+    b = Bitmap.createBitmap(SIDE, SIDE, Bitmap.Config.ARGB_8888);
+    c = Bitmap.createBitmap(SIDE, SIDE, Bitmap.Config.ARGB_8888);
+    cache.putElement("a", a);
+    cache.putElement("b", b);
+    cache.putElement("c", c);
+  }
+
+  @Test
+  public void evictedImagesShouldGoToOverflowTier() {
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.getOverflowTier().size()).isEqualTo(1);
+    assertThat(cache.contains("a")).isTrue();
+    assertThat(cache.peekElement("a")).isSameAs(a);
+    assertThat(cache.getOverflowTier().getHitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void overflowHitShouldPromoteImage() {
+    assertThat(cache.getElement("a")).isSameAs(a);
+    assertThat(cache.getOverflowTier().getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+
+    // a is back in LRU, b is evicted to overflow
+    assertThat(cache.getElement("a")).isSameAs(a);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getOverflowTier().peek("b")).isSameAs(b);
+    assertThat(cache.getOverflowTier().peek("a")).isNull();
+  }
+
+  @Test
+  public void clearShouldClearBothTiers() {
+    cache.clear();
+    assertThat(cache.contains("a")).isFalse();
+    assertThat(cache.contains("c")).isFalse();
+    assertThat(cache.getOverflowTier().size()).isEqualTo(0);
+  }
+
+}
@@ -0,0 +1,71 @@
+package com.stanfy.enroscar.images.decorator;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ScratchBitmapPool}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class ScratchBitmapPoolTest {
+
+  /** Size of one bucket bitmap. */
+  private static final int BUCKET_SIZE = ScratchBitmapPool.BUCKET_STEP * ScratchBitmapPool.BUCKET_STEP * 4;
+
+  @Test
+  public void shouldReuseBuffersOfTheSameBucket() {
+    ScratchBitmapPool pool = new ScratchBitmapPool(BUCKET_SIZE * 2);
+    ScratchBitmapPool.Scratch first = pool.acquire(20, 30);
+    assertThat(first.getBitmap().getWidth()).isEqualTo(ScratchBitmapPool.BUCKET_STEP);
+    assertThat(first.getBitmap().getHeight()).isEqualTo(ScratchBitmapPool.BUCKET_STEP);
+    pool.release(first);
+
+    ScratchBitmapPool.Scratch second = pool.acquire(ScratchBitmapPool.BUCKET_STEP, 1);
+    assertThat(second).isSameAs(first);
+    assertThat(pool.getAllocationCount()).isEqualTo(1);
+    assertThat(pool.getReuseCount()).isEqualTo(1);
+
+    ScratchBitmapPool.Scratch third = pool.acquire(ScratchBitmapPool.BUCKET_STEP + 1, 1);
+    assertThat(third).isNotSameAs(first);
+    assertThat(pool.getAllocationCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRespectBudget() {
+    ScratchBitmapPool pool = new ScratchBitmapPool(BUCKET_SIZE);
+    ScratchBitmapPool.Scratch first = pool.acquire(1, 1);
+    ScratchBitmapPool.Scratch second = pool.acquire(1, 1);
+    pool.release(first);
+    pool.release(second);
+
+    assertThat(pool.getIdleSize()).isEqualTo(BUCKET_SIZE);
+    assertThat(pool.getDiscardCount()).isEqualTo(1);
+    assertThat(first.getBitmap().isRecycled()).isTrue();
+    assertThat(pool.acquire(1, 1)).isSameAs(second);
+  }
+
+  @Test
+  public void bufferDecoratorShouldReturnBufferAfterDecoration() {
+    ScratchBitmapPool pool = new ScratchBitmapPool(BUCKET_SIZE * 2);
+    MaskImageDecorator decorator = new MaskImageDecorator(2);
+    decorator.setScratchPool(pool);
+
+    decorator.setup(10, 10, null, 0, 10, 10);
+    assertThat(decorator.hasBuffer()).isTrue();
+    decorator.decorateBitmap(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888), null);
+    assertThat(decorator.hasBuffer()).isFalse();
+
+    decorator.setup(12, 12, null, 0, 12, 12);
+    assertThat(pool.getAllocationCount()).isEqualTo(1);
+    assertThat(pool.getReuseCount()).isEqualTo(1);
+  }
+
+}